@@ -0,0 +1,84 @@
+package logistikoptimierung.Benchmarks;
+
+import logistikoptimierung.Entities.FactoryObjects.LogSettings;
+import logistikoptimierung.Entities.Instance;
+import logistikoptimierung.Services.CSVDataImportService;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark state with the instance of a data set. Every benchmark runs for every data set and nr of orders, the
+ * instance is loaded once for every trial with the settings of the main class (6 drivers, warehouse capacity of
+ * 1000 and no logging). A nr of orders higher than the orders of the data set is reduced to the nr of orders of the
+ * data set.
+ */
+@State(Scope.Benchmark)
+public class DataSetState
+{
+    /**
+     * Max run time of a simulation in seconds, the same as in the main class
+     */
+    public static final long MAX_RUN_TIME = 10000000;
+
+    @Param({
+            CSVDataImportService.PARALLEL_ORDERS,
+            CSVDataImportService.MERGED_ORDERS,
+            CSVDataImportService.SIMILAR_ORDERS,
+            CSVDataImportService.TEST_ORDERS,
+            "Auftraege1.csv",
+            "Auftraege2.csv",
+            "Auftraege3.csv",
+            "Auftraege4.csv",
+            "Auftraege5.csv"
+    })
+    public String dataSet;
+
+    @Param({"1", "2", "3", "5"})
+    public int nrOfOrders;
+
+    private Instance instance;
+
+    /**
+     * Loads the instance of the data set
+     */
+    @Setup(Level.Trial)
+    public void loadInstance()
+    {
+        var dataService = new CSVDataImportService();
+        this.instance = dataService.loadDataAndCreateInstance(this.dataSet);
+
+        var logSettings = new LogSettings(
+                false,
+                false,
+                false,
+                false,
+                false,
+                false,
+                false,
+                false,
+                false,
+                false,
+                false
+        );
+
+        this.instance.setLogSettings(logSettings);
+        this.instance.setNrOfDrivers(6);
+        this.instance.setWarehouseCapacity(1000);
+        this.nrOfOrders = Math.min(this.nrOfOrders, this.instance.getOrderList().size());
+    }
+
+    /**
+     * @return the instance of the data set
+     */
+    public Instance getInstance()
+    {
+        return instance;
+    }
+
+    /**
+     * @return the nr of orders to optimize
+     */
+    public int getNrOfOrders()
+    {
+        return nrOfOrders;
+    }
+}
@@ -0,0 +1,79 @@
+package logistikoptimierung.Benchmarks;
+
+import logistikoptimierung.Entities.FactoryObjects.FactoryStep;
+import logistikoptimierung.Services.EnumeratedCalculation.EnumeratedCalculationMain;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the enumerated calculation. An optimization stops after the max system run time if the enumeration is not
+ * finished before, an iteration takes as long as the max system run time, so every iteration runs at least one
+ * optimization.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class EnumeratedCalculationBenchmark
+{
+    @Param({"0"})
+    public int parallelism;
+
+    @Param({"10"})
+    public int maxSystemRunTimeInSeconds;
+
+    /**
+     * Counts the simulations of the optimizations, JMH reports the counter as simulations per second
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class SimulationCounter
+    {
+        public long simulations;
+    }
+
+    /**
+     * Measures the optimizations per second, the secondary result are the simulations per second
+     * @param dataSetState data set of the benchmark
+     * @param simulationCounter counter for the simulations
+     * @return the best factory steps of the calculation
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public List<FactoryStep> optimize(DataSetState dataSetState, SimulationCounter simulationCounter)
+    {
+        var calculation = createCalculation(dataSetState);
+        var result = calculation.optimize(dataSetState.getNrOfOrders());
+        simulationCounter.simulations += calculation.getNrOfSimulations();
+        return result;
+    }
+
+    /**
+     * Measures the time until the first come first serve solution is improved. If the calculation does not find a
+     * better solution the time is the time of the complete optimization.
+     * @param dataSetState data set of the benchmark
+     * @return the first better factory steps of the calculation
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<FactoryStep> optimizeUntilFirstImprovement(DataSetState dataSetState)
+    {
+        var calculation = createCalculation(dataSetState);
+        calculation.setStopAtFirstImprovement(true);
+        return calculation.optimize(dataSetState.getNrOfOrders());
+    }
+
+    private EnumeratedCalculationMain createCalculation(DataSetState dataSetState)
+    {
+        var calculation = new EnumeratedCalculationMain(dataSetState.getInstance(),
+                DataSetState.MAX_RUN_TIME,
+                false,
+                TimeUnit.SECONDS.toNanos(this.maxSystemRunTimeInSeconds));
+        calculation.setParallelism(this.parallelism);
+        return calculation;
+    }
+}
@@ -0,0 +1,31 @@
+package logistikoptimierung.Benchmarks;
+
+import logistikoptimierung.Entities.FactoryObjects.FactoryStep;
+import logistikoptimierung.Services.FirstComeFirstServeOptimizer.FirstComeFirstServeOptimizerMain;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of the first come first serve optimization, with the creation of the optimizer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FirstComeFirstServeBenchmark
+{
+    /**
+     * Optimizes the orders of the data set
+     * @param dataSetState data set of the benchmark
+     * @return the factory steps of the optimization
+     */
+    @Benchmark
+    public List<FactoryStep> optimize(DataSetState dataSetState)
+    {
+        var optimizer = new FirstComeFirstServeOptimizerMain(dataSetState.getInstance());
+        return optimizer.optimize(dataSetState.getNrOfOrders());
+    }
+}
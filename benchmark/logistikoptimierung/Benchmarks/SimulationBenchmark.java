@@ -0,0 +1,67 @@
+package logistikoptimierung.Benchmarks;
+
+import logistikoptimierung.Entities.FactoryObjects.CompiledPlan;
+import logistikoptimierung.Entities.FactoryObjects.FactoryStep;
+import logistikoptimierung.Services.FirstComeFirstServeOptimizer.FirstComeFirstServeOptimizerMain;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the simulations per second of the factory conglomerate. Every simulation runs the first come first serve
+ * plan of the orders from the start with a new simulation state. The plan is simulated as step list (compiled for
+ * every simulation) and as compiled plan (compiled once).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark
+{
+    private List<FactoryStep> factorySteps;
+    private CompiledPlan plan;
+
+    /**
+     * Creates the first come first serve plan which is simulated by the benchmark
+     * @param dataSetState data set of the benchmark
+     */
+    @Setup(Level.Trial)
+    public void createFactorySteps(DataSetState dataSetState)
+    {
+        var optimizer = new FirstComeFirstServeOptimizerMain(dataSetState.getInstance());
+        this.factorySteps = optimizer.optimize(dataSetState.getNrOfOrders());
+        this.plan = CompiledPlan.compile(this.factorySteps);
+        dataSetState.getInstance().getFactoryConglomerate().resetFactory();
+    }
+
+    /**
+     * Simulates the plan
+     * @param dataSetState data set of the benchmark
+     * @return the time step after the simulation
+     */
+    @Benchmark
+    public long startSimulation(DataSetState dataSetState)
+    {
+        var instance = dataSetState.getInstance();
+        var factoryConglomerate = instance.getFactoryConglomerate();
+        var simulationState = factoryConglomerate.createSimulationState(instance.getOrderList());
+        return factoryConglomerate.startSimulation(simulationState, this.factorySteps, false, DataSetState.MAX_RUN_TIME);
+    }
+
+    /**
+     * Simulates the compiled plan
+     * @param dataSetState data set of the benchmark
+     * @return the time step after the simulation
+     */
+    @Benchmark
+    public long startCompiledSimulation(DataSetState dataSetState)
+    {
+        var instance = dataSetState.getInstance();
+        var factoryConglomerate = instance.getFactoryConglomerate();
+        var simulationState = factoryConglomerate.createSimulationState(instance.getOrderList());
+        return factoryConglomerate.startSimulation(simulationState, this.plan, false, DataSetState.MAX_RUN_TIME);
+    }
+}
@@ -0,0 +1,15 @@
+package logistikoptimierung.Contracts;
+
+/**
+ * Interface for an optimization service which can run in the background and returns every better solution as soon as
+ * it is found. The instance which gets optimized are given via the constructor.
+ */
+public interface IAnytimeOptimizationService extends IOptimizationService {
+    /**
+     * Starts the optimization of the given instance in a new thread
+     * @param nrOfOrdersToOptimize nr of orders which should be optimized.
+     * @param listener listener for every new best solution, null for no listener
+     * @return the handle of the optimization
+     */
+    IOptimizationHandle optimizeAsync(int nrOfOrdersToOptimize, IIncumbentListener listener);
+}
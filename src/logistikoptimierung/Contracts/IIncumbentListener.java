@@ -0,0 +1,15 @@
+package logistikoptimierung.Contracts;
+
+import logistikoptimierung.Entities.Incumbent;
+
+/**
+ * Listener for the solutions of an asynchronous optimization (see {@link IAnytimeOptimizationService}).
+ */
+public interface IIncumbentListener {
+    /**
+     * Is called for every new best solution of the optimization, in the thread of the optimization. Every solution
+     * is better than the solution before. The optimization waits until the listener returns.
+     * @param incumbent the new best solution
+     */
+    void onNewIncumbent(Incumbent incumbent);
+}
@@ -0,0 +1,41 @@
+package logistikoptimierung.Contracts;
+
+import logistikoptimierung.Entities.FactoryObjects.FactoryStep;
+import logistikoptimierung.Entities.Incumbent;
+
+import java.util.List;
+
+/**
+ * Handle of an asynchronous optimization (see {@link IAnytimeOptimizationService}). The handle returns the best
+ * solution found so far and can stop the optimization or change its run time while it runs.
+ */
+public interface IOptimizationHandle {
+    /**
+     * @return the best solution found so far, null if the optimization did not find a solution yet
+     */
+    Incumbent getIncumbent();
+
+    /**
+     * Waits until the optimization is finished
+     * @return the factory steps of the best solution
+     * @throws java.util.concurrent.CompletionException if the optimization failed
+     */
+    List<FactoryStep> awaitResult();
+
+    /**
+     * @return true if the optimization is finished
+     */
+    boolean isDone();
+
+    /**
+     * Stops the optimization, the optimization returns the best solution found so far
+     */
+    void cancel();
+
+    /**
+     * Sets a new max run time of the optimization, measured from the start of the optimization. The optimization
+     * stops as soon as the run time is reached, a run time which is already reached stops the optimization.
+     * @param maxSystemRunTimeInNanoSeconds max run time in nano seconds, 0 for no limit
+     */
+    void setMaxSystemRunTime(long maxSystemRunTimeInNanoSeconds);
+}
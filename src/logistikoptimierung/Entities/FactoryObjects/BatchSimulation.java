@@ -0,0 +1,76 @@
+package logistikoptimierung.Entities.FactoryObjects;
+
+import logistikoptimierung.Entities.WarehouseItems.Order;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Simulates several step lists with the same orders, for example the candidates of a population. The initial
+ * simulation state (the copied orders and the warehouse stock) is created once, every step list is simulated with a
+ * copy of it. The step lists can be simulated in parallel with a fork join pool, the results are in the order of the
+ * step lists and do not depend on the parallelism.
+ * The orders and the warehouse stock are taken when the batch simulation is created, later changes are not simulated.
+ */
+public class BatchSimulation
+{
+    private final FactoryConglomerate factoryConglomerate;
+    private final SimulationState initialState;
+    private final long maxRunTime;
+
+    /**
+     * Creates the batch simulation
+     * @param factoryConglomerate factory conglomerate to simulate
+     * @param orderList orders of every simulation
+     * @param maxRunTime sets the maximum runtime after a simulation stops
+     */
+    BatchSimulation(FactoryConglomerate factoryConglomerate, List<Order> orderList, long maxRunTime)
+    {
+        this.factoryConglomerate = factoryConglomerate;
+        this.initialState = factoryConglomerate.createSimulationState(orderList);
+        this.maxRunTime = maxRunTime;
+    }
+
+    /**
+     * Simulates every step list from the start, in parallel if a pool is given
+     * @param stepLists step lists to simulate
+     * @param pool pool for the parallel simulation, null for the sequential simulation
+     * @return the results in the order of the step lists
+     */
+    public List<SimulationResult> simulate(Collection<List<FactoryStep>> stepLists, ForkJoinPool pool)
+    {
+        var plans = new ArrayList<List<FactoryStep>>(stepLists);
+        for(var plan : plans)
+        {
+            if(plan == null)
+                throw new IllegalArgumentException("Step list must not be null");
+        }
+
+        if(pool == null)
+            return plans.stream().map(this::simulate).toList();
+        return pool.submit(() -> plans.parallelStream().map(this::simulate).toList()).join();
+    }
+
+    /**
+     * Simulates the step list from the start. Can be called from several threads.
+     * @param factorySteps steps to simulate
+     * @return the result of the simulation
+     */
+    public SimulationResult simulate(List<FactoryStep> factorySteps)
+    {
+        var simulationState = this.initialState.copy();
+        var makespan = this.factoryConglomerate.startSimulation(simulationState, CompiledPlan.compile(factorySteps),
+                false, this.maxRunTime);
+        return new SimulationResult(makespan, simulationState.getNrOfRemainingSteps(), simulationState.getCurrentIncome());
+    }
+
+    /**
+     * @return the maximum runtime of a simulation
+     */
+    public long getMaxRunTime()
+    {
+        return maxRunTime;
+    }
+}
@@ -0,0 +1,253 @@
+package logistikoptimierung.Entities.FactoryObjects;
+
+import java.util.*;
+
+/**
+ * Compiled form of a step list for the simulation. The attributes of the steps are stored in arrays with the position
+ * of the step in the step list: the step type, the index of the factory object (see {@link FactoryObject#getIndex()}),
+ * the index of the warehouse item (see {@link logistikoptimierung.Entities.WarehouseItems.WarehouseItem#getIndex()}),
+ * the amount and the do time step. The steps to do before and the steps which wait for a step are stored as positions
+ * in a compressed row layout: the entries of a step are between its offset and the offset of the next step.
+ * A step to do before which is not part of the plan has the position -1.
+ * A plan does not change, a simulation which gets more steps uses a new plan with the steps appended (see
+ * {@link #append(List)}). A plan can be used by several simulations and threads at the same time.
+ */
+public class CompiledPlan
+{
+    private static final CompiledPlan EMPTY_PLAN = compile(List.of());
+
+    private final FactoryStep[] steps;
+    private final Map<FactoryStep, Integer> positions;
+    private final FactoryStepTypes[] stepTypes;
+    private final int[] factoryObjectIndices;
+    private final int[] itemIndices;
+    private final int[] amounts;
+    private final long[] doTimeSteps;
+    private final int[] predecessorOffsets;
+    private final int[] predecessors;
+    private final int[] dependentOffsets;
+    private final int[] dependents;
+
+    private CompiledPlan(FactoryStep[] steps)
+    {
+        var nrOfSteps = steps.length;
+        this.steps = steps;
+        this.positions = new HashMap<>(nrOfSteps * 2);
+        this.stepTypes = new FactoryStepTypes[nrOfSteps];
+        this.factoryObjectIndices = new int[nrOfSteps];
+        this.itemIndices = new int[nrOfSteps];
+        this.amounts = new int[nrOfSteps];
+        this.doTimeSteps = new long[nrOfSteps];
+
+        var nrOfPredecessors = 0;
+        for(int position = 0; position < nrOfSteps; position++)
+        {
+            var step = steps[position];
+            if(this.positions.put(step, position) != null)
+                throw new IllegalArgumentException("The step list contains the step more than once: " + step);
+
+            this.stepTypes[position] = step.getStepType();
+            this.factoryObjectIndices[position] = step.getFactoryObject().getIndex();
+            this.itemIndices[position] = step.getItemToManipulate() == null ? -1 : step.getItemToManipulate().getIndex();
+            this.amounts[position] = step.getAmountOfItems();
+            this.doTimeSteps[position] = step.getDoTimeStep();
+            if(step.getFactoryStepsToDoBefore() != null)
+                nrOfPredecessors += step.getFactoryStepsToDoBefore().size();
+        }
+
+        //Steps to do before, a step can wait for a step which comes later in the list
+        this.predecessorOffsets = new int[nrOfSteps + 1];
+        this.predecessors = new int[nrOfPredecessors];
+        var nrOfDependents = new int[nrOfSteps + 1];
+        var index = 0;
+        for(int position = 0; position < nrOfSteps; position++)
+        {
+            this.predecessorOffsets[position] = index;
+            var stepsBefore = steps[position].getFactoryStepsToDoBefore();
+            if(stepsBefore == null)
+                continue;
+
+            for(var stepBefore : stepsBefore)
+            {
+                var predecessor = this.positions.getOrDefault(stepBefore, -1);
+                this.predecessors[index++] = predecessor;
+                if(predecessor >= 0)
+                    nrOfDependents[predecessor + 1]++;
+            }
+        }
+        this.predecessorOffsets[nrOfSteps] = index;
+
+        //Steps which wait for a step, in the order of the step list
+        this.dependentOffsets = new int[nrOfSteps + 1];
+        for(int position = 0; position < nrOfSteps; position++)
+            this.dependentOffsets[position + 1] = this.dependentOffsets[position] + nrOfDependents[position + 1];
+        this.dependents = new int[this.dependentOffsets[nrOfSteps]];
+        var nextDependentIndex = Arrays.copyOf(this.dependentOffsets, nrOfSteps);
+        for(int position = 0; position < nrOfSteps; position++)
+        {
+            for(int i = this.predecessorOffsets[position]; i < this.predecessorOffsets[position + 1]; i++)
+            {
+                var predecessor = this.predecessors[i];
+                if(predecessor >= 0)
+                    this.dependents[nextDependentIndex[predecessor]++] = position;
+            }
+        }
+    }
+
+    /**
+     * Compiles a step list
+     * @param factorySteps steps in the order of the simulation
+     * @return the plan with the steps
+     * @throws IllegalArgumentException if the step list contains a step more than once
+     */
+    public static CompiledPlan compile(List<FactoryStep> factorySteps)
+    {
+        return new CompiledPlan(factorySteps.toArray(new FactoryStep[0]));
+    }
+
+    /**
+     * @return a plan without steps
+     */
+    public static CompiledPlan emptyPlan()
+    {
+        return EMPTY_PLAN;
+    }
+
+    /**
+     * Creates a plan with the steps of this plan and the new steps at the end. The steps of this plan keep their
+     * positions.
+     * @param factorySteps steps to append
+     * @return the new plan
+     * @throws IllegalArgumentException if the step list contains a step more than once
+     */
+    public CompiledPlan append(List<FactoryStep> factorySteps)
+    {
+        if(factorySteps.isEmpty())
+            return this;
+
+        var newSteps = Arrays.copyOf(this.steps, this.steps.length + factorySteps.size());
+        for(int i = 0; i < factorySteps.size(); i++)
+            newSteps[this.steps.length + i] = factorySteps.get(i);
+        return new CompiledPlan(newSteps);
+    }
+
+    /**
+     * @return the steps of the plan in the order of the step list (unmodifiable)
+     */
+    public List<FactoryStep> toFactorySteps()
+    {
+        return Collections.unmodifiableList(Arrays.asList(this.steps));
+    }
+
+    /**
+     * @return the nr of steps
+     */
+    public int size()
+    {
+        return this.steps.length;
+    }
+
+    /**
+     * @param factoryStep step to find
+     * @return the position of the step, -1 if the step is not part of the plan
+     */
+    public int getPosition(FactoryStep factoryStep)
+    {
+        var position = this.positions.get(factoryStep);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * @param position position of the step
+     * @return the step at the position
+     */
+    public FactoryStep getStep(int position)
+    {
+        return this.steps[position];
+    }
+
+    /**
+     * @param position position of the step
+     * @return the step type of the step
+     */
+    public FactoryStepTypes getStepType(int position)
+    {
+        return this.stepTypes[position];
+    }
+
+    /**
+     * @param position position of the step
+     * @return the index of the factory object of the step, -1 if the factory object has no index
+     */
+    public int getFactoryObjectIndex(int position)
+    {
+        return this.factoryObjectIndices[position];
+    }
+
+    /**
+     * @param position position of the step
+     * @return the index of the warehouse item of the step, -1 if the item has no index (e.g. an order)
+     */
+    public int getItemIndex(int position)
+    {
+        return this.itemIndices[position];
+    }
+
+    /**
+     * @param position position of the step
+     * @return the amount of items of the step
+     */
+    public int getAmount(int position)
+    {
+        return this.amounts[position];
+    }
+
+    /**
+     * @param position position of the step
+     * @return the do time step of the step
+     */
+    public long getDoTimeStep(int position)
+    {
+        return this.doTimeSteps[position];
+    }
+
+    /**
+     * The steps to do before of the step are stored from this index to the index of the next step
+     * (see {@link #getPredecessor(int)})
+     * @param position position of the step, the size of the plan for the end of the last step
+     * @return the index of the first step to do before
+     */
+    int getPredecessorOffset(int position)
+    {
+        return this.predecessorOffsets[position];
+    }
+
+    /**
+     * @param index index of the step to do before (see {@link #getPredecessorOffset(int)})
+     * @return the position of the step to do before, -1 if the step is not part of the plan
+     */
+    int getPredecessor(int index)
+    {
+        return this.predecessors[index];
+    }
+
+    /**
+     * The steps which wait for the step are stored from this index to the index of the next step
+     * (see {@link #getDependent(int)})
+     * @param position position of the step, the size of the plan for the end of the last step
+     * @return the index of the first step which waits for the step
+     */
+    int getDependentOffset(int position)
+    {
+        return this.dependentOffsets[position];
+    }
+
+    /**
+     * @param index index of the waiting step (see {@link #getDependentOffset(int)})
+     * @return the position of the step which waits for the step
+     */
+    int getDependent(int index)
+    {
+        return this.dependents[index];
+    }
+}
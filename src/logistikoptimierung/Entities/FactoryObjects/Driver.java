@@ -2,15 +2,15 @@ package logistikoptimierung.Entities.FactoryObjects;
 
 /**
  * This class creates a Driver for a Transporter. It does not support any specific tasks.
- * If the driver is assigned to a Transporter the transporter object sets the blocked time to the same value as the
- * transporter.
+ * If the driver is assigned to a Transporter the transporter sets the blocked time of the driver in the simulation state to
+ * the same value as the transporter.
  */
 public class Driver extends FactoryObject
 {
     /**
      * This class creates a Driver for a Transporter. It does not support any specific tasks.
-     * If the driver is assigned to a Transporter the transporter object sets the blocked time to the same value as the
-     * transporter.
+     * If the driver is assigned to a Transporter the transporter sets the blocked time of the driver in the simulation state
+     * to the same value as the transporter.
      * @param name sets the name
      * @param id sets the id
      */
@@ -18,12 +18,4 @@ public class Driver extends FactoryObject
         super(name, "D" + id, LogMessageTypes.Driver);
     }
 
-    /**
-     * Resets the object and sets the blocked until time step back to 0.
-     */
-    public void resetDriver()
-    {
-        super.setBlockedUntilTimeStep(0);
-    }
-
 }
@@ -0,0 +1,168 @@
+package logistikoptimierung.Entities.FactoryObjects;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Index of the drivers which are not blocked, part of the {@link SimulationState}. The blocked drivers are stored in
+ * a min heap by the time step until they are blocked, the free drivers in a bitset by their position in the driver
+ * list. A query pops the drivers which are free at the time step from the heap, so a driver is checked once per tour
+ * and not at every event time step. Like the loop over the driver list the free driver with the lowest position is
+ * returned.
+ * A driver which is blocked again before its heap entry was popped keeps the old entry, the old entry is skipped
+ * because its time step differs from the blocked time step of the driver.
+ */
+class DriverAvailabilityIndex
+{
+    private final Driver[] drivers;
+    private final int firstDriverIndex;
+    private final BitSet freeDrivers;
+    private long[] heapTimeSteps;
+    private int[] heapPositions;
+    private int heapSize;
+    private long lastTimeStep;
+
+    /**
+     * Creates the index, every driver is free at the time step 0
+     * @param drivers drivers of the factory conglomerate, the drivers have consecutive indices
+     */
+    DriverAvailabilityIndex(List<Driver> drivers)
+    {
+        this.drivers = drivers.toArray(new Driver[0]);
+        this.firstDriverIndex = this.drivers.length == 0 ? 0 : this.drivers[0].getIndex();
+        this.freeDrivers = new BitSet(this.drivers.length);
+        this.freeDrivers.set(0, this.drivers.length);
+        this.heapTimeSteps = new long[Math.max(this.drivers.length, 1)];
+        this.heapPositions = new int[this.heapTimeSteps.length];
+        this.heapSize = 0;
+        this.lastTimeStep = 0;
+    }
+
+    private DriverAvailabilityIndex(DriverAvailabilityIndex index)
+    {
+        this.drivers = index.drivers;
+        this.firstDriverIndex = index.firstDriverIndex;
+        this.freeDrivers = (BitSet) index.freeDrivers.clone();
+        this.heapTimeSteps = index.heapTimeSteps.clone();
+        this.heapPositions = index.heapPositions.clone();
+        this.heapSize = index.heapSize;
+        this.lastTimeStep = index.lastTimeStep;
+    }
+
+    /**
+     * @return a copy of the index
+     */
+    DriverAvailabilityIndex copy()
+    {
+        return new DriverAvailabilityIndex(this);
+    }
+
+    /**
+     * @param factoryObject factory object to check
+     * @return true if the factory object is a driver of the index
+     */
+    boolean isIndexedDriver(FactoryObject factoryObject)
+    {
+        var position = factoryObject.getIndex() - this.firstDriverIndex;
+        return position >= 0 && position < this.drivers.length && this.drivers[position] == factoryObject;
+    }
+
+    /**
+     * Updates the index after the blocked time step of the driver was changed
+     * @param driver driver of the index (see {@link #isIndexedDriver(FactoryObject)})
+     * @param blockedUntilTimeStep the new time step until the driver is blocked
+     */
+    void setBlockedUntilTimeStep(Driver driver, long blockedUntilTimeStep)
+    {
+        var position = driver.getIndex() - this.firstDriverIndex;
+        this.freeDrivers.clear(position);
+        push(blockedUntilTimeStep, position);
+    }
+
+    /**
+     * Returns the free driver with the lowest position in the driver list
+     * @param currentTimeStep current time step of the simulation
+     * @param blockedUntilTimeSteps blocked time steps of the factory objects
+     * @return the driver or null if every driver is blocked
+     */
+    Driver getNotBlockedDriver(long currentTimeStep, long[] blockedUntilTimeSteps)
+    {
+        //The simulation time does not go back, a state which is used for an earlier time step is indexed again
+        if(currentTimeStep < this.lastTimeStep)
+            rebuild(blockedUntilTimeSteps);
+        this.lastTimeStep = currentTimeStep;
+
+        while (this.heapSize > 0 && this.heapTimeSteps[0] <= currentTimeStep)
+        {
+            var timeStep = this.heapTimeSteps[0];
+            var position = this.heapPositions[0];
+            pop();
+            if(blockedUntilTimeSteps[this.firstDriverIndex + position] == timeStep)
+                this.freeDrivers.set(position);
+        }
+
+        var position = this.freeDrivers.nextSetBit(0);
+        if(position < 0)
+            return null;
+        return this.drivers[position];
+    }
+
+    private void rebuild(long[] blockedUntilTimeSteps)
+    {
+        this.freeDrivers.clear();
+        this.heapSize = 0;
+        for(int position = 0; position < this.drivers.length; position++)
+            push(blockedUntilTimeSteps[this.firstDriverIndex + position], position);
+    }
+
+    private void push(long timeStep, int position)
+    {
+        if(this.heapSize == this.heapTimeSteps.length)
+        {
+            this.heapTimeSteps = Arrays.copyOf(this.heapTimeSteps, this.heapSize * 2);
+            this.heapPositions = Arrays.copyOf(this.heapPositions, this.heapSize * 2);
+        }
+
+        var child = this.heapSize++;
+        while (child > 0)
+        {
+            var parent = (child - 1) / 2;
+            if(!isBefore(timeStep, position, this.heapTimeSteps[parent], this.heapPositions[parent]))
+                break;
+            this.heapTimeSteps[child] = this.heapTimeSteps[parent];
+            this.heapPositions[child] = this.heapPositions[parent];
+            child = parent;
+        }
+        this.heapTimeSteps[child] = timeStep;
+        this.heapPositions[child] = position;
+    }
+
+    private void pop()
+    {
+        var timeStep = this.heapTimeSteps[--this.heapSize];
+        var position = this.heapPositions[this.heapSize];
+        var parent = 0;
+        while (true)
+        {
+            var child = 2 * parent + 1;
+            if(child >= this.heapSize)
+                break;
+            if(child + 1 < this.heapSize && isBefore(this.heapTimeSteps[child + 1], this.heapPositions[child + 1],
+                    this.heapTimeSteps[child], this.heapPositions[child]))
+                child++;
+            if(!isBefore(this.heapTimeSteps[child], this.heapPositions[child], timeStep, position))
+                break;
+            this.heapTimeSteps[parent] = this.heapTimeSteps[child];
+            this.heapPositions[parent] = this.heapPositions[child];
+            parent = child;
+        }
+        this.heapTimeSteps[parent] = timeStep;
+        this.heapPositions[parent] = position;
+    }
+
+    private static boolean isBefore(long timeStep, int position, long otherTimeStep, int otherPosition)
+    {
+        return timeStep < otherTimeStep || timeStep == otherTimeStep && position < otherPosition;
+    }
+}
@@ -5,9 +5,7 @@ import logistikoptimierung.Entities.WarehouseItems.WarehousePosition;
 import logistikoptimierung.Entities.WarehouseItems.Product;
 import logistikoptimierung.Entities.WarehouseItems.WarehouseItem;
 
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * This class create an object of the factory. The factory can have several production processes for different products.
@@ -17,22 +15,15 @@ import java.util.Set;
  * - Move the produced product to the output buffer
  * - Move the produced product from the output buffer to the warehouse
  * Furthermore, the class simulates the blocked time, and the size of the input/output buffer and checks
- * if the material for the production is available.
+ * if the material for the production is available. The buffers are stored in the {@link FactoryState} of the simulation.
  */
 public class Factory extends FactoryObject
 {
+    private final int id;
     private final List<ProductionProcess> productionProcesses;
-    private int remainingNrOfInputBufferBatches;
-    private int remainingNrOfOutputBufferBatches;
     private final int maxNrOfInputBufferBatches;
     private final int maxNrOfOutputBufferBatches;
 
-    private final Set<ProductionProcess> processesInInputBuffer = new HashSet<>();
-    private WarehousePosition productInProduction;
-    private final Set<WarehousePosition> productsInOutputBuffer = new HashSet<>();
-
-    private FactoryStepTypes currentTask;
-
     /**
      * This class create an object of the factory. The factory can have several production processes for different products.
      * The possible tasks for the production are:
@@ -57,9 +48,8 @@ public class Factory extends FactoryObject
                    int maxNrOfOutputBufferBatches)
     {
         super(name, "P" + id, LogMessageTypes.Production);
+        this.id = id;
         this.productionProcesses = productionProcesses;
-        this.remainingNrOfInputBufferBatches = maxNrOfInputBufferBatches;
-        this.remainingNrOfOutputBufferBatches = maxNrOfOutputBufferBatches;
         this.maxNrOfInputBufferBatches = maxNrOfInputBufferBatches;
         this.maxNrOfOutputBufferBatches = maxNrOfOutputBufferBatches;
     }
@@ -71,6 +61,7 @@ public class Factory extends FactoryObject
      * - Produce => produce the product
      * - MoveProductToOutputBuffer => move the product from the production to the output buffer
      * - MoveProductFromOutputBufferToWarehouse => moves the product form the output buffer to the warehouse
+     * @param simulationState state of the simulation with the buffers of the factory
      * @param currentTimeStep sets the current timeStep
      * @param item which warehouse item should be manipulated
      * @param amountOfItems the amount of items which should be manipulated
@@ -78,20 +69,23 @@ public class Factory extends FactoryObject
      * @return return true if the task was successfully or false if not
      */
     @Override
-    public boolean doWork(long currentTimeStep, WarehouseItem item, int amountOfItems, FactoryStepTypes stepType)
+    public boolean doWork(SimulationState simulationState, long currentTimeStep, WarehouseItem item, int amountOfItems, FactoryStepTypes stepType)
     {
-        if(currentTimeStep < super.getBlockedUntilTimeStep())
+        if(currentTimeStep < simulationState.getBlockedUntilTimeStep(this))
         {
-            super.addBlockMessage(super.getName(), currentTask);
+            super.addBlockMessage(simulationState, super.getName(), simulationState.getCurrentTask(this));
             return false;
         }
 
+        var factoryState = simulationState.getFactoryState(this);
+        var warehouse = simulationState.getWarehouse();
+
         switch (stepType)
         {
             case MoveMaterialsForProductFromWarehouseToInputBuffer -> {
-                if(remainingNrOfInputBufferBatches == 0)
+                if(factoryState.getRemainingNrOfInputBufferBatches() == 0)
                 {
-                    addNotEnoughCapacityInBufferLogMessage(false);
+                    addNotEnoughCapacityInBufferLogMessage(simulationState, false);
                     return false;
                 }
 
@@ -99,7 +93,7 @@ public class Factory extends FactoryObject
 
                 if(process == null)
                 {
-                    addProcessNotFoundMessage(item);
+                    addProcessNotFoundMessage(simulationState, item);
                     return false;
                 }
 
@@ -107,35 +101,36 @@ public class Factory extends FactoryObject
                 for(var m : process.getMaterialPositions())
                 {
                     //Check if material is available
-                    if(!this.getFactory().getWarehouse().checkIfMaterialIsAvailable(m.item(), m.amount()))
+                    if(!warehouse.checkIfMaterialIsAvailable(m.item(), m.amount()))
                     {
-                        super.addErrorLogMessage("Material: " + item + " in the amount: " + amountOfItems + " not available");
+                        if(simulationState.isLoggingActivated())
+                            super.addErrorLogMessage(simulationState, "Material: " + item + " in the amount: " + amountOfItems + " not available");
                         return false;
                     }
                 }
 
                 for(var m : process.getMaterialPositions())
                 {
-                    var itemForBuffer = getFactory().getWarehouse().removeItemFromWarehouse(m);
+                    var itemForBuffer = warehouse.removeItemFromWarehouse(m);
                     if(itemForBuffer == null)
                         throw new RuntimeException();
                 }
 
-                processesInInputBuffer.add(process);
-                remainingNrOfInputBufferBatches--;
-                this.setBlockedUntilTimeStep(currentTimeStep);
-                this.currentTask = stepType;
-                addBufferLogMessage(item, false, true);
+                factoryState.getProcessesInInputBuffer().add(process);
+                factoryState.setRemainingNrOfInputBufferBatches(factoryState.getRemainingNrOfInputBufferBatches() - 1);
+                simulationState.setBlockedUntilTimeStep(this, currentTimeStep);
+                simulationState.setCurrentTask(this, stepType);
+                addBufferLogMessage(simulationState, factoryState, item, false, true);
             }
             case Produce -> {
-                if(this.remainingNrOfOutputBufferBatches == 0)
+                if(factoryState.getRemainingNrOfOutputBufferBatches() == 0)
                 {
-                    addNotEnoughCapacityInBufferLogMessage(true);
+                    addNotEnoughCapacityInBufferLogMessage(simulationState, true);
                     return false;
                 }
 
                 ProductionProcess processInInput = null;
-                for(var process : processesInInputBuffer)
+                for(var process : factoryState.getProcessesInInputBuffer())
                 {
                     if(process.getProductToProduce().equals(item))
                         processInInput = process;
@@ -143,46 +138,47 @@ public class Factory extends FactoryObject
 
                 if(processInInput == null)
                 {
-                    addItemNotInBufferLogMessage(item, false);
+                    addItemNotInBufferLogMessage(simulationState, item, false);
                     return false;
                 }
 
-                var producedProduct = produce(processInInput);
+                var producedProduct = produce(simulationState, factoryState, processInInput);
 
                 if(producedProduct == null)
                 {
-                    super.addErrorLogMessage("Not able to produce product");
+                    super.addErrorLogMessage(simulationState, "Not able to produce product");
                     return false;
                 }
 
-                this.currentTask = stepType;
-                productInProduction = producedProduct;
+                simulationState.setCurrentTask(this, stepType);
+                factoryState.setProductInProduction(producedProduct);
                 return true;
             }
             case MoveProductToOutputBuffer -> {
-                if(productInProduction == null)
+                if(factoryState.getProductInProduction() == null)
                 {
-                    super.addErrorLogMessage("No product in production. " + item.getName());
+                    if(simulationState.isLoggingActivated())
+                        super.addErrorLogMessage(simulationState, "No product in production. " + item.getName());
                     return false;
                 }
 
-                if(remainingNrOfOutputBufferBatches == 0)
+                if(factoryState.getRemainingNrOfOutputBufferBatches() == 0)
                 {
-                    super.addErrorLogMessage("Not enough space in the output buffer");
+                    super.addErrorLogMessage(simulationState, "Not enough space in the output buffer");
                     return false;
                 }
 
-                remainingNrOfOutputBufferBatches--;
-                productsInOutputBuffer.add(productInProduction);
-                productInProduction = null;
-                addBufferLogMessage(item, true, false);
-                this.setBlockedUntilTimeStep(currentTimeStep);
-                this.currentTask = stepType;
+                factoryState.setRemainingNrOfOutputBufferBatches(factoryState.getRemainingNrOfOutputBufferBatches() - 1);
+                factoryState.getProductsInOutputBuffer().add(factoryState.getProductInProduction());
+                factoryState.setProductInProduction(null);
+                addBufferLogMessage(simulationState, factoryState, item, true, false);
+                simulationState.setBlockedUntilTimeStep(this, currentTimeStep);
+                simulationState.setCurrentTask(this, stepType);
                 return true;
             }
             case MoveProductFromOutputBufferToWarehouse -> {
                 WarehousePosition productToMove = null;
-                for(var product : productsInOutputBuffer)
+                for(var product : factoryState.getProductsInOutputBuffer())
                 {
                     if(product.item().equals(item))
                         productToMove = product;
@@ -190,23 +186,23 @@ public class Factory extends FactoryObject
 
                 if(productToMove == null)
                 {
-                    addItemNotInBufferLogMessage(item, true);
+                    addItemNotInBufferLogMessage(simulationState, item, true);
                     return false;
                 }
 
-                productsInOutputBuffer.remove(productToMove);
-                remainingNrOfOutputBufferBatches++;
-                addBufferLogMessage(item, true, true);
+                factoryState.getProductsInOutputBuffer().remove(productToMove);
+                factoryState.setRemainingNrOfOutputBufferBatches(factoryState.getRemainingNrOfOutputBufferBatches() + 1);
+                addBufferLogMessage(simulationState, factoryState, item, true, true);
 
-                var result = getFactory().getWarehouse().addItemToWarehouse(productToMove);
+                var result = warehouse.addItemToWarehouse(productToMove);
                 if(!result)
                 {
-                    productsInOutputBuffer.add(productToMove);
-                    remainingNrOfOutputBufferBatches--;
+                    factoryState.getProductsInOutputBuffer().add(productToMove);
+                    factoryState.setRemainingNrOfOutputBufferBatches(factoryState.getRemainingNrOfOutputBufferBatches() - 1);
                     return false;
                 }
-                this.setBlockedUntilTimeStep(currentTimeStep);
-                this.currentTask = stepType;
+                simulationState.setBlockedUntilTimeStep(this, currentTimeStep);
+                simulationState.setCurrentTask(this, stepType);
             }
             default -> throw new IllegalStateException("Unexpected value: " + stepType);
         }
@@ -222,6 +218,11 @@ public class Factory extends FactoryObject
      */
     public ProductionProcess getProductionProcessForProduct(Product item)
     {
+        var factoryConglomerate = getFactory();
+        if(factoryConglomerate != null && factoryConglomerate.getProductionProcessIndex() != null &&
+                factoryConglomerate.getProductionProcessIndex().containsFactory(this))
+            return factoryConglomerate.getProductionProcessIndex().getProductionProcess(this, item);
+
         for(var process : productionProcesses)
         {
             if(item.getName().equals(process.getProductToProduce().getName()))
@@ -232,22 +233,32 @@ public class Factory extends FactoryObject
 
     /**
      * Produce a product. Simulates the production of a product
+     * @param simulationState state of the simulation
+     * @param factoryState state of the buffers of this factory
      * @param processInInput process for the production
      * @return a warehouse position with the product and the batch size as amount
      */
-    private WarehousePosition produce(ProductionProcess processInInput)
+    private WarehousePosition produce(SimulationState simulationState, FactoryState factoryState, ProductionProcess processInInput)
     {
-        processesInInputBuffer.remove(processInInput);
-        remainingNrOfInputBufferBatches++;
+        factoryState.getProcessesInInputBuffer().remove(processInInput);
+        factoryState.setRemainingNrOfInputBufferBatches(factoryState.getRemainingNrOfInputBufferBatches() + 1);
 
-        addBufferLogMessage(processInInput.getProductToProduce(), false, true);
-        var blockedUntilTimeStep = this.getFactory().getCurrentTimeStep() + processInInput.getProductionTime();
-        super.setBlockedUntilTimeStep(blockedUntilTimeStep);
-        addProduceItemMessage(processInInput.getProductToProduce());
+        addBufferLogMessage(simulationState, factoryState, processInInput.getProductToProduce(), false, true);
+        var blockedUntilTimeStep = simulationState.getCurrentTimeStep() + processInInput.getProductionTime();
+        simulationState.setBlockedUntilTimeStep(this, blockedUntilTimeStep);
+        addProduceItemMessage(simulationState, processInInput.getProductToProduce());
 
         return new WarehousePosition(processInInput.getProductToProduce(), processInInput.getProductionBatchSize());
     }
 
+    /**
+     * @return the unique id of the production
+     */
+    public int getId()
+    {
+        return id;
+    }
+
     /**
      * @return returns a list of every process of this production
      */
@@ -256,61 +267,76 @@ public class Factory extends FactoryObject
     }
 
     /**
-     * Resets the production. The input/output buffers are set back to empty. The blocking time step is set back to 0.
-     * Current task to None. And the item which is in production gets removed.
+     * @return the maximum nr of batches in the input buffer
      */
-    public void resetProduction()
+    public int getMaxNrOfInputBufferBatches()
     {
-        this.remainingNrOfInputBufferBatches = this.maxNrOfInputBufferBatches;
-        this.remainingNrOfOutputBufferBatches = this.maxNrOfOutputBufferBatches;
-        super.setBlockedUntilTimeStep(0);
-        this.currentTask = FactoryStepTypes.None;
-        this.productInProduction = null;
-        this.productsInOutputBuffer.clear();
-        this.processesInInputBuffer.clear();
+        return maxNrOfInputBufferBatches;
+    }
 
+    /**
+     * @return the maximum nr of batches in the output buffer
+     */
+    public int getMaxNrOfOutputBufferBatches()
+    {
+        return maxNrOfOutputBufferBatches;
     }
 
-    private void addProcessNotFoundMessage(WarehouseItem product)
+    private void addProcessNotFoundMessage(SimulationState simulationState, WarehouseItem product)
     {
+        if(!simulationState.isLoggingActivated())
+            return;
+
         var message = super.getName() + product.getName() + " Process for product not found";
-        super.addErrorLogMessage(message);
+        super.addErrorLogMessage(simulationState, message);
     }
 
-    private void addProduceItemMessage(WarehouseItem product)
+    private void addProduceItemMessage(SimulationState simulationState, WarehouseItem product)
     {
+        if(!simulationState.isLoggingActivated())
+            return;
+
         var message = super.getName() + " Task: produce " + product.getName();
-        super.addLogMessage(message);
+        super.addLogMessage(simulationState, message);
     }
 
-    private void addNotEnoughCapacityInBufferLogMessage(boolean isOutputBuffer)
+    private void addNotEnoughCapacityInBufferLogMessage(SimulationState simulationState, boolean isOutputBuffer)
     {
+        if(!simulationState.isLoggingActivated())
+            return;
+
         var bufferName = "InputBuffer";
         if(isOutputBuffer)
             bufferName = "OutputBuffer";
 
         var message = super.getName() + " Not enough capacity in " + bufferName;
-        super.addErrorLogMessage(message);
+        super.addErrorLogMessage(simulationState, message);
     }
 
-    private void addItemNotInBufferLogMessage(WarehouseItem item, boolean isOutputBuffer)
+    private void addItemNotInBufferLogMessage(SimulationState simulationState, WarehouseItem item, boolean isOutputBuffer)
     {
+        if(!simulationState.isLoggingActivated())
+            return;
+
         var bufferName = "InputBuffer";
         if(isOutputBuffer)
             bufferName = "OutputBuffer";
 
         var message = super.getName() + " item " + item.getName() + " not in " + bufferName;
-        super.addLogMessage(message);
+        super.addLogMessage(simulationState, message);
     }
 
-    private void addBufferLogMessage(WarehouseItem item, boolean isOutputBuffer, boolean isRemoveOperation)
+    private void addBufferLogMessage(SimulationState simulationState, FactoryState factoryState, WarehouseItem item, boolean isOutputBuffer, boolean isRemoveOperation)
     {
+        if(!simulationState.isLoggingActivated())
+            return;
+
         var bufferName = "InputBuffer";
-        var remCapacity = this.remainingNrOfInputBufferBatches;
+        var remCapacity = factoryState.getRemainingNrOfInputBufferBatches();
         if(isOutputBuffer)
         {
             bufferName = "OutputBuffer";
-            remCapacity = this.remainingNrOfOutputBufferBatches;
+            remCapacity = factoryState.getRemainingNrOfOutputBufferBatches();
         }
 
         var operationName = "moved";
@@ -322,6 +348,6 @@ public class Factory extends FactoryObject
         }
 
         var message = super.getName() + " " + operationName + " item " + item.getName() + " " + fromTo + " " + bufferName + " RC: " + remCapacity;
-        super.addLogMessage(message);
+        super.addLogMessage(simulationState, message);
     }
 }
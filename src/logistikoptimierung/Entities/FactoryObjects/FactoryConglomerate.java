@@ -3,32 +3,34 @@ package logistikoptimierung.Entities.FactoryObjects;
 import logistikoptimierung.Entities.WarehouseItems.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeSet;
 
 /**
  * This class creates an object for the factory conglomerate. The factory conglomerate  is the main object and contains the warehouse, transporters,
  * drivers, and different factories. This class also starts the simulation.
+ * The simulation does not change the factory conglomerate, everything which changes is stored in a {@link SimulationState}.
+ * With a separate state for every simulation, several simulations of the same factory conglomerate can run at the same time.
  */
 public class FactoryConglomerate {
 
     private final String name;
-    private long currentTimeStep;
-    private double currentIncome;
-    private long startTime;
-    private int nrOfRemainingSteps;
     private int timeStepToJump;
 
     private final Warehouse warehouse;
     private final List<Factory> factories;
     private final List<Transporter> transporters;
-    private List<Driver> drivers;
+    private List<Driver> drivers = new ArrayList<>();
     private final List<Material> suppliedMaterials;
     private final List<Product> availableProducts;
+    private final Map<String, Integer> warehouseItemIndices = new HashMap<>();
+    private volatile TransporterCompatibility transporterCompatibility;
+    private final ProductionProcessIndex productionProcessIndex;
 
-    private List<Order> workingOrderList;
-
-    private final List<LogMessage> logMessages = new ArrayList<>();
+    private SimulationState lastSimulationState;
     private LogSettings logSettings;
 
     /**
@@ -46,23 +48,28 @@ public class FactoryConglomerate {
                                List<Material> suppliedMaterials,
                                List<Product> availableProducts) {
         this.name = name;
-        this.currentTimeStep = 0;
-        this.currentIncome = 0;
 
-        this.startTime = 0;
+        //The index of the warehouse item is used for the stock in the warehouse, the stock is stored by the name
+        for(var material : suppliedMaterials)
+            getWarehouseItemIndex(material);
+        for(var product : availableProducts)
+            getWarehouseItemIndex(product);
+
         this.warehouse = new Warehouse("WH", this);
-        this.factories = new ArrayList<>(factories);
-        for(var production : this.factories)
-            production.setFactory(this);
 
         this.transporters = new ArrayList<>(transporters);
         for(var transporter : this.transporters)
             transporter.setFactory(this);
 
-
+        this.factories = new ArrayList<>(factories);
+        for(var production : this.factories)
+            production.setFactory(this);
+        updateFactoryObjectIndices();
 
         this.suppliedMaterials = new ArrayList<>(suppliedMaterials);
         this.availableProducts = new ArrayList<>(availableProducts);
+        this.transporterCompatibility = new TransporterCompatibility(this.transporters, this.suppliedMaterials);
+        this.productionProcessIndex = new ProductionProcessIndex(this, this.warehouseItemIndices, this.factories, this.suppliedMaterials);
 
         this.timeStepToJump = Integer.MAX_VALUE;
         //get smallest time step from production and supplied material
@@ -89,6 +96,7 @@ public class FactoryConglomerate {
                 false,
                 false,
                 false,
+                false,
                 false
         );
     }
@@ -99,6 +107,7 @@ public class FactoryConglomerate {
      * or no event time step is left.
      * The log settings sets the amount of messages which are printed in the console while the simulation. The not printed
      * messages are stored in the object.
+     * The state of the simulation is stored as last simulation state of the factory conglomerate.
      * @param orderList sets the orders
      * @param factorySteps sets the factory steps to perform
      * @param maxRunTime sets the maximum runtime after the simulation stops
@@ -117,6 +126,7 @@ public class FactoryConglomerate {
      * or no event time step is left.
      * The log settings sets the amount of messages which are printed in the console while the simulation. The not printed
      * messages are stored in the object.
+     * The state of the simulation is stored as last simulation state of the factory conglomerate.
      * @param orderList sets the orders
      * @param factorySteps sets the factory steps to perform
      * @param maxRunTime sets the maximum runtime after the simulation stops
@@ -129,74 +139,288 @@ public class FactoryConglomerate {
                                 boolean checkIfMaterialIsAlreadyInWarehouse,
                                 long maxRunTime)
     {
-        //Working Order List is used for storing the remaining amount of items in an Order
-        //This list changes => copy the list
-        this.workingOrderList = new ArrayList<>();
-        for(var order : orderList)
-        {
-            var copyOfOrder = order.createCopyOfOrder();
-            workingOrderList.add(copyOfOrder);
-        }
+        this.lastSimulationState = createSimulationState(orderList);
+        return startSimulation(this.lastSimulationState, factorySteps, checkIfMaterialIsAlreadyInWarehouse, maxRunTime);
+    }
 
-        logMessages.clear();
-        nrOfRemainingSteps = 0;
+    /**
+     * Creates the initial state for a simulation. The warehouse of the state starts with the current stock of the
+     * warehouse of the factory conglomerate.
+     * @param orderList sets the orders
+     * @return a new simulation state
+     */
+    public SimulationState createSimulationState(List<Order> orderList)
+    {
+        return new SimulationState(this, orderList);
+    }
 
-        int hourCount = 1;
-        addLog("Hour: " + hourCount, LogMessageTypes.Factory);
+    /**
+     * Starts the simulation with the given state. The simulation iterates and every step creates a new event time step.
+     * At every event time step the simulation tries to perform every task in the factory steps every iteration.
+     * The simulation stops if it reaches the max run time, if no factory step is left to perform or no event time step is left.
+     * Only the simulation state is changed, so simulations with different states can run at the same time.
+     * @param simulationState new state of the simulation (see {@link #createSimulationState(List)})
+     * @param factorySteps sets the factory steps to perform
+     * @param checkIfMaterialIsAlreadyInWarehouse checks if the materials is already in the warehouse for the step. If yes,
+     *                                            the step will not be performed
+     * @param maxRunTime sets the maximum runtime after the simulation stops
+     * @return the time step after the factory stops (in seconds)
+     */
+    public long startSimulation(SimulationState simulationState,
+                                List<FactoryStep> factorySteps,
+                                boolean checkIfMaterialIsAlreadyInWarehouse,
+                                long maxRunTime)
+    {
+        return startSimulation(simulationState, CompiledPlan.compile(factorySteps), checkIfMaterialIsAlreadyInWarehouse, maxRunTime);
+    }
 
-        var copyOfSteps = new ArrayList<>(factorySteps);
-        var stepsDone = new ArrayList<FactoryStep>();
+    /**
+     * Starts the simulation with the given state and a compiled step list. A step list which is simulated several
+     * times should be compiled once (see {@link CompiledPlan#compile(List)}), the plan can be used by several
+     * simulations at the same time.
+     * @param simulationState new state of the simulation (see {@link #createSimulationState(List)})
+     * @param plan compiled factory steps to perform
+     * @param checkIfMaterialIsAlreadyInWarehouse checks if the materials is already in the warehouse for the step. If yes,
+     *                                            the step will not be performed
+     * @param maxRunTime sets the maximum runtime after the simulation stops
+     * @return the time step after the factory stops (in seconds)
+     */
+    public long startSimulation(SimulationState simulationState,
+                                CompiledPlan plan,
+                                boolean checkIfMaterialIsAlreadyInWarehouse,
+                                long maxRunTime)
+    {
+        int hourCount = 1;
+        if(simulationState.isLoggingActivated())
+            simulationState.addLog("Hour: " + hourCount, LogMessageTypes.Factory);
 
-        var eventTimeSteps = new TreeSet<Long>();
+        simulationState.addSteps(plan);
         long starTime = 0;
-        eventTimeSteps.add(starTime);
+        simulationState.getEventTimeSteps().add(starTime);
 
         //For checking and deducting the warehouse items
-        var copyOfWarehouse = warehouse.copy();
+        Warehouse copyOfWarehouse = null;
+        if(checkIfMaterialIsAlreadyInWarehouse)
+            copyOfWarehouse = simulationState.getWarehouse().copy();
 
-        while (this.currentTimeStep <= maxRunTime)
-        {
-            this.currentTimeStep = eventTimeSteps.first();
-            //System.out.println("Handled: " + this.currentTimeStep);
-            var remainingSteps = new ArrayList<>(copyOfSteps);
+        return continueSimulation(simulationState, copyOfWarehouse, maxRunTime);
+    }
+
+    /**
+     * Starts the simulation like {@link #startSimulation(SimulationState, List, boolean, long)} with an early abort.
+     * The simulation stops as soon as the remaining steps can not be completed until the max run time (see
+     * {@link MakespanLowerBound}), for example if the max run time is the result of the best solution. A simulation
+     * which completes its steps until the max run time has the same result as without the early abort.
+     * The reason why the simulation stopped is stored in the state (see {@link SimulationState#getStopType()}).
+     * @param simulationState new state of the simulation (see {@link #createSimulationState(List)})
+     * @param factorySteps sets the factory steps to perform
+     * @param maxRunTime sets the maximum runtime after the simulation stops
+     * @return the time step after the factory stops (in seconds)
+     */
+    public long startSimulationWithEarlyAbort(SimulationState simulationState,
+                                              List<FactoryStep> factorySteps,
+                                              long maxRunTime)
+    {
+        return startSimulationWithEarlyAbort(simulationState, CompiledPlan.compile(factorySteps), maxRunTime);
+    }
+
+    /**
+     * Starts the simulation with a compiled step list and an early abort (see
+     * {@link #startSimulationWithEarlyAbort(SimulationState, List, long)}).
+     * @param simulationState new state of the simulation (see {@link #createSimulationState(List)})
+     * @param plan compiled factory steps to perform
+     * @param maxRunTime sets the maximum runtime after the simulation stops
+     * @return the time step after the factory stops (in seconds)
+     */
+    public long startSimulationWithEarlyAbort(SimulationState simulationState,
+                                              CompiledPlan plan,
+                                              long maxRunTime)
+    {
+        int hourCount = 1;
+        if(simulationState.isLoggingActivated())
+            simulationState.addLog("Hour: " + hourCount, LogMessageTypes.Factory);
+
+        simulationState.addSteps(plan);
+        long starTime = 0;
+        simulationState.getEventTimeSteps().add(starTime);
+        return continueSimulationWithEarlyAbort(simulationState, maxRunTime);
+    }
+
+    /**
+     * Creates a batch simulation for several step lists with the same orders (see {@link BatchSimulation}).
+     * @param orderList sets the orders
+     * @param maxRunTime sets the maximum runtime after a simulation stops
+     * @return the batch simulation
+     */
+    public BatchSimulation createBatchSimulation(List<Order> orderList, long maxRunTime)
+    {
+        return new BatchSimulation(this, orderList, maxRunTime);
+    }
+
+    /**
+     * Adds the steps at the end of the remaining steps of the state and continues the simulation. The added steps can
+     * be performed from the start time step on, the state keeps everything which happened before.
+     * Used for a new plan from a time step on (see {@link SimulationState#copyForNewPlan(List)}).
+     * @param simulationState state of the simulation
+     * @param factorySteps steps to add, the steps can wait for the completed steps of the state
+     * @param startTimeStep first time step for the added steps, not before the current time step of the state
+     * @param maxRunTime sets the maximum runtime after the simulation stops
+     * @return the time step after the factory stops (in seconds)
+     */
+    public long continueSimulation(SimulationState simulationState,
+                                   List<FactoryStep> factorySteps,
+                                   long startTimeStep,
+                                   long maxRunTime)
+    {
+        simulationState.addSteps(factorySteps);
+        simulationState.getEventTimeSteps().add(startTimeStep);
+        return continueSimulation(simulationState, null, maxRunTime);
+    }
+
+    /**
+     * Adds the steps at the end of the remaining steps of the state and continues the simulation until the time step.
+     * Every event time step before the time step is handled, so the steps which are performed before the time step
+     * are completed and the state can be continued from the time step (see
+     * {@link #continueSimulation(SimulationState, List, long, long)}).
+     * @param simulationState state of the simulation
+     * @param factorySteps steps to add, the steps can wait for the completed steps of the state
+     * @param startTimeStep first time step for the added steps, not before the current time step of the state
+     * @param timeStep time step where the simulation stops, the event time step at the time step is not handled
+     */
+    public void continueSimulationUntil(SimulationState simulationState,
+                                        List<FactoryStep> factorySteps,
+                                        long startTimeStep,
+                                        long timeStep)
+    {
+        simulationState.addSteps(factorySteps);
+        simulationState.getEventTimeSteps().add(startTimeStep);
+        var eventTimeSteps = simulationState.getEventTimeSteps();
+        while (!eventTimeSteps.isEmpty() && eventTimeSteps.first() < timeStep)
+            handleNextEventTimeStep(simulationState, null);
+    }
+
+    /**
+     * Continues the simulation with the remaining steps and event time steps of the simulation state.
+     * @param simulationState state of the simulation
+     * @param copyOfWarehouse warehouse for checking if the material is already in the warehouse, null for no check
+     * @param maxRunTime sets the maximum runtime after the simulation stops
+     * @return the time step after the factory stops (in seconds)
+     */
+    long continueSimulation(SimulationState simulationState,
+                            Warehouse copyOfWarehouse,
+                            long maxRunTime)
+    {
+        while (!simulationState.getEventTimeSteps().isEmpty() && simulationState.getCurrentTimeStep() <= maxRunTime)
+            handleNextEventTimeStep(simulationState, copyOfWarehouse);
+
+        simulationState.setStopType(getStopType(simulationState, maxRunTime));
+        simulationState.getWarehouse().addCurrentWarehouseStockMessage();
+        return simulationState.getCurrentTimeStep();
+    }
 
-            for (var step : remainingSteps)
+    /**
+     * Continues the simulation with the remaining steps and event time steps of the simulation state. Before every
+     * event time step the lower bound of the makespan is checked, the simulation stops if the remaining steps can not
+     * be completed until the max run time.
+     * @param simulationState state of the simulation
+     * @param maxRunTime sets the maximum runtime after the simulation stops
+     * @return the time step after the factory stops (in seconds)
+     */
+    long continueSimulationWithEarlyAbort(SimulationState simulationState, long maxRunTime)
+    {
+        var lowerBound = new MakespanLowerBound(simulationState);
+        var eventTimeSteps = simulationState.getEventTimeSteps();
+        var stopType = SimulationStopTypes.None;
+        while (!eventTimeSteps.isEmpty() && simulationState.getCurrentTimeStep() <= maxRunTime)
+        {
+            //Without remaining steps the simulation handles the last event time steps to get the makespan
+            if(simulationState.getNrOfRemainingSteps() != 0 &&
+                    lowerBound.getLowerBound(simulationState, eventTimeSteps.first()) > maxRunTime)
             {
-                if(step.getDoTimeStep() > this.currentTimeStep)
-                    continue;
+                stopType = SimulationStopTypes.LowerBound;
+                break;
+            }
+            handleNextEventTimeStep(simulationState, null, lowerBound);
+        }
+
+        if(stopType == SimulationStopTypes.None)
+            stopType = getStopType(simulationState, maxRunTime);
+        simulationState.setStopType(stopType);
+        simulationState.getWarehouse().addCurrentWarehouseStockMessage();
+        return simulationState.getCurrentTimeStep();
+    }
 
-                if(!step.areAllStepsBeforeCompleted())
-                    continue;
+    /**
+     * @param simulationState state after the simulation
+     * @param maxRunTime maximum runtime of the simulation
+     * @return the reason why the simulation stopped
+     */
+    private static SimulationStopTypes getStopType(SimulationState simulationState, long maxRunTime)
+    {
+        if(simulationState.getNrOfRemainingSteps() == 0)
+            return SimulationStopTypes.Completed;
+        if(simulationState.getCurrentTimeStep() > maxRunTime)
+            return SimulationStopTypes.MaxRunTime;
+        return SimulationStopTypes.NoEventTimeStep;
+    }
 
+    /**
+     * Handles the first event time step of the simulation state. The simulation tries to perform every remaining
+     * factory step and every performed step creates a new event time step.
+     * @param simulationState state of the simulation, needs at least one event time step
+     * @param copyOfWarehouse warehouse for checking if the material is already in the warehouse, null for no check
+     */
+    void handleNextEventTimeStep(SimulationState simulationState, Warehouse copyOfWarehouse)
+    {
+        handleNextEventTimeStep(simulationState, copyOfWarehouse, null);
+    }
 
-                //Check If Material is already in Warehouse
-                if(checkIfMaterialIsAlreadyInWarehouse &&
-                        checkIfStepIsForMaterialOrProductIsAlreadyInWarehouse(step, copyOfSteps, copyOfWarehouse))
-                    continue;
+    /**
+     * Handles the first event time step of the simulation state and updates the lower bound with the completed steps
+     * @param simulationState state of the simulation, needs at least one event time step
+     * @param copyOfWarehouse warehouse for checking if the material is already in the warehouse, null for no check
+     * @param lowerBound lower bound of the makespan for the early abort, null without early abort
+     */
+    private void handleNextEventTimeStep(SimulationState simulationState, Warehouse copyOfWarehouse, MakespanLowerBound lowerBound)
+    {
+        var stepQueue = simulationState.getStepQueue();
+        var eventTimeSteps = simulationState.getEventTimeSteps();
 
-                if(!step.doStep())
-                    continue;
+        simulationState.setCurrentTimeStep(eventTimeSteps.first());
+        //System.out.println("Handled: " + simulationState.getCurrentTimeStep());
 
-                copyOfSteps.remove(step);
-                stepsDone.add(step);
+        //A step which is not possible only writes a log message, with the check of the warehouse every step needs to be checked
+        var skipNotPossibleSteps = copyOfWarehouse == null && !this.logSettings.activateLogging();
+        stepQueue.startTimeStep(simulationState, skipNotPossibleSteps);
 
-                //One time step after the blocked until time
-                var newEventTimeStep = step.getFactoryObject().getBlockedUntilTimeStep() + 1;
-                eventTimeSteps.add(newEventTimeStep);
+        for (var step = stepQueue.nextStep(); step != null; step = stepQueue.nextStep())
+        {
+            //Check If Material is already in Warehouse
+            if(copyOfWarehouse != null &&
+                    checkIfStepIsForMaterialOrProductIsAlreadyInWarehouse(simulationState, step, copyOfWarehouse))
+            {
+                stepQueue.completeCurrentStep();
+                continue;
             }
 
-            eventTimeSteps.remove(this.currentTimeStep);
+            if(!step.doStep(simulationState))
+                continue;
 
-            if(eventTimeSteps.isEmpty())
-                break;
+            var position = stepQueue.completeCurrentStep();
+            if(lowerBound != null)
+                lowerBound.completePosition(simulationState, position);
+
+            //One time step after the blocked until time
+            var newEventTimeStep = simulationState.getBlockedUntilTimeStep(step.getFactoryObject()) + 1;
+            eventTimeSteps.add(newEventTimeStep);
         }
 
-        nrOfRemainingSteps = copyOfSteps.size();
-        this.getWarehouse().addCurrentWarehouseStockMessage();
-        return this.currentTimeStep;
+        eventTimeSteps.remove(simulationState.getCurrentTimeStep());
     }
 
-    private boolean checkIfStepIsForMaterialOrProductIsAlreadyInWarehouse(FactoryStep step, List<FactoryStep> copyOfSteps, Warehouse copyOfWarehouse)
+    private boolean checkIfStepIsForMaterialOrProductIsAlreadyInWarehouse(SimulationState simulationState,
+                                                                          FactoryStep step,
+                                                                          Warehouse copyOfWarehouse)
     {
         switch (step.getStepType())
         {
@@ -210,49 +434,95 @@ public class FactoryConglomerate {
                 if(materialFromWarehouse == null)
                     break;
 
-                step.setCompletedToTrue();
-                copyOfSteps.remove(step);
+                simulationState.setStepCompleted(step, true);
                 return true;
         }
 
         return false;
     }
 
+    /**
+     * @return the state of the last simulation which was started with the order list, null if no simulation was started
+     * after the last reset
+     */
+    public SimulationState getLastSimulationState()
+    {
+        return this.lastSimulationState;
+    }
+
     /**
      * @return returns after the simulation, if the max runtime is reached the nr of remaining steps
      */
     public int getNrOfRemainingSteps()
     {
-        return this.nrOfRemainingSteps;
+        if(this.lastSimulationState == null)
+            return 0;
+        return this.lastSimulationState.getNrOfRemainingSteps();
     }
 
     /**
-     * Resets the factory and every factory object to its initial state.
+     * Resets the factory to its initial state. The state of the last simulation is removed and the warehouse is cleared.
      */
     public void resetFactory()
     {
-        this.currentTimeStep = 0;
-        this.currentIncome = 0;
-        this.startTime = 0;
-
+        this.lastSimulationState = null;
         this.warehouse.resetWarehouse();
+    }
 
-        for (var production : factories)
-        {
-            production.resetProduction();
-        }
+    /**
+     * Adds a transporter to the fleet. The indices of the factory objects change, so the simulation states which were
+     * created before can not be used anymore.
+     * @param transporter transporter to add
+     */
+    public void addTransporter(Transporter transporter)
+    {
+        if(this.transporters.contains(transporter))
+            throw new IllegalArgumentException("The transporter " + transporter.getName() + " is already in the fleet");
 
-        for(var transporter : transporters)
-        {
-            transporter.resetTransporter();
-        }
+        transporter.setFactory(this);
+        this.transporters.add(transporter);
+        updateFactoryObjectIndices();
+        this.transporterCompatibility = new TransporterCompatibility(this.transporters, this.suppliedMaterials);
+    }
 
-        for(var driver : drivers)
-        {
-            driver.resetDriver();
-        }
+    /**
+     * Removes a transporter from the fleet. The indices of the factory objects change, so the simulation states which
+     * were created before can not be used anymore.
+     * @param transporter transporter to remove
+     */
+    public void removeTransporter(Transporter transporter)
+    {
+        if(!this.transporters.remove(transporter))
+            throw new IllegalArgumentException("The transporter " + transporter.getName() + " is not in the fleet");
 
-        this.workingOrderList.clear();
+        transporter.setIndex(-1);
+        updateFactoryObjectIndices();
+        this.transporterCompatibility = new TransporterCompatibility(this.transporters, this.suppliedMaterials);
+    }
+
+    /**
+     * Returns the index of the transporters which fulfill the transportation constraints of the materials and orders.
+     * A new index is created if the fleet changes.
+     * @return the transporter compatibility of the current fleet
+     */
+    public TransporterCompatibility getTransporterCompatibility()
+    {
+        return this.transporterCompatibility;
+    }
+
+    /**
+     * The index of the factory object is used for the state of the object in the simulation state. The transporters
+     * are followed by the factories and the drivers.
+     */
+    private void updateFactoryObjectIndices()
+    {
+        var index = 0;
+        for(var transporter : this.transporters)
+            transporter.setIndex(index++);
+        for(var production : this.factories)
+            production.setIndex(index++);
+        for(var driver : this.drivers)
+            driver.setIndex(index++);
     }
 
     /**
@@ -262,10 +532,59 @@ public class FactoryConglomerate {
     public void setNrOfDrivers(int nrOfDrivers)
     {
         this.drivers = new ArrayList<>();
+        var index = this.transporters.size() + this.factories.size();
         for(int i = 0; i < nrOfDrivers; i++)
         {
-            drivers.add(new Driver(i + "", i));
+            var driver = new Driver(i + "", i);
+            driver.setFactory(this);
+            driver.setIndex(index + i);
+            drivers.add(driver);
+        }
+    }
+
+    /**
+     * Returns the index of the warehouse item in the warehouse stock. Items with the same name get the same index,
+     * an item without an index gets the next free index.
+     * @param warehouseItem item to check
+     * @return the index of the item
+     */
+    public synchronized int getWarehouseItemIndex(WarehouseItem warehouseItem)
+    {
+        var index = this.warehouseItemIndices.get(warehouseItem.getName());
+        if(index == null)
+        {
+            index = this.warehouseItemIndices.size();
+            this.warehouseItemIndices.put(warehouseItem.getName(), index);
         }
+        warehouseItem.setIndex(index);
+        return index;
+    }
+
+    /**
+     * @return the nr of warehouse items with an index
+     */
+    public synchronized int getNrOfWarehouseItems()
+    {
+        return this.warehouseItemIndices.size();
+    }
+
+    /**
+     * @return the names of the warehouse items at their index (see {@link #getWarehouseItemIndex(WarehouseItem)})
+     */
+    synchronized String[] getWarehouseItemNames()
+    {
+        var names = new String[this.warehouseItemIndices.size()];
+        for(var entry : this.warehouseItemIndices.entrySet())
+            names[entry.getValue()] = entry.getKey();
+        return names;
+    }
+
+    /**
+     * @return the nr of factory objects (transporters, factories and drivers) which have a state in the simulation
+     */
+    public int getNrOfFactoryObjects()
+    {
+        return this.transporters.size() + this.factories.size() + this.drivers.size();
     }
 
     /**
@@ -278,10 +597,20 @@ public class FactoryConglomerate {
     }
 
     /**
-     * @return the current time step of the simulation
+     * @return the log settings of the factory
+     */
+    public LogSettings getLogSettings()
+    {
+        return this.logSettings;
+    }
+
+    /**
+     * @return the current time step of the last simulation
      */
     public long getCurrentTimeStep() {
-        return currentTimeStep;
+        if(this.lastSimulationState == null)
+            return 0;
+        return this.lastSimulationState.getCurrentTimeStep();
     }
 
     /**
@@ -292,10 +621,11 @@ public class FactoryConglomerate {
     }
 
     /**
-     * @return a list of transporters in the factory
+     * @return a list of transporters in the factory, the fleet is changed with {@link #addTransporter(Transporter)}
+     * and {@link #removeTransporter(Transporter)}
      */
     public List<Transporter> getTransporters() {
-        return transporters;
+        return Collections.unmodifiableList(transporters);
     }
 
     /**
@@ -322,21 +652,6 @@ public class FactoryConglomerate {
         return this.drivers;
     }
 
-    /**
-     * Returns a list of drivers which are not blocked by a task
-     * @return a list of drivers or null if no driver is available
-     */
-    public Driver getNotBlockedDriver()
-    {
-        for(var driver : drivers)
-        {
-            if(currentTimeStep >= driver.getBlockedUntilTimeStep())
-                return driver;
-        }
-
-        return null;
-    }
-
     /**
      * Returns a list of factory objects which are transporters and productions
      * @return a list of factory objects
@@ -357,31 +672,15 @@ public class FactoryConglomerate {
     }
 
     /**
-     * Gets the every production processes for a specific product to produce.
+     * Gets the every production processes for a specific product to produce: the process of the product followed by
+     * the processes of the sub products (depth first). The list is a copy of the flattened bill of materials which is
+     * created with the factory conglomerate.
      * @param product the specific product to produce
      * @return a list or production processes. Returns an empty list if no production process was found for the product.
      */
     public List<ProductionProcess> getProductionProcessesForProduct(WarehouseItem product)
     {
-        var processList = new ArrayList<ProductionProcess>();
-        addProcessesRecursiveToList(product, processList);
-        return processList;
-    }
-
-    private void addProcessesRecursiveToList(WarehouseItem product, List<ProductionProcess> productionProcesses)
-    {
-        if(!(product instanceof Product))
-            return;
-
-        var process = getProductionProcessForProduct((Product) product);
-        if(process != null)
-        {
-            productionProcesses.add(process);
-            for(var subProduct : process.getMaterialPositions())
-            {
-                addProcessesRecursiveToList(subProduct.item(), productionProcesses);
-            }
-        }
+        return new ArrayList<>(this.productionProcessIndex.getFlattenedProductionProcesses(product));
     }
 
     /**
@@ -450,13 +749,7 @@ public class FactoryConglomerate {
      */
     public ProductionProcess getProductionProcessForProduct(Product item)
     {
-        for (var production : factories)
-        {
-            var process = production.getProductionProcessForProduct(item);
-            if(process != null)
-                return process;
-        }
-        return null;
+        return this.productionProcessIndex.getProductionProcess(item);
     }
 
     /**
@@ -466,16 +759,19 @@ public class FactoryConglomerate {
      */
     public boolean checkIfItemHasASupplier(WarehouseItem item)
     {
-        for (var suppliedMaterial : this.suppliedMaterials)
-        {
-            if(suppliedMaterial.getName().equals(item.getName()))
-                return true;
-        }
-        return false;
+        return this.productionProcessIndex.hasSupplier(item);
     }
 
     /**
-     * Returns a list of every warehouse item (products, materials, orders)
+     * @return the index of the production processes, null while the factory conglomerate is created
+     */
+    ProductionProcessIndex getProductionProcessIndex()
+    {
+        return this.productionProcessIndex;
+    }
+
+    /**
+     * Returns a list of every warehouse item (products, materials and the working orders of the last simulation)
      * @return list of warehouse items
      */
     public List<WarehouseItem> getAvailableWarehouseItems()
@@ -483,169 +779,56 @@ public class FactoryConglomerate {
         var result = new ArrayList<WarehouseItem>();
         result.addAll(suppliedMaterials);
         result.addAll(availableProducts);
-        result.addAll(workingOrderList);
+        if(this.lastSimulationState != null)
+            result.addAll(this.lastSimulationState.getWorkingOrderList());
 
         return result;
     }
 
     /**
-     * Increase the income of the factory
-     * @param additionalIncome the income which should be added to the current factory income
-     */
-    public void increaseIncome(double additionalIncome)
-    {
-        this.currentIncome += additionalIncome;
-        var message = "Income increase, new income: " + additionalIncome;
-        addLog(message, LogMessageTypes.Factory);
-    }
-
-    /**
-     * @return the current income
-     */
-    public double getCurrentIncome() {
-        return currentIncome;
-    }
-
-    /**
-     * adds a log message to the factory and print the message in the console if the settings are set for the message
-     * @param message message to log
-     * @param factoryObjectType the object which has the message
-     * @param completed if the factory step was completed
-     */
-    private void addLog(String message, LogMessageTypes factoryObjectType, boolean completed)
-    {
-        if(!logSettings.activateLogging())
-            return;
-
-        var newMessage = new LogMessage(currentTimeStep, message, factoryObjectType);
-        this.logMessages.add(newMessage);
-        switch (factoryObjectType)
-        {
-            case Driver -> {
-                if(this.logSettings.printDriverMessages())
-                    System.out.println(newMessage);
-            }
-            case Factory -> {
-                if(this.logSettings.printFactoryMessage())
-                    System.out.println(newMessage);
-            }
-            case FactoryStep -> {
-                if(!this.logSettings.printFactoryStepMessages())
-                    break;
-
-                if(this.logSettings.printOnlyCompletedFactoryStepMessages())
-                {
-                    if(completed)
-                        System.out.println(newMessage);
-                    break;
-                }
-
-                System.out.println(newMessage);
-            }
-            case Production -> {
-                if(this.logSettings.printProductionMessages())
-                    System.out.println(newMessage);
-            }
-            case Transporter -> {
-                if(this.logSettings.printTransportMessages())
-                    System.out.println(newMessage);
-            }
-            case WarehouseStock ->{
-                if(this.logSettings.printWarehouseStockChangeMessages())
-                    System.out.println(newMessage);
-            }
-            case Warehouse -> {
-                if(this.logSettings.printWarehouseMessages())
-                    System.out.println(newMessage);
-            }
-            case CurrentWarehouseStock -> {
-                if(this.logSettings.printCurrentWarehouseStockAfterChangeMessages())
-                    System.out.println(newMessage);
-            }
-        }
-    }
-
-    /**
-     * adds a log message to the factory and print the message in the console if the settings are set for the message
-     * @param message message to log
-     * @param factoryObjectType the object which has the message
+     * @return the materials for supply
      */
-    public void addLog(String message, LogMessageTypes factoryObjectType)
+    public List<Material> getSuppliedMaterials()
     {
-        addLog(message, factoryObjectType, true);
+        return suppliedMaterials;
     }
 
     /**
-     * adds a log message for a factory step to the factory and print the message in the console if the settings are set for the message
-     * @param message message to log
-     * @param factoryObjectType the object which has the message
-     * @param completed if the factory step was completed
+     * @return the available products
      */
-    public void addFactoryStepLog(String message, LogMessageTypes factoryObjectType, boolean completed)
+    public List<Product> getAvailableProducts()
     {
-        addLog(message, factoryObjectType, completed);
+        return availableProducts;
     }
 
     /**
-     * adds a log message if a factory object was blocked for a task.
-     * @param name name of the factory object
-     * @param stepType step type which the object wanted to perform
-     * @param factoryObjectType type of the factory object
+     * @return the income of the last simulation
      */
-    public void addBlockLog(String name, FactoryStepTypes stepType, LogMessageTypes factoryObjectType)
-    {
-        addLog(name + " is blocked from Task: " + stepType, factoryObjectType);
+    public double getCurrentIncome() {
+        if(this.lastSimulationState == null)
+            return 0;
+        return this.lastSimulationState.getCurrentIncome();
     }
 
     /**
-     * prints every log message
+     * prints every log message of the last simulation
      */
     public void printAllLogMessage() {
         printLogMessageFromTo(-1, -1);
     }
 
     /**
-     * prints every log message in the time between the from and to time step
+     * prints every log message of the last simulation in the time between the from and to time step
      * @param fromTimeStamp start for the messages
      * @param toTimeStamp end for the messages
      */
     public void printLogMessageFromTo(long fromTimeStamp, long toTimeStamp)
     {
-        if(logMessages.isEmpty()) {
+        if(this.lastSimulationState == null) {
             System.out.println("No logs");
             return;
         }
 
-        if(fromTimeStamp == -1)
-            fromTimeStamp = startTime;
-
-        if(toTimeStamp == -1)
-        {
-            var indexOfLastItem = logMessages.size() -1;
-            var lastItem = logMessages.get(indexOfLastItem);
-            toTimeStamp = lastItem.timeStep();
-        }
-
-        for (var message : this.logMessages)
-        {
-            if(message.timeStep() > fromTimeStamp && message.timeStep() < toTimeStamp)
-            System.out.println(message);
-        }
-    }
-
-    /**
-     * Returns the working order which is used for storing the state of the current order for the specific order
-     * @param order for which the working order is needed
-     * @return the working order, returns null if the order was not found
-     */
-    public Order getWorkingOrderForOrder(Order order)
-    {
-        for (var workingOrder : workingOrderList)
-        {
-            if(workingOrder.getOrderNr() == order.getOrderNr())
-                return workingOrder;
-        }
-
-        return null;
+        this.lastSimulationState.printLogMessageFromTo(fromTimeStamp, toTimeStamp);
     }
 }
@@ -12,7 +12,7 @@ public class FactoryObject {
     private final String name;
     private FactoryConglomerate factoryConglomerate;
     private final LogMessageTypes factoryObjectType;
-    private long blockedUntilTimeStep;
+    private int index = -1;
 
     /**
      * Creates a factory object. Factory objects are drivers, transporters, factory steps and productions.
@@ -28,6 +28,19 @@ public class FactoryObject {
         this.factoryObjectType = factoryObjectType;
     }
 
+    /**
+     * Creates a factory object with the same name, id, type and factory as the factory object
+     * @param factoryObject factory object to copy
+     */
+    protected FactoryObject(FactoryObject factoryObject)
+    {
+        this.name = factoryObject.name;
+        this.objectId = factoryObject.objectId;
+        this.factoryObjectType = factoryObject.factoryObjectType;
+        this.factoryConglomerate = factoryObject.factoryConglomerate;
+        this.index = factoryObject.index;
+    }
+
     /**
      * @return the factory
      */
@@ -51,61 +64,74 @@ public class FactoryObject {
     }
 
     /**
-     * Perform the task with the current factory object.
-     * @param timeStep time step to perform
-     * @param item warehouse item to manipulate
-     * @param amountOfItems amount of items to manipulate
-     * @param stepType type of manipulation
-     * @return true if the step was correct performed, false if not
+     * @return the name of the factory object without the object id
      */
-    public boolean doWork(long timeStep, WarehouseItem item, int amountOfItems, FactoryStepTypes stepType)
+    public String getObjectName()
     {
-        factoryConglomerate.addLog("Not Implemented", factoryObjectType);
-        return false;
+        return name;
+    }
+
+    /**
+     * @return the index of the factory object in the factory conglomerate, the simulation state stores the state of
+     * the object at this index. -1 if the object has no index.
+     */
+    public int getIndex()
+    {
+        return index;
     }
 
     /**
-     * Gets the time step until this factory object is blocked
-     * @return long time step
+     * @param index sets the index of the factory object in the factory conglomerate
      */
-    public long getBlockedUntilTimeStep() {
-        return blockedUntilTimeStep;
+    void setIndex(int index)
+    {
+        this.index = index;
     }
 
     /**
-     * sets the time step until this factory object is blocked
-     * @param blockedUntilTimeStep time step in seconds until the factory object is blocked
+     * Perform the task with the current factory object.
+     * @param simulationState state of the simulation which is changed by the task
+     * @param timeStep time step to perform
+     * @param item warehouse item to manipulate
+     * @param amountOfItems amount of items to manipulate
+     * @param stepType type of manipulation
+     * @return true if the step was correct performed, false if not
      */
-    public void setBlockedUntilTimeStep(long blockedUntilTimeStep) {
-        this.blockedUntilTimeStep = blockedUntilTimeStep;
+    public boolean doWork(SimulationState simulationState, long timeStep, WarehouseItem item, int amountOfItems, FactoryStepTypes stepType)
+    {
+        simulationState.addLog("Not Implemented", factoryObjectType);
+        return false;
     }
 
     /**
-     * adds a log message to the factory for the current factory object
+     * adds a log message to the simulation for the current factory object
+     * @param simulationState state of the simulation
      * @param message message to log
      */
-    public void addLogMessage(String message)
+    public void addLogMessage(SimulationState simulationState, String message)
     {
-        this.factoryConglomerate.addLog(message, factoryObjectType);
+        simulationState.addLog(message, factoryObjectType);
     }
 
     /**
-     * adds an error log message to the factory for the current factory object
+     * adds an error log message to the simulation for the current factory object
+     * @param simulationState state of the simulation
      * @param message message to log
      */
-    public void addErrorLogMessage(String message)
+    public void addErrorLogMessage(SimulationState simulationState, String message)
     {
-        this.factoryConglomerate.addLog(message, factoryObjectType);
+        simulationState.addLog(message, factoryObjectType);
     }
 
     /**
-     * adds a block log message to the factory for the current factory object
+     * adds a block log message to the simulation for the current factory object
+     * @param simulationState state of the simulation
      * @param message message to log
      * @param stepType step types of the step which was performed
      */
-    public void addBlockMessage(String message, FactoryStepTypes stepType)
+    public void addBlockMessage(SimulationState simulationState, String message, FactoryStepTypes stepType)
     {
-        this.factoryConglomerate.addBlockLog(message, stepType, factoryObjectType);
+        simulationState.addBlockLog(message, stepType, factoryObjectType);
     }
 
     @Override
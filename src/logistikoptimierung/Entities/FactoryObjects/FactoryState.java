@@ -0,0 +1,113 @@
+package logistikoptimierung.Entities.FactoryObjects;
+
+import logistikoptimierung.Entities.WarehouseItems.WarehousePosition;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Stores the state of a factory in one simulation. The state contains the input/output buffers and the product which
+ * is currently produced. The state is part of the {@link SimulationState}.
+ */
+public class FactoryState
+{
+    private int remainingNrOfInputBufferBatches;
+    private int remainingNrOfOutputBufferBatches;
+
+    private final Set<ProductionProcess> processesInInputBuffer;
+    private WarehousePosition productInProduction;
+    private final Set<WarehousePosition> productsInOutputBuffer;
+
+    /**
+     * Creates the state of a factory with empty buffers
+     * @param factory factory for the state
+     */
+    public FactoryState(Factory factory)
+    {
+        this.remainingNrOfInputBufferBatches = factory.getMaxNrOfInputBufferBatches();
+        this.remainingNrOfOutputBufferBatches = factory.getMaxNrOfOutputBufferBatches();
+        this.processesInInputBuffer = new HashSet<>();
+        this.productsInOutputBuffer = new HashSet<>();
+    }
+
+    private FactoryState(FactoryState factoryState)
+    {
+        this.remainingNrOfInputBufferBatches = factoryState.remainingNrOfInputBufferBatches;
+        this.remainingNrOfOutputBufferBatches = factoryState.remainingNrOfOutputBufferBatches;
+        this.processesInInputBuffer = new HashSet<>(factoryState.processesInInputBuffer);
+        this.productInProduction = factoryState.productInProduction;
+        this.productsInOutputBuffer = new HashSet<>(factoryState.productsInOutputBuffer);
+    }
+
+    /**
+     * @return a copy of the factory state, the positions in the buffers are not changed by the simulation and are not copied
+     */
+    public FactoryState copy()
+    {
+        return new FactoryState(this);
+    }
+
+    /**
+     * @return the remaining nr of batches which fit in the input buffer
+     */
+    public int getRemainingNrOfInputBufferBatches()
+    {
+        return remainingNrOfInputBufferBatches;
+    }
+
+    /**
+     * @param remainingNrOfInputBufferBatches sets the remaining nr of batches which fit in the input buffer
+     */
+    public void setRemainingNrOfInputBufferBatches(int remainingNrOfInputBufferBatches)
+    {
+        this.remainingNrOfInputBufferBatches = remainingNrOfInputBufferBatches;
+    }
+
+    /**
+     * @return the remaining nr of batches which fit in the output buffer
+     */
+    public int getRemainingNrOfOutputBufferBatches()
+    {
+        return remainingNrOfOutputBufferBatches;
+    }
+
+    /**
+     * @param remainingNrOfOutputBufferBatches sets the remaining nr of batches which fit in the output buffer
+     */
+    public void setRemainingNrOfOutputBufferBatches(int remainingNrOfOutputBufferBatches)
+    {
+        this.remainingNrOfOutputBufferBatches = remainingNrOfOutputBufferBatches;
+    }
+
+    /**
+     * @return the processes which have their materials in the input buffer
+     */
+    public Set<ProductionProcess> getProcessesInInputBuffer()
+    {
+        return processesInInputBuffer;
+    }
+
+    /**
+     * @return the product which is currently produced, null if no product is in production
+     */
+    public WarehousePosition getProductInProduction()
+    {
+        return productInProduction;
+    }
+
+    /**
+     * @param productInProduction sets the product which is currently produced
+     */
+    public void setProductInProduction(WarehousePosition productInProduction)
+    {
+        this.productInProduction = productInProduction;
+    }
+
+    /**
+     * @return the products in the output buffer
+     */
+    public Set<WarehousePosition> getProductsInOutputBuffer()
+    {
+        return productsInOutputBuffer;
+    }
+}
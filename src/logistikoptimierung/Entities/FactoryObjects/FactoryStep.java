@@ -8,6 +8,8 @@ import java.util.List;
 /**
  * Creates a factory step object which should be performed at a specific time step. The factory step will fail if the
  * needed factory object is currently blocked by another task.
+ * The completed status of the step is stored in the simulation state, so the same step can be used in several
+ * simulations at the same time.
  */
 public class FactoryStep {
 
@@ -18,7 +20,6 @@ public class FactoryStep {
     private int amountOfItems;
     private long doTimeStep;
     private List<FactoryStep> factoryStepsToDoBefore;
-    private boolean isCompleted;
 
     /**
      * Creates a factory step object which should be performed at a specific time step. The factory step will fail if the
@@ -65,30 +66,15 @@ public class FactoryStep {
 
     /**
      * The actual "do" of the step
+     * @param simulationState state of the simulation for the step
      * @return true if the step was completed, false if not
      */
-    public boolean doStep()
+    public boolean doStep(SimulationState simulationState)
     {
-        this.isCompleted = factoryObject.doWork(factoryConglomerate.getCurrentTimeStep(), itemToManipulate, amountOfItems, stepType);
-        //Take care. Performance impact in the simulation
-        //addStepMessage(this.isCompleted);
-        return this.isCompleted;
-    }
-
-    /**
-     * Sets the completed status to true
-     */
-    public void setCompletedToTrue()
-    {
-        this.isCompleted = true;
-    }
-
-    /**
-     * @return true if the step is completed, false if not
-     */
-    public boolean isStepCompleted()
-    {
-        return this.isCompleted;
+        var isCompleted = factoryObject.doWork(simulationState, simulationState.getCurrentTimeStep(), itemToManipulate, amountOfItems, stepType);
+        simulationState.setStepCompleted(this, isCompleted);
+        addStepMessage(simulationState, isCompleted);
+        return isCompleted;
     }
 
     /**
@@ -100,16 +86,17 @@ public class FactoryStep {
     }
 
     /**
+     * @param simulationState state of the simulation with the completed steps
      * @return true if every step which should be done before this step are completed
      */
-    public boolean areAllStepsBeforeCompleted()
+    public boolean areAllStepsBeforeCompleted(SimulationState simulationState)
     {
         if(this.factoryStepsToDoBefore == null || this.factoryStepsToDoBefore.isEmpty())
             return true;
 
         for(var factoryStep : this.factoryStepsToDoBefore)
         {
-            if(!factoryStep.isStepCompleted())
+            if(!simulationState.isStepCompleted(factoryStep))
                 return false;
         }
 
@@ -155,9 +142,12 @@ public class FactoryStep {
         return this.amountOfItems;
     }
 
-    private void addStepMessage(boolean completed)
+    private void addStepMessage(SimulationState simulationState, boolean completed)
     {
-        this.factoryConglomerate.addFactoryStepLog(this + " Completed: " + completed, LogMessageTypes.FactoryStep, completed);
+        if(!simulationState.isLoggingActivated())
+            return;
+
+        simulationState.addFactoryStepLog(this + " Completed: " + completed, LogMessageTypes.FactoryStep, completed);
     }
 
     /**
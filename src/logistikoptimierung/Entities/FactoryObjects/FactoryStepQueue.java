@@ -0,0 +1,436 @@
+package logistikoptimierung.Entities.FactoryObjects;
+
+import java.util.*;
+
+/**
+ * Stores the remaining factory steps of a simulation and returns the steps which can be performed at an event time
+ * step. A step is ready if every step to do before is completed (a counter of the not completed steps before is
+ * decreased if a step is completed) and the do time step is reached. The ready steps are stored for every factory
+ * object, so an event time step only checks the ready steps of the factory objects which can perform a step.
+ * The steps are returned in the order of the step list, a step which gets ready while the event time step is handled
+ * is returned in the same event time step if it comes later in the step list. This is the same order as checking the
+ * complete step list at every event time step.
+ * The steps are stored in a {@link CompiledPlan}, the queue only stores the state of the positions of the plan: the
+ * remaining positions, the nr of not completed steps before, the completed time steps and the ready positions.
+ * The queue is part of the {@link SimulationState}.
+ */
+class FactoryStepQueue
+{
+    /**
+     * Conditions which are checked by the factory object before the step changes the simulation state. A step which
+     * does not fulfill the condition fails without a change and can be skipped.
+     */
+    private enum StepCondition
+    {
+        NotBlocked,
+        FreeDriver,
+        LoadedItem
+    }
+
+    private static final StepCondition[] STEP_CONDITIONS = StepCondition.values();
+
+    private CompiledPlan plan;
+    private final BitSet remainingPositions;
+    private int[] nrOfStepsBefore;
+    private long[] completedTimeSteps;
+    private final PriorityQueue<Integer> waitingPositions;
+    private BitSet[][] readyPositions;
+    private FactoryObject[] readyFactoryObjects;
+    private final BitSet readySlots;
+
+    private SimulationState simulationState;
+    private boolean skipNotPossibleSteps;
+    private final BitSet positionsOfTimeStep;
+    private int currentPosition;
+
+    /**
+     * Creates an empty queue
+     */
+    FactoryStepQueue()
+    {
+        this.plan = CompiledPlan.emptyPlan();
+        this.remainingPositions = new BitSet();
+        this.nrOfStepsBefore = new int[0];
+        this.completedTimeSteps = new long[0];
+        this.waitingPositions = new PriorityQueue<>(this::compareDoTimeSteps);
+        this.readyPositions = new BitSet[0][];
+        this.readyFactoryObjects = new FactoryObject[0];
+        this.readySlots = new BitSet();
+        this.positionsOfTimeStep = new BitSet();
+    }
+
+    private FactoryStepQueue(FactoryStepQueue queue)
+    {
+        //The plan does not change, only the state of the steps is copied
+        this.plan = queue.plan;
+        this.remainingPositions = (BitSet) queue.remainingPositions.clone();
+        this.nrOfStepsBefore = queue.nrOfStepsBefore.clone();
+        this.completedTimeSteps = queue.completedTimeSteps.clone();
+        this.waitingPositions = new PriorityQueue<>(this::compareDoTimeSteps);
+        this.waitingPositions.addAll(queue.waitingPositions);
+        this.readyPositions = new BitSet[queue.readyPositions.length][];
+        this.readyFactoryObjects = queue.readyFactoryObjects.clone();
+        this.readySlots = (BitSet) queue.readySlots.clone();
+        for(var slot = this.readySlots.nextSetBit(0); slot >= 0; slot = this.readySlots.nextSetBit(slot + 1))
+        {
+            var positionsToCopy = queue.readyPositions[slot];
+            var readyPositionsOfFactoryObject = new BitSet[positionsToCopy.length];
+            for(int i = 0; i < readyPositionsOfFactoryObject.length; i++)
+                readyPositionsOfFactoryObject[i] = (BitSet) positionsToCopy[i].clone();
+            this.readyPositions[slot] = readyPositionsOfFactoryObject;
+        }
+        this.positionsOfTimeStep = new BitSet();
+    }
+
+    /**
+     * Creates a copy of the queue, should only be called between two event time steps
+     * @return the copy of the queue
+     */
+    FactoryStepQueue copy()
+    {
+        return new FactoryStepQueue(this);
+    }
+
+    /**
+     * Adds the steps at the end of the step list
+     * @param factorySteps steps to add
+     * @param simulationState state of the simulation with the completed steps
+     */
+    void addSteps(List<FactoryStep> factorySteps, SimulationState simulationState)
+    {
+        addSteps(this.plan.append(factorySteps), this.plan.size(), simulationState);
+    }
+
+    /**
+     * Adds the steps of the plan at the end of the step list. An empty queue uses the plan without a copy.
+     * @param plan plan with the steps to add
+     * @param simulationState state of the simulation with the completed steps
+     */
+    void addSteps(CompiledPlan plan, SimulationState simulationState)
+    {
+        if(this.plan.size() == 0)
+            addSteps(plan, 0, simulationState);
+        else
+            addSteps(this.plan.append(plan.toFactorySteps()), this.plan.size(), simulationState);
+    }
+
+    /**
+     * Uses the new plan, the steps before the first new position are the steps of the current plan
+     * @param newPlan plan with the current and the new steps
+     * @param firstNewPosition position of the first new step
+     * @param simulationState state of the simulation with the completed steps
+     */
+    private void addSteps(CompiledPlan newPlan, int firstNewPosition, SimulationState simulationState)
+    {
+        var nrOfSteps = newPlan.size();
+        this.plan = newPlan;
+        this.nrOfStepsBefore = Arrays.copyOf(this.nrOfStepsBefore, nrOfSteps);
+        this.completedTimeSteps = Arrays.copyOf(this.completedTimeSteps, nrOfSteps);
+        Arrays.fill(this.completedTimeSteps, firstNewPosition, nrOfSteps, -1);
+        this.remainingPositions.set(firstNewPosition, nrOfSteps);
+
+        for(int position = firstNewPosition; position < nrOfSteps; position++)
+        {
+            var nrOfNotCompletedSteps = 0;
+            var stepsBefore = newPlan.getStep(position).getFactoryStepsToDoBefore();
+            for(int i = newPlan.getPredecessorOffset(position); i < newPlan.getPredecessorOffset(position + 1); i++)
+            {
+                //A step to do before which is not part of the plan is checked in the simulation state
+                var predecessor = newPlan.getPredecessor(i);
+                var isCompleted = predecessor >= 0 ?
+                        this.completedTimeSteps[predecessor] >= 0 :
+                        simulationState.isStepCompleted(stepsBefore.get(i - newPlan.getPredecessorOffset(position)));
+                if(!isCompleted)
+                    nrOfNotCompletedSteps++;
+            }
+            this.nrOfStepsBefore[position] = nrOfNotCompletedSteps;
+
+            if(nrOfNotCompletedSteps != 0)
+                continue;
+
+            //The next event time step is after the current time step
+            if(newPlan.getDoTimeStep(position) <= simulationState.getCurrentTimeStep())
+                addReadyPosition(position);
+            else
+                this.waitingPositions.add(position);
+        }
+    }
+
+    /**
+     * @return the nr of steps which are not completed
+     */
+    int size()
+    {
+        return this.remainingPositions.cardinality();
+    }
+
+    /**
+     * @return the plan with the steps of the queue
+     */
+    CompiledPlan getPlan()
+    {
+        return this.plan;
+    }
+
+    /**
+     * @param position position of the step
+     * @return true if the step at the position is not completed
+     */
+    boolean isRemainingPosition(int position)
+    {
+        return this.remainingPositions.get(position);
+    }
+
+    /**
+     * @param position first position to check
+     * @return the first position from the position on with a step which is not completed, -1 if there is none
+     */
+    int nextRemainingPosition(int position)
+    {
+        return this.remainingPositions.nextSetBit(position);
+    }
+
+    /**
+     * @param position position of the step
+     * @return the nr of steps to do before the step which are not completed
+     */
+    int getNrOfStepsBefore(int position)
+    {
+        return this.nrOfStepsBefore[position];
+    }
+
+    /**
+     * @param factoryStep step to find
+     * @return the position of the step in the step list, -1 if the step is not in the queue
+     */
+    int getPosition(FactoryStep factoryStep)
+    {
+        return this.plan.getPosition(factoryStep);
+    }
+
+    /**
+     * @param position position of the step
+     * @return the time step when the step was completed, -1 if the step is not completed
+     */
+    long getCompletedTimeStep(int position)
+    {
+        return this.completedTimeSteps[position];
+    }
+
+    /**
+     * @param position position of the step
+     * @param completedTimeStep the time step when the step was completed, -1 if the step is not completed
+     */
+    void setCompletedTimeStep(int position, long completedTimeStep)
+    {
+        this.completedTimeSteps[position] = completedTimeStep;
+    }
+
+    /**
+     * Adds the completed steps of the queue with the time step when they were completed
+     * @param completedSteps map for the completed steps
+     */
+    void addCompletedSteps(Map<FactoryStep, Long> completedSteps)
+    {
+        for(int position = 0; position < this.plan.size(); position++)
+        {
+            if(this.completedTimeSteps[position] >= 0)
+                completedSteps.put(this.plan.getStep(position), this.completedTimeSteps[position]);
+        }
+    }
+
+    /**
+     * @return the steps which are not completed, in the order of the step list
+     */
+    List<FactoryStep> getRemainingSteps()
+    {
+        var remainingSteps = new ArrayList<FactoryStep>();
+        for(var position = this.remainingPositions.nextSetBit(0); position >= 0; position = this.remainingPositions.nextSetBit(position + 1))
+            remainingSteps.add(this.plan.getStep(position));
+        return remainingSteps;
+    }
+
+    /**
+     * Starts the current time step of the simulation state. The ready steps are returned by {@link #nextStep()}.
+     * @param simulationState state of the simulation
+     * @param skipNotPossibleSteps true if the steps which fail without a change of the simulation state can be skipped
+     *                             (a blocked factory object, no free driver for a tour or no loaded item to unload),
+     *                             false if every ready step should be returned
+     */
+    void startTimeStep(SimulationState simulationState, boolean skipNotPossibleSteps)
+    {
+        this.simulationState = simulationState;
+        this.skipNotPossibleSteps = skipNotPossibleSteps;
+        this.positionsOfTimeStep.clear();
+        this.currentPosition = -1;
+
+        var currentTimeStep = simulationState.getCurrentTimeStep();
+        while (!this.waitingPositions.isEmpty() &&
+                this.plan.getDoTimeStep(this.waitingPositions.peek()) <= currentTimeStep)
+            addReadyPosition(this.waitingPositions.poll());
+
+        //Index loops, the time step is handled for every event and should not create an iterator
+        for(var slot = this.readySlots.nextSetBit(0); slot >= 0; slot = this.readySlots.nextSetBit(slot + 1))
+        {
+            var factoryObject = this.readyFactoryObjects[slot];
+            var readyPositionsOfFactoryObject = this.readyPositions[slot];
+            for(var condition : STEP_CONDITIONS)
+            {
+                var conditionPositions = readyPositionsOfFactoryObject[condition.ordinal()];
+                if(!conditionPositions.isEmpty() && isConditionFulfilled(factoryObject, condition))
+                    this.positionsOfTimeStep.or(conditionPositions);
+            }
+        }
+    }
+
+    /**
+     * Returns the next ready step of the current time step in the order of the step list
+     * @return the step, null if every ready step was returned
+     */
+    FactoryStep nextStep()
+    {
+        var position = this.positionsOfTimeStep.nextSetBit(this.currentPosition + 1);
+        while (position >= 0)
+        {
+            var step = this.plan.getStep(position);
+            if(isConditionFulfilled(step.getFactoryObject(), getCondition(step)))
+            {
+                this.currentPosition = position;
+                return step;
+            }
+            position = this.positionsOfTimeStep.nextSetBit(position + 1);
+        }
+
+        this.simulationState = null;
+        return null;
+    }
+
+    /**
+     * Removes the last step which was returned by {@link #nextStep()}, the steps which wait for the step get ready.
+     * @return the position of the completed step
+     */
+    int completeCurrentStep()
+    {
+        var position = this.currentPosition;
+        var step = this.plan.getStep(position);
+        var readyPositionsOfFactoryObject = this.readyPositions[getSlot(position)];
+        this.remainingPositions.clear(position);
+        readyPositionsOfFactoryObject[getCondition(step).ordinal()].clear(position);
+
+        //The step can change the loaded item of the factory object, the steps after this step get the new state
+        for(var condition : STEP_CONDITIONS)
+        {
+            var conditionPositions = readyPositionsOfFactoryObject[condition.ordinal()];
+            if(conditionPositions.isEmpty() || !isConditionFulfilled(step.getFactoryObject(), condition))
+                continue;
+
+            for(var nextPosition = conditionPositions.nextSetBit(position + 1); nextPosition >= 0; nextPosition = conditionPositions.nextSetBit(nextPosition + 1))
+                this.positionsOfTimeStep.set(nextPosition);
+        }
+
+        var currentTimeStep = this.simulationState.getCurrentTimeStep();
+        for(int i = this.plan.getDependentOffset(position); i < this.plan.getDependentOffset(position + 1); i++)
+        {
+            var dependentPosition = this.plan.getDependent(i);
+            if(--this.nrOfStepsBefore[dependentPosition] != 0)
+                continue;
+
+            if(this.plan.getDoTimeStep(dependentPosition) > currentTimeStep)
+            {
+                this.waitingPositions.add(dependentPosition);
+                continue;
+            }
+
+            addReadyPosition(dependentPosition);
+            if(dependentPosition > position)
+                this.positionsOfTimeStep.set(dependentPosition);
+        }
+        return position;
+    }
+
+    private void addReadyPosition(int position)
+    {
+        var step = this.plan.getStep(position);
+        var slot = getSlot(position);
+        if(slot >= this.readyPositions.length)
+        {
+            var length = Math.max(slot + 1, this.readyPositions.length * 2);
+            this.readyPositions = Arrays.copyOf(this.readyPositions, length);
+            this.readyFactoryObjects = Arrays.copyOf(this.readyFactoryObjects, length);
+        }
+
+        var readyPositionsOfFactoryObject = this.readyPositions[slot];
+        if(readyPositionsOfFactoryObject == null)
+        {
+            readyPositionsOfFactoryObject = new BitSet[STEP_CONDITIONS.length];
+            for(int i = 0; i < readyPositionsOfFactoryObject.length; i++)
+                readyPositionsOfFactoryObject[i] = new BitSet();
+            this.readyPositions[slot] = readyPositionsOfFactoryObject;
+            this.readyFactoryObjects[slot] = step.getFactoryObject();
+            this.readySlots.set(slot);
+        }
+        readyPositionsOfFactoryObject[getCondition(step).ordinal()].set(position);
+    }
+
+    /**
+     * The ready steps are stored with the index of the factory object, the factory objects without an index share the
+     * first slot (they are never skipped, see {@link #isConditionFulfilled(FactoryObject, StepCondition)})
+     * @param position position of the step
+     * @return the slot of the factory object of the step
+     */
+    private int getSlot(int position)
+    {
+        return this.plan.getFactoryObjectIndex(position) + 1;
+    }
+
+    /**
+     * A transporter checks the free driver for a tour and the loaded item for the unloading before the state is changed
+     * (see {@link Transporter#doWork(SimulationState, long, logistikoptimierung.Entities.WarehouseItems.WarehouseItem, int, FactoryStepTypes)}).
+     * @param step step to check
+     * @return the condition of the step
+     */
+    private static StepCondition getCondition(FactoryStep step)
+    {
+        if(!(step.getFactoryObject() instanceof Transporter))
+            return StepCondition.NotBlocked;
+
+        return switch (step.getStepType())
+        {
+            case GetMaterialFromSuppliesAndMoveBackToWarehouse, ConcludeOrderTransportToCustomer -> StepCondition.FreeDriver;
+            case MoveMaterialFromTransporterToWarehouse -> StepCondition.LoadedItem;
+            default -> StepCondition.NotBlocked;
+        };
+    }
+
+    /**
+     * A factory object which is blocked does not perform a step and does not change the simulation state
+     * (see {@link FactoryObject#doWork(SimulationState, long, logistikoptimierung.Entities.WarehouseItems.WarehouseItem, int, FactoryStepTypes)}).
+     * Factory objects without an index are never skipped.
+     * @param factoryObject factory object of the step
+     * @param condition condition of the step
+     * @return true if the step of the factory object can change the simulation state
+     */
+    private boolean isConditionFulfilled(FactoryObject factoryObject, StepCondition condition)
+    {
+        if(!this.skipNotPossibleSteps || factoryObject.getIndex() < 0)
+            return true;
+
+        if(this.simulationState.getCurrentTimeStep() < this.simulationState.getBlockedUntilTimeStep(factoryObject))
+            return false;
+
+        return switch (condition)
+        {
+            case NotBlocked -> true;
+            case FreeDriver -> this.simulationState.getNotBlockedDriver() != null;
+            case LoadedItem -> this.simulationState.getLoadedItem((Transporter) factoryObject) != null;
+        };
+    }
+
+    private int compareDoTimeSteps(Integer first, Integer second)
+    {
+        var compare = Long.compare(this.plan.getDoTimeStep(first), this.plan.getDoTimeStep(second));
+        if(compare != 0)
+            return compare;
+        return Integer.compare(first, second);
+    }
+}
@@ -11,6 +11,7 @@ package logistikoptimierung.Entities.FactoryObjects;
  * @param printWarehouseMessages true => prints messages from the warehouse
  * @param printWarehouseStockChangeMessages true => prints messages from the warehouse if the stock was changed
  * @param printCurrentWarehouseStockAfterChangeMessages true => prints messages from the current warehouse stock if the stock was changed
+ * @param printOptimizationMessages true => prints every new best solution of an optimization without an optimization handle
  */
 public record LogSettings(
         boolean activateLogging,
@@ -22,5 +23,6 @@ public record LogSettings(
         boolean printTransportMessages,
         boolean printWarehouseMessages,
         boolean printWarehouseStockChangeMessages,
-        boolean printCurrentWarehouseStockAfterChangeMessages) {
+        boolean printCurrentWarehouseStockAfterChangeMessages,
+        boolean printOptimizationMessages) {
 }
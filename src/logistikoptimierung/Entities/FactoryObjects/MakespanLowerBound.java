@@ -0,0 +1,277 @@
+package logistikoptimierung.Entities.FactoryObjects;
+
+import logistikoptimierung.Entities.WarehouseItems.Material;
+import logistikoptimierung.Entities.WarehouseItems.Order;
+import logistikoptimierung.Entities.WarehouseItems.Product;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lower bound of the makespan of a simulation which completes its remaining steps, used for the early abort of a
+ * simulation (see {@link FactoryConglomerate#startSimulationWithEarlyAbort(SimulationState, CompiledPlan, long)}).
+ * A performed step blocks its factory object for a duration (the travel time of a tour, the production time of a
+ * production, else 0) and creates the event time step one time step after the blocked time, so a completed
+ * simulation ends at least one time step after every step. The bound is the maximum of:
+ * - the critical path: a step starts after its steps to do before, after a step to do before of the same factory
+ *   object the duration of this step is added. Every step has the length of the longest path from the step to the
+ *   end (its tail), a remaining step starts at the next event time step, its do time step and the blocked time step
+ *   of its factory object at the earliest.
+ * - the load of the factory objects: the remaining steps of a factory object are performed one after another, after
+ *   the factory object is not blocked any more
+ * - the load of the drivers: the remaining tours are shared by the drivers, after the drivers are not blocked any more
+ * The bound is created for the remaining steps of a simulation state and updated with the completed steps.
+ */
+class MakespanLowerBound
+{
+    private final FactoryStepQueue stepQueue;
+    private final long[] durations;
+    private final long[] tails;
+    private final int[] positionsSortedByTail;
+    private int firstRemainingPosition;
+    private long staticLowerBound;
+
+    private final long[] remainingDurations;
+    private int factoryObjectIndexWithMaxRemainingDuration;
+    private final List<Driver> drivers;
+    private long remainingTourDuration;
+
+    /**
+     * Creates the bound for the remaining steps of the simulation state
+     * @param simulationState state of the simulation, the bound is updated with the completed steps of the state
+     *                        (see {@link #completePosition(SimulationState, int)})
+     */
+    MakespanLowerBound(SimulationState simulationState)
+    {
+        this.stepQueue = simulationState.getStepQueue();
+        var plan = this.stepQueue.getPlan();
+        var nrOfSteps = plan.size();
+        this.drivers = simulationState.getFactoryConglomerate().getDrivers();
+        this.durations = new long[nrOfSteps];
+        this.tails = new long[nrOfSteps];
+        this.remainingDurations = new long[simulationState.getFactoryConglomerate().getNrOfFactoryObjects()];
+
+        var remainingPositions = new int[this.stepQueue.size()];
+        var nrOfRemainingSteps = 0;
+        for(var position = this.stepQueue.nextRemainingPosition(0); position >= 0; position = this.stepQueue.nextRemainingPosition(position + 1))
+            remainingPositions[nrOfRemainingSteps++] = position;
+
+        //Topological order of the remaining steps with the not completed steps to do before of the queue. The steps of a
+        //cycle or after a step to do before which is not in the plan are never performed and are not in the order.
+        var nrOfStepsBefore = new int[nrOfSteps];
+        var topologicalOrder = new int[nrOfRemainingSteps];
+        var nrOfOrderedSteps = 0;
+        for(int i = 0; i < nrOfRemainingSteps; i++)
+        {
+            var position = remainingPositions[i];
+            var step = plan.getStep(position);
+            this.durations[position] = getDuration(step);
+            this.tails[position] = this.durations[position] + 1;
+            var factoryObjectIndex = plan.getFactoryObjectIndex(position);
+            if(factoryObjectIndex >= 0)
+                this.remainingDurations[factoryObjectIndex] += this.durations[position];
+            if(isTour(step))
+                this.remainingTourDuration += this.durations[position];
+
+            nrOfStepsBefore[position] = this.stepQueue.getNrOfStepsBefore(position);
+            if(nrOfStepsBefore[position] == 0)
+                topologicalOrder[nrOfOrderedSteps++] = position;
+        }
+        for(int i = 0; i < nrOfOrderedSteps; i++)
+        {
+            var position = topologicalOrder[i];
+            for(int j = plan.getDependentOffset(position); j < plan.getDependentOffset(position + 1); j++)
+            {
+                var dependent = plan.getDependent(j);
+                if(this.stepQueue.isRemainingPosition(dependent) && --nrOfStepsBefore[dependent] == 0)
+                    topologicalOrder[nrOfOrderedSteps++] = dependent;
+            }
+        }
+
+        //The tails in the reverse topological order, the steps after a step are handled before the step
+        for(int i = nrOfOrderedSteps - 1; i >= 0; i--)
+        {
+            var position = topologicalOrder[i];
+            for(int j = plan.getDependentOffset(position); j < plan.getDependentOffset(position + 1); j++)
+            {
+                var dependent = plan.getDependent(j);
+                if(this.stepQueue.isRemainingPosition(dependent))
+                    this.tails[position] = Math.max(this.tails[position],
+                            getDurationBefore(plan, position, dependent) + this.tails[dependent]);
+            }
+        }
+
+        var maxTail = 0L;
+        for(int i = 0; i < nrOfRemainingSteps; i++)
+        {
+            var position = remainingPositions[i];
+            var startTimeStep = plan.getDoTimeStep(position);
+            var factoryObjectIndex = plan.getFactoryObjectIndex(position);
+            if(factoryObjectIndex >= 0)
+            {
+                var factoryObject = plan.getStep(position).getFactoryObject();
+                startTimeStep = Math.max(startTimeStep, simulationState.getBlockedUntilTimeStep(factoryObject));
+                updateFactoryObjectLowerBound(simulationState, factoryObject);
+            }
+            this.staticLowerBound = Math.max(this.staticLowerBound, startTimeStep + this.tails[position]);
+            maxTail = Math.max(maxTail, this.tails[position]);
+        }
+        this.factoryObjectIndexWithMaxRemainingDuration = findFactoryObjectIndexWithMaxRemainingDuration();
+
+        //Sorted by the tail (descending) and the position, the sort keys are packed into one long
+        var sortKeys = new long[nrOfRemainingSteps];
+        for(int i = 0; i < nrOfRemainingSteps; i++)
+            sortKeys[i] = (maxTail - this.tails[remainingPositions[i]]) << 32 | remainingPositions[i];
+        Arrays.sort(sortKeys);
+        this.positionsSortedByTail = new int[nrOfRemainingSteps];
+        for(int i = 0; i < nrOfRemainingSteps; i++)
+            this.positionsSortedByTail[i] = (int) sortKeys[i];
+        this.firstRemainingPosition = 0;
+    }
+
+    /**
+     * Updates the load of the factory object and the drivers after the step at the position was performed
+     * @param simulationState state of the simulation after the step was performed
+     * @param position position of the completed step in the step queue
+     */
+    void completePosition(SimulationState simulationState, int position)
+    {
+        var duration = this.durations[position];
+        if(duration == 0)
+            return;
+
+        var plan = this.stepQueue.getPlan();
+        var step = plan.getStep(position);
+        if(isTour(step))
+            this.remainingTourDuration -= duration;
+
+        var factoryObjectIndex = plan.getFactoryObjectIndex(position);
+        if(factoryObjectIndex < 0)
+            return;
+        this.remainingDurations[factoryObjectIndex] -= duration;
+        updateFactoryObjectLowerBound(simulationState, step.getFactoryObject());
+        if(factoryObjectIndex == this.factoryObjectIndexWithMaxRemainingDuration)
+            this.factoryObjectIndexWithMaxRemainingDuration = findFactoryObjectIndexWithMaxRemainingDuration();
+    }
+
+    /**
+     * Returns the lower bound of the time step when a simulation which completes every remaining step stops
+     * @param simulationState state of the simulation
+     * @param nextEventTimeStep next event time step of the simulation, no remaining step is performed before
+     * @return the lower bound of the makespan
+     */
+    long getLowerBound(SimulationState simulationState, long nextEventTimeStep)
+    {
+        var lowerBound = this.staticLowerBound;
+
+        while (this.firstRemainingPosition < this.positionsSortedByTail.length &&
+                !this.stepQueue.isRemainingPosition(this.positionsSortedByTail[this.firstRemainingPosition]))
+            this.firstRemainingPosition++;
+        if(this.firstRemainingPosition == this.positionsSortedByTail.length)
+            return lowerBound;
+        lowerBound = Math.max(lowerBound,
+                nextEventTimeStep + this.tails[this.positionsSortedByTail[this.firstRemainingPosition]]);
+
+        //A blocked factory object is already part of the static lower bound (see updateFactoryObjectLowerBound)
+        if(this.factoryObjectIndexWithMaxRemainingDuration >= 0)
+            lowerBound = Math.max(lowerBound,
+                    nextEventTimeStep + this.remainingDurations[this.factoryObjectIndexWithMaxRemainingDuration] + 1);
+
+        if(this.remainingTourDuration > 0 && !this.drivers.isEmpty())
+        {
+            var driverDuration = this.remainingTourDuration;
+            for(var driver : this.drivers)
+                driverDuration += Math.max(0, simulationState.getBlockedUntilTimeStep(driver) - nextEventTimeStep);
+            var nrOfDrivers = this.drivers.size();
+            lowerBound = Math.max(lowerBound, nextEventTimeStep + (driverDuration + nrOfDrivers - 1) / nrOfDrivers + 1);
+        }
+
+        return lowerBound;
+    }
+
+    /**
+     * The remaining steps of the factory object are performed after its blocked time step. A performed step moves the
+     * blocked time step at least by its duration, so the bound of a factory object never gets smaller and is kept in
+     * the static lower bound.
+     * @param simulationState state of the simulation
+     * @param factoryObject factory object of a step
+     */
+    private void updateFactoryObjectLowerBound(SimulationState simulationState, FactoryObject factoryObject)
+    {
+        this.staticLowerBound = Math.max(this.staticLowerBound, simulationState.getBlockedUntilTimeStep(factoryObject) +
+                this.remainingDurations[factoryObject.getIndex()] + 1);
+    }
+
+    /**
+     * @return the index of the factory object with the maximum remaining duration, -1 if no factory object has a
+     * remaining duration
+     */
+    private int findFactoryObjectIndexWithMaxRemainingDuration()
+    {
+        var factoryObjectIndex = -1;
+        var maxRemainingDuration = 0L;
+        for(int i = 0; i < this.remainingDurations.length; i++)
+        {
+            if(this.remainingDurations[i] > maxRemainingDuration)
+            {
+                maxRemainingDuration = this.remainingDurations[i];
+                factoryObjectIndex = i;
+            }
+        }
+        return factoryObjectIndex;
+    }
+
+    /**
+     * A step of the same factory object can start after the step before is not blocked any more, a step of another
+     * factory object can start at the same time step
+     * @param plan plan of the steps
+     * @param position position of the step to do before
+     * @param dependent position of the step which waits for the step
+     * @return the minimum time between the start of the steps
+     */
+    private long getDurationBefore(CompiledPlan plan, int position, int dependent)
+    {
+        var factoryObjectIndex = plan.getFactoryObjectIndex(position);
+        if(factoryObjectIndex >= 0 && factoryObjectIndex == plan.getFactoryObjectIndex(dependent))
+            return this.durations[position];
+        return 0;
+    }
+
+    /**
+     * @param step step to check
+     * @return the time the factory object of the step is blocked after the step is performed
+     */
+    private static long getDuration(FactoryStep step)
+    {
+        var item = step.getItemToManipulate();
+        switch (step.getStepType())
+        {
+            case GetMaterialFromSuppliesAndMoveBackToWarehouse:
+                if(item instanceof Material)
+                    return ((Material) item).getTravelTime();
+                return 0;
+            case ConcludeOrderTransportToCustomer:
+                if(item instanceof Order)
+                    return ((Order) item).getTravelTime();
+                return 0;
+            case Produce:
+                if(!(step.getFactoryObject() instanceof Factory) || !(item instanceof Product))
+                    return 0;
+                var process = ((Factory) step.getFactoryObject()).getProductionProcessForProduct((Product) item);
+                return process == null ? 0 : process.getProductionTime();
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @param step step to check
+     * @return true if the step needs a driver for the time it blocks the transporter
+     */
+    private static boolean isTour(FactoryStep step)
+    {
+        return step.getFactoryObject() instanceof Transporter &&
+                (step.getStepType() == FactoryStepTypes.GetMaterialFromSuppliesAndMoveBackToWarehouse ||
+                        step.getStepType() == FactoryStepTypes.ConcludeOrderTransportToCustomer);
+    }
+}
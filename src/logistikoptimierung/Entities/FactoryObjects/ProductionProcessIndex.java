@@ -0,0 +1,185 @@
+package logistikoptimierung.Entities.FactoryObjects;
+
+import logistikoptimierung.Entities.WarehouseItems.Material;
+import logistikoptimierung.Entities.WarehouseItems.Product;
+import logistikoptimierung.Entities.WarehouseItems.WarehouseItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the production processes of a factory conglomerate. The processes are stored by the warehouse item index of
+ * the product (items with the same name have the same index, see {@link FactoryConglomerate#getWarehouseItemIndex}),
+ * so the process of a product is found without comparing the names of every process. Like the loops over the
+ * factories and processes the first process of a product wins. For every product the flattened bill of materials (the
+ * process of the product followed by the processes of the sub products, depth first) is created with the index.
+ * The index is created with the factory conglomerate and is not changed afterwards, so it can be used from several
+ * threads.
+ */
+class ProductionProcessIndex
+{
+    private final String[] namesByIndex;
+    private final Map<String, Integer> indicesByName = new HashMap<>();
+    private final ProductionProcess[] processesByIndex;
+    private final Map<Factory, ProductionProcess[]> processesByFactory = new HashMap<>();
+    private final boolean[] suppliedByIndex;
+    private final List<List<ProductionProcess>> flattenedProcessesByIndex;
+
+    /**
+     * Creates the index. The products and materials of the processes get a warehouse item index if they do not have one.
+     * @param factoryConglomerate factory conglomerate which assigns the warehouse item indices
+     * @param warehouseItemIndices warehouse item indices of the factory conglomerate by the name of the item
+     * @param factories factories with the production processes
+     * @param suppliedMaterials materials with a supplier
+     */
+    ProductionProcessIndex(FactoryConglomerate factoryConglomerate,
+                           Map<String, Integer> warehouseItemIndices,
+                           List<Factory> factories,
+                           List<Material> suppliedMaterials)
+    {
+        for(var factory : factories)
+        {
+            for(var process : factory.getProductionProcesses())
+            {
+                factoryConglomerate.getWarehouseItemIndex(process.getProductToProduce());
+                for(var position : process.getMaterialPositions())
+                    factoryConglomerate.getWarehouseItemIndex(position.item());
+            }
+        }
+
+        var nrOfItems = warehouseItemIndices.size();
+        this.indicesByName.putAll(warehouseItemIndices);
+        this.namesByIndex = new String[nrOfItems];
+        for(var entry : warehouseItemIndices.entrySet())
+            this.namesByIndex[entry.getValue()] = entry.getKey();
+        this.processesByIndex = new ProductionProcess[nrOfItems];
+        this.suppliedByIndex = new boolean[nrOfItems];
+
+        for(var factory : factories)
+        {
+            var processesOfFactory = new ProductionProcess[nrOfItems];
+            for(var process : factory.getProductionProcesses())
+            {
+                var index = factoryConglomerate.getWarehouseItemIndex(process.getProductToProduce());
+                if(processesOfFactory[index] == null)
+                    processesOfFactory[index] = process;
+                if(this.processesByIndex[index] == null)
+                    this.processesByIndex[index] = process;
+            }
+            this.processesByFactory.put(factory, processesOfFactory);
+        }
+
+        for(var material : suppliedMaterials)
+            this.suppliedByIndex[factoryConglomerate.getWarehouseItemIndex(material)] = true;
+
+        this.flattenedProcessesByIndex = new ArrayList<>(nrOfItems);
+        for(int i = 0; i < nrOfItems; i++)
+        {
+            if(this.processesByIndex[i] == null)
+            {
+                this.flattenedProcessesByIndex.add(List.of());
+                continue;
+            }
+
+            var processes = new ArrayList<ProductionProcess>();
+            addProcessesRecursiveToList(this.processesByIndex[i].getProductToProduce(), processes);
+            this.flattenedProcessesByIndex.add(Collections.unmodifiableList(processes));
+        }
+    }
+
+    /**
+     * @param product product to produce
+     * @return the first production process of the product, null if no process was found
+     */
+    ProductionProcess getProductionProcess(Product product)
+    {
+        var index = getIndex(product);
+        if(index < 0)
+            return null;
+        return this.processesByIndex[index];
+    }
+
+    /**
+     * @param factory factory of the process
+     * @param product product to produce
+     * @return the first production process of the factory for the product, null if the factory has no process for it
+     */
+    ProductionProcess getProductionProcess(Factory factory, Product product)
+    {
+        var processesOfFactory = this.processesByFactory.get(factory);
+        var index = getIndex(product);
+        if(processesOfFactory == null || index < 0)
+            return null;
+        return processesOfFactory[index];
+    }
+
+    /**
+     * @param factory factory to check
+     * @return true if the processes of the factory are in the index
+     */
+    boolean containsFactory(Factory factory)
+    {
+        return this.processesByFactory.containsKey(factory);
+    }
+
+    /**
+     * @param product product to produce
+     * @return the process of the product followed by the processes of the sub products (depth first), an empty list
+     * if no process was found. The list must not be changed.
+     */
+    List<ProductionProcess> getFlattenedProductionProcesses(WarehouseItem product)
+    {
+        if(!(product instanceof Product))
+            return List.of();
+
+        var index = getIndex(product);
+        if(index < 0)
+            return List.of();
+        return this.flattenedProcessesByIndex.get(index);
+    }
+
+    /**
+     * @param item warehouse item to check
+     * @return true if a supplied material has the name of the item
+     */
+    boolean hasSupplier(WarehouseItem item)
+    {
+        var index = getIndex(item);
+        return index >= 0 && this.suppliedByIndex[index];
+    }
+
+    /**
+     * Returns the index of the item in this index. The index of the item is used if the name at the index fits
+     * (the item can have the index of another factory conglomerate), otherwise the index is found by the name.
+     * @param item warehouse item
+     * @return the index, -1 if no item of the factory conglomerate had the name when the index was created
+     */
+    private int getIndex(WarehouseItem item)
+    {
+        var index = item.getIndex();
+        if(index >= 0 && index < this.namesByIndex.length && item.getName().equals(this.namesByIndex[index]))
+            return index;
+
+        var indexByName = this.indicesByName.get(item.getName());
+        if(indexByName == null)
+            return -1;
+        return indexByName;
+    }
+
+    private void addProcessesRecursiveToList(WarehouseItem product, List<ProductionProcess> productionProcesses)
+    {
+        if(!(product instanceof Product))
+            return;
+
+        var process = getProductionProcess((Product) product);
+        if(process != null)
+        {
+            productionProcesses.add(process);
+            for(var subProduct : process.getMaterialPositions())
+                addProcessesRecursiveToList(subProduct.item(), productionProcesses);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package logistikoptimierung.Entities.FactoryObjects;
+
+/**
+ * Result of the simulation of a step list (see {@link BatchSimulation}).
+ * @param makespan the time step after the factory stops (in seconds)
+ * @param nrOfRemainingSteps the nr of steps which were not performed, 0 if the simulation is completed
+ * @param income the income of the simulation
+ */
+public record SimulationResult(long makespan, int nrOfRemainingSteps, double income) {
+    /**
+     * @return true if every step was performed
+     */
+    public boolean isCompleted()
+    {
+        return nrOfRemainingSteps == 0;
+    }
+}
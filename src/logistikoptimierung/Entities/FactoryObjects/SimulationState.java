@@ -0,0 +1,545 @@
+package logistikoptimierung.Entities.FactoryObjects;
+
+import logistikoptimierung.Entities.WarehouseItems.Order;
+import logistikoptimierung.Entities.WarehouseItems.WarehousePosition;
+
+import java.util.*;
+
+/**
+ * Stores the state of one simulation of the factory conglomerate. The state contains everything which changes in the
+ * simulation: the current time step, the income, the warehouse stock, the buffers of the factories, the loaded items
+ * of the transporters, the blocked time of the factory objects, the working orders, the remaining and completed
+ * factory steps, the event time steps and the log messages. A copy of the state (see {@link #copy()}) can be used to
+ * continue the simulation from this point.
+ * The factory conglomerate and the factory objects are not changed by the simulation. With this several simulations
+ * of the same factory conglomerate can run at the same time, every simulation with its own state. A state should only
+ * be used by one thread.
+ */
+public class SimulationState
+{
+    private final FactoryConglomerate factoryConglomerate;
+    private long currentTimeStep;
+    private double currentIncome;
+    private SimulationStopTypes stopType;
+
+    private final Warehouse warehouse;
+    private final long[] blockedUntilTimeSteps;
+    private final DriverAvailabilityIndex driverAvailabilityIndex;
+    private final FactoryStepTypes[] currentTasks;
+    private final WarehousePosition[] loadedItems;
+    private final FactoryState[] factoryStates;
+    private final List<Order> workingOrderList;
+    private final FactoryStepQueue stepQueue;
+    //Completed steps which are not in the step queue, the queue stores the completed time steps of its steps
+    private final Map<FactoryStep, Long> completedSteps;
+    private final TreeSet<Long> eventTimeSteps;
+
+    private final List<LogMessage> logMessages;
+
+    /**
+     * Creates the initial state for a simulation. The warehouse starts with the stock of the warehouse of the factory
+     * conglomerate.
+     * @param factoryConglomerate factory conglomerate which is simulated
+     * @param orderList orders of the simulation
+     */
+    SimulationState(FactoryConglomerate factoryConglomerate, List<Order> orderList)
+    {
+        this.factoryConglomerate = factoryConglomerate;
+        this.currentTimeStep = 0;
+        this.currentIncome = 0;
+        this.stopType = SimulationStopTypes.None;
+        this.logMessages = new ArrayList<>();
+
+        this.warehouse = factoryConglomerate.getWarehouse().copyForSimulation(this);
+
+        var nrOfFactoryObjects = factoryConglomerate.getNrOfFactoryObjects();
+        this.blockedUntilTimeSteps = new long[nrOfFactoryObjects];
+        this.driverAvailabilityIndex = new DriverAvailabilityIndex(factoryConglomerate.getDrivers());
+        this.currentTasks = new FactoryStepTypes[nrOfFactoryObjects];
+        Arrays.fill(this.currentTasks, FactoryStepTypes.None);
+        this.loadedItems = new WarehousePosition[nrOfFactoryObjects];
+        this.factoryStates = new FactoryState[nrOfFactoryObjects];
+        for(var factory : factoryConglomerate.getFactories())
+            this.factoryStates[factory.getIndex()] = new FactoryState(factory);
+
+        //Working Order List is used for storing the remaining amount of items in an Order
+        //This list changes => copy the list
+        this.workingOrderList = new ArrayList<>(orderList.size());
+        for(var order : orderList)
+            this.workingOrderList.add(order.createCopyOfOrder());
+
+        this.stepQueue = new FactoryStepQueue();
+        this.completedSteps = new HashMap<>();
+        this.eventTimeSteps = new TreeSet<>();
+    }
+
+    private SimulationState(SimulationState state)
+    {
+        this(state, true);
+    }
+
+    /**
+     * Copies the state
+     * @param state state to copy
+     * @param copyRemainingSteps true to copy the remaining steps, false for a copy with an empty step queue where the
+     *                           completed steps of the queue stay completed
+     */
+    private SimulationState(SimulationState state, boolean copyRemainingSteps)
+    {
+        this.factoryConglomerate = state.factoryConglomerate;
+        this.currentTimeStep = state.currentTimeStep;
+        this.currentIncome = state.currentIncome;
+        this.stopType = state.stopType;
+        this.logMessages = new ArrayList<>(state.logMessages);
+
+        this.warehouse = state.warehouse.copyForSimulation(this);
+        this.blockedUntilTimeSteps = state.blockedUntilTimeSteps.clone();
+        this.driverAvailabilityIndex = state.driverAvailabilityIndex.copy();
+        this.currentTasks = state.currentTasks.clone();
+        this.loadedItems = state.loadedItems.clone();
+        this.factoryStates = new FactoryState[state.factoryStates.length];
+        for(int i = 0; i < state.factoryStates.length; i++)
+        {
+            if(state.factoryStates[i] != null)
+                this.factoryStates[i] = state.factoryStates[i].copy();
+        }
+
+        this.workingOrderList = new ArrayList<>(state.workingOrderList.size());
+        for(var order : state.workingOrderList)
+            this.workingOrderList.add(order.createCopyOfOrder());
+
+        this.completedSteps = new HashMap<>(state.completedSteps);
+        if(copyRemainingSteps)
+        {
+            this.stepQueue = state.stepQueue.copy();
+        }
+        else
+        {
+            this.stepQueue = new FactoryStepQueue();
+            state.stepQueue.addCompletedSteps(this.completedSteps);
+        }
+        this.eventTimeSteps = new TreeSet<>(state.eventTimeSteps);
+    }
+
+    /**
+     * Creates a copy of the state. The simulation can be continued with the copy without changing this state.
+     * @return the copy of the state
+     */
+    public SimulationState copy()
+    {
+        return new SimulationState(this);
+    }
+
+    /**
+     * Creates a copy of the state for a new plan from the current time step on. The copy has no remaining steps, the
+     * steps which were completed stay completed, so the steps of the new plan can wait for them. The new orders are
+     * added to the working orders.
+     * @param newOrders orders which are added to the working orders, an order which is already a working order is
+     *                  skipped
+     * @return the copy of the state without the remaining steps
+     */
+    public SimulationState copyForNewPlan(List<Order> newOrders)
+    {
+        var simulationState = new SimulationState(this, false);
+        for(var order : newOrders)
+        {
+            if(simulationState.getWorkingOrderForOrder(order) == null)
+                simulationState.workingOrderList.add(order.createCopyOfOrder());
+        }
+        return simulationState;
+    }
+
+    /**
+     * @return the factory conglomerate of the simulation
+     */
+    public FactoryConglomerate getFactoryConglomerate()
+    {
+        return factoryConglomerate;
+    }
+
+    /**
+     * @return the current time step of the simulation
+     */
+    public long getCurrentTimeStep()
+    {
+        return currentTimeStep;
+    }
+
+    /**
+     * @param currentTimeStep sets the current time step of the simulation
+     */
+    void setCurrentTimeStep(long currentTimeStep)
+    {
+        this.currentTimeStep = currentTimeStep;
+    }
+
+    /**
+     * @return the reason why the simulation stopped, None if the simulation was not stopped yet
+     */
+    public SimulationStopTypes getStopType()
+    {
+        return stopType;
+    }
+
+    /**
+     * @param stopType sets the reason why the simulation stopped
+     */
+    void setStopType(SimulationStopTypes stopType)
+    {
+        this.stopType = stopType;
+    }
+
+    /**
+     * @return the current income
+     */
+    public double getCurrentIncome()
+    {
+        return currentIncome;
+    }
+
+    /**
+     * Increase the income of the simulation
+     * @param additionalIncome the income which should be added to the current income
+     */
+    public void increaseIncome(double additionalIncome)
+    {
+        this.currentIncome += additionalIncome;
+        if(!isLoggingActivated())
+            return;
+
+        var message = "Income increase, new income: " + additionalIncome;
+        addLog(message, LogMessageTypes.Factory);
+    }
+
+    /**
+     * @return returns after the simulation, if the max runtime is reached the nr of remaining steps
+     */
+    public int getNrOfRemainingSteps()
+    {
+        return stepQueue.size();
+    }
+
+    /**
+     * @return the steps which were not performed yet, in the order of the step list of the simulation
+     */
+    List<FactoryStep> getRemainingSteps()
+    {
+        return stepQueue.getRemainingSteps();
+    }
+
+    /**
+     * @return the queue with the remaining steps
+     */
+    FactoryStepQueue getStepQueue()
+    {
+        return stepQueue;
+    }
+
+    /**
+     * Adds steps at the end of the remaining steps
+     * @param factorySteps steps to add
+     */
+    void addSteps(List<FactoryStep> factorySteps)
+    {
+        stepQueue.addSteps(factorySteps, this);
+    }
+
+    /**
+     * Adds the steps of the plan at the end of the remaining steps
+     * @param plan plan with the steps to add
+     */
+    void addSteps(CompiledPlan plan)
+    {
+        stepQueue.addSteps(plan, this);
+    }
+
+    /**
+     * @return the event time steps which are not handled yet
+     */
+    TreeSet<Long> getEventTimeSteps()
+    {
+        return eventTimeSteps;
+    }
+
+    /**
+     * @return the warehouse of the simulation
+     */
+    public Warehouse getWarehouse()
+    {
+        return warehouse;
+    }
+
+    /**
+     * Gets the time step until the factory object is blocked
+     * @param factoryObject factory object of the factory conglomerate
+     * @return long time step
+     */
+    public long getBlockedUntilTimeStep(FactoryObject factoryObject)
+    {
+        return blockedUntilTimeSteps[factoryObject.getIndex()];
+    }
+
+    /**
+     * Sets the time step until the factory object is blocked
+     * @param factoryObject factory object of the factory conglomerate
+     * @param blockedUntilTimeStep time step in seconds until the factory object is blocked
+     */
+    public void setBlockedUntilTimeStep(FactoryObject factoryObject, long blockedUntilTimeStep)
+    {
+        blockedUntilTimeSteps[factoryObject.getIndex()] = blockedUntilTimeStep;
+        if(factoryObject instanceof Driver && driverAvailabilityIndex.isIndexedDriver(factoryObject))
+            driverAvailabilityIndex.setBlockedUntilTimeStep((Driver) factoryObject, blockedUntilTimeStep);
+    }
+
+    /**
+     * @param factoryObject factory object of the factory conglomerate
+     * @return the current task of the factory object, None if the object had no task yet
+     */
+    public FactoryStepTypes getCurrentTask(FactoryObject factoryObject)
+    {
+        return currentTasks[factoryObject.getIndex()];
+    }
+
+    /**
+     * @param factoryObject factory object of the factory conglomerate
+     * @param currentTask sets the current task of the factory object
+     */
+    public void setCurrentTask(FactoryObject factoryObject, FactoryStepTypes currentTask)
+    {
+        currentTasks[factoryObject.getIndex()] = currentTask;
+    }
+
+    /**
+     * @param transporter transporter of the factory conglomerate
+     * @return the item which is loaded on the transporter, null if the transporter is empty
+     */
+    public WarehousePosition getLoadedItem(Transporter transporter)
+    {
+        return loadedItems[transporter.getIndex()];
+    }
+
+    /**
+     * @param transporter transporter of the factory conglomerate
+     * @param loadedItem sets the item which is loaded on the transporter
+     */
+    public void setLoadedItem(Transporter transporter, WarehousePosition loadedItem)
+    {
+        loadedItems[transporter.getIndex()] = loadedItem;
+    }
+
+    /**
+     * @param factory factory of the factory conglomerate
+     * @return the state of the buffers of the factory
+     */
+    public FactoryState getFactoryState(Factory factory)
+    {
+        return factoryStates[factory.getIndex()];
+    }
+
+    /**
+     * Returns the first driver of the driver list which is not blocked by a task. The free drivers are found with the
+     * {@link DriverAvailabilityIndex}, not with a loop over every driver.
+     * @return a driver or null if no driver is available
+     */
+    public Driver getNotBlockedDriver()
+    {
+        return driverAvailabilityIndex.getNotBlockedDriver(currentTimeStep, blockedUntilTimeSteps);
+    }
+
+    /**
+     * @return the working orders, which store the remaining amount of the orders
+     */
+    public List<Order> getWorkingOrderList()
+    {
+        return workingOrderList;
+    }
+
+    /**
+     * Returns the working order which is used for storing the state of the current order for the specific order
+     * @param order for which the working order is needed
+     * @return the working order, returns null if the order was not found
+     */
+    public Order getWorkingOrderForOrder(Order order)
+    {
+        for (var workingOrder : workingOrderList)
+        {
+            if(workingOrder.getOrderNr() == order.getOrderNr())
+                return workingOrder;
+        }
+
+        return null;
+    }
+
+    /**
+     * @param factoryStep step to check
+     * @return true if the step is completed, false if not
+     */
+    public boolean isStepCompleted(FactoryStep factoryStep)
+    {
+        return getCompletedTimeStep(factoryStep) >= 0;
+    }
+
+    /**
+     * @param factoryStep step to check
+     * @return the time step when the step was completed, -1 if the step is not completed
+     */
+    public long getCompletedTimeStep(FactoryStep factoryStep)
+    {
+        var position = stepQueue.getPosition(factoryStep);
+        if(position >= 0)
+            return stepQueue.getCompletedTimeStep(position);
+
+        var timeStep = completedSteps.get(factoryStep);
+        if(timeStep == null)
+            return -1;
+        return timeStep;
+    }
+
+    /**
+     * Sets the completed status of the step, a completed step is completed at the current time step
+     * @param factoryStep step to set
+     * @param completed true if the step is completed
+     */
+    public void setStepCompleted(FactoryStep factoryStep, boolean completed)
+    {
+        var position = stepQueue.getPosition(factoryStep);
+        if(position >= 0)
+        {
+            stepQueue.setCompletedTimeStep(position, completed ? currentTimeStep : -1);
+            return;
+        }
+
+        if(completed)
+            completedSteps.put(factoryStep, currentTimeStep);
+        else
+            completedSteps.remove(factoryStep);
+    }
+
+    /**
+     * Checks if the log messages are stored. A message which needs a string concatenation or another calculation
+     * should only be created if this is true, so the simulation without logging does not create the message.
+     * @return true if the logging is activated in the log settings of the factory conglomerate
+     */
+    public boolean isLoggingActivated()
+    {
+        return factoryConglomerate.getLogSettings().activateLogging();
+    }
+
+    /**
+     * adds a log message to the simulation and print the message in the console if the settings are set for the message
+     * @param message message to log
+     * @param factoryObjectType the object which has the message
+     */
+    public void addLog(String message, LogMessageTypes factoryObjectType)
+    {
+        addLog(message, factoryObjectType, true);
+    }
+
+    /**
+     * adds a log message for a factory step to the simulation and print the message in the console if the settings
+     * are set for the message
+     * @param message message to log
+     * @param factoryObjectType the object which has the message
+     * @param completed if the factory step was completed
+     */
+    public void addFactoryStepLog(String message, LogMessageTypes factoryObjectType, boolean completed)
+    {
+        addLog(message, factoryObjectType, completed);
+    }
+
+    /**
+     * adds a log message if a factory object was blocked for a task.
+     * @param name name of the factory object
+     * @param stepType step type which the object wanted to perform
+     * @param factoryObjectType type of the factory object
+     */
+    public void addBlockLog(String name, FactoryStepTypes stepType, LogMessageTypes factoryObjectType)
+    {
+        if(isLoggingActivated())
+            addLog(name + " is blocked from Task: " + stepType, factoryObjectType);
+    }
+
+    private void addLog(String message, LogMessageTypes factoryObjectType, boolean completed)
+    {
+        if(!isLoggingActivated())
+            return;
+
+        var logSettings = factoryConglomerate.getLogSettings();
+
+        var newMessage = new LogMessage(currentTimeStep, message, factoryObjectType);
+        this.logMessages.add(newMessage);
+        switch (factoryObjectType)
+        {
+            case Driver -> {
+                if(logSettings.printDriverMessages())
+                    System.out.println(newMessage);
+            }
+            case Factory -> {
+                if(logSettings.printFactoryMessage())
+                    System.out.println(newMessage);
+            }
+            case FactoryStep -> {
+                if(!logSettings.printFactoryStepMessages())
+                    break;
+
+                if(logSettings.printOnlyCompletedFactoryStepMessages())
+                {
+                    if(completed)
+                        System.out.println(newMessage);
+                    break;
+                }
+
+                System.out.println(newMessage);
+            }
+            case Production -> {
+                if(logSettings.printProductionMessages())
+                    System.out.println(newMessage);
+            }
+            case Transporter -> {
+                if(logSettings.printTransportMessages())
+                    System.out.println(newMessage);
+            }
+            case WarehouseStock ->{
+                if(logSettings.printWarehouseStockChangeMessages())
+                    System.out.println(newMessage);
+            }
+            case Warehouse -> {
+                if(logSettings.printWarehouseMessages())
+                    System.out.println(newMessage);
+            }
+            case CurrentWarehouseStock -> {
+                if(logSettings.printCurrentWarehouseStockAfterChangeMessages())
+                    System.out.println(newMessage);
+            }
+        }
+    }
+
+    /**
+     * prints every log message in the time between the from and to time step
+     * @param fromTimeStamp start for the messages, -1 for the start of the simulation
+     * @param toTimeStamp end for the messages, -1 for the last message
+     */
+    public void printLogMessageFromTo(long fromTimeStamp, long toTimeStamp)
+    {
+        if(logMessages.isEmpty()) {
+            System.out.println("No logs");
+            return;
+        }
+
+        if(fromTimeStamp == -1)
+            fromTimeStamp = 0;
+
+        if(toTimeStamp == -1)
+        {
+            var indexOfLastItem = logMessages.size() -1;
+            var lastItem = logMessages.get(indexOfLastItem);
+            toTimeStamp = lastItem.timeStep();
+        }
+
+        for (var message : this.logMessages)
+        {
+            if(message.timeStep() > fromTimeStamp && message.timeStep() < toTimeStamp)
+                System.out.println(message);
+        }
+    }
+}
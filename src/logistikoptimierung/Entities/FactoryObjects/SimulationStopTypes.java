@@ -0,0 +1,33 @@
+package logistikoptimierung.Entities.FactoryObjects;
+
+/**
+ * Reasons why a simulation stopped (see {@link SimulationState#getStopType()})
+ */
+public enum SimulationStopTypes
+{
+    /**
+     * The simulation is not started or not stopped yet
+     */
+    None,
+
+    /**
+     * Every factory step was performed
+     */
+    Completed,
+
+    /**
+     * No event time step is left, the remaining factory steps can not be performed
+     */
+    NoEventTimeStep,
+
+    /**
+     * The current time step is after the max run time
+     */
+    MaxRunTime,
+
+    /**
+     * Early abort: the lower bound of the makespan (see {@link MakespanLowerBound}) is after the max run time, so the
+     * remaining factory steps can not be completed until the max run time
+     */
+    LowerBound
+}
@@ -17,14 +17,12 @@ import logistikoptimierung.Entities.WarehouseItems.WarehouseItem;
  */
 public class Transporter extends FactoryObject
 {
+    private final int id;
     private final String area;
     private final String type;
     private final String engine;
     private final int capacity;
 
-    private WarehousePosition loadedItem;
-    private FactoryStepTypes currentTask;
-
     /**
      * This class creates a Transporter for the factory. This transporter handles the Tasks:
      * - Get material from supplier and drive back to warehouse
@@ -44,6 +42,7 @@ public class Transporter extends FactoryObject
     public Transporter(String name, int id, String area, String type, String engine, int maxCapacity)
     {
         super(name, "T" + id, LogMessageTypes.Transporter);
+        this.id = id;
         this.area = area;
         this.type = type;
         this.engine = engine;
@@ -57,6 +56,7 @@ public class Transporter extends FactoryObject
      * - MoveMaterialFromTransporterToWarehouse => Move the material from the transporter to the warehouse
      * - ConcludeOrderTransportToCustomer => Conclude and bring the product to sell to the customer (from a specific order)
      * - ClosesOrderFromCustomer => Close the order after every amount of a specific product was delivered
+     * @param simulationState state of the simulation with the loaded item of the transporter
      * @param currentTimeStep The current time step of the simulation
      * @param item which warehouse item should be manipulated
      * @param amountOfItems the amount of items which should be manipulated
@@ -64,134 +64,164 @@ public class Transporter extends FactoryObject
      * @return return true if the task was successfully or false if not
      */
     @Override
-    public boolean doWork(long currentTimeStep, WarehouseItem item, int amountOfItems, FactoryStepTypes stepType)
+    public boolean doWork(SimulationState simulationState, long currentTimeStep, WarehouseItem item, int amountOfItems, FactoryStepTypes stepType)
     {
-        if(currentTimeStep < super.getBlockedUntilTimeStep())
+        if(currentTimeStep < simulationState.getBlockedUntilTimeStep(this))
         {
-            //Take care. Performance impact in the simulation
-            //super.addBlockMessage(super.getName(), currentTask);
+            super.addBlockMessage(simulationState, super.getName(), simulationState.getCurrentTask(this));
             return false;
         }
 
+        var warehouse = simulationState.getWarehouse();
+
         switch (stepType)
         {
             case GetMaterialFromSuppliesAndMoveBackToWarehouse -> {
-                var driver = this.getFactory().getNotBlockedDriver();
+                var driver = simulationState.getNotBlockedDriver();
                 if(driver == null)
                 {
-                    addNoAvailableDriverLogMessage();
+                    addNoAvailableDriverLogMessage(simulationState);
                     return false;
                 }
-                super.addLogMessage("Free Driver found: " + driver.getName());
-                var itemToLoad = getMaterialFromSupplier(amountOfItems, (Material) item, driver);
+                if(simulationState.isLoggingActivated())
+                    super.addLogMessage(simulationState, "Free Driver found: " + driver.getName());
+                var itemToLoad = getMaterialFromSupplier(simulationState, amountOfItems, (Material) item, driver);
                 if(itemToLoad == null)
                 {
-                    super.addErrorLogMessage("Could not load item");
+                    super.addErrorLogMessage(simulationState, "Could not load item");
                     return false;
                 }
-                currentTask = stepType;
-                this.loadedItem = itemToLoad;
+                simulationState.setCurrentTask(this, stepType);
+                simulationState.setLoadedItem(this, itemToLoad);
             }
             case MoveMaterialFromTransporterToWarehouse -> {
-                if(this.loadedItem == null)
+                var loadedItem = simulationState.getLoadedItem(this);
+                if(loadedItem == null)
                 {
-                    super.addErrorLogMessage("No item to unload");
+                    super.addErrorLogMessage(simulationState, "No item to unload");
                     return false;
                 }
-                var result = this.getFactory().getWarehouse().addItemToWarehouse(loadedItem);
+                var result = warehouse.addItemToWarehouse(loadedItem);
                 if(!result)
                     return false;
 
-                this.setBlockedUntilTimeStep(currentTimeStep);
-                currentTask = stepType;
-                this.loadedItem = null;
+                simulationState.setBlockedUntilTimeStep(this, currentTimeStep);
+                simulationState.setCurrentTask(this, stepType);
+                simulationState.setLoadedItem(this, null);
             }
             case ConcludeOrderTransportToCustomer -> {
 
                 //Check if material is available
-                if(!this.getFactory().getWarehouse().checkIfMaterialIsAvailable(((Order)item).getWarehousePosition().item(), amountOfItems))
+                if(!warehouse.checkIfMaterialIsAvailable(((Order)item).getWarehousePosition().item(), amountOfItems))
                 {
-                    super.addErrorLogMessage("Material: " + item + " in the amount: " + amountOfItems + " not available");
+                    if(simulationState.isLoggingActivated())
+                        super.addErrorLogMessage(simulationState, "Material: " + item + " in the amount: " + amountOfItems + " not available");
                     return false;
                 }
 
-                var driver = this.getFactory().getNotBlockedDriver();
+                var driver = simulationState.getNotBlockedDriver();
                 if(driver == null)
                 {
-                    addNoAvailableDriverLogMessage();
+                    addNoAvailableDriverLogMessage(simulationState);
                     return false;
                 }
 
-                var workingOrder = this.getFactory().getWorkingOrderForOrder((Order)item);
+                var workingOrder = simulationState.getWorkingOrderForOrder((Order)item);
                 if(workingOrder == null)
                 {
-                    super.addErrorLogMessage("Working order for order not found " + item.getName());
+                    if(simulationState.isLoggingActivated())
+                        super.addErrorLogMessage(simulationState, "Working order for order not found " + item.getName());
                     return false;
                 }
 
-                currentTask = stepType;
-                return getSpecificAmountOfItemsFromOrderToCustomer(workingOrder, amountOfItems, driver);
+                simulationState.setCurrentTask(this, stepType);
+                return getSpecificAmountOfItemsFromOrderToCustomer(simulationState, workingOrder, amountOfItems, driver);
             }
             case ClosesOrderFromCustomer -> {
 
-                var workingOrder = this.getFactory().getWorkingOrderForOrder((Order)item);
+                var workingOrder = simulationState.getWorkingOrderForOrder((Order)item);
                 if(workingOrder == null)
                 {
-                    super.addErrorLogMessage("Working order for order not found " + item.getName());
+                    if(simulationState.isLoggingActivated())
+                        super.addErrorLogMessage(simulationState, "Working order for order not found " + item.getName());
                     return false;
                 }
 
                 if(workingOrder.getWarehousePosition().amount() > 0)
                 {
-                    super.addErrorLogMessage("Order can't be closed. " + workingOrder.getWarehousePosition().amount() + " of " + workingOrder.getWarehousePosition().item() + " is still to deliver");
+                    if(simulationState.isLoggingActivated())
+                        super.addErrorLogMessage(simulationState, "Order can't be closed. " + workingOrder.getWarehousePosition().amount() + " of " + workingOrder.getWarehousePosition().item() + " is still to deliver");
                     return false;
                 }
 
-                this.setBlockedUntilTimeStep(currentTimeStep);
-                currentTask = stepType;
-                this.getFactory().increaseIncome(workingOrder.getIncome());
+                simulationState.setBlockedUntilTimeStep(this, currentTimeStep);
+                simulationState.setCurrentTask(this, stepType);
+                simulationState.increaseIncome(workingOrder.getIncome());
             }
         }
         return true;
     }
 
     /**
-     * Resets the Transporter. The blocked until time step is set to 0 and the current task to the FactoryStepType None
+     * @return the capacity of the transporter
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the unique id of the transporter
      */
-    public void resetTransporter()
+    public int getId()
     {
-        super.setBlockedUntilTimeStep(0);
-        this.currentTask = FactoryStepTypes.None;
-        this.loadedItem = null;
+        return id;
     }
 
     /**
-     * @return the capacity of the transporter
+     * @return the area of the transporter
      */
-    public int getCapacity() {
-        return capacity;
+    public String getArea()
+    {
+        return area;
+    }
+
+    /**
+     * @return the type of the transporter
+     */
+    public String getType()
+    {
+        return type;
     }
 
-    private WarehousePosition getMaterialFromSupplier(int amount, Material material, Driver driver)
+    /**
+     * @return the engine of the transporter
+     */
+    public String getEngine()
+    {
+        return engine;
+    }
+
+    private WarehousePosition getMaterialFromSupplier(SimulationState simulationState, int amount, Material material, Driver driver)
     {
         if(amount > this.capacity)
         {
-            addCapacityExceededMessage(material, amount);
+            addCapacityExceededMessage(simulationState, material, amount);
             return null;
         }
 
         if(!areTransportationConstraintsFulfilledForMaterial(material))
         {
-            addTransportationConstraintNotFulfilledMessage(material);
+            addTransportationConstraintNotFulfilledMessage(simulationState, material);
             return null;
         }
 
         var drivingTime = material.getTravelTime();
-        super.setBlockedUntilTimeStep(this.getFactory().getCurrentTimeStep() + drivingTime);
-        driver.setBlockedUntilTimeStep(super.getBlockedUntilTimeStep());
+        var blockedUntilTimeStep = simulationState.getCurrentTimeStep() + drivingTime;
+        simulationState.setBlockedUntilTimeStep(this, blockedUntilTimeStep);
+        simulationState.setBlockedUntilTimeStep(driver, blockedUntilTimeStep);
 
         var newPosition = new WarehousePosition(material, amount);
-        addDriveLogMessage(newPosition);
+        addDriveLogMessage(simulationState, newPosition);
 
         return newPosition;
     }
@@ -217,24 +247,29 @@ public class Transporter extends FactoryObject
      */
     public boolean areTransportationConstraintsFulfilledForOrder(Order order)
     {
-        var area = order.getArea();
-        var engine = order.getEngine();
-        var transportTypes = new String[]{order.getTransportType()};
+        if(!areAreaAndEngineConstraintsFulfilled(order.getArea(), order.getEngine()))
+            return false;
 
-        return areTransportationConstraintsFulfilled(area, engine, transportTypes);
+        //The order has only one transport type, no array for the check of the transport types
+        var transportType = order.getTransportType();
+        return transportType.equals("x") || transportType.equals(type);
     }
 
     private boolean areTransportationConstraintsFulfilled(String area, String engine,
                                                          String[] transportTypes)
     {
-        if(!area.equals(this.area))
+        if(!areAreaAndEngineConstraintsFulfilled(area, engine))
             return false;
 
-        if(!engine.equals("x") &&
-                !engine.equals(this.engine))
+        return checkTransportType(transportTypes);
+    }
+
+    private boolean areAreaAndEngineConstraintsFulfilled(String area, String engine)
+    {
+        if(!area.equals(this.area))
             return false;
 
-        return checkTransportType(transportTypes);
+        return engine.equals("x") || engine.equals(this.engine);
     }
 
     private boolean checkTransportType(String[] transportTypes)
@@ -250,50 +285,63 @@ public class Transporter extends FactoryObject
         return false;
     }
 
-    private boolean getSpecificAmountOfItemsFromOrderToCustomer(Order order, int amountOfItems, Driver driver)
+    private boolean getSpecificAmountOfItemsFromOrderToCustomer(SimulationState simulationState, Order order, int amountOfItems, Driver driver)
     {
         if(amountOfItems > this.capacity)
         {
-            addCapacityExceededMessage(order.getWarehousePosition().item(), amountOfItems);
+            addCapacityExceededMessage(simulationState, order.getWarehousePosition().item(), amountOfItems);
             return false;
         }
 
         if(!areTransportationConstraintsFulfilledForOrder(order))
         {
-            addTransportationConstraintNotFulfilledMessage(order);
+            addTransportationConstraintNotFulfilledMessage(simulationState, order);
             return false;
         }
 
-        super.setBlockedUntilTimeStep(this.getFactory().getCurrentTimeStep() + order.getTravelTime());
-        driver.setBlockedUntilTimeStep(super.getBlockedUntilTimeStep());
-        this.getFactory().getWarehouse().removeItemFromWarehouse(
+        var blockedUntilTimeStep = simulationState.getCurrentTimeStep() + order.getTravelTime();
+        simulationState.setBlockedUntilTimeStep(this, blockedUntilTimeStep);
+        simulationState.setBlockedUntilTimeStep(driver, blockedUntilTimeStep);
+        simulationState.getWarehouse().removeItemFromWarehouse(
                 new WarehousePosition(order.getWarehousePosition().item(), amountOfItems));
         order.deductProductAmount(amountOfItems);
 
         return true;
     }
 
-    private void addNoAvailableDriverLogMessage()
+    private void addNoAvailableDriverLogMessage(SimulationState simulationState)
     {
-        var message = super.getName() + ": no driver available for task: " + currentTask;
-        super.addErrorLogMessage(message);
+        if(!simulationState.isLoggingActivated())
+            return;
+
+        var message = super.getName() + ": no driver available for task: " + simulationState.getCurrentTask(this);
+        super.addErrorLogMessage(simulationState, message);
     }
 
-    private void addDriveLogMessage(WarehousePosition position)
+    private void addDriveLogMessage(SimulationState simulationState, WarehousePosition position)
     {
+        if(!simulationState.isLoggingActivated())
+            return;
+
         var message = super.getName() + " Task: get Material " + position.item().getName() + " Amount: " + position.amount();
-        super.addLogMessage(message);
+        super.addLogMessage(simulationState, message);
     }
 
-    private void addCapacityExceededMessage(WarehouseItem item, int amount)
+    private void addCapacityExceededMessage(SimulationState simulationState, WarehouseItem item, int amount)
     {
+        if(!simulationState.isLoggingActivated())
+            return;
+
         var message = super.getName() + ": Capacity exceeded for " + item.getName() + " amount: " + amount;
-        super.addErrorLogMessage(message);
+        super.addErrorLogMessage(simulationState, message);
     }
 
-    private void addTransportationConstraintNotFulfilledMessage(WarehouseItem material)
+    private void addTransportationConstraintNotFulfilledMessage(SimulationState simulationState, WarehouseItem material)
     {
+        if(!simulationState.isLoggingActivated())
+            return;
+
         var message = super.getName() + ": Transport constraints not fulfilled for " + material.getName();
-        super.addErrorLogMessage(message);
+        super.addErrorLogMessage(simulationState, message);
     }
 }
@@ -0,0 +1,213 @@
+package logistikoptimierung.Entities.FactoryObjects;
+
+import logistikoptimierung.Entities.WarehouseItems.Material;
+import logistikoptimierung.Entities.WarehouseItems.Order;
+import logistikoptimierung.Entities.WarehouseItems.WarehouseItem;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the transporters which fulfill the transportation constraints of the materials and orders. The index is
+ * created once for the transporters of a factory conglomerate, the factory conglomerate creates a new index if a
+ * transporter is added or removed (see {@link FactoryConglomerate#getTransporterCompatibility()}).
+ * The transporters are sorted by their capacity (transporters with the same capacity in the order of the factory
+ * conglomerate), bit i of a bitset stands for the transporter at position i of
+ * {@link #getTransportersSortedByCapacity()}. The bitsets of the supplied materials are created with the index, the
+ * bitsets of the orders are created for every combination of area, engine and transport type when it is used first.
+ * Transporters with the same area, type, engine and capacity are interchangeable, they have the same equivalence
+ * class (see {@link #getEquivalenceClass(Transporter)}).
+ * The index can be used from several threads.
+ */
+public class TransporterCompatibility
+{
+    /**
+     * Transportation constraints of an order
+     * @param area area of the order
+     * @param engine engine of the order
+     * @param transportType transport type of the order
+     */
+    private record OrderConstraints(String area, String engine, String transportType)
+    {
+    }
+
+    /**
+     * Properties of a transporter which are used by the transportation constraints and the simulation
+     * @param area area of the transporter
+     * @param type type of the transporter
+     * @param engine engine of the transporter
+     * @param capacity capacity of the transporter
+     */
+    private record TransporterProperties(String area, String type, String engine, int capacity)
+    {
+    }
+
+    private final List<Transporter> transportersSortedByCapacity;
+    private final int[] positionsByIndex;
+    private final int[] equivalenceClasses;
+    private final Map<Material, BitSet> fittingTransportersForMaterials = new IdentityHashMap<>();
+    private final Map<OrderConstraints, BitSet> fittingTransportersForOrders = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the index for the transporters and the supplied materials
+     * @param transporters transporters of the factory conglomerate (with their index)
+     * @param suppliedMaterials supplied materials of the factory conglomerate
+     */
+    TransporterCompatibility(List<Transporter> transporters, List<Material> suppliedMaterials)
+    {
+        var sortedTransporters = new ArrayList<>(transporters);
+        sortedTransporters.sort(Comparator.comparingInt(Transporter::getCapacity));
+        this.transportersSortedByCapacity = Collections.unmodifiableList(sortedTransporters);
+
+        var maxIndex = -1;
+        for(var transporter : sortedTransporters)
+            maxIndex = Math.max(maxIndex, transporter.getIndex());
+        this.positionsByIndex = new int[maxIndex + 1];
+        for(int i = 0; i < sortedTransporters.size(); i++)
+        {
+            if(sortedTransporters.get(i).getIndex() >= 0)
+                this.positionsByIndex[sortedTransporters.get(i).getIndex()] = i;
+        }
+
+        //The equivalence class is the first position of a transporter with the same properties
+        this.equivalenceClasses = new int[sortedTransporters.size()];
+        var firstPositions = new HashMap<TransporterProperties, Integer>();
+        for(int i = 0; i < sortedTransporters.size(); i++)
+        {
+            var transporter = sortedTransporters.get(i);
+            var properties = new TransporterProperties(transporter.getArea(), transporter.getType(),
+                    transporter.getEngine(), transporter.getCapacity());
+            firstPositions.putIfAbsent(properties, i);
+            this.equivalenceClasses[i] = firstPositions.get(properties);
+        }
+
+        for(var material : suppliedMaterials)
+            this.fittingTransportersForMaterials.put(material, createFittingTransporters(material));
+    }
+
+    /**
+     * @return the transporters sorted by the capacity, the positions of the bits of the bitsets
+     */
+    public List<Transporter> getTransportersSortedByCapacity()
+    {
+        return transportersSortedByCapacity;
+    }
+
+    /**
+     * Returns the transporters which fulfill the transportation constraints of the material or order. The bitset is
+     * shared and must not be changed.
+     * @param item material or order
+     * @return bitset of the fitting transporters (positions of {@link #getTransportersSortedByCapacity()}), an empty
+     * bitset for other items
+     */
+    public BitSet getFittingTransporters(WarehouseItem item)
+    {
+        if(item instanceof Material)
+        {
+            var fittingTransporters = this.fittingTransportersForMaterials.get((Material) item);
+            if(fittingTransporters != null)
+                return fittingTransporters;
+            return createFittingTransporters(item);
+        }
+
+        if(item instanceof Order)
+        {
+            var order = (Order) item;
+            var constraints = new OrderConstraints(order.getArea(), order.getEngine(), order.getTransportType());
+            var fittingTransporters = this.fittingTransportersForOrders.get(constraints);
+            if(fittingTransporters != null)
+                return fittingTransporters;
+            return this.fittingTransportersForOrders.computeIfAbsent(constraints, key -> createFittingTransporters(order));
+        }
+
+        return new BitSet();
+    }
+
+    /**
+     * Checks if the transporter fulfills the transportation constraints of the material or order. Items without
+     * transportation constraints (products) can be transported by every transporter.
+     * @param transporter transporter to check
+     * @param item item to transport
+     * @return true if the transporter can transport the item, false if not
+     */
+    public boolean isFitting(Transporter transporter, WarehouseItem item)
+    {
+        if(!(item instanceof Material) && !(item instanceof Order))
+            return true;
+
+        var position = getPosition(transporter);
+        if(position < 0)
+            return isFulfilled(transporter, item);
+        return getFittingTransporters(item).get(position);
+    }
+
+    /**
+     * Checks if the transporter is one of the fitting transporters of a material or order. For checking many
+     * transporters for the same item, the fitting transporters are looked up once.
+     * @param transporter transporter to check
+     * @param fittingTransporters fitting transporters of the item (see {@link #getFittingTransporters(WarehouseItem)})
+     * @return true if the transporter fits, false if not or if the transporter is not indexed
+     */
+    public boolean isFitting(Transporter transporter, BitSet fittingTransporters)
+    {
+        var position = getPosition(transporter);
+        return position >= 0 && fittingTransporters.get(position);
+    }
+
+    /**
+     * @param transporter transporter to find
+     * @return the position of the transporter in the sorted transporters, -1 if the transporter is not indexed
+     */
+    public int getPosition(Transporter transporter)
+    {
+        var index = transporter.getIndex();
+        if(index < 0 || index >= this.positionsByIndex.length)
+            return -1;
+
+        var position = this.positionsByIndex[index];
+        if(this.transportersSortedByCapacity.get(position) != transporter)
+            return -1;
+        return position;
+    }
+
+    /**
+     * Returns the equivalence class of the transporter. Transporters with the same area, type, engine and capacity
+     * have the same class, the class is the position of the first of these transporters in
+     * {@link #getTransportersSortedByCapacity()}. Swapping two transporters of the same class does not change a
+     * simulation.
+     * @param transporter transporter to check
+     * @return the equivalence class of the transporter, -1 if the transporter is not indexed
+     */
+    public int getEquivalenceClass(Transporter transporter)
+    {
+        var position = getPosition(transporter);
+        if(position < 0)
+            return -1;
+        return this.equivalenceClasses[position];
+    }
+
+    private BitSet createFittingTransporters(WarehouseItem item)
+    {
+        var fittingTransporters = new BitSet(this.transportersSortedByCapacity.size());
+        for(int i = 0; i < this.transportersSortedByCapacity.size(); i++)
+        {
+            if(isFulfilled(this.transportersSortedByCapacity.get(i), item))
+                fittingTransporters.set(i);
+        }
+        return fittingTransporters;
+    }
+
+    private static boolean isFulfilled(Transporter transporter, WarehouseItem item)
+    {
+        if(item instanceof Material)
+            return transporter.areTransportationConstraintsFulfilledForMaterial((Material) item);
+        return transporter.areTransportationConstraintsFulfilledForOrder((Order) item);
+    }
+}
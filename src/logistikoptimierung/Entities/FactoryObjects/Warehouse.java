@@ -4,17 +4,29 @@ import logistikoptimierung.Entities.WarehouseItems.WarehousePosition;
 import logistikoptimierung.Entities.WarehouseItems.WarehouseItem;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 /**
- * Warehouse simulates the stock with the add and remove operation.
+ * Warehouse simulates the stock with the add and remove operation. The warehouse of the factory conglomerate stores the
+ * stock at the start of a simulation, every simulation state works on its own copy of it.
+ * The stock is stored in arrays with the index of the warehouse item (see
+ * {@link FactoryConglomerate#getWarehouseItemIndex(WarehouseItem)}), items with the same name share the stock.
+ * The index of an item is only used if the name of the item fits the name at the index, an item which is used by
+ * several factory conglomerates can have the index of another factory conglomerate.
  */
 public class Warehouse extends FactoryObject
 {
-    private final List<WarehousePosition> warehouseItems;
+    private int[] stock;
+    private WarehouseItem[] items;
+    private String[] itemNames;
+    private long[] positionNrs;
+    private long lastPositionNr;
     private int remainingWarehouseCapacity;
     private int warehouseCapacity;
     private final FactoryConglomerate factoryConglomerate;
+    private final SimulationState simulationState;
 
     /**
      * Create an object of the warehouse. This object simulates the add and remove of warehouse items from the warehouse.
@@ -26,10 +38,31 @@ public class Warehouse extends FactoryObject
     {
         super(name, name, LogMessageTypes.Warehouse);
         this.factoryConglomerate = factoryConglomerate;
-        this.warehouseItems = new ArrayList<>();
+        this.simulationState = null;
+        this.itemNames = factoryConglomerate.getWarehouseItemNames();
+        var nrOfItems = this.itemNames.length;
+        this.stock = new int[nrOfItems];
+        this.items = new WarehouseItem[nrOfItems];
+        this.positionNrs = new long[nrOfItems];
         this.remainingWarehouseCapacity = warehouseCapacity;
     }
 
+    private Warehouse(Warehouse warehouse, SimulationState simulationState)
+    {
+        super(warehouse);
+        this.factoryConglomerate = warehouse.factoryConglomerate;
+        this.simulationState = simulationState;
+        this.warehouseCapacity = warehouse.warehouseCapacity;
+        this.remainingWarehouseCapacity = warehouse.remainingWarehouseCapacity;
+
+        //The items are not changed by the warehouse => the items don't need a copy
+        this.stock = warehouse.stock.clone();
+        this.items = warehouse.items.clone();
+        this.itemNames = warehouse.itemNames.clone();
+        this.positionNrs = warehouse.positionNrs.clone();
+        this.lastPositionNr = warehouse.lastPositionNr;
+    }
+
     /**
      * @return the warehouse capacity
      */
@@ -63,28 +96,11 @@ public class Warehouse extends FactoryObject
 
         remainingWarehouseCapacity = remainingWarehouseCapacity - warehousePosition.amount();
 
-        WarehousePosition positionToOverwrite = null;
-        var indexToRemove = 0;
-
-        for(var wp : warehouseItems)
-        {
-            if(wp.item().getName().equals(warehousePosition.item().getName()))
-            {
-                positionToOverwrite = new WarehousePosition(warehousePosition.item(),
-                        wp.amount() + warehousePosition.amount());
-                indexToRemove = warehouseItems.indexOf(wp);
-            }
-        }
-
-        if(positionToOverwrite != null)
-        {
-            warehouseItems.remove(indexToRemove);
-            warehouseItems.add(positionToOverwrite);
-        }
-        else
-        {
-            warehouseItems.add(warehousePosition);
-        }
+        //An added item becomes the last position of the warehouse
+        var index = getIndex(warehousePosition.item());
+        stock[index] = stock[index] + warehousePosition.amount();
+        items[index] = warehousePosition.item();
+        positionNrs[index] = ++lastPositionNr;
 
         addAddItemMessage(warehousePosition);
         addCurrentWarehouseStockMessage();
@@ -98,31 +114,20 @@ public class Warehouse extends FactoryObject
      */
     public WarehousePosition removeItemFromWarehouse(WarehousePosition warehousePosition)
     {
-        for (var item : warehouseItems)
+        var index = getIndex(warehousePosition.item());
+        if(items[index] == null || stock[index] < warehousePosition.amount())
         {
-            if(item.item().equals(warehousePosition.item()))
-            {
-                var index = warehouseItems.indexOf(item);
-                var itemToOverwrite = warehouseItems.get(index);
-
-                if(itemToOverwrite.amount() < warehousePosition.amount())
-                {
-                    addItemNotFoundMessage(warehousePosition.item());
-                    return null;
-                }
-
-                remainingWarehouseCapacity = remainingWarehouseCapacity + warehousePosition.amount();
-                var newPosition = new WarehousePosition(warehousePosition.item(),
-                        itemToOverwrite.amount() - warehousePosition.amount());
-                warehouseItems.set(index, newPosition);
-                addItemRemovedMessage(warehousePosition);
-                addCurrentWarehouseStockMessage();
-                return item;
-            }
+            addItemNotFoundMessage(warehousePosition.item());
+            return null;
         }
 
-        addItemNotFoundMessage(warehousePosition.item());
-        return null;
+        var removedFromPosition = new WarehousePosition(items[index], stock[index]);
+        remainingWarehouseCapacity = remainingWarehouseCapacity + warehousePosition.amount();
+        stock[index] = stock[index] - warehousePosition.amount();
+        items[index] = warehousePosition.item();
+        addItemRemovedMessage(warehousePosition);
+        addCurrentWarehouseStockMessage();
+        return removedFromPosition;
     }
 
     /**
@@ -133,28 +138,9 @@ public class Warehouse extends FactoryObject
      */
     public boolean checkIfMaterialIsAvailable(WarehouseItem warehouseItem, int amount)
     {
-        for (var item : warehouseItems)
-        {
-            if(item.item().equals(warehouseItem))
-            {
-                var index = warehouseItems.indexOf(item);
-                var itemToOverwrite = warehouseItems.get(index);
-
-                if(itemToOverwrite.amount() < amount)
-                {
-                    //Take care. Performance impact in the simulation
-                    //addItemNotFoundMessage(warehouseItem);
-                    return false;
-                }
-                else
-                    return true;
-
-            }
-        }
-
-        //Take care. Performance impact in the simulation
-        //addItemNotFoundMessage(warehouseItem);
-        return false;
+        //No item not found message, the factory object which checks the item logs the error
+        var index = getIndex(warehouseItem);
+        return items[index] != null && stock[index] >= amount;
     }
 
     /**
@@ -162,58 +148,115 @@ public class Warehouse extends FactoryObject
      */
     public void resetWarehouse()
     {
-        this.warehouseItems.clear();
+        Arrays.fill(this.stock, 0);
+        Arrays.fill(this.items, null);
+        Arrays.fill(this.positionNrs, 0);
+        this.lastPositionNr = 0;
         this.remainingWarehouseCapacity = this.warehouseCapacity;
     }
 
     /**
      * Creates a copy of the current warehouse, with a copy of all the position currently in the warehouse.
-     * With the same factory conglomerate.
+     * With the same factory conglomerate and simulation state.
      * @return a copy of the Warehouse
      */
     public Warehouse copy()
     {
-        var newWarehouse = new Warehouse(this.getName(), this.factoryConglomerate);
-        newWarehouse.setWarehouseCapacity(this.warehouseCapacity);
+        return copyForSimulation(this.simulationState);
+    }
+
+    /**
+     * Creates a copy of the current warehouse for a simulation, with the current stock and remaining capacity. The copy
+     * logs its messages in the simulation state.
+     * @param simulationState state of the simulation which uses the copy
+     * @return a copy of the Warehouse
+     */
+    Warehouse copyForSimulation(SimulationState simulationState)
+    {
+        return new Warehouse(this, simulationState);
+    }
 
-        for(var warehousePosition : this.getWarehouseItems())
+    /**
+     * Returns the positions of the warehouse in the order they were added, a position which gets more items becomes
+     * the last position. Positions with an amount of 0 stay in the warehouse.
+     * @return every item which is available in the warehouse
+     */
+    public List<WarehousePosition> getWarehouseItems()
+    {
+        var indices = new ArrayList<Integer>();
+        for(int i = 0; i < items.length; i++)
         {
-            var copyOfPosition = warehousePosition.copy();
-            newWarehouse.addItemToWarehouse(copyOfPosition);
+            if(items[i] != null)
+                indices.add(i);
         }
+        indices.sort(Comparator.comparingLong(index -> positionNrs[index]));
 
-        return newWarehouse;
+        var warehousePositions = new ArrayList<WarehousePosition>(indices.size());
+        for(var index : indices)
+            warehousePositions.add(new WarehousePosition(items[index], stock[index]));
+        return warehousePositions;
     }
 
     /**
-     * @return every item which is available in the warehouse
+     * Returns the index of the item in the stock arrays. The index of the item is used if the name at the index fits
+     * (the item can have the index of another factory conglomerate), otherwise the index is found by the name. The
+     * arrays grow for an item which got its index after the warehouse was created.
+     * @param warehouseItem item to check
+     * @return the index of the item
      */
-    public List<WarehousePosition> getWarehouseItems() {
-        return warehouseItems;
+    private int getIndex(WarehouseItem warehouseItem)
+    {
+        var index = warehouseItem.getIndex();
+        if(index >= 0 && index < itemNames.length && warehouseItem.getName().equals(itemNames[index]))
+            return index;
+
+        index = factoryConglomerate.getWarehouseItemIndex(warehouseItem);
+        if(index >= items.length)
+        {
+            var length = Math.max(index + 1, factoryConglomerate.getNrOfWarehouseItems());
+            stock = Arrays.copyOf(stock, length);
+            items = Arrays.copyOf(items, length);
+            itemNames = Arrays.copyOf(itemNames, length);
+            positionNrs = Arrays.copyOf(positionNrs, length);
+        }
+        itemNames[index] = warehouseItem.getName();
+        return index;
     }
 
     private void addCapacityReachedMessage()
     {
+        if(!isLoggingActivated())
+            return;
+
         var message = super.getName() + " Capacity reached";
-        this.factoryConglomerate.addLog(message, LogMessageTypes.Warehouse);
+        addLog(message, LogMessageTypes.Warehouse);
     }
 
     private void addAddItemMessage(WarehousePosition item)
     {
+        if(!isLoggingActivated())
+            return;
+
         var message = super.getName() + " Task: add item " + item.item().getName() +" amount: " + item.amount() + " RC: " + this.remainingWarehouseCapacity;
-        this.factoryConglomerate.addLog(message, LogMessageTypes.WarehouseStock);
+        addLog(message, LogMessageTypes.WarehouseStock);
     }
 
     private void addItemNotFoundMessage(WarehouseItem item)
     {
+        if(!isLoggingActivated())
+            return;
+
         var message = super.getName() + " " + item.getName() + " not found or not enough amount in warehouse";
-        this.factoryConglomerate.addLog(message, LogMessageTypes.Warehouse);
+        addLog(message, LogMessageTypes.Warehouse);
     }
 
     private void addItemRemovedMessage(WarehousePosition item)
     {
+        if(!isLoggingActivated())
+            return;
+
         var message = super.getName() + " Task: remove " + item.item().getName() +" amount: " + item.amount() + " RC: " + this.remainingWarehouseCapacity;
-        this.factoryConglomerate.addLog(message, LogMessageTypes.WarehouseStock);
+        addLog(message, LogMessageTypes.WarehouseStock);
     }
 
     /**
@@ -221,12 +264,31 @@ public class Warehouse extends FactoryObject
      */
     public void addCurrentWarehouseStockMessage()
     {
-        if(this.warehouseItems.isEmpty())
+        if(!isLoggingActivated())
+            return;
+
+        var warehouseItems = getWarehouseItems();
+        if(warehouseItems.isEmpty())
             return;
 
-        var message = listToString(this.warehouseItems);
-        this.factoryConglomerate.addLog(message, LogMessageTypes.CurrentWarehouseStock);
-        this.factoryConglomerate.addLog("Remaining warehouse capacity: " + this.remainingWarehouseCapacity, LogMessageTypes.CurrentWarehouseStock);
+        var message = listToString(warehouseItems);
+        addLog(message, LogMessageTypes.CurrentWarehouseStock);
+        addLog("Remaining warehouse capacity: " + this.remainingWarehouseCapacity, LogMessageTypes.CurrentWarehouseStock);
+    }
+
+    private void addLog(String message, LogMessageTypes factoryObjectType)
+    {
+        if(isLoggingActivated())
+            this.simulationState.addLog(message, factoryObjectType);
+    }
+
+    /**
+     * The warehouse of the factory conglomerate is not part of a simulation and has no log
+     * @return true if the messages of the warehouse are logged
+     */
+    private boolean isLoggingActivated()
+    {
+        return this.simulationState != null && this.simulationState.isLoggingActivated();
     }
 
     private String listToString(List<WarehousePosition> list)
@@ -0,0 +1,18 @@
+package logistikoptimierung.Entities;
+
+import logistikoptimierung.Entities.FactoryObjects.FactoryStep;
+
+import java.util.List;
+
+/**
+ * Best solution of an optimization at a certain time of the optimization
+ * @param factorySteps the factory steps of the solution (unmodifiable)
+ * @param makespan the time step when the simulation of the factory steps is finished
+ * @param nrOfSimulations the nr of simulations of the optimization until the solution was found
+ * @param timeSinceStartInNanoSeconds the time from the start of the optimization until the solution was found
+ */
+public record Incumbent(List<FactoryStep> factorySteps,
+                        long makespan,
+                        long nrOfSimulations,
+                        long timeSinceStartInNanoSeconds) {
+}
@@ -9,6 +9,7 @@ public class WarehouseItem {
     private final String name;
     private final String itemId;
     private final WarehouseItemType itemType;
+    private int index = -1;
 
     /**
      * Creates a warehouse item with an id, name and the item type
@@ -44,18 +45,49 @@ public class WarehouseItem {
         return itemType;
     }
 
+    /**
+     * @return the index of the item in the warehouse stock, items with the same name have the same index. -1 if the
+     * item has no index.
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * @param index sets the index of the item in the warehouse stock
+     */
+    public void setIndex(int index)
+    {
+        this.index = index;
+    }
+
     @Override
     public String toString()
     {
         return this.name;
     }
 
+    /**
+     * Warehouse items with the same name are equal, the stock of the warehouse is stored by the name (e.g. a material
+     * and a product with the same name). The same object is found without comparing the names.
+     * @param o object to compare
+     * @return true if the object is a warehouse item with the same name
+     */
     @Override
     public boolean equals(Object o)
     {
+        if(this == o)
+            return true;
         if(!(o instanceof WarehouseItem))
             return false;
 
         return this.name.equals(((WarehouseItem) o).getName());
     }
+
+    @Override
+    public int hashCode()
+    {
+        return this.name.hashCode();
+    }
 }
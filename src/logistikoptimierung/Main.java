@@ -7,6 +7,9 @@ import logistikoptimierung.Entities.WarehouseItems.WarehousePosition;
 import logistikoptimierung.Services.CSVDataImportService;
 import logistikoptimierung.Services.EnumeratedCalculation.EnumeratedCalculationMain;
 import logistikoptimierung.Services.FirstComeFirstServeOptimizer.FirstComeFirstServeOptimizerMain;
+import logistikoptimierung.Services.GeneticAlgorithm.GeneticAlgorithmMain;
+import logistikoptimierung.Services.RollingHorizon.RollingHorizonPlanner;
+import logistikoptimierung.Services.SimulatedAnnealing.SimulatedAnnealingMain;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -23,6 +26,7 @@ public class Main
      * 2: Sets the parameter for the instance of the factory and sets the max runtime for the simulation
      * 3: Tests the first come first serve optimization and prints the result in the console
      * 4: Tests the enumerated calculation optimization and prints the result in the console
+     * 5: (optional) Tests the optimization with simulated annealing and prints the result in the console
      * @param args String args (No available start parameters)
      */
     public static void main(String[] args) {
@@ -42,7 +46,8 @@ public class Main
                 false,
                 false,
                 false,
-                false
+                false,
+                true
         );
 
         instance.setLogSettings(logSettings);
@@ -58,6 +63,9 @@ public class Main
         //testTheCalculationOfNrOfOrders(maxRuntimeInSeconds, maxSystemRunTimeInSeconds, instance);
         testFirstComeFirstServe(nrOfOrderToOptimize, maxRuntimeInSeconds, fillWarehouseWith20PercentOfNeededMaterials, instance);
         testProductionProcessOptimization(nrOfOrderToOptimize, maxRuntimeInSeconds, maxSystemRunTimeInSeconds, fillWarehouseWith20PercentOfNeededMaterials, instance);
+        //testSimulatedAnnealing(nrOfOrderToOptimize, maxRuntimeInSeconds, 60, instance);
+        //testGeneticAlgorithm(nrOfOrderToOptimize, maxRuntimeInSeconds, 60, instance);
+        //testRollingHorizon(nrOfOrderToOptimize, maxRuntimeInSeconds, 10, instance);
     }
 
     /**
@@ -108,7 +116,7 @@ public class Main
                 maxRuntimeInSeconds,
                 true,
                 convertSecondsToNanoSeconds(maxSystemRunTimeInSeconds));
-
+        optimizer.setParallelism(Runtime.getRuntime().availableProcessors());
 
         var factoryTaskList = optimizer.optimize(nrOfOrderToOptimize);
 
@@ -121,6 +129,97 @@ public class Main
         printResult(factoryTaskList, instance.getFactoryConglomerate().getCurrentIncome(), result, convertNanoSecondsToSeconds(endTime - startTime));
         System.out.println("Nr of Simulations: " + optimizer.getNrOfSimulations());
         System.out.println("Nr of Cut Simulations: " + optimizer.getNrOfCutSolutions());
+        System.out.println("Nr of Lower Bound Cut Simulations: " + optimizer.getNrOfBoundCutSolutions());
+        System.out.println("Nr of Aborted Simulations: " + optimizer.getNrOfAbortedSimulations());
+        instance.getFactoryConglomerate().resetFactory();
+    }
+
+    /**
+     * Does the optimization with simulated annealing and tests the optimization.
+     * @param nrOfOrderToOptimize nr of orders to optimize
+     * @param maxRuntimeInSeconds max Runtime for the simulation
+     * @param maxSystemRunTimeInSeconds max real runtime for the calculation
+     * @param instance instance for the simulation
+     */
+    private static void testSimulatedAnnealing(int nrOfOrderToOptimize,
+                                               long maxRuntimeInSeconds,
+                                               long maxSystemRunTimeInSeconds,
+                                               Instance instance)
+    {
+        var startTime = System.nanoTime();
+        var optimizer = new SimulatedAnnealingMain(instance,
+                maxRuntimeInSeconds,
+                true,
+                convertSecondsToNanoSeconds(maxSystemRunTimeInSeconds));
+
+        var factoryTaskList = optimizer.optimize(nrOfOrderToOptimize);
+
+        var result = instance.getFactoryConglomerate().startSimulation(instance.getOrderList(), factoryTaskList, maxRuntimeInSeconds);
+        var endTime = System.nanoTime();
+
+        printResult(factoryTaskList, instance.getFactoryConglomerate().getCurrentIncome(), result, convertNanoSecondsToSeconds(endTime - startTime));
+        System.out.println("Nr of Simulations: " + optimizer.getNrOfSimulations());
+        System.out.println("Nr of accepted Moves: " + optimizer.getNrOfAcceptedMoves());
+        instance.getFactoryConglomerate().resetFactory();
+    }
+
+    /**
+     * Does the optimization with the genetic algorithm and tests the optimization.
+     * @param nrOfOrderToOptimize nr of orders to optimize
+     * @param maxRuntimeInSeconds max Runtime for the simulation
+     * @param maxSystemRunTimeInSeconds max real runtime for the calculation
+     * @param instance instance for the simulation
+     */
+    private static void testGeneticAlgorithm(int nrOfOrderToOptimize,
+                                             long maxRuntimeInSeconds,
+                                             long maxSystemRunTimeInSeconds,
+                                             Instance instance)
+    {
+        var startTime = System.nanoTime();
+        var optimizer = new GeneticAlgorithmMain(instance,
+                maxRuntimeInSeconds,
+                true,
+                convertSecondsToNanoSeconds(maxSystemRunTimeInSeconds));
+
+        var factoryTaskList = optimizer.optimize(nrOfOrderToOptimize);
+
+        var result = instance.getFactoryConglomerate().startSimulation(instance.getOrderList(), factoryTaskList, maxRuntimeInSeconds);
+        var endTime = System.nanoTime();
+
+        printResult(factoryTaskList, instance.getFactoryConglomerate().getCurrentIncome(), result, convertNanoSecondsToSeconds(endTime - startTime));
+        System.out.println("Nr of Simulations: " + optimizer.getNrOfSimulations());
+        System.out.println("Nr of Generations: " + optimizer.getNrOfCalculatedGenerations());
+        instance.getFactoryConglomerate().resetFactory();
+    }
+
+    /**
+     * Plans the first half of the orders, adds the other orders after a third of the plan was performed and prints
+     * the new plan.
+     * @param nrOfOrderToOptimize nr of orders to plan
+     * @param maxRuntimeInSeconds max Runtime for the simulation
+     * @param maxSystemRunTimeInSeconds max system run time of every new plan
+     * @param instance instance for the simulation
+     */
+    private static void testRollingHorizon(int nrOfOrderToOptimize,
+                                           long maxRuntimeInSeconds,
+                                           long maxSystemRunTimeInSeconds,
+                                           Instance instance)
+    {
+        var startTime = System.nanoTime();
+        var planner = new RollingHorizonPlanner(instance.getFactoryConglomerate(),
+                maxRuntimeInSeconds,
+                true,
+                convertSecondsToNanoSeconds(maxSystemRunTimeInSeconds));
+
+        var firstOrders = instance.getOrderList().subList(0, nrOfOrderToOptimize / 2);
+        var newOrders = instance.getOrderList().subList(nrOfOrderToOptimize / 2, nrOfOrderToOptimize);
+        planner.addOrders(firstOrders, 0);
+        var factoryTaskList = planner.addOrders(newOrders, planner.getResult() / 3);
+        var endTime = System.nanoTime();
+
+        printResult(factoryTaskList, instance.getFactoryConglomerate().getCurrentIncome(), planner.getResult(), convertNanoSecondsToSeconds(endTime - startTime));
+        System.out.println("Nr of Simulations: " + planner.getNrOfSimulations());
+        System.out.println("Nr of frozen planning items: " + planner.getNrOfFrozenPlanningItems());
         instance.getFactoryConglomerate().resetFactory();
     }
 
@@ -0,0 +1,394 @@
+package logistikoptimierung.Services;
+
+import logistikoptimierung.Contracts.IDataService;
+import logistikoptimierung.Entities.FactoryObjects.*;
+import logistikoptimierung.Entities.Instance;
+import logistikoptimierung.Entities.WarehouseItems.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Service for loading an instance from a binary snapshot. A snapshot stores a completely resolved instance (factory
+ * conglomerate with the productions, production processes, transporters, materials and products, the orders, the
+ * warehouse capacity and the nr of drivers), so no names have to be looked up while loading. A snapshot is created
+ * once with {@link #saveInstance(Instance, String)}, e.g. from the instance of the {@link CSVDataImportService}, and
+ * the file is memory mapped for the loading.
+ *
+ * The file starts with a header (magic number, format version, length and CRC32 checksum of the payload), the payload
+ * starts with a table of every string, the objects refer to the strings and to the warehouse items by their index.
+ * The snapshots are loaded from the same data directory as the csv files (see
+ * {@link CSVDataImportService#getDefaultDataDirectory()}).
+ */
+public class BinarySnapshotDataService implements IDataService
+{
+    /**
+     * Version of the snapshot format, snapshots with another version are not loaded
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    //"LOGS" as int
+    private static final int MAGIC_NUMBER = 0x4C4F4753;
+    private static final int HEADER_LENGTH = 24;
+    private static final int NO_STRING = -1;
+
+    private final Path dataDirectory;
+
+    /**
+     * Create a object for the snapshots of the default data directory
+     * (see {@link CSVDataImportService#DATA_DIRECTORY_PROPERTY})
+     */
+    public BinarySnapshotDataService()
+    {
+        this(CSVDataImportService.getDefaultDataDirectory());
+    }
+
+    /**
+     * Create a object for the snapshots of the data directory
+     * @param dataDirectory directory with the snapshots
+     */
+    public BinarySnapshotDataService(Path dataDirectory)
+    {
+        this.dataDirectory = dataDirectory;
+    }
+
+    /**
+     * @return the directory with the snapshots
+     */
+    public Path getDataDirectory()
+    {
+        return this.dataDirectory;
+    }
+
+    /**
+     * Loads the instance of a snapshot
+     * @param filename file name of the snapshot, relative to the data directory
+     * @return the instance of the snapshot, null if the snapshot can not be loaded (wrong version or checksum)
+     */
+    @Override
+    public Instance loadDataAndCreateInstance(String filename)
+    {
+        try
+        {
+            ByteBuffer buffer;
+            try (var channel = FileChannel.open(this.dataDirectory.resolve(filename), StandardOpenOption.READ))
+            {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            return readInstance(buffer);
+        }
+        catch (Exception ex)
+        {
+            System.out.println(ex);
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Saves the instance as snapshot. The file is written completely before it replaces an existing snapshot, so a
+     * process which loads the snapshot at the same time reads the old or the new snapshot.
+     * @param instance instance to save
+     * @param filename file name of the snapshot, relative to the data directory
+     * @throws IOException if the file can not be written
+     */
+    public void saveInstance(Instance instance, String filename) throws IOException
+    {
+        var payload = writePayload(instance);
+        var checksum = new CRC32();
+        checksum.update(payload);
+
+        var header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.putInt(MAGIC_NUMBER);
+        header.putInt(FORMAT_VERSION);
+        header.putLong(payload.length);
+        header.putLong(checksum.getValue());
+
+        var file = this.dataDirectory.resolve(filename);
+        var temporaryFile = file.resolveSibling(file.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try
+        {
+            try (var channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+            {
+                //A gathering write does not need to write every byte at once
+                var payloadBuffer = ByteBuffer.wrap(payload);
+                var buffers = new ByteBuffer[] { header.flip(), payloadBuffer };
+                while (header.hasRemaining() || payloadBuffer.hasRemaining())
+                    channel.write(buffers);
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private byte[] writePayload(Instance instance) throws IOException
+    {
+        var factoryConglomerate = instance.getFactoryConglomerate();
+        var strings = new HashMap<String, Integer>();
+        var stringTable = new ArrayList<String>();
+        var body = new ByteArrayOutputStream();
+        var output = new DataOutputStream(body);
+
+        //Materials and products are referred by their index, the products are stored after the materials
+        var itemIndices = new IdentityHashMap<WarehouseItem, Integer>();
+        for(var material : factoryConglomerate.getSuppliedMaterials())
+            itemIndices.put(material, itemIndices.size());
+        for(var product : factoryConglomerate.getAvailableProducts())
+            itemIndices.put(product, itemIndices.size());
+
+        writeString(output, factoryConglomerate.getName(), strings, stringTable);
+        output.writeInt(instance.getWarehouseCapacity());
+        output.writeInt(instance.getNrOfDrivers());
+
+        output.writeInt(factoryConglomerate.getSuppliedMaterials().size());
+        for(var material : factoryConglomerate.getSuppliedMaterials())
+        {
+            writeString(output, material.getItemId(), strings, stringTable);
+            writeString(output, material.getName(), strings, stringTable);
+            writeString(output, material.getArea(), strings, stringTable);
+            output.writeInt(material.getTransportTypes().length);
+            for(var transportType : material.getTransportTypes())
+                writeString(output, transportType, strings, stringTable);
+            writeString(output, material.getEngine(), strings, stringTable);
+            output.writeInt(material.getTravelTime());
+        }
+
+        output.writeInt(factoryConglomerate.getAvailableProducts().size());
+        for(var product : factoryConglomerate.getAvailableProducts())
+        {
+            writeString(output, product.getItemId(), strings, stringTable);
+            writeString(output, product.getName(), strings, stringTable);
+        }
+
+        output.writeInt(factoryConglomerate.getTransporters().size());
+        for(var transporter : factoryConglomerate.getTransporters())
+        {
+            writeString(output, transporter.getObjectName(), strings, stringTable);
+            output.writeInt(transporter.getId());
+            writeString(output, transporter.getArea(), strings, stringTable);
+            writeString(output, transporter.getType(), strings, stringTable);
+            writeString(output, transporter.getEngine(), strings, stringTable);
+            output.writeInt(transporter.getCapacity());
+        }
+
+        output.writeInt(factoryConglomerate.getFactories().size());
+        for(var factory : factoryConglomerate.getFactories())
+        {
+            writeString(output, factory.getObjectName(), strings, stringTable);
+            output.writeInt(factory.getId());
+            output.writeInt(factory.getMaxNrOfInputBufferBatches());
+            output.writeInt(factory.getMaxNrOfOutputBufferBatches());
+            output.writeInt(factory.getProductionProcesses().size());
+            for(var process : factory.getProductionProcesses())
+            {
+                output.writeInt(getItemIndex(process.getProductToProduce(), itemIndices));
+                output.writeInt(process.getProductionBatchSize());
+                output.writeInt(process.getProductionTime());
+                output.writeInt(process.getMaterialPositions().size());
+                for(var position : process.getMaterialPositions())
+                {
+                    output.writeInt(getItemIndex(position.item(), itemIndices));
+                    output.writeInt(position.amount());
+                }
+            }
+        }
+
+        output.writeInt(instance.getOrderList().size());
+        for(var order : instance.getOrderList())
+        {
+            writeString(output, order.getItemId(), strings, stringTable);
+            output.writeInt(order.getOrderNr());
+            writeString(output, order.getArea(), strings, stringTable);
+            output.writeInt(getItemIndex(order.getWarehousePosition().item(), itemIndices));
+            output.writeInt(order.getWarehousePosition().amount());
+            output.writeDouble(order.getIncome());
+            writeString(output, order.getTransportType(), strings, stringTable);
+            writeString(output, order.getEngine(), strings, stringTable);
+            output.writeInt(order.getTravelTime());
+        }
+        output.flush();
+
+        var payload = new ByteArrayOutputStream(body.size() + 16 * stringTable.size());
+        var payloadOutput = new DataOutputStream(payload);
+        payloadOutput.writeInt(stringTable.size());
+        for(var string : stringTable)
+        {
+            var bytes = string.getBytes(StandardCharsets.UTF_8);
+            payloadOutput.writeInt(bytes.length);
+            payloadOutput.write(bytes);
+        }
+        body.writeTo(payloadOutput);
+        payloadOutput.flush();
+        return payload.toByteArray();
+    }
+
+    private void writeString(DataOutputStream output, String string, Map<String, Integer> strings, List<String> stringTable) throws IOException
+    {
+        if(string == null)
+        {
+            output.writeInt(NO_STRING);
+            return;
+        }
+
+        var index = strings.get(string);
+        if(index == null)
+        {
+            index = stringTable.size();
+            strings.put(string, index);
+            stringTable.add(string);
+        }
+        output.writeInt(index);
+    }
+
+    private int getItemIndex(WarehouseItem item, Map<WarehouseItem, Integer> itemIndices)
+    {
+        var index = itemIndices.get(item);
+        if(index == null)
+            throw new IllegalArgumentException("The item " + item.getName() + " is not a material or product of the factory conglomerate");
+        return index;
+    }
+
+    private Instance readInstance(ByteBuffer buffer) throws IOException
+    {
+        if(buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC_NUMBER)
+            throw new IOException("The file is no snapshot");
+        var version = buffer.getInt();
+        if(version != FORMAT_VERSION)
+            throw new IOException("The snapshot has the version " + version + ", expected is the version " + FORMAT_VERSION);
+        var payloadLength = buffer.getLong();
+        var expectedChecksum = buffer.getLong();
+        if(payloadLength != buffer.remaining())
+            throw new IOException("The snapshot is incomplete, expected are " + payloadLength + " bytes, the file has " + buffer.remaining() + " bytes");
+
+        var checksum = new CRC32();
+        checksum.update(buffer.duplicate());
+        if(checksum.getValue() != expectedChecksum)
+            throw new IOException("The checksum of the snapshot is wrong");
+
+        var strings = new String[buffer.getInt()];
+        for(int i = 0; i < strings.length; i++)
+        {
+            var bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        var name = readString(buffer, strings);
+        var warehouseCapacity = buffer.getInt();
+        var nrOfDrivers = buffer.getInt();
+
+        var nrOfMaterials = buffer.getInt();
+        var materials = new ArrayList<Material>(nrOfMaterials);
+        for(int i = 0; i < nrOfMaterials; i++)
+        {
+            var materialId = readString(buffer, strings);
+            var materialName = readString(buffer, strings);
+            var area = readString(buffer, strings);
+            var transportTypes = new String[buffer.getInt()];
+            for(int j = 0; j < transportTypes.length; j++)
+                transportTypes[j] = readString(buffer, strings);
+            var engine = readString(buffer, strings);
+            var travelTime = buffer.getInt();
+            materials.add(new Material(materialId, materialName, area, transportTypes, engine, travelTime));
+        }
+
+        var nrOfProducts = buffer.getInt();
+        var products = new ArrayList<Product>(nrOfProducts);
+        for(int i = 0; i < nrOfProducts; i++)
+        {
+            var productId = readString(buffer, strings);
+            var productName = readString(buffer, strings);
+            products.add(new Product(productName, productId));
+        }
+
+        var items = new WarehouseItem[nrOfMaterials + nrOfProducts];
+        for(int i = 0; i < nrOfMaterials; i++)
+            items[i] = materials.get(i);
+        for(int i = 0; i < nrOfProducts; i++)
+            items[nrOfMaterials + i] = products.get(i);
+
+        var nrOfTransporters = buffer.getInt();
+        var transporters = new ArrayList<Transporter>(nrOfTransporters);
+        for(int i = 0; i < nrOfTransporters; i++)
+        {
+            var transporterName = readString(buffer, strings);
+            var id = buffer.getInt();
+            var area = readString(buffer, strings);
+            var type = readString(buffer, strings);
+            var engine = readString(buffer, strings);
+            var capacity = buffer.getInt();
+            transporters.add(new Transporter(transporterName, id, area, type, engine, capacity));
+        }
+
+        var nrOfFactories = buffer.getInt();
+        var factories = new ArrayList<Factory>(nrOfFactories);
+        for(int i = 0; i < nrOfFactories; i++)
+        {
+            var factoryName = readString(buffer, strings);
+            var id = buffer.getInt();
+            var bufferInput = buffer.getInt();
+            var bufferOutput = buffer.getInt();
+            var nrOfProcesses = buffer.getInt();
+            var productionProcesses = new ArrayList<ProductionProcess>(nrOfProcesses);
+            var factory = new Factory(factoryName, id, productionProcesses, bufferInput, bufferOutput);
+            for(int j = 0; j < nrOfProcesses; j++)
+            {
+                var product = items[buffer.getInt()];
+                var batchSize = buffer.getInt();
+                var productionTime = buffer.getInt();
+                var nrOfPositions = buffer.getInt();
+                var bom = new ArrayList<WarehousePosition>(nrOfPositions);
+                for(int k = 0; k < nrOfPositions; k++)
+                    bom.add(new WarehousePosition(items[buffer.getInt()], buffer.getInt()));
+                productionProcesses.add(new ProductionProcess(product, batchSize, productionTime, factory, bom));
+            }
+            factories.add(factory);
+        }
+
+        var nrOfOrders = buffer.getInt();
+        var orders = new ArrayList<Order>(nrOfOrders);
+        for(int i = 0; i < nrOfOrders; i++)
+        {
+            var orderId = readString(buffer, strings);
+            var orderNr = buffer.getInt();
+            var area = readString(buffer, strings);
+            var position = new WarehousePosition(items[buffer.getInt()], buffer.getInt());
+            var income = buffer.getDouble();
+            var transportType = readString(buffer, strings);
+            var engine = readString(buffer, strings);
+            var travelTime = buffer.getInt();
+            orders.add(new Order(orderId, orderNr, area, position, income, transportType, engine, travelTime));
+        }
+
+        var factoryConglomerate = new FactoryConglomerate(name, factories, transporters, materials, products);
+        var instance = new Instance(factoryConglomerate, orders);
+        instance.setWarehouseCapacity(warehouseCapacity);
+        instance.setNrOfDrivers(nrOfDrivers);
+        return instance;
+    }
+
+    private String readString(ByteBuffer buffer, String[] strings)
+    {
+        var index = buffer.getInt();
+        if(index == NO_STRING)
+            return null;
+        return strings[index];
+    }
+}
@@ -5,16 +5,21 @@ import logistikoptimierung.Entities.FactoryObjects.*;
 import logistikoptimierung.Entities.Instance;
 import logistikoptimierung.Entities.WarehouseItems.*;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Service for loading the data of the csv files and creates the instance to work with
+ * Service for loading the data of the csv files and creates the instance to work with. The files are read row by row
+ * (see {@link CsvRowReader}) and the objects are created while reading, so an order file is never stored completely.
+ * The data directory is the directory "data" in the working directory or the directory of the system property
+ * {@link #DATA_DIRECTORY_PROPERTY}.
  */
 public class CSVDataImportService implements IDataService
 {
@@ -43,49 +48,83 @@ public class CSVDataImportService implements IDataService
      */
     public static final String PARALLEL_ORDERS = "paraProc.csv";
 
-    private static final String DATA_PATH = "data\\";
-    private static final String DELIMITER = ";";
+    /**
+     * System property for the data directory, the directory "data" in the working directory is used without the property
+     */
+    public static final String DATA_DIRECTORY_PROPERTY = "logistikoptimierung.dataDirectory";
 
+    private static final String DATA_DIRECTORY = "data";
+    private static final char DELIMITER = ';';
+    //Minimum length of a row in an order file, for the initial size of the order list
+    private static final int MIN_BYTES_PER_ORDER_ROW = 24;
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
 
-    /**
-     * Create a object for the CSV Import to load the data and create an instance with the given nr of drivers and warehouse capacity.
+    private final Path dataDirectory;
 
+    /**
+     * Create a object for the CSV Import to load the data from the default data directory
+     * (see {@link #DATA_DIRECTORY_PROPERTY})
      */
     public CSVDataImportService()
     {
+        this(getDefaultDataDirectory());
+    }
+
+    /**
+     * Create a object for the CSV Import to load the data from the data directory
+     * @param dataDirectory directory with the csv files
+     */
+    public CSVDataImportService(Path dataDirectory)
+    {
+        this.dataDirectory = dataDirectory;
+    }
+
+    /**
+     * @return the directory of the system property {@link #DATA_DIRECTORY_PROPERTY}, the directory "data" in the
+     * working directory if the property is not set
+     */
+    public static Path getDefaultDataDirectory()
+    {
+        var dataDirectory = System.getProperty(DATA_DIRECTORY_PROPERTY);
+        if(dataDirectory != null && !dataDirectory.isBlank())
+            return Path.of(dataDirectory);
+        return Path.of(System.getProperty("user.dir"), DATA_DIRECTORY);
+    }
+
+    /**
+     * @return the directory with the csv files
+     */
+    public Path getDataDirectory()
+    {
+        return this.dataDirectory;
     }
 
     /**
      * Load the data from the given CSV files and creates the instance for the simulation.
-     * @param filename file name of the orders to load
+     * @param filename file name of the orders to load, relative to the data directory
      * @return the instance with the factory and the order
      */
 
     @Override
     public Instance loadDataAndCreateInstance(String filename)
     {
-        var path = System.getProperty("user.dir") + "\\" + DATA_PATH;
-
         try
         {
-            var materials = loadMaterials(
-                    loadCsv(path + MATERIAL_WITH_TRANSPORTER_FILENAME));
+            var materials = loadMaterials(this.dataDirectory.resolve(MATERIAL_WITH_TRANSPORTER_FILENAME));
 
-            var products = loadProducts(
-                    loadCsv(path + PRODUCTS_FILENAME));
+            var products = loadProducts(this.dataDirectory.resolve(PRODUCTS_FILENAME));
 
-            var transporters = loadTransporters(
-                    loadCsv(path + TRANSPORTER_FILENAME));
+            var transporters = loadTransporters(this.dataDirectory.resolve(TRANSPORTER_FILENAME));
 
-            var availableItems = new ArrayList<WarehouseItem>(materials);
-            availableItems.addAll(products);
+            var availableItems = new HashMap<String, List<WarehouseItem>>();
+            for(var material : materials)
+                availableItems.computeIfAbsent(material.getName(), key -> new ArrayList<>(1)).add(material);
+            for(var product : products)
+                availableItems.computeIfAbsent(product.getName(), key -> new ArrayList<>(1)).add(product);
 
-            var productions = loadProduction(
-                    loadCsv(path + PRODUCTIONS_FILENAME),
-                    availableItems);
+            var productions = loadProduction(this.dataDirectory.resolve(PRODUCTIONS_FILENAME), availableItems);
 
-            var orders = loadOrders(
-                    loadCsv(path + filename), availableItems);
+            var orders = loadOrders(this.dataDirectory.resolve(filename), availableItems);
 
 
             var factory = new FactoryConglomerate("Test 1",
@@ -104,216 +143,206 @@ public class CSVDataImportService implements IDataService
         }
     }
 
-    private List<String[]> loadCsv(String filename) throws IOException {
-        BufferedReader reader = new BufferedReader(new FileReader(filename));
-        String line;
-        boolean isFirstLine = true;
-
-        var dataList = new ArrayList<String[]>();
-
-        while ((line = reader.readLine()) != null)
-        {
-            if(isFirstLine)
-            {
-                isFirstLine = false;
-                continue;
-            }
-
-            String[] data = line.split(DELIMITER);
-            dataList.add(data);
-        }
-
-        reader.close();
-        return dataList;
-    }
-
-    private List<Transporter> loadTransporters(List<String[]> data)
+    private List<Transporter> loadTransporters(Path file) throws IOException
     {
         var transporters = new ArrayList<Transporter>();
 
         var idCount = 0;
-        for (var dataItem : data)
+        try (var reader = new CsvRowReader(file, DELIMITER))
         {
-            var area = dataItem[0];
-            var type = dataItem[1];
-            var eng = dataItem[2];
-            var capacityString = dataItem[3];
-            var capacity = Integer.parseInt(capacityString);
-            var name = area + "_" + type + "_" + eng + "_" + capacityString;
-
-            var newTransporter = new Transporter(
-                    name,
-                    idCount,
-                    area,
-                    type,
-                    eng,
-                    capacity);
-            transporters.add(newTransporter);
-            idCount++;
+            for (var dataItem = reader.nextRow(); dataItem != null; dataItem = reader.nextRow())
+            {
+                var area = dataItem[0];
+                var type = dataItem[1];
+                var eng = dataItem[2];
+                var capacityString = dataItem[3];
+                var capacity = Integer.parseInt(capacityString);
+                var name = area + "_" + type + "_" + eng + "_" + capacityString;
+
+                var newTransporter = new Transporter(
+                        name,
+                        idCount,
+                        area,
+                        type,
+                        eng,
+                        capacity);
+                transporters.add(newTransporter);
+                idCount++;
+            }
         }
 
         return transporters;
     }
 
-    private List<Material> loadMaterials(List<String[]> data)
+    private List<Material> loadMaterials(Path file) throws IOException
     {
         var materials = new ArrayList<Material>();
 
-        for(var dataItem : data)
+        try (var reader = new CsvRowReader(file, DELIMITER))
         {
-            var transportConstraints = dataItem[0].split(",");
-            var area = transportConstraints[0];
-            var transportTypes = transportConstraints[1]
-                    .replace("(", "")
-                    .replace(")", "")
-                    .split(" ");
-            var engine = transportConstraints[2];
-            var materialId = dataItem[1].trim();
-            var name = dataItem[2].trim();
-            var transportTimeString = dataItem[3];
-            var transportTime = convertStringToSeconds(transportTimeString);
-
-            var newMaterial = new Material(materialId, name, area, transportTypes, engine, transportTime);
-            materials.add(newMaterial);
+            for (var dataItem = reader.nextRow(); dataItem != null; dataItem = reader.nextRow())
+            {
+                var transportConstraints = dataItem[0].split(",");
+                var area = transportConstraints[0];
+                var transportTypes = transportConstraints[1]
+                        .replace("(", "")
+                        .replace(")", "")
+                        .split(" ");
+                var engine = transportConstraints[2];
+                var materialId = dataItem[1].trim();
+                var name = dataItem[2].trim();
+                var transportTimeString = dataItem[3];
+                var transportTime = convertStringToSeconds(transportTimeString);
+
+                var newMaterial = new Material(materialId, name, area, transportTypes, engine, transportTime);
+                materials.add(newMaterial);
+            }
         }
 
         return materials;
     }
 
-    private List<Product> loadProducts(List<String[]> data)
+    private List<Product> loadProducts(Path file) throws IOException
     {
         var products = new ArrayList<Product>();
 
-        var productType = "";
-
-        for (var dataItem : data)
+        try (var reader = new CsvRowReader(file, DELIMITER))
         {
-            var productId = dataItem[0].trim();
-            if(productId.isBlank())
+            for (var dataItem = reader.nextRow(); dataItem != null; dataItem = reader.nextRow())
             {
-                productType = dataItem[1];
-                continue;
+                var productId = dataItem[0].trim();
+                //A row without an id starts a new product type
+                if(productId.isBlank())
+                    continue;
+
+                var productName = dataItem[1].trim();
+                var newProduct = new Product(productName, productId);
+                products.add(newProduct);
             }
-
-            var productName = dataItem[1].trim();
-            var newProduct = new Product(productName, productId);
-            products.add(newProduct);
         }
 
         return products;
     }
 
-    private List<Factory> loadProduction(List<String[]> data, List<WarehouseItem> items)
+    private List<Factory> loadProduction(Path file, Map<String, List<WarehouseItem>> items) throws IOException
     {
         var productionList = new ArrayList<Factory>();
         Factory currentFactory = null;
         var currentProductionProcesses = new ArrayList<ProductionProcess>();
         var idCount = 0;
 
-        for(var dataItem : data)
+        try (var reader = new CsvRowReader(file, DELIMITER))
         {
-            if(dataItem.length == 1)
-                continue;
-            var productionName = dataItem[0];
-            if(!productionName.isBlank())
+            for (var dataItem = reader.nextRow(); dataItem != null; dataItem = reader.nextRow())
             {
-                var bufferStrings = dataItem[1].split("/");
-                var bufferInput = Integer.parseInt(bufferStrings[0].substring(0, 1));
-                var bufferOutput = Integer.parseInt(bufferStrings[1].substring(0, 1));
-
-                currentProductionProcesses = new ArrayList<>();
-                currentFactory = new Factory(
-                        productionName,
-                        idCount,
-                        currentProductionProcesses,
-                        bufferInput,
-                        bufferOutput);
-
-                productionList.add(currentFactory);
-                idCount++;
-            }
+                if(dataItem.length == 1)
+                    continue;
+                var productionName = dataItem[0];
+                if(!productionName.isBlank())
+                {
+                    var bufferStrings = dataItem[1].split("/");
+                    var bufferInput = Integer.parseInt(bufferStrings[0].substring(0, 1));
+                    var bufferOutput = Integer.parseInt(bufferStrings[1].substring(0, 1));
+
+                    currentProductionProcesses = new ArrayList<>();
+                    currentFactory = new Factory(
+                            productionName,
+                            idCount,
+                            currentProductionProcesses,
+                            bufferInput,
+                            bufferOutput);
+
+                    productionList.add(currentFactory);
+                    idCount++;
+                }
 
-            var bom = new ArrayList<WarehousePosition>();
-            var productName = dataItem[3];
-            var productBatchSize = Integer.parseInt(dataItem[2]);
-            var productionTimeString = dataItem[4];
-            var productionTime = convertStringToSeconds(productionTimeString);
+                var bom = new ArrayList<WarehousePosition>();
+                var productName = dataItem[3];
+                var productBatchSize = Integer.parseInt(dataItem[2]);
+                var productionTimeString = dataItem[4];
+                var productionTime = convertStringToSeconds(productionTimeString);
 
-            var products = findWarehouseItem(productName, items);
-            for(var product : products)
-            {
-                var productionProcess = new ProductionProcess(
-                        product,
-                        productBatchSize,
-                        productionTime,
-                        currentFactory,
-                        bom);
-
-                int startCount = 5;
-                while (startCount < dataItem.length && !dataItem[startCount].isBlank())
+                var products = findWarehouseItem(productName, items);
+                for(var product : products)
                 {
-                    var materialBatchSize = Integer.parseInt(dataItem[startCount]);
-                    var materialName = dataItem[startCount + 1];
-
-                    var materials = findWarehouseItem(materialName, items);
-                    for(var material : materials )
+                    var productionProcess = new ProductionProcess(
+                            product,
+                            productBatchSize,
+                            productionTime,
+                            currentFactory,
+                            bom);
+
+                    int startCount = 5;
+                    while (startCount < dataItem.length && !dataItem[startCount].isBlank())
                     {
-                        var materialPosition = new WarehousePosition(material, materialBatchSize);
-                        bom.add(materialPosition);
-                        startCount = startCount + 2;
+                        var materialBatchSize = Integer.parseInt(dataItem[startCount]);
+                        var materialName = dataItem[startCount + 1];
+
+                        var materials = findWarehouseItem(materialName, items);
+                        for(var material : materials )
+                        {
+                            var materialPosition = new WarehousePosition(material, materialBatchSize);
+                            bom.add(materialPosition);
+                            startCount = startCount + 2;
+                        }
                     }
-                }
 
-                currentProductionProcesses.add(productionProcess);
+                    currentProductionProcesses.add(productionProcess);
+                }
             }
         }
         return productionList;
     }
 
-    private List<Order> loadOrders(List<String[]> data, List<WarehouseItem> items)
+    private List<Order> loadOrders(Path file, Map<String, List<WarehouseItem>> items) throws IOException
     {
-        var orders = new ArrayList<Order>();
+        //The order files can have many rows, the list is created with the size for the shortest rows
+        var estimatedNrOfOrders = (int) Math.min(Integer.MAX_VALUE - 8, Files.size(file) / MIN_BYTES_PER_ORDER_ROW);
+        var orders = new ArrayList<Order>(estimatedNrOfOrders);
         var count = 1;
-        for(var dataItem : data)
+        try (var reader = new CsvRowReader(file, DELIMITER))
         {
-            var area = dataItem[0];
-            var productName = dataItem[2].trim();
-            var product = findWarehouseItem(productName, items);
+            for (var dataItem = reader.nextRow(); dataItem != null; dataItem = reader.nextRow())
+            {
+                var area = dataItem[0];
+                var productName = dataItem[2].trim();
+                var product = findWarehouseItem(productName, items);
 
-            var amount = Integer.parseInt(dataItem[3]);
-            var materialPosition = new WarehousePosition(product.get(0), amount);
+                var amount = Integer.parseInt(dataItem[3]);
+                var materialPosition = new WarehousePosition(product.get(0), amount);
 
-            var income = Integer.parseInt(dataItem[4]);
-            var transportType = dataItem[5];
-            var engine = dataItem[6];
+                var income = Integer.parseInt(dataItem[4]);
+                var transportType = dataItem[5];
+                var engine = dataItem[6];
 
-            //Convert minutes to seconds
-            var transportTime = Integer.parseInt(dataItem[7]) * 60;
+                //Convert minutes to seconds
+                var transportTime = Integer.parseInt(dataItem[7]) * 60;
 
-            var order = new Order("Order " + count, count, area, materialPosition,
-                    income, transportType, engine, transportTime);
+                var order = new Order("Order " + count, count, area, materialPosition,
+                        income, transportType, engine, transportTime);
 
-            orders.add(order);
-            count++;
+                orders.add(order);
+                count++;
+            }
         }
 
+        orders.trimToSize();
         return orders;
     }
 
-    private List<WarehouseItem> findWarehouseItem(String name, List<WarehouseItem> items)
+    /**
+     * @param name name of the item
+     * @param items items by their name
+     * @return the items with the name, an empty list if no item has the name
+     */
+    private List<WarehouseItem> findWarehouseItem(String name, Map<String, List<WarehouseItem>> items)
     {
-        var result = new ArrayList<WarehouseItem>();
-        for(var item : items)
-        {
-            if(name.equals(item.getName()))
-                result.add(item);
-        }
-        return result;
+        return items.getOrDefault(name, List.of());
     }
 
     private int convertStringToSeconds(String timeString)
     {
-        var time = LocalTime.parse(timeString, DateTimeFormatter.ofPattern("HH:mm:ss"));
+        var time = LocalTime.parse(timeString, TIME_FORMATTER);
         var seconds = time.toSecondOfDay();
 
         return seconds;
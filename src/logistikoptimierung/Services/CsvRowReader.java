@@ -0,0 +1,76 @@
+package logistikoptimierung.Services;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads the rows of a csv file one after another, so a file is never stored completely. The first row (the header)
+ * is skipped. The fields of a row are split at the delimiter without a regular expression. Like
+ * {@link String#split(String)} the empty fields at the end of a row are removed.
+ */
+class CsvRowReader implements Closeable
+{
+    private final BufferedReader reader;
+    private final char delimiter;
+    private String[] fields = new String[16];
+
+    /**
+     * Opens the file (UTF-8) and skips the header
+     * @param file csv file to read
+     * @param delimiter delimiter of the fields
+     * @throws IOException if the file can not be read
+     */
+    CsvRowReader(Path file, char delimiter) throws IOException
+    {
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        this.delimiter = delimiter;
+        this.reader.readLine();
+    }
+
+    /**
+     * @return the fields of the next row, null at the end of the file
+     * @throws IOException if the file can not be read
+     */
+    String[] nextRow() throws IOException
+    {
+        var line = this.reader.readLine();
+        if(line == null)
+            return null;
+        return splitRow(line);
+    }
+
+    private String[] splitRow(String line)
+    {
+        var nrOfFields = 0;
+        var start = 0;
+        var length = line.length();
+        for(int i = 0; i <= length; i++)
+        {
+            if(i < length && line.charAt(i) != this.delimiter)
+                continue;
+
+            if(nrOfFields == this.fields.length)
+                this.fields = Arrays.copyOf(this.fields, nrOfFields * 2);
+            this.fields[nrOfFields++] = line.substring(start, i);
+            start = i + 1;
+        }
+
+        //Empty fields at the end are removed, a row without a delimiter keeps its only field
+        while (nrOfFields > 1 && this.fields[nrOfFields - 1].isEmpty())
+            nrOfFields--;
+        if(nrOfFields == 1 && this.fields[0].isEmpty() && !line.isEmpty())
+            nrOfFields = 0;
+        return Arrays.copyOf(this.fields, nrOfFields);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.reader.close();
+    }
+}
@@ -0,0 +1,168 @@
+package logistikoptimierung.Services.EnumeratedCalculation;
+
+import logistikoptimierung.Entities.FactoryObjects.FactoryStep;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Beam search of the enumerated calculation. The planning item tree is expanded depth by depth and after every depth
+ * only the best partial solutions (the beam width) are kept. A partial solution is rated by the simulation of its
+ * steps: partial solutions with fewer remaining steps are better, then the higher value of the time step after the
+ * simulation and the lower bound of the remaining planning items (see {@link LowerBoundEstimator}) decides. The
+ * complete solutions of the last depth are simulated like the solutions of the full enumeration.
+ * A depth needs at most beam width * nr of planning items simulations, so the calculation needs
+ * beam width * nr of planning items^2 simulations and keeps at most beam width * nr of planning items partial solutions.
+ * With a pool the partial solutions of a depth are simulated in parallel, the kept partial solutions do not depend on
+ * the parallelism.
+ */
+class BeamSearchCalculation
+{
+    /**
+     * Partial solution of the beam
+     * @param context planning context after the planning items of the partial solution
+     * @param stepsToDo steps of the planning items
+     * @param remainingPlanningItems planning items which are not planned yet
+     * @param planningItemOrder planning items which created the steps to do (in this order)
+     * @param nrOfRemainingSteps nr of steps which were not done in the simulation of the steps to do
+     * @param estimatedResult time step after the simulation of the steps to do or the lower bound, the higher value
+     */
+    private record PartialSolution(PlanningContext context,
+                                   List<FactoryStep> stepsToDo,
+                                   List<PlanningItem> remainingPlanningItems,
+                                   List<PlanningItem> planningItemOrder,
+                                   int nrOfRemainingSteps,
+                                   long estimatedResult)
+    {
+    }
+
+    private static final Comparator<PartialSolution> PARTIAL_SOLUTION_COMPARATOR =
+            Comparator.comparingInt(PartialSolution::nrOfRemainingSteps)
+                    .thenComparingLong(PartialSolution::estimatedResult)
+                    .thenComparing(PartialSolution::planningItemOrder, EnumeratedCalculationMain::comparePlanningItemOrders);
+
+    private final EnumeratedCalculationMain calculation;
+    private final int beamWidth;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates the beam search for the calculation
+     * @param calculation calculation which shares the best solution
+     * @param beamWidth nr of partial solutions which are kept after a depth
+     * @param pool pool for the parallel simulation, null for the sequential simulation
+     */
+    BeamSearchCalculation(EnumeratedCalculationMain calculation, int beamWidth, ForkJoinPool pool)
+    {
+        this.calculation = calculation;
+        this.beamWidth = beamWidth;
+        this.pool = pool;
+    }
+
+    /**
+     * Searches the best order of the planning items. The best solution is stored in the calculation.
+     * @param planningItems every planning item of the calculation
+     */
+    void calculate(List<PlanningItem> planningItems)
+    {
+        var beam = new ArrayList<PartialSolution>();
+        beam.add(new PartialSolution(new PlanningContext(calculation.getFactoryConglomerate()),
+                new ArrayList<>(),
+                planningItems,
+                new ArrayList<>(),
+                0,
+                0));
+
+        for(int depth = 0; depth < planningItems.size() && !beam.isEmpty(); depth++)
+        {
+            if(calculation.isMaxSystemRunTimeReached())
+                return;
+
+            var children = expand(beam);
+            if(depth == planningItems.size() - 1)
+            {
+                forEach(children, child -> calculation.simulateSolution(child.stepsToDo(), child.planningItemOrder()));
+                return;
+            }
+
+            var ratedChildren = new ArrayList<>(map(children, this::rate));
+            ratedChildren.sort(PARTIAL_SOLUTION_COMPARATOR);
+            beam = new ArrayList<>(ratedChildren.subList(0, Math.min(this.beamWidth, ratedChildren.size())));
+        }
+    }
+
+    /**
+     * Creates every possible partial solution with one more planning item. The children are created in the calling
+     * thread, because the planning contexts of the beam are copied.
+     * @param beam partial solutions of the depth
+     * @return the partial solutions of the next depth, without the rating
+     */
+    private List<PartialSolution> expand(List<PartialSolution> beam)
+    {
+        var children = new ArrayList<PartialSolution>();
+        for(var partialSolution : beam)
+        {
+            for(var planningItem : partialSolution.remainingPlanningItems())
+            {
+                var childContext = partialSolution.context().copy();
+                var stepsToAdd = childContext.getStepsForPlanningItem(partialSolution.stepsToDo(), planningItem);
+                if(stepsToAdd.isEmpty())
+                {
+                    calculation.increaseNrOfCutSolutions();
+                    continue;
+                }
+
+                var childSteps = new ArrayList<>(partialSolution.stepsToDo());
+                childSteps.addAll(stepsToAdd);
+                var childPlanningItems = new ArrayList<>(partialSolution.remainingPlanningItems());
+                childPlanningItems.remove(planningItem);
+                var childOrder = new ArrayList<>(partialSolution.planningItemOrder());
+                childOrder.add(planningItem);
+
+                if(calculation.isCutByLowerBound(childSteps, childPlanningItems, childOrder))
+                    continue;
+
+                children.add(new PartialSolution(childContext, childSteps, childPlanningItems, childOrder, 0, 0));
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Simulates the steps of the partial solution. Can be called from several threads.
+     * @param partialSolution partial solution without the rating
+     * @return the partial solution with the rating
+     */
+    private PartialSolution rate(PartialSolution partialSolution)
+    {
+        var simulationState = calculation.simulatePartialSolution(partialSolution.stepsToDo());
+        var estimatedResult = Math.max(simulationState.getCurrentTimeStep(),
+                calculation.getLowerBound(partialSolution.stepsToDo(), partialSolution.remainingPlanningItems()));
+        return new PartialSolution(partialSolution.context(),
+                partialSolution.stepsToDo(),
+                partialSolution.remainingPlanningItems(),
+                partialSolution.planningItemOrder(),
+                simulationState.getNrOfRemainingSteps(),
+                estimatedResult);
+    }
+
+    private List<PartialSolution> map(List<PartialSolution> partialSolutions,
+                                      UnaryOperator<PartialSolution> operator)
+    {
+        if(this.pool == null)
+            return partialSolutions.stream().map(operator).toList();
+        return this.pool.submit(() -> partialSolutions.parallelStream().map(operator).toList()).join();
+    }
+
+    private void forEach(List<PartialSolution> partialSolutions,
+                         Consumer<PartialSolution> action)
+    {
+        if(this.pool == null)
+            partialSolutions.forEach(action);
+        else
+            this.pool.submit(() -> partialSolutions.parallelStream().forEach(action)).join();
+    }
+}
@@ -0,0 +1,61 @@
+package logistikoptimierung.Services.EnumeratedCalculation;
+
+import logistikoptimierung.Entities.FactoryObjects.Driver;
+
+/**
+ * Planning item for the drivers in the enumerated calculation. Stores the planned blocked time of the driver.
+ */
+public class DriverPlanningItem
+{
+    private long blockedTime;
+    private final Driver driver;
+
+    /**
+     * Creates a planning item for the driver
+     * @param driver driver which is planned
+     */
+    public DriverPlanningItem(Driver driver)
+    {
+        this.blockedTime = 0;
+        this.driver = driver;
+    }
+
+    /**
+     * Creates a copy of the planning item with the same driver and blocked time
+     * @return the copy
+     */
+    public DriverPlanningItem copy()
+    {
+        var copy = new DriverPlanningItem(this.driver);
+        copy.blockedTime = this.blockedTime;
+        return copy;
+    }
+
+    /**
+     * @return the driver
+     */
+    public Driver getDriver() {
+        return driver;
+    }
+
+    /**
+     * @return the blocked time
+     */
+    public long getBlockedTime() {
+        return blockedTime;
+    }
+
+    /**
+     * @param timeToAdd increases the blocked time of the planning item, a negative time decreases the blocked time
+     */
+    public void increaseBlockedTime(long timeToAdd)
+    {
+        blockedTime += timeToAdd;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getDriver().getName() + " BlockedUntil: " + this.getBlockedTime();
+    }
+}
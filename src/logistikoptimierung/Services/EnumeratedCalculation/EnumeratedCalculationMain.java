@@ -1,12 +1,18 @@
 package logistikoptimierung.Services.EnumeratedCalculation;
 
-import logistikoptimierung.Contracts.IOptimizationService;
+import logistikoptimierung.Contracts.IAnytimeOptimizationService;
+import logistikoptimierung.Contracts.IIncumbentListener;
+import logistikoptimierung.Contracts.IOptimizationHandle;
 import logistikoptimierung.Entities.FactoryObjects.*;
 import logistikoptimierung.Entities.Instance;
 import logistikoptimierung.Entities.WarehouseItems.*;
 import logistikoptimierung.Services.FirstComeFirstServeOptimizer.FirstComeFirstServeOptimizerMain;
+import logistikoptimierung.Services.OptimizationHandle;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Creates an object of the optimizer with an enumeration of the possibilities and combinations for handling the order.
@@ -15,24 +21,61 @@ import java.util.*;
  * For the transport and driver constraints a Driver pool in the size of the nr of drivers and if the pool is full the
  * first driver is used again. This ensures with the trying of every combination that different drivers  and transporters
  * are used in the optimization.
+ * Subtrees which can not beat the best solution (see {@link LowerBoundEstimator}) are cut before they are simulated.
+ * With a transposition table a subtree with the same state as an already expanded subtree is skipped
+ * (see {@link TranspositionTable}).
+ * With the partial order reduction two independent planning items are only planned one after another with the smaller
+ * id first (see {@link PlanningItemIndependence}).
+ * Every subtree has its own planning context, derived from the context of its parent. With a parallelism higher than
+ * 0 the subtrees are enumerated with a fork join pool, every simulation uses its own simulation state and every
+ * subtree shares the best solution.
+ * The asynchronous optimization (see {@link #optimizeAsync(int, IIncumbentListener)}) publishes the first come first
+ * serve solution and every better solution as soon as it is found. A calculation runs one optimization at a time.
+ * With a beam width higher than 0 only the best partial solutions of every depth are expanded
+ * (see {@link BeamSearchCalculation}), so the calculation stays bounded for many orders.
  */
-public class EnumeratedCalculationMain implements IOptimizationService
+public class EnumeratedCalculationMain implements IAnytimeOptimizationService
 {
+    /**
+     * Depth of the planning item tree until the parallel calculation creates a new task for every subtree. The depth
+     * does not depend on the parallelism, so every parallelism simulates the same subtrees.
+     */
+    private static final int PARALLEL_SPLIT_DEPTH = 4;
+
+    /**
+     * Min nr of planning items of a subtree which is checked with the transposition table. The check simulates the
+     * steps before the subtree from the start. The simulations of a smaller subtree are stopped early if they can not
+     * beat the best solution, so they cost less than the check.
+     */
+    private static final int MIN_PLANNING_ITEMS_FOR_TRANSPOSITION_CHECK = 3;
+
     private final FactoryConglomerate factoryConglomerate;
     private final List<Order> orderList;
+    private final long maxRuntime;
     private LogSettings logSettings;
 
-    private List<Transporter> sortedAvailableTransportList;
-    private List<Driver> availableDrivers;
-    private List<DriverPoolItem> driverPoolItems;
-
-    private long bestTimeSolution;
+    private final AtomicLong bestTimeSolution;
     private List<FactoryStep> bestSolution = new ArrayList<>();
-    private long nrOfSimulations = 0;
-    private long nrOfCutSolutions = 0;
+    private List<PlanningItem> bestPlanningItemOrder;
+    private final LongAdder nrOfSimulations = new LongAdder();
+    private final LongAdder nrOfCutSolutions = new LongAdder();
+    private final LongAdder nrOfBoundCutSolutions = new LongAdder();
+    private final LongAdder nrOfAbortedSimulations = new LongAdder();
+    private final LongAdder nrOfPartialOrderCutSolutions = new LongAdder();
     private boolean condenseMaterialSupplies;
     private long maxSystemRunTime;
     private long startTime;
+    private volatile long timeToFirstImprovement = -1;
+    private boolean stopAtFirstImprovement = false;
+    private OptimizationHandle optimizationHandle;
+    private int parallelism = 0;
+    private boolean lowerBoundPruning = true;
+    private LowerBoundEstimator lowerBoundEstimator;
+    private int transpositionTableSize = 0;
+    private TranspositionTable transpositionTable;
+    private boolean partialOrderReduction = false;
+    private PlanningItemIndependence planningItemIndependence;
+    private int beamWidth = 0;
 
     /**
      * Creates an object of the optimizer with an enumeration of the possibilities and combinations for handling the order.
@@ -54,17 +97,139 @@ public class EnumeratedCalculationMain implements IOptimizationService
     {
         this.factoryConglomerate = instance.getFactoryConglomerate();
         this.orderList = instance.getOrderList();
+        this.maxRuntime = maxRuntime;
 
-        this.sortedAvailableTransportList = new ArrayList<>(this.factoryConglomerate.getTransporters());
-        this.sortedAvailableTransportList.sort(Comparator.comparingInt(Transporter::getCapacity));
-        this.driverPoolItems = new ArrayList<>(this.factoryConglomerate.getNrOfDrivers());
-
-        this.bestTimeSolution = maxRuntime;
+        this.bestTimeSolution = new AtomicLong(maxRuntime);
         this.condenseMaterialSupplies = condenseMaterialSupplies;
 
         this.maxSystemRunTime = maxSystemRunTimeInNanoSeconds;
     }
 
+    /**
+     * Sets the nr of threads for the calculation. With 0 (default) the combinations are calculated sequential in the
+     * calling thread. With a parallelism of 1 or higher the combinations are calculated with a fork join pool with the
+     * given nr of threads. The drivers and transporters of a subtree only depend on its planning item order, so
+     * without a time limit the parallel calculation returns the same best result as the sequential calculation for
+     * every parallelism. The cuts of the transposition table depend on the order in which the solutions are found,
+     * with the table the results can differ.
+     * @param parallelism nr of threads for the calculation
+     */
+    public void setParallelism(int parallelism)
+    {
+        if(parallelism < 0)
+            throw new IllegalArgumentException("Parallelism must not be negative: " + parallelism);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return the nr of threads for the calculation, 0 if the calculation is sequential
+     */
+    public int getParallelism()
+    {
+        return this.parallelism;
+    }
+
+    /**
+     * Activates the cut of subtrees with a lower bound at or above the best result (default true). The lower bound
+     * never exceeds the result of a solution of the subtree and every subtree has its own planning context, so a cut
+     * subtree does not change the drivers and transporters of the other subtrees and the best result is the same as
+     * without the cut.
+     * @param lowerBoundPruning true to cut the subtrees with the lower bound
+     */
+    public void setLowerBoundPruning(boolean lowerBoundPruning)
+    {
+        this.lowerBoundPruning = lowerBoundPruning;
+    }
+
+    /**
+     * @return true if the subtrees are cut with the lower bound
+     */
+    public boolean isLowerBoundPruning()
+    {
+        return this.lowerBoundPruning;
+    }
+
+    /**
+     * Sets the max nr of entries of the transposition table (default 0). With 0 no transposition table is used. The
+     * transposition table can skip the best solution, see {@link TranspositionTable}.
+     * @param transpositionTableSize max nr of partial solutions in the table, 0 to deactivate the table
+     */
+    public void setTranspositionTableSize(int transpositionTableSize)
+    {
+        if(transpositionTableSize < 0)
+            throw new IllegalArgumentException("Transposition table size must not be negative: " + transpositionTableSize);
+        this.transpositionTableSize = transpositionTableSize;
+    }
+
+    /**
+     * @return the max nr of entries of the transposition table, 0 if no transposition table is used
+     */
+    public int getTranspositionTableSize()
+    {
+        return this.transpositionTableSize;
+    }
+
+    /**
+     * Activates the partial order reduction (default false). Two independent planning items (see
+     * {@link PlanningItemIndependence}) which are planned one after another are only planned with the smaller id
+     * first. Swapping two independent planning items changes neither the planning context nor the simulation, so both
+     * orders have the same result and the reduction does not skip the best result. The beam search does not use the
+     * reduction.
+     * @param partialOrderReduction true to activate the partial order reduction
+     */
+    public void setPartialOrderReduction(boolean partialOrderReduction)
+    {
+        this.partialOrderReduction = partialOrderReduction;
+    }
+
+    /**
+     * @return true if the partial order reduction is active
+     */
+    public boolean isPartialOrderReduction()
+    {
+        return this.partialOrderReduction;
+    }
+
+    /**
+     * Sets the beam width (default 0). With 0 every combination of the planning items is enumerated. With a beam width
+     * higher than 0 only this nr of partial solutions is expanded at every depth of the planning item tree, the
+     * transposition table is not used. The beam search does not need to find the best
+     * solution, but needs at most beam width * nr of planning items^2 simulations.
+     * @param beamWidth nr of partial solutions which are kept at every depth, 0 for the full enumeration
+     */
+    public void setBeamWidth(int beamWidth)
+    {
+        if(beamWidth < 0)
+            throw new IllegalArgumentException("Beam width must not be negative: " + beamWidth);
+        this.beamWidth = beamWidth;
+    }
+
+    /**
+     * @return the nr of partial solutions which are kept at every depth, 0 if every combination is enumerated
+     */
+    public int getBeamWidth()
+    {
+        return this.beamWidth;
+    }
+
+    /**
+     * Stops the calculation after the first solution which is better than the first come first serve solution
+     * (default false). The calculation returns the first better solution or the first come first serve solution.
+     * @param stopAtFirstImprovement true to stop the calculation at the first improvement
+     */
+    public void setStopAtFirstImprovement(boolean stopAtFirstImprovement)
+    {
+        this.stopAtFirstImprovement = stopAtFirstImprovement;
+    }
+
+    /**
+     * @return true if the calculation stops at the first improvement
+     */
+    public boolean isStopAtFirstImprovement()
+    {
+        return this.stopAtFirstImprovement;
+    }
+
     /**
      * Optimizes the order list for the nr given in the parameter. Returns an empty list if the order nr is higher than
      * the available  orders.
@@ -74,6 +239,33 @@ public class EnumeratedCalculationMain implements IOptimizationService
     @Override
     public List<FactoryStep> optimize(int nrOfOrdersToOptimize)
     {
+        return optimize(nrOfOrdersToOptimize, null);
+    }
+
+    /**
+     * Starts the optimization of the order list in a new thread. The listener gets the first come first serve
+     * solution and every better solution. The max system run time of the calculation is measured from the call of this
+     * method and can be changed with the handle.
+     * @param nrOfOrdersToOptimize nr of orders which should be optimized.
+     * @param listener listener for every new best solution, null for no listener
+     * @return the handle of the optimization
+     */
+    @Override
+    public IOptimizationHandle optimizeAsync(int nrOfOrdersToOptimize, IIncumbentListener listener)
+    {
+        var handle = new OptimizationHandle(this.maxSystemRunTime, listener);
+        return handle.start("EnumeratedCalculation", () -> optimize(nrOfOrdersToOptimize, handle));
+    }
+
+    /**
+     * Optimizes the order list for the nr given in the parameter
+     * @param nrOfOrdersToOptimize nr of orders which should be optimized.
+     * @param handle handle of the asynchronous optimization, null for the synchronous optimization
+     * @return a list of factory steps for the orders
+     */
+    private List<FactoryStep> optimize(int nrOfOrdersToOptimize, OptimizationHandle handle)
+    {
+        this.optimizationHandle = handle;
         var stepToDo = new ArrayList<FactoryStep>();
         if(nrOfOrdersToOptimize > this.orderList.size())
             return stepToDo;
@@ -87,36 +279,105 @@ public class EnumeratedCalculationMain implements IOptimizationService
 
         var firstComeFirstServeOptimizer = new FirstComeFirstServeOptimizerMain(newInstance);
         this.bestSolution = firstComeFirstServeOptimizer.optimize(nrOfOrdersToOptimize);
-        var firstComeFirstServeResult = this.factoryConglomerate.startSimulation(this.orderList, this.bestSolution, this.bestTimeSolution);
-        this.bestTimeSolution = firstComeFirstServeResult;
-        this.factoryConglomerate.resetFactory();
+        this.bestPlanningItemOrder = null;
+        var simulationState = this.factoryConglomerate.createSimulationState(this.orderList);
+        var firstComeFirstServeResult = this.factoryConglomerate.startSimulation(simulationState, this.bestSolution, false, this.bestTimeSolution.get());
+        this.bestTimeSolution.set(firstComeFirstServeResult);
 
-        var planningItems = getAllNeededFactoryPlanningItemsForOrder(subOrderList);
+        var planningItems = new PlanningItemGenerator(this.factoryConglomerate, this.condenseMaterialSupplies)
+                .createPlanningItems(subOrderList);
         System.out.println("Nr of planning items: " + planningItems.size());
 
-        this.nrOfSimulations = 0;
+        this.nrOfSimulations.reset();
+        this.nrOfCutSolutions.reset();
+        this.nrOfBoundCutSolutions.reset();
+        this.nrOfAbortedSimulations.reset();
+        this.nrOfPartialOrderCutSolutions.reset();
+        this.lowerBoundEstimator = null;
+        //The beam search rates the partial solutions with the lower bound, also without the pruning
+        if(this.lowerBoundPruning || this.beamWidth > 0)
+            this.lowerBoundEstimator = new LowerBoundEstimator(this.factoryConglomerate, planningItems);
+        this.transpositionTable = null;
+        if(this.transpositionTableSize > 0 && this.beamWidth == 0)
+            this.transpositionTable = new TranspositionTable(this.transpositionTableSize);
+        this.planningItemIndependence = null;
+        if(this.partialOrderReduction && this.beamWidth == 0)
+            this.planningItemIndependence = new PlanningItemIndependence(this.factoryConglomerate, planningItems);
         this.startTime = System.nanoTime();
+        this.timeToFirstImprovement = -1;
+        if(handle != null)
+            handle.publishIncumbent(this.bestSolution, firstComeFirstServeResult, 0);
+
+        if(this.beamWidth > 0)
+            return optimizeWithBeamSearch(planningItems);
+
+        if(this.parallelism == 0)
+        {
+            getPlanningSolutionRecursive(new PlanningContext(this.factoryConglomerate),
+                    stepToDo,
+                    planningItems,
+                    new ArrayList<>());
+            return bestSolution;
+        }
+
+        var pool = new ForkJoinPool(this.parallelism);
+        try
+        {
+            var tasks = new ArrayList<ParallelPlanningTask>();
+            forkPlanningSolutionRecursive(pool, new PlanningContext(this.factoryConglomerate), stepToDo, planningItems,
+                    new ArrayList<>(), tasks);
+            for(var task : tasks)
+                task.join();
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        return bestSolution;
+    }
 
-        //Create copy of driver list
-        availableDrivers = new ArrayList<Driver>();
-        var idCount = 0;
-        for(var driver : this.factoryConglomerate.getDrivers())
+    /**
+     * Searches the best solution with the beam search, in parallel with a parallelism higher than 0
+     * @param planningItems every planning item of the calculation
+     * @return a list of factory steps for the orders
+     */
+    private List<FactoryStep> optimizeWithBeamSearch(List<PlanningItem> planningItems)
+    {
+        if(this.parallelism == 0)
         {
-            availableDrivers.add(new Driver(driver.getName(), idCount));
-            idCount++;
+            new BeamSearchCalculation(this, this.beamWidth, null).calculate(planningItems);
+            return bestSolution;
         }
 
-        getPlanningSolutionRecursive(stepToDo, planningItems, new ArrayList<>());
+        var pool = new ForkJoinPool(this.parallelism);
+        try
+        {
+            new BeamSearchCalculation(this, this.beamWidth, pool).calculate(planningItems);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
 
         return bestSolution;
     }
 
+    /**
+     * @return the time in nanoseconds from the start of the last optimization until the first come first serve
+     * solution was replaced by a better solution, -1 if no better solution was found
+     */
+    public long getTimeToFirstImprovement()
+    {
+        return this.timeToFirstImprovement;
+    }
+
     /**
      * @return Returns the nr of Simulations done in the last optimization
      */
     public long getNrOfSimulations()
     {
-        return this.nrOfSimulations;
+        return this.nrOfSimulations.sum();
     }
 
     /**
@@ -124,63 +385,91 @@ public class EnumeratedCalculationMain implements IOptimizationService
      */
     public long getNrOfCutSolutions()
     {
-        return this.nrOfCutSolutions;
+        return this.nrOfCutSolutions.sum();
+    }
+
+    /**
+     * @return Returns the nr of subtrees which where cut, because the lower bound was not better than the best solution
+     */
+    public long getNrOfBoundCutSolutions()
+    {
+        return this.nrOfBoundCutSolutions.sum();
+    }
+
+    /**
+     * @return Returns the nr of simulations of complete solutions which were aborted early, because the lower bound
+     * of the makespan was after the best solution
+     */
+    public long getNrOfAbortedSimulations()
+    {
+        return this.nrOfAbortedSimulations.sum();
+    }
+
+    /**
+     * @return Returns the nr of subtrees which where skipped by the partial order reduction in the last optimization
+     */
+    public long getNrOfPartialOrderCutSolutions()
+    {
+        return this.nrOfPartialOrderCutSolutions.sum();
+    }
+
+    /**
+     * @return Returns the nr of subtrees which where skipped by the transposition table in the last optimization
+     */
+    public long getNrOfTranspositionHits()
+    {
+        if(this.transpositionTable == null)
+            return 0;
+        return this.transpositionTable.getNrOfHits();
+    }
+
+    /**
+     * @return Returns the nr of subtrees which where stored in the transposition table in the last optimization
+     */
+    public long getNrOfTranspositionMisses()
+    {
+        if(this.transpositionTable == null)
+            return 0;
+        return this.transpositionTable.getNrOfMisses();
     }
 
     /**
      * Checks every combination of the planning items and simulate the factory to find the best result.
+     * Every subtree gets its own context (see {@link #createChildContext(PlanningContext, PlanningItem)}), the context
+     * of this subtree is not changed.
+     * @param context planning context with the available drivers and transporters after the steps to do
      * @param stepsToDo Steps to perform before the current step
      * @param planningItems planning item to add the factory steps
+     * @param planningItemOrder planning items which created the steps to do (in this order)
      */
-    private void getPlanningSolutionRecursive(List<FactoryStep> stepsToDo, List<PlanningItem> planningItems, List<Factory> parallelFactories)
+    void getPlanningSolutionRecursive(PlanningContext context,
+                                      List<FactoryStep> stepsToDo,
+                                      List<PlanningItem> planningItems,
+                                      List<PlanningItem> planningItemOrder)
     {
-        if(maxSystemRunTime != 0 && System.nanoTime() > (maxSystemRunTime + startTime))
+        if(isMaxSystemRunTimeReached())
             return;
 
         if(planningItems.isEmpty())
         {
-            nrOfSimulations++;
-            long result = this.factoryConglomerate.startSimulation(this.orderList, stepsToDo, bestTimeSolution);
-            var nrOfRemainingSteps = this.factoryConglomerate.getNrOfRemainingSteps();
-            this.factoryConglomerate.resetFactory();
-
-            if(nrOfSimulations % 10000 == 0) {
-                //System.out.println("Nr of simulations: " + nrOfSimulations + " Result: " + result + " Nr Remaining Steps:" + nrOfRemainingSteps);
-            }
-
-            if(result < bestTimeSolution && nrOfRemainingSteps == 0)
-            {
-                bestTimeSolution = result;
-                bestSolution = new ArrayList<>(stepsToDo);
-                System.out.println("Nr of simulations: " + nrOfSimulations + " Result: " + result + " Nr Remaining Steps:" + nrOfRemainingSteps);
-            }
+            simulateSolution(stepsToDo, planningItemOrder);
         }
 
-        var planningItemsToRemove = new ArrayList<PlanningItem>();
         for (var planningItem : planningItems)
         {
-            var stepsToAdd = new ArrayList<FactoryStep>();
-            switch (planningItem.planningType())
-            {
-                case Acquire -> {
-                    stepsToAdd = getAcquireTransportSteps(planningItem);
-                }
-                case Produce -> {
-                    stepsToAdd = getProductionSteps(stepsToDo, planningItem);
-                }
-                case Deliver -> {
-                    stepsToAdd = getDeliverTransporters(stepsToDo, planningItem);
-                }
-            }
+            if(isCutByPartialOrderReduction(planningItemOrder, planningItem))
+                continue;
+
+            var childContext = createChildContext(context, planningItem);
+            var stepsToAdd = childContext.getStepsForPlanningItem(stepsToDo, planningItem);
 
             //abort complete solution because no material for the production or delivery in the warehouse
             if(stepsToAdd.isEmpty())
             {
-                nrOfCutSolutions++;
+                nrOfCutSolutions.increment();
                 continue;
             }
 
-
             /*
             //Check if planning item can be processed in parallel
             //Commented because good solutions where removed in the optimization
@@ -209,898 +498,289 @@ public class EnumeratedCalculationMain implements IOptimizationService
             var copyOfSteps = new ArrayList<>(stepsToDo);
             copyOfSteps.addAll(stepsToAdd);
             copyOfPlanningItems.remove(planningItem);
-            copyOfPlanningItems.removeAll(planningItemsToRemove);
-            getPlanningSolutionRecursive(copyOfSteps, copyOfPlanningItems, parallelFactories);
-
-            //Release driver
-            if(planningItem.planningType() == PlanningType.Acquire ||
-                    planningItem.planningType() == PlanningType.Deliver)
-            {
-                if(this.driverPoolItems.isEmpty())
-                    break;
-
-                //Last item in the list, is the latest added one.
-                var poolItem = this.driverPoolItems.remove(this.driverPoolItems.size() - 1);
-                var removedDriver = poolItem.driver();
-
-                var driveTime = 0;
-                if(planningItem.item() instanceof Order)
-                    driveTime = ((Order) planningItem.item()).getTravelTime();
-                else if(planningItem.item() instanceof Material)
-                    driveTime = ((Material) planningItem.item()).getTravelTime();
-
-                removedDriver.setBlockedUntilTimeStep(removedDriver.getBlockedUntilTimeStep() - driveTime);
-                this.availableDrivers.add(poolItem.driver());
-                addTransporterToSortedTransportList(poolItem.transporter());
-
-                //Was passiert mit Transporter welcher vorher schon befreit wurde
-            }
-        }
-    }
-
-    /**
-     * Add the transporter to the sorted transportation list and keeps the order
-     * @param transporterToAdd transporter to add
-     */
-    private void addTransporterToSortedTransportList(Transporter transporterToAdd)
-    {
-        var indexToAdd = 0;
-        for(var transporter : this.sortedAvailableTransportList)
-        {
-            if(transporter.getCapacity() <= transporterToAdd.getCapacity())
-                continue;
-
-            indexToAdd = this.sortedAvailableTransportList.indexOf(transporter);
-            break;
-        }
-
-        this.sortedAvailableTransportList.add(indexToAdd, transporterToAdd);
-    }
-
-    /**
-     * Returns a list of factory steps for a planning item with the deliver property. The method checks if the material
-     * was produced in the needed amount before. If not an empty list is returned.
-     * @param stepsToDo steps which are getting performed before this planning item
-     * @param planningItem planning item for the factory steps
-     * @return factory steps for the planning item, returns an empty list if no product to deliver is available in the warehouse
-     */
-    private ArrayList<FactoryStep> getDeliverTransporters(List<FactoryStep> stepsToDo, PlanningItem planningItem)
-    {
-        var steps = new ArrayList<FactoryStep>();
-        var amount = planningItem.amount();
-
-        //Check if product is actually in the warehouse
-        var amountOfProductInWarehouse = 0;
-        var order = (Order)planningItem.item();
-
-        var stepsToDoBefore = new ArrayList<FactoryStep>();
-
-        for(var step : stepsToDo)
-        {
-            if(step.getStepType().equals(FactoryStepTypes.Produce))
-            {
-                //Check if item to deliver was produced
-                if(step.getItemToManipulate()
-                        .equals(order.getWarehousePosition().item()))
-                {
-                    var production = (Factory)step.getFactoryObject();
-                    var process = production.getProductionProcessForProduct((Product) order.getWarehousePosition().item());
-                    if(process == null)
-                        continue;
-
-                    amountOfProductInWarehouse += process.getProductionBatchSize();
-                    stepsToDoBefore.add(step);
-                    continue;
-                }
-
-                var production = (Factory) step.getFactoryObject();
-                var process = production.getProductionProcessForProduct((Product) step.getItemToManipulate());
-
-                //Check if any other production process was using the item
-                for(var materialPosition : process.getMaterialPositions())
-                {
-                    if(step.getItemToManipulate().getName().equals(materialPosition.item().getName()))
-                    {
-                        amountOfProductInWarehouse -= materialPosition.amount();
-                        stepsToDoBefore.add(step);
-                    }
-                }
-            }
-
-            if(step.getStepType().equals(FactoryStepTypes.GetMaterialFromSuppliesAndMoveBackToWarehouse))
-            {
-                if(step.getItemToManipulate().getName()
-                        .equals(order.getWarehousePosition().item().getName()))
-                {
-                    amountOfProductInWarehouse += step.getAmountOfItems();
-                    stepsToDoBefore.add(step);
-                }
-            }
-
-            if(step.getStepType().equals(FactoryStepTypes.ConcludeOrderTransportToCustomer))
-            {
-                var oldOrder = (Order)step.getItemToManipulate();
-                if(oldOrder.getWarehousePosition().item().getName().equals(order.getWarehousePosition().item().getName()))
-                {
-                    amountOfProductInWarehouse -= step.getAmountOfItems();
-                    stepsToDoBefore.add(step);
-                }
-            }
-        }
+            var copyOfPlanningItemOrder = new ArrayList<>(planningItemOrder);
+            copyOfPlanningItemOrder.add(planningItem);
 
-        if(amountOfProductInWarehouse < order.getWarehousePosition().amount())
-        {
-            //System.out.println("Abort solution: Not enough products in the Warehouse to deliver");
-            return steps;
-        }
-
-        //The last transporter needs to close the order
-        Transporter lastTransport = null;
-        var lastAmountToTransport = 0;
-        while (amount > 0)
-        {
-            //Driver list is empty take release first driver from pool
-            if(this.availableDrivers.isEmpty())
-            {
-                var poolItem = this.driverPoolItems.remove(0);
-                this.availableDrivers.add(poolItem.driver());
-                addTransporterToSortedTransportList(poolItem.transporter());
-            }
-
-            var bestTransporter = findBestTransporterForTheAmount(planningItem.item(), amount);
-
-            if(bestTransporter == null)
-                throw new RuntimeException("Should not happen ");
-
-            var amountToTransport = 0;
-            if(amount < bestTransporter.getCapacity())
-                amountToTransport = amount;
-            else
-                amountToTransport = bestTransporter.getCapacity();
-
-            var newStep = new FactoryStep(this.factoryConglomerate, stepsToDoBefore,
-                    planningItem.item(),
-                    amountToTransport,
-                    bestTransporter,
-                    FactoryStepTypes.ConcludeOrderTransportToCustomer);
-
-            steps.add(newStep);
-
-            var newDriver = this.availableDrivers.remove(0);
-            this.sortedAvailableTransportList.remove(bestTransporter);
-
-            var driveTime = 0;
-            if(planningItem.item() instanceof Order)
-                driveTime = ((Order) planningItem.item()).getTravelTime();
-
-            newDriver.setBlockedUntilTimeStep(newDriver.getBlockedUntilTimeStep() + driveTime);
-
-            var newPoolItem = new DriverPoolItem(newDriver, bestTransporter);
-            driverPoolItems.add(newPoolItem);
-            amount -= bestTransporter.getCapacity();
-
-            lastTransport  = bestTransporter;
-            lastAmountToTransport = amountToTransport;
+            if(!isCutByLowerBound(copyOfSteps, copyOfPlanningItems, copyOfPlanningItemOrder) &&
+                    !isCutByTranspositionTable(childContext, copyOfSteps, copyOfPlanningItems))
+                getPlanningSolutionRecursive(childContext, copyOfSteps, copyOfPlanningItems, copyOfPlanningItemOrder);
         }
-
-        var newStep = new FactoryStep(this.factoryConglomerate, stepsToDoBefore,
-                planningItem.item(),
-                lastAmountToTransport,
-                lastTransport,
-                FactoryStepTypes.ClosesOrderFromCustomer);
-
-        steps.add(newStep);
-
-        return steps;
     }
 
     /**
-     * Returns a list of factory steps for a planning item with the acquire property.
-     * @param planningItem planning item for the factory steps
-     * @return factory steps for the planning item
+     * Creates the tasks of the parallel calculation. The planning items are enumerated like in the sequential
+     * calculation until the split depth, every subtree at the split depth gets a task. Every subtree has its own
+     * planning context (see {@link #createChildContext(PlanningContext, PlanningItem)}), so the tasks enumerate the
+     * same combinations with the same drivers and transporters as the sequential calculation.
+     * @param pool pool which executes the tasks
+     * @param context planning context after the planning items before the subtree, not changed
+     * @param stepsToDo steps of the planning items before the subtree
+     * @param planningItems planning items of the subtree
+     * @param planningItemOrder planning items which created the steps to do (in this order)
+     * @param tasks list for the created tasks
      */
-    private ArrayList<FactoryStep> getAcquireTransportSteps(PlanningItem planningItem)
+    void forkPlanningSolutionRecursive(ForkJoinPool pool,
+                                       PlanningContext context,
+                                       List<FactoryStep> stepsToDo,
+                                       List<PlanningItem> planningItems,
+                                       List<PlanningItem> planningItemOrder,
+                                       List<ParallelPlanningTask> tasks)
     {
-        var steps = new ArrayList<FactoryStep>();
-        var amount = planningItem.amount();
-
-        //Removed this cutting plane. Possibility to remove a solution with a high runtime
-        //if(checkIfWarehouseIsFull(stepToDo, amount))
-        //    return steps;
+        if(isMaxSystemRunTimeReached())
+            return;
 
-        while (amount > 0)
+        if(planningItemOrder.size() >= PARALLEL_SPLIT_DEPTH || planningItems.isEmpty())
         {
-            //Driver list is empty take release first driver from pool
-            if(this.availableDrivers.isEmpty())
-            {
-                var poolItem = this.driverPoolItems.remove(0);
-                this.availableDrivers.add(poolItem.driver());
-                addTransporterToSortedTransportList(poolItem.transporter());
-            }
-
-            var bestTransporter = findBestTransporterForTheAmount(planningItem.item(), amount);
-
-            if(bestTransporter == null)
-                throw new RuntimeException("Bug! no fitting Transporter ");
-
-            var amountToTransport = 0;
-            if(amount < bestTransporter.getCapacity())
-                amountToTransport = amount;
-            else
-                amountToTransport = bestTransporter.getCapacity();
-
-            var newStep = new FactoryStep(this.factoryConglomerate, 0,
-                    planningItem.item(),
-                    amountToTransport,
-                    bestTransporter,
-                    FactoryStepTypes.GetMaterialFromSuppliesAndMoveBackToWarehouse);
-
-            steps.add(newStep);
-
-            newStep = new FactoryStep(this.factoryConglomerate, 0,
-                    planningItem.item(),
-                    amountToTransport,
-                    bestTransporter,
-                    FactoryStepTypes.MoveMaterialFromTransporterToWarehouse);
-
-            steps.add(newStep);
-
-
-
-            var newDriver = this.availableDrivers.remove(0);
-            this.sortedAvailableTransportList.remove(bestTransporter);
-
-            var driveTime = 0;
-            if (planningItem.item() instanceof Material)
-                driveTime = ((Material) planningItem.item()).getTravelTime();
-
-            newDriver.setBlockedUntilTimeStep(newDriver.getBlockedUntilTimeStep() + driveTime);
-            var newPoolItem = new DriverPoolItem(newDriver, bestTransporter);
-
-            driverPoolItems.add(newPoolItem);
-            amount -= bestTransporter.getCapacity();
-
+            var task = new ParallelPlanningTask(this, context, stepsToDo, planningItems, planningItemOrder);
+            pool.execute(task);
+            tasks.add(task);
+            return;
         }
 
-        return steps;
-    }
-
-    private boolean checkIfWarehouseIsFull(List<FactoryStep> stepsToDo, int amountToAdd)
-    {
-        var warehouseCapacity = this.factoryConglomerate.getWarehouse().getWarehouseCapacity();
-        warehouseCapacity -= amountToAdd;
-        for(var step : stepsToDo)
+        for (var planningItem : planningItems)
         {
-            if(step.getStepType().equals(FactoryStepTypes.MoveMaterialFromTransporterToWarehouse))
-            {
-                //reduce
-                warehouseCapacity -= step.getAmountOfItems();
-            }
-
-            if(step.getStepType().equals(FactoryStepTypes.MoveMaterialsForProductFromWarehouseToInputBuffer))
-            {
-                //add
-                var process = this.factoryConglomerate.getProductionProcessForProduct((Product) step.getItemToManipulate());
-                warehouseCapacity += process.getProductionBatchSize();
-            }
-
-            if(step.getStepType().equals(FactoryStepTypes.MoveProductFromOutputBufferToWarehouse))
-            {
-                //reduce
-                var process = this.factoryConglomerate.getProductionProcessForProduct((Product) step.getItemToManipulate());
-                warehouseCapacity -= process.getProductionBatchSize();
-            }
+            if(isCutByPartialOrderReduction(planningItemOrder, planningItem))
+                continue;
 
-            if(step.getStepType().equals(FactoryStepTypes.ConcludeOrderTransportToCustomer))
+            var childContext = createChildContext(context, planningItem);
+            var stepsToAdd = childContext.getStepsForPlanningItem(stepsToDo, planningItem);
+            if(stepsToAdd.isEmpty())
             {
-                //add
-                warehouseCapacity = warehouseCapacity + step.getAmountOfItems();
-
+                nrOfCutSolutions.increment();
+                continue;
             }
 
-            if(warehouseCapacity < 0)
-                return true;
-        }
-        return false;
-    }
-
-    /**
-     * Finds the best transporter from the available transporters. If none is available it returns one
-     * of the driver pool.
-     * @param item item for the transportation constraints
-     * @param amount amount of the item
-     * @return transporter, null if none was found
-     */
-    private Transporter findBestTransporterForTheAmount(WarehouseItem item, int amount)
-    {
-        var bestTransporter = this.getTransporterWithSmallestDifferenceFromAmountAndHigherCapacity(
-                this.sortedAvailableTransportList,
-                item,
-                amount);
-
-        //No Transporter found, need to reuse already used transporter
-        if(bestTransporter == null)
-        {
-            var bestDriverPoolItem = getDriverPoolItemWithDriverWhoIsEarliestBack(item);
-            bestTransporter = bestDriverPoolItem.transporter();
+            var copyOfPlanningItems = new ArrayList<>(planningItems);
+            var copyOfSteps = new ArrayList<>(stepsToDo);
+            copyOfSteps.addAll(stepsToAdd);
+            copyOfPlanningItems.remove(planningItem);
+            var copyOfPlanningItemOrder = new ArrayList<>(planningItemOrder);
+            copyOfPlanningItemOrder.add(planningItem);
 
-            //Release driver from this transporter
-            this.driverPoolItems.remove(bestDriverPoolItem);
-            this.availableDrivers.add(bestDriverPoolItem.driver());
-            addTransporterToSortedTransportList(bestDriverPoolItem.transporter());
+            if(!isCutByLowerBound(copyOfSteps, copyOfPlanningItems, copyOfPlanningItemOrder) &&
+                    !isCutByTranspositionTable(childContext, copyOfSteps, copyOfPlanningItems))
+                forkPlanningSolutionRecursive(pool, childContext, copyOfSteps, copyOfPlanningItems, copyOfPlanningItemOrder, tasks);
         }
-
-        return bestTransporter;
     }
 
     /**
-     * Returns the transporter with the smallest difference of the amount needed. The transporter is equal or higher than the amount needed.
-     * If no transporter fits the needed amount. The transporter with the highest capacity gets returned
-     * @param availableTransportersSortedByCapacity sorted list of available transporters
-     * @param item item to transport
-     * @param amount amount of the item
-     * @return a fitting transporter. If none is found the method returns null.
+     * Returns the planning context for the subtree after the planning item. The context of a subtree is never changed
+     * after its steps were created, so the subtrees do not change each other and every subtree gets the same drivers
+     * and transporters as a calculation of its planning item order from the start. A produce planning item does not
+     * change the drivers and transporters, the subtree uses the context of its parent.
+     * @param context planning context after the planning items before the planning item
+     * @param planningItem planning item to plan next
+     * @return the context to create the steps of the planning item and to calculate the subtree
      */
-    private Transporter getTransporterWithSmallestDifferenceFromAmountAndHigherCapacity(List<Transporter> availableTransportersSortedByCapacity,
-                                                                                        WarehouseItem item, int amount)
+    private static PlanningContext createChildContext(PlanningContext context, PlanningItem planningItem)
     {
-        Transporter fittingTransporterWithHighestCapacity = null;
-        for(var transporter : availableTransportersSortedByCapacity)
-        {
-            if(item instanceof Material)
-            {
-                if(!transporter.areTransportationConstraintsFulfilledForMaterial((Material) item))
-                    continue;
-            }
-            else if(item instanceof  Order)
-            {
-                if(!transporter.areTransportationConstraintsFulfilledForOrder((Order) item))
-                    continue;
-            }
-
-            if(transporter.getCapacity() >= amount)
-                return transporter;
-
-            if(fittingTransporterWithHighestCapacity == null ||
-                    fittingTransporterWithHighestCapacity.getCapacity() < transporter.getCapacity())
-                fittingTransporterWithHighestCapacity = transporter;
-        }
-
-        if(fittingTransporterWithHighestCapacity != null)
-            return fittingTransporterWithHighestCapacity;
-
-        return null;
+        if(planningItem.planningType() == PlanningType.Produce)
+            return context;
+        return context.copy();
     }
 
     /**
-     * schrenkt vielleicht den Suchraum ein
-     * @param item
-     * @return
+     * Simulates a complete solution and stores the solution if the result is better than the best solution.
+     * Every simulation uses its own simulation state, so the method can be called from several threads.
+     * @param stepsToDo the steps of the solution
+     * @param planningItemOrder planning items which created the steps to do (in this order)
      */
-    private DriverPoolItem getDriverPoolItemWithDriverWhoIsEarliestBack(WarehouseItem item)
+    void simulateSolution(List<FactoryStep> stepsToDo,
+                          List<PlanningItem> planningItemOrder)
     {
-        DriverPoolItem bestDriverPoolItem = null;
-
-        for(var driverPoolItem : this.driverPoolItems)
-        {
-            if(item instanceof Material)
-            {
-                if(!driverPoolItem.transporter().areTransportationConstraintsFulfilledForMaterial((Material) item))
-                    continue;
-            }
-            else if(item instanceof  Order)
-            {
-                if(!driverPoolItem.transporter().areTransportationConstraintsFulfilledForOrder((Order) item))
-                    continue;
-            }
-
-            if(bestDriverPoolItem == null)
-            {
-                bestDriverPoolItem = driverPoolItem;
-                continue;
-            }
-
-            if(driverPoolItem.driver().getBlockedUntilTimeStep() < bestDriverPoolItem.driver().getBlockedUntilTimeStep())
-                bestDriverPoolItem = driverPoolItem;
-        }
-
-        return bestDriverPoolItem;
-    }
+        nrOfSimulations.increment();
+        var simulationState = this.factoryConglomerate.createSimulationState(this.orderList);
+        this.factoryConglomerate.startSimulationWithEarlyAbort(simulationState, stepsToDo, bestTimeSolution.get());
+        long result = simulationState.getCurrentTimeStep();
+        var nrOfRemainingSteps = simulationState.getNrOfRemainingSteps();
+        if(simulationState.getStopType() == SimulationStopTypes.LowerBound)
+            nrOfAbortedSimulations.increment();
+
+        if(nrOfRemainingSteps != 0)
+            return;
 
-    private DriverPoolItem getDriverPoolItemWithSmallestDifferenceFromAmountAndHigherCapacity(WarehouseItem item, int amount)
-    {
-        DriverPoolItem bestDriverPoolItem = null;
-        DriverPoolItem driverPoolItemWithHighestCapacity = null;
-        var minDiff = Integer.MAX_VALUE;
-        for(var driverPoolItem : this.driverPoolItems)
+        synchronized (this)
         {
-            if(item instanceof Material)
-            {
-                if(!driverPoolItem.transporter().areTransportationConstraintsFulfilledForMaterial((Material) item))
-                    continue;
-            }
-            else if(item instanceof  Order)
-            {
-                if(!driverPoolItem.transporter().areTransportationConstraintsFulfilledForOrder((Order) item))
-                    continue;
-            }
-
-            var diff = driverPoolItem.transporter().getCapacity() - amount;
-
-            if(bestDriverPoolItem == null)
-            {
-                bestDriverPoolItem = driverPoolItem;
-                driverPoolItemWithHighestCapacity = driverPoolItem;
-                minDiff = diff;
-                continue;
-            }
-
-            if(driverPoolItem.transporter().getCapacity() >
-                    driverPoolItemWithHighestCapacity.transporter().getCapacity())
-                driverPoolItemWithHighestCapacity = driverPoolItem;
-
-            if(diff < 0)
-                continue;
-
-            if(diff < minDiff)
-            {
-                bestDriverPoolItem = driverPoolItem;
-                minDiff = diff;
-            }
-
+            var currentBest = bestTimeSolution.get();
+            if(result > currentBest)
+                return;
+
+            //Same result: keep the first come first serve solution or the solution with the smaller planning item order.
+            //With this the parallel calculation is independent of the order in which the subtrees are finished.
+            if(result == currentBest && (this.parallelism == 0 || bestPlanningItemOrder == null ||
+                    comparePlanningItemOrders(planningItemOrder, bestPlanningItemOrder) >= 0))
+                return;
+
+            if(timeToFirstImprovement < 0)
+                timeToFirstImprovement = System.nanoTime() - startTime;
+            bestTimeSolution.set(result);
+            bestSolution = new ArrayList<>(stepsToDo);
+            bestPlanningItemOrder = new ArrayList<>(planningItemOrder);
+            if(optimizationHandle != null)
+                optimizationHandle.publishIncumbent(bestSolution, result, nrOfSimulations.sum());
+            else if(this.factoryConglomerate.getLogSettings().printOptimizationMessages())
+                System.out.println("Nr of simulations: " + nrOfSimulations.sum() + " Result: " + result + " Nr Remaining Steps:" + nrOfRemainingSteps);
         }
-
-        if(bestDriverPoolItem.transporter().getCapacity() >= amount)
-            return bestDriverPoolItem;
-
-        return driverPoolItemWithHighestCapacity;
     }
 
     /**
-     * Returns a list of factory steps for a planning item with the produce property. The method checks if the material
-     * was transported in the needed amount before. If not an empty list is returned.
-     * @param stepsToDo steps which are getting performed before this planning item
-     * @param planningItem planning item for the factory steps
-     * @return factory steps for the planning item, returns an empty list if no material is available in the warehouse
+     * Checks if the subtree can be cut, because no solution of the subtree can be better than the best solution.
+     * A solution with the same result only replaces the best solution in the parallel calculation if the planning
+     * item order is smaller, so a subtree with the same lower bound is only cut if the planning item order before the
+     * subtree is already bigger than the best one. Counts the cut subtrees.
+     * @param stepsToDo steps of the planning items before the subtree
+     * @param remainingPlanningItems planning items of the subtree
+     * @param planningItemOrder planning items which created the steps to do (in this order)
+     * @return true if the subtree can be cut
      */
-    private ArrayList<FactoryStep> getProductionSteps(List<FactoryStep> stepsToDo, PlanningItem planningItem)
+    boolean isCutByLowerBound(List<FactoryStep> stepsToDo,
+                              List<PlanningItem> remainingPlanningItems,
+                              List<PlanningItem> planningItemOrder)
     {
-        var steps = new ArrayList<FactoryStep>();
-        var process = this
-                .factoryConglomerate
-                .getProductionProcessForProduct((Product) planningItem.item());
+        if(!this.lowerBoundPruning || this.lowerBoundEstimator == null)
+            return false;
 
-        var stepsToDoBefore = new ArrayList<FactoryStep>();
+        var lowerBound = this.lowerBoundEstimator.getLowerBound(stepsToDo, remainingPlanningItems);
+        if(lowerBound < bestTimeSolution.get())
+            return false;
 
-        //Check if material is actually in the warehouse
-        for (var materialPosition : process.getMaterialPositions())
+        synchronized (this)
         {
-            var materialInWarehouse = 0;
-            for(var step : stepsToDo)
-            {
-                if(step.getStepType().equals(FactoryStepTypes.MoveMaterialFromTransporterToWarehouse))
-                {
-                    //Check if transporter got the needed material before
-                    if(step.getItemToManipulate().equals(materialPosition.item()))
-                    {
-                        stepsToDoBefore.add(step);
-                        materialInWarehouse += step.getAmountOfItems();
-                    }
-                }
-
-                if(step.getStepType().equals(FactoryStepTypes.Produce))
-                {
-                    //Check if product was produced
-                    if(step.getItemToManipulate().equals(materialPosition.item()))
-                    {
-                        var subProcess = this.factoryConglomerate.getProductionProcessForProduct((Product) step.getItemToManipulate());
-                        materialInWarehouse += subProcess.getProductionBatchSize();
-                        stepsToDoBefore.add(step);
-                    }
-                }
-
-                //Check if any other production consumed the material before
-                if(step.getStepType().equals(FactoryStepTypes.MoveMaterialsForProductFromWarehouseToInputBuffer))
-                {
-                    var productionProcess = this.factoryConglomerate.getProductionProcessForProduct((Product) step.getItemToManipulate());
-                    for(var materialPositionForProcess : productionProcess.getMaterialPositions())
-                    {
-                        if(materialPositionForProcess.item().equals(materialPosition.item()))
-                        {
-                            materialInWarehouse -= materialPositionForProcess.amount();
-                            stepsToDoBefore.add(step);
-                        }
-                    }
-                }
-            }
-
-            if(materialInWarehouse < materialPosition.amount())
-            {
-                //System.out.println("Abort solution: Not enough material in the Warehouse to produce");
-                return steps;
-            }
+            var currentBest = bestTimeSolution.get();
+            if(lowerBound < currentBest)
+                return false;
+
+            if(lowerBound == currentBest && this.parallelism != 0 && bestPlanningItemOrder != null &&
+                    comparePlanningItemOrders(planningItemOrder, bestPlanningItemOrder.subList(0,
+                            Math.min(planningItemOrder.size(), bestPlanningItemOrder.size()))) <= 0)
+                return false;
         }
 
-        var newStep = new FactoryStep(this.factoryConglomerate, stepsToDoBefore,
-                planningItem.item(),
-                1,
-                process.getFactory(),
-                FactoryStepTypes.MoveMaterialsForProductFromWarehouseToInputBuffer);
-
-        steps.add(newStep);
-
-        stepsToDoBefore = new ArrayList<>();
-        stepsToDoBefore.add(newStep);
-        newStep = new FactoryStep(this.factoryConglomerate, stepsToDoBefore,
-                planningItem.item(),
-                1,
-                process.getFactory(),
-                FactoryStepTypes.Produce);
-
-        steps.add(newStep);
-
-        stepsToDoBefore = new ArrayList<>();
-        stepsToDoBefore.add(newStep);
-        newStep = new FactoryStep(this.factoryConglomerate, stepsToDoBefore,
-                planningItem.item(),
-                1,
-                process.getFactory(),
-                FactoryStepTypes.MoveProductToOutputBuffer);
-
-        steps.add(newStep);
-
-
-        stepsToDoBefore = new ArrayList<>();
-        stepsToDoBefore.add(newStep);
-        newStep = new FactoryStep(this.factoryConglomerate, stepsToDoBefore,
-                planningItem.item(),
-                planningItem.amount(),
-                process.getFactory(),
-                FactoryStepTypes.MoveProductFromOutputBufferToWarehouse);
-
-        steps.add(newStep);
-
-        return steps;
+        nrOfBoundCutSolutions.increment();
+        return true;
     }
 
     /**
-     * Returns a list of planning items which are needed to fulfill the orders in the subOrder list
-     * This algorithm could be improved heavily, but time constraints and the reason that this code runs only once per test
-     * was the reason we did not improve the code.
-     * @param subOrderList order list for the planning items
-     * @return list of planning items needed
+     * Checks if the subtree can be skipped by the partial order reduction, because the planning item is independent
+     * of the planning item before and has a smaller id (see {@link PlanningItemIndependence#isCanonicalOrder}).
+     * Counts the skipped subtrees.
+     * @param planningItemOrder planning items which are planned before the planning item (in this order)
+     * @param planningItem planning item to plan next
+     * @return true if the subtree can be skipped
      */
-    private List<PlanningItem> getAllNeededFactoryPlanningItemsForOrder(List<Order> subOrderList)
+    boolean isCutByPartialOrderReduction(List<PlanningItem> planningItemOrder, PlanningItem planningItem)
     {
-        var productionPlanningItems = createProcessList(subOrderList);
-        setProcessDepthForPlanningItems(productionPlanningItems);
-        removeDoubleEntriesFromPlaningItemList(productionPlanningItems);
-        getProcessesForEveryBatchAndOrderAfterDepth(subOrderList, productionPlanningItems);
-        var acquiringMaterialPositions = addAcquiringPlaningItemsForEveryBatch(productionPlanningItems);
-        acquiringMaterialPositions.addAll(addAcquiringPlaningItemsForDirectDelivery(subOrderList));
-        var deliverMaterialPositions = addDeliveryPlanningItems(subOrderList);
-
-        var planningItems = new ArrayList<PlanningItem>();
-
-        if(this.condenseMaterialSupplies)
-        {
-            acquiringMaterialPositions = this.condenseMaterialList(acquiringMaterialPositions);
-        }
-
-        var idCount = 1;
-
-        for(var item : acquiringMaterialPositions)
-            planningItems.add(new PlanningItem(idCount++, item.item(), item.amount(), PlanningType.Acquire));
+        if(isCanonicalOrder(planningItemOrder, planningItem))
+            return false;
 
-        var sortedFlatProductionProcessList = new ArrayList<>(this.getFlatProductionProcessList(productionPlanningItems));
-        sortedFlatProductionProcessList.sort(Comparator.comparingInt(value -> value.getProcessDepth()));
-        for (var item : sortedFlatProductionProcessList)
-            planningItems.add(new PlanningItem(idCount++, item.getProcess().getProductToProduce(),
-                    1,
-                    PlanningType.Produce));
-
-        for(var item : deliverMaterialPositions)
-            planningItems.add(new PlanningItem(idCount++, item.item(), item.amount(), PlanningType.Deliver));
-
-        return planningItems;
+        nrOfPartialOrderCutSolutions.increment();
+        return true;
     }
 
     /**
-     * Returns production planning items for the orders without products which can be supplied
-     * @param orderList
-     * @return list of production planning items
+     * @param planningItemOrder planning items which are planned before the planning item (in this order)
+     * @param planningItem planning item to plan next
+     * @return true if the planning item is planned next, always true without the partial order reduction
      */
-    private ArrayList<ProductionPlanningItem> createProcessList(List<Order> orderList)
-    {
-        var productionItems = new ArrayList<ProductionPlanningItem>();
-        for (var production : this.factoryConglomerate.getFactories())
-        {
-            productionItems.add(new ProductionPlanningItem(production));
-        }
-
-        var orderCount = 1;
-        for (var order : orderList)
-        {
-            var processes = this.factoryConglomerate.getProductionProcessesForProduct(
-                    order.getWarehousePosition().item());
-
-            var filteredProcesses = new ArrayList<ProductionProcess>();
-            for(var process : processes)
-            {
-                if(this.factoryConglomerate.checkIfItemHasASupplier(process.getProductToProduce()))
-                    continue;
-                filteredProcesses.add(process);
-            }
-
-            for (var process : filteredProcesses)
-            {
-                var planningItem = getProductionPlanningItemForProcess(process, productionItems);
-                planningItem.getProcessPlanningItems()
-                        .add(new ProcessPlaningItem(process, orderCount));
-            }
-            orderCount++;
-        }
-
-        return productionItems;
-    }
-
-    private ProductionPlanningItem getProductionPlanningItemForProcess(ProductionProcess process, List<ProductionPlanningItem> planningItems)
-    {
-        for (var item : planningItems)
-        {
-            var prodItem = item.getProduction().getProductionProcessForProduct((Product)
-                    process.getProductToProduce());
-            if(prodItem != null)
-                return item;
-        }
-
-        return null;
-    }
-
-    private void setProcessDepthForPlanningItems(List<ProductionPlanningItem> planningItems)
+    private boolean isCanonicalOrder(List<PlanningItem> planningItemOrder, PlanningItem planningItem)
     {
-        for(var planingItem : this.getFlatProductionProcessList(planningItems))
-        {
-            var depth = this.getProcessDepthRecursive(planingItem.getProcess().getProductToProduce());
-            planingItem.setProcessDepth(depth);
-        }
-
-    }
-
-    private int getProcessDepthRecursive(WarehouseItem item)
-    {
-        if(this.factoryConglomerate.checkIfItemHasASupplier(item))
-            return 0;
-
-        var process = this.factoryConglomerate.getProductionProcessForProduct((Product) item);
-        for (var position : process.getMaterialPositions())
-        {
-            return getProcessDepthRecursive(position.item()) + 1;
-        }
-        return 0;
+        if(this.planningItemIndependence == null || planningItemOrder.isEmpty())
+            return true;
+        return this.planningItemIndependence.isCanonicalOrder(planningItemOrder.get(planningItemOrder.size() - 1), planningItem);
     }
 
     /**
-     * Returns every process batch and orders it after the depth
-     * @param orderList order list to do
-     * @param planningItems list of the planning items which should be processed
+     * Checks if the subtree can be skipped, because the transposition table contains a subtree with the same state
+     * which was completed at the same or an earlier time step. Only subtrees with at least
+     * {@link #MIN_PLANNING_ITEMS_FOR_TRANSPOSITION_CHECK} planning items are checked. The steps before the subtree
+     * are simulated from the start, the simulation is counted in the nr of simulations.
+     * @param context planning context after the planning items before the subtree
+     * @param stepsToDo steps of the planning items before the subtree
+     * @param remainingPlanningItems planning items of the subtree
+     * @return true if the subtree can be skipped
      */
-    private void getProcessesForEveryBatchAndOrderAfterDepth(List<Order> orderList, List<ProductionPlanningItem> planningItems)
-    {
-        var flatProcessList = getFlatProductionProcessList(planningItems);
-        flatProcessList.sort(Comparator.comparingInt(ProcessPlaningItem::getProcessDepth));
-
-        var newProcessPlaningItemList = new ArrayList<ProcessPlaningItem>();
-
-        for(int i = flatProcessList.size() - 1; i >= 0; i--)
-        {
-            var planningItem = flatProcessList.get(i);
-            var amountToProduce = 0;
-
-            var parentPlanningItems = getParentProcessesPlanningItemFromProduct(planningItem
-                            .getProcess()
-                            .getProductToProduce(),
-                    newProcessPlaningItemList);
-
-            var orderMap = new HashMap<Integer, Integer>();
-
-            for (var parentItem : parentPlanningItems)
-            {
-                var amountForParentItem = parentItem.getProcess().getAmountFromMaterialPositions(
-                        planningItem.getProcess().getProductToProduce());
-                amountToProduce += amountForParentItem;
-                orderMap.put(parentItem.getOrderNr(), amountToProduce);
-            }
-
-            for(var order : orderList)
-            {
-                if(planningItem.getProcess().getProductToProduce().equals(order.getWarehousePosition().item()))
-                {
-                    amountToProduce += order.getWarehousePosition().amount();
-                    orderMap.put(order.getOrderNr(), order.getWarehousePosition().amount());
-                }
-            }
-
-            var nrOfBatches = (int)Math.ceil((double) amountToProduce / (double) planningItem.getProcess().getProductionBatchSize());
-
-            var batchCount = 0;
-            for(var orderKey : orderMap.keySet())
-            {
-                var orderAmount = orderMap.get(orderKey);
-                var amountFromBatch = 0;
-                while (orderAmount > amountFromBatch )
-                {
-                    if(batchCount == nrOfBatches)
-                        break;
-
-                    var batchSize = planningItem.getProcess().getProductionBatchSize();
-                    var newPlaningItem = new ProcessPlaningItem(planningItem.getProcess(), orderKey);
-                    newPlaningItem.setProcessDepth(planningItem.getProcessDepth());
-                    newProcessPlaningItemList.add(newPlaningItem);
-                    amountFromBatch += batchSize;
-                    batchCount++;
-                }
-            }
-        }
-
-        //merge new planing list to old one
-        for(var production : planningItems)
-        {
-            production.getProcessPlanningItems().clear();
-            for(var newProcessItem : newProcessPlaningItemList)
-            {
-                if(newProcessItem.getProcess().getFactory().equals(production.getProduction()))
-                    production.getProcessPlanningItems().add(newProcessItem);
-            }
-        }
-    }
-
-    private List<ProcessPlaningItem> getParentProcessesPlanningItemFromProduct(WarehouseItem warehouseItem, List<ProcessPlaningItem> flatList)
+    boolean isCutByTranspositionTable(PlanningContext context,
+                                      List<FactoryStep> stepsToDo,
+                                      List<PlanningItem> remainingPlanningItems)
     {
-        var parentProcesses = new ArrayList<ProcessPlaningItem>();
-        for (var planningItem : flatList)
-        {
-            var bom = planningItem.getProcess().getMaterialPositions();
-            for(var item : bom)
-            {
-                if(item.item().equals(warehouseItem))
-                    parentProcesses.add(planningItem);
-            }
-        }
+        if(this.transpositionTable == null || remainingPlanningItems.size() < MIN_PLANNING_ITEMS_FOR_TRANSPOSITION_CHECK)
+            return false;
 
-        return parentProcesses;
-    }
+        nrOfSimulations.increment();
+        var simulationState = this.factoryConglomerate.createSimulationState(this.orderList);
+        this.factoryConglomerate.startSimulation(simulationState, stepsToDo, false, bestTimeSolution.get());
+        if(simulationState.getNrOfRemainingSteps() != 0)
+            return false;
 
-    /**
-     * Returns a list flat list from all production processes.
-     * @return list with process planning items
-     */
-    private List<ProcessPlaningItem> getFlatProductionProcessList(List<ProductionPlanningItem> planningItems)
-    {
-        var result = new ArrayList<ProcessPlaningItem>();
-
-        for (var production : planningItems)
-        {
-            for (var process : production.getProcessPlanningItems())
-            {
-                result.add(process);
-            }
-        }
-        return result;
+        var key = TranspositionTable.createKey(simulationState, context, remainingPlanningItems);
+        return this.transpositionTable.checkAndStore(key, simulationState.getCurrentTimeStep());
     }
 
     /**
-     * Remove double entries for the planning production list
-     * @param productionPlanningItems
+     * Simulates the steps of a partial solution until the max run time. Every simulation uses its own simulation
+     * state, so the method can be called from several threads.
+     * @param stepsToDo steps of the planned planning items
+     * @return the state after the simulation
      */
-    private void removeDoubleEntriesFromPlaningItemList(List<ProductionPlanningItem> productionPlanningItems)
+    SimulationState simulatePartialSolution(List<FactoryStep> stepsToDo)
     {
-        for(var production : productionPlanningItems)
-        {
-            var hashSet = new HashSet<>(production.getProcessPlanningItems());
-            production.getProcessPlanningItems().clear();
-            production.getProcessPlanningItems().addAll(hashSet);
-            production.getProcessPlanningItems().sort((i1, i2) -> Integer.compare(i1.getOrderNr(), i2.getOrderNr()));
-        }
+        nrOfSimulations.increment();
+        var simulationState = this.factoryConglomerate.createSimulationState(this.orderList);
+        this.factoryConglomerate.startSimulation(simulationState, stepsToDo, false, this.maxRuntime);
+        return simulationState;
     }
 
     /**
-     * Returns a list of material positions which are needed for the production
-     * @param productionPlanningItems production processes for the orders to optimize
-     * @return list of material positions
+     * @param stepsToDo steps of the planned planning items
+     * @param remainingPlanningItems planning items which are not planned yet
+     * @return the lower bound of the solutions after the steps to do, 0 without the lower bound pruning and the beam
+     * search
      */
-    private List<WarehousePosition> addAcquiringPlaningItemsForEveryBatch(List<ProductionPlanningItem> productionPlanningItems)
+    long getLowerBound(List<FactoryStep> stepsToDo, List<PlanningItem> remainingPlanningItems)
     {
-        var materialPositionsToAcquire = new ArrayList<WarehousePosition>();
-        for(var processPlaningItem : getFlatProductionProcessList(productionPlanningItems))
-        {
-            var materialPositions = processPlaningItem.getProcess().getMaterialPositions();
-
-            for(var materialPosition : materialPositions)
-            {
-                if(!this.factoryConglomerate.checkIfItemHasASupplier(materialPosition.item()))
-                    continue;
-
-                materialPositionsToAcquire.add(new WarehousePosition(materialPosition.item(), materialPosition.amount()));
-            }
-        }
-
-        return materialPositionsToAcquire;
+        if(this.lowerBoundEstimator == null)
+            return 0;
+        return this.lowerBoundEstimator.getLowerBound(stepsToDo, remainingPlanningItems);
     }
 
-    /**
-     * Returns a condensed material position list
-     * @param materialList not condensed material position list
-     * @return condensed material position list
-     */
-    private List<WarehousePosition> condenseMaterialList(List<WarehousePosition> materialList)
+    static int comparePlanningItemOrders(List<PlanningItem> first, List<PlanningItem> second)
     {
-        var newMaterialList = new ArrayList<WarehousePosition>();
-
-        for (var item: materialList)
+        for(int i = 0; i < Math.min(first.size(), second.size()); i++)
         {
-            var position = findMaterialPositionByName(item.item().getName(), newMaterialList);
-            if(position == null)
-            {
-                var newPosition = new WarehousePosition(item.item(), item.amount());
-                newMaterialList.add(newPosition);
-                continue;
-            }
-
-            var newPosition = new WarehousePosition(item.item(), position.amount() + item.amount());
-            newMaterialList.remove(position);
-            newMaterialList.add(newPosition);
+            var compare = Integer.compare(first.get(i).id(), second.get(i).id());
+            if(compare != 0)
+                return compare;
         }
-
-        return newMaterialList;
+        return Integer.compare(first.size(), second.size());
     }
 
     /**
-     * Finds the material from the material list by name
-     * @param name name to search
-     * @param materialList material list to search
-     * @return material position
+     * @return true if the max system run time of the calculation is reached or the calculation stops at the first
+     * improvement and a better solution was found. The asynchronous optimization uses the run time of the handle and
+     * stops if the handle was cancelled.
      */
-    private WarehousePosition findMaterialPositionByName(String name, List<WarehousePosition> materialList)
+    boolean isMaxSystemRunTimeReached()
     {
-        for (var position : materialList)
-        {
-            if(position.item().getName().equals(name))
-                return position;
-        }
-
-        return null;
+        if(stopAtFirstImprovement && timeToFirstImprovement >= 0)
+            return true;
+        if(optimizationHandle != null)
+            return optimizationHandle.isStopRequested();
+        return maxSystemRunTime != 0 && System.nanoTime() > (maxSystemRunTime + startTime);
     }
 
     /**
-     * Returns a list of material position which are delivered directly to the customer
-     * @param orderList orders to check for direct delivery
-     * @return a list of material positions
+     * Counts a combination which was cut, because the planning item was not possible
      */
-    private List<WarehousePosition> addAcquiringPlaningItemsForDirectDelivery(List<Order> orderList)
+    void increaseNrOfCutSolutions()
     {
-        var materialPositionsToAcquire = new ArrayList<WarehousePosition>();
-        for(var order : orderList)
-        {
-            if(this.factoryConglomerate.checkIfItemHasASupplier(order.getWarehousePosition().item()))
-                materialPositionsToAcquire.add(new WarehousePosition(order.getWarehousePosition().item(), order.getWarehousePosition().amount()));
-        }
-        return materialPositionsToAcquire;
+        nrOfCutSolutions.increment();
     }
 
     /**
-     * Returns a list of material positions to deliver to the customer
-     * @param subOrderList orders to check
-     * @return list of material positions
+     * @return the factory conglomerate of the optimization
      */
-    private List<WarehousePosition> addDeliveryPlanningItems(List<Order> subOrderList)
+    FactoryConglomerate getFactoryConglomerate()
     {
-        var deliveryItems = new ArrayList<WarehousePosition>();
-        for (var order : subOrderList)
-        {
-            deliveryItems.add(new WarehousePosition(order,
-                    order.getWarehousePosition().amount()));
-        }
-        return deliveryItems;
+        return this.factoryConglomerate;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,245 @@
+package logistikoptimierung.Services.EnumeratedCalculation;
+
+import logistikoptimierung.Entities.FactoryObjects.*;
+import logistikoptimierung.Entities.WarehouseItems.*;
+
+import java.util.*;
+
+/**
+ * Estimates a lower bound for the result (last time step) of every solution which continues a partial solution of the
+ * enumerated calculation. The estimation never exceeds the result of the simulation, so a subtree with a lower bound
+ * at or above the best result can be cut without losing a better solution.
+ * The estimation uses the following bounds:
+ * - Critical path: an order is delivered after the product is available (travel time of the materials and production
+ * times of the processes) and the travel time of the order
+ * - Factories: the productions of a factory are performed one after another after the materials are available
+ * - Transporters: the planned tours of a transporter are performed one after another
+ * - Drivers: every tour needs a driver, the planned tours and at least one tour for every remaining planning item are
+ * shared by the drivers
+ * Every performed step creates an event one time step after the blocked time, so the result is at least one time step
+ * after the end of every tour and production.
+ */
+public class LowerBoundEstimator
+{
+    private final FactoryConglomerate factoryConglomerate;
+    private final Map<String, Long> earliestAvailableTimeSteps = new HashMap<>();
+    private final long staticLowerBound;
+    private final int maxTransporterCapacity;
+    private final int nrOfParallelTours;
+
+    /**
+     * Creates the estimator for the planning items of the calculation. The bounds which do not depend on the order of
+     * the planning items are calculated once.
+     * @param factoryConglomerate factory conglomerate of the calculation
+     * @param planningItems every planning item of the calculation
+     */
+    public LowerBoundEstimator(FactoryConglomerate factoryConglomerate, List<PlanningItem> planningItems)
+    {
+        this.factoryConglomerate = factoryConglomerate;
+
+        var maxCapacity = 0;
+        for(var transporter : factoryConglomerate.getTransporters())
+            maxCapacity = Math.max(maxCapacity, transporter.getCapacity());
+        this.maxTransporterCapacity = maxCapacity;
+        this.nrOfParallelTours = Math.min(factoryConglomerate.getNrOfDrivers(), factoryConglomerate.getTransporters().size());
+
+        this.staticLowerBound = calculateStaticLowerBound(planningItems);
+    }
+
+    /**
+     * @return the lower bound which is valid for every order of the planning items
+     */
+    public long getStaticLowerBound()
+    {
+        return staticLowerBound;
+    }
+
+    /**
+     * Returns the lower bound for every solution which starts with the steps to do and adds the steps of the remaining
+     * planning items.
+     * @param stepsToDo steps of the planned planning items
+     * @param remainingPlanningItems planning items which are not planned yet
+     * @return the lower bound in seconds
+     */
+    public long getLowerBound(List<FactoryStep> stepsToDo, List<PlanningItem> remainingPlanningItems)
+    {
+        var lowerBound = this.staticLowerBound;
+
+        var toursOfTransporters = new HashMap<FactoryObject, List<long[]>>();
+        long sumOfTourTimes = 0;
+        for(var step : stepsToDo)
+        {
+            long releaseTimeStep;
+            long travelTime;
+            switch (step.getStepType())
+            {
+                case GetMaterialFromSuppliesAndMoveBackToWarehouse -> {
+                    releaseTimeStep = 0;
+                    travelTime = ((Material) step.getItemToManipulate()).getTravelTime();
+                }
+                case ConcludeOrderTransportToCustomer -> {
+                    var order = (Order) step.getItemToManipulate();
+                    releaseTimeStep = getEarliestAvailableTimeStep(order.getWarehousePosition().item());
+                    travelTime = order.getTravelTime();
+                }
+                default -> {
+                    continue;
+                }
+            }
+
+            sumOfTourTimes += travelTime;
+            toursOfTransporters.computeIfAbsent(step.getFactoryObject(), key -> new ArrayList<>())
+                    .add(new long[] { releaseTimeStep, travelTime });
+        }
+
+        for(var tours : toursOfTransporters.values())
+            lowerBound = Math.max(lowerBound, getEndOfSequence(tours) + 1);
+
+        for(var planningItem : remainingPlanningItems)
+            sumOfTourTimes += getMinTourTimeForPlanningItem(planningItem);
+
+        if(this.nrOfParallelTours > 0)
+        {
+            var toursPerDriver = (sumOfTourTimes + this.nrOfParallelTours - 1) / this.nrOfParallelTours;
+            lowerBound = Math.max(lowerBound, toursPerDriver + 1);
+        }
+
+        return lowerBound;
+    }
+
+    private long calculateStaticLowerBound(List<PlanningItem> planningItems)
+    {
+        long lowerBound = 0;
+        var productionsOfFactories = new HashMap<Factory, List<long[]>>();
+        for(var planningItem : planningItems)
+        {
+            switch (planningItem.planningType())
+            {
+                case Produce -> {
+                    var process = this.factoryConglomerate.getProductionProcessForProduct((Product) planningItem.item());
+                    if(process == null)
+                        continue;
+
+                    productionsOfFactories.computeIfAbsent(process.getFactory(), key -> new ArrayList<>())
+                            .add(new long[] { getReleaseTimeStep(process), process.getProductionTime() });
+                }
+                case Deliver -> {
+                    var order = (Order) planningItem.item();
+                    var timeStep = getEarliestAvailableTimeStep(order.getWarehousePosition().item()) + order.getTravelTime();
+                    lowerBound = Math.max(lowerBound, timeStep + 1);
+                }
+            }
+        }
+
+        for(var productions : productionsOfFactories.values())
+            lowerBound = Math.max(lowerBound, getEndOfSequence(productions) + 1);
+
+        return lowerBound;
+    }
+
+    /**
+     * Returns the smallest sum of travel times for the tours of the planning item. Every tour transports at most
+     * the capacity of the biggest transporter.
+     * @param planningItem planning item to check
+     * @return sum of the travel times, 0 for a production
+     */
+    private long getMinTourTimeForPlanningItem(PlanningItem planningItem)
+    {
+        long travelTime;
+        if(planningItem.item() instanceof Material)
+            travelTime = ((Material) planningItem.item()).getTravelTime();
+        else if(planningItem.item() instanceof Order)
+            travelTime = ((Order) planningItem.item()).getTravelTime();
+        else
+            return 0;
+
+        if(this.maxTransporterCapacity <= 0)
+            return travelTime;
+
+        var nrOfTours = Math.max(1, (planningItem.amount() + this.maxTransporterCapacity - 1) / this.maxTransporterCapacity);
+        return nrOfTours * travelTime;
+    }
+
+    /**
+     * Returns the end of the tasks if they are performed one after another. A task can not start before the release
+     * time step. The end is the maximum over every release time step plus the durations of the tasks with the same or
+     * a later release time step.
+     * @param tasks tasks with the release time step (index 0) and the duration (index 1)
+     * @return the earliest end of the tasks
+     */
+    private static long getEndOfSequence(List<long[]> tasks)
+    {
+        tasks.sort((first, second) -> Long.compare(second[0], first[0]));
+
+        long end = 0;
+        long sumOfDurations = 0;
+        for(var task : tasks)
+        {
+            sumOfDurations += task[1];
+            end = Math.max(end, task[0] + sumOfDurations);
+        }
+        return end;
+    }
+
+    /**
+     * @param process production process
+     * @return the earliest time step when every material of the process is available in the warehouse
+     */
+    private long getReleaseTimeStep(ProductionProcess process)
+    {
+        long releaseTimeStep = 0;
+        for(var materialPosition : process.getMaterialPositions())
+            releaseTimeStep = Math.max(releaseTimeStep, getEarliestAvailableTimeStep(materialPosition.item()));
+        return releaseTimeStep;
+    }
+
+    /**
+     * Returns the earliest time step when the item can be in the warehouse. A material is available after the travel
+     * time, a product after the materials are available and the production time. An item in the warehouse at the start
+     * is available at time step 0.
+     * @param item item to check
+     * @return the time step in seconds
+     */
+    private long getEarliestAvailableTimeStep(WarehouseItem item)
+    {
+        var timeStep = this.earliestAvailableTimeSteps.get(item.getName());
+        if(timeStep != null)
+            return timeStep;
+
+        //Prevents endless recursion for cyclic bill of materials
+        this.earliestAvailableTimeSteps.put(item.getName(), 0L);
+        var earliestTimeStep = calculateEarliestAvailableTimeStep(item);
+        this.earliestAvailableTimeSteps.put(item.getName(), earliestTimeStep);
+        return earliestTimeStep;
+    }
+
+    private long calculateEarliestAvailableTimeStep(WarehouseItem item)
+    {
+        for(var warehousePosition : this.factoryConglomerate.getWarehouse().getWarehouseItems())
+        {
+            if(warehousePosition.item().getName().equals(item.getName()))
+                return 0;
+        }
+
+        var earliestTimeStep = Long.MAX_VALUE;
+        if(this.factoryConglomerate.checkIfItemHasASupplier(item))
+        {
+            for(var availableItem : this.factoryConglomerate.getAvailableWarehouseItems())
+            {
+                if(availableItem instanceof Material && availableItem.getName().equals(item.getName()))
+                    earliestTimeStep = Math.min(earliestTimeStep, ((Material) availableItem).getTravelTime());
+            }
+        }
+
+        if(item instanceof Product)
+        {
+            var process = this.factoryConglomerate.getProductionProcessForProduct((Product) item);
+            if(process != null)
+                earliestTimeStep = Math.min(earliestTimeStep, getReleaseTimeStep(process) + process.getProductionTime());
+        }
+
+        if(earliestTimeStep == Long.MAX_VALUE)
+            return 0;
+        return earliestTimeStep;
+    }
+}
@@ -0,0 +1,53 @@
+package logistikoptimierung.Services.EnumeratedCalculation;
+
+import logistikoptimierung.Entities.FactoryObjects.FactoryStep;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork join task for the parallel enumerated calculation. A task calculates the subtree of the remaining planning items
+ * after the given planning item order like the sequential calculation (see
+ * {@link EnumeratedCalculationMain#forkPlanningSolutionRecursive}). The planning context of the subtree is not changed
+ * by the task and the simulations of the task use their own simulation state of the shared factory conglomerate.
+ */
+class ParallelPlanningTask extends RecursiveAction
+{
+    private static final long serialVersionUID = 1L;
+
+    private final EnumeratedCalculationMain calculation;
+    private final PlanningContext context;
+    private final List<FactoryStep> stepsToDo;
+    private final List<PlanningItem> remainingPlanningItems;
+    private final List<PlanningItem> planningItemOrder;
+
+    /**
+     * Creates a task for the subtree after the planning item order
+     * @param calculation calculation which shares the best solution
+     * @param context planning context at the start of the subtree
+     * @param stepsToDo steps of the planning items before the subtree
+     * @param remainingPlanningItems planning items of the subtree
+     * @param planningItemOrder planning items which are planned before the subtree (in this order)
+     */
+    ParallelPlanningTask(EnumeratedCalculationMain calculation,
+                         PlanningContext context,
+                         List<FactoryStep> stepsToDo,
+                         List<PlanningItem> remainingPlanningItems,
+                         List<PlanningItem> planningItemOrder)
+    {
+        this.calculation = calculation;
+        this.context = context;
+        this.stepsToDo = stepsToDo;
+        this.remainingPlanningItems = remainingPlanningItems;
+        this.planningItemOrder = planningItemOrder;
+    }
+
+    @Override
+    protected void compute()
+    {
+        if(calculation.isMaxSystemRunTimeReached())
+            return;
+
+        calculation.getPlanningSolutionRecursive(context, stepsToDo, remainingPlanningItems, planningItemOrder);
+    }
+}
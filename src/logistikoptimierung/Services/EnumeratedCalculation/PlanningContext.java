@@ -0,0 +1,739 @@
+package logistikoptimierung.Services.EnumeratedCalculation;
+
+import logistikoptimierung.Entities.FactoryObjects.*;
+import logistikoptimierung.Entities.WarehouseItems.*;
+
+import java.util.*;
+
+/**
+ * Creates the planning context for the enumerated calculation. The context stores the transporters and drivers which
+ * are available for the planning and the driver pool, and creates the factory steps for the planning items.
+ * Interchangeable transporters and drivers are always taken in the same order: of a transporter class the first
+ * free transporter and of the drivers with the same blocked time the one with the lowest index.
+ * Every subtree of the parallel calculation gets its own context (see {@link #copy()}), so different contexts can be
+ * used on different threads at the same time. The context does not change the factory conglomerate.
+ */
+public class PlanningContext
+{
+    private final FactoryConglomerate factoryConglomerate;
+    private final List<Transporter> sortedAvailableTransportList;
+    private final List<DriverPlanningItem> availableDrivers;
+    private final List<DriverPoolItem> driverPoolItems;
+
+    /**
+     * Creates the planning context for the enumerated calculation. Every transporter of the factory conglomerate is
+     * available and sorted by the capacity. Every driver of the factory conglomerate is available.
+     * @param factoryConglomerate factory conglomerate for which the steps are planned and simulated
+     */
+    public PlanningContext(FactoryConglomerate factoryConglomerate)
+    {
+        this.factoryConglomerate = factoryConglomerate;
+
+        this.sortedAvailableTransportList = new ArrayList<>(this.factoryConglomerate.getTransporterCompatibility().getTransportersSortedByCapacity());
+        this.driverPoolItems = new ArrayList<>(this.factoryConglomerate.getNrOfDrivers());
+
+        this.availableDrivers = new ArrayList<>();
+        for(var driver : this.factoryConglomerate.getDrivers())
+            this.availableDrivers.add(new DriverPlanningItem(driver));
+    }
+
+    private PlanningContext(PlanningContext context)
+    {
+        this.factoryConglomerate = context.factoryConglomerate;
+        this.sortedAvailableTransportList = new ArrayList<>(context.sortedAvailableTransportList);
+        this.availableDrivers = new ArrayList<>(context.availableDrivers.size());
+        this.driverPoolItems = new ArrayList<>(context.driverPoolItems.size());
+
+        //The drivers store the planned blocked time => every driver needs to be copied
+        var copiedDrivers = new IdentityHashMap<DriverPlanningItem, DriverPlanningItem>();
+        for(var driver : context.availableDrivers)
+            this.availableDrivers.add(copyDriver(driver, copiedDrivers));
+
+        for(var poolItem : context.driverPoolItems)
+            this.driverPoolItems.add(new DriverPoolItem(copyDriver(poolItem.driver(), copiedDrivers), poolItem.transporter()));
+    }
+
+    private static DriverPlanningItem copyDriver(DriverPlanningItem driver, Map<DriverPlanningItem, DriverPlanningItem> copiedDrivers)
+    {
+        return copiedDrivers.computeIfAbsent(driver, DriverPlanningItem::copy);
+    }
+
+    /**
+     * Creates a copy of the context with a copy of the available transporters, drivers and the driver pool.
+     * Changes in the copy do not change this context.
+     * @return the copy of the context
+     */
+    public PlanningContext copy()
+    {
+        return new PlanningContext(this);
+    }
+
+    /**
+     * Returns the equivalence classes of the transporters which are not available, because they are in the driver pool
+     * or were taken for a planning item. Every context has the same transporters, so the unavailable transporters
+     * determine the available ones and the list stays short. Interchangeable transporters have the same class (see
+     * {@link TransporterCompatibility#getEquivalenceClass(Transporter)}), so two contexts which differ only by swapped
+     * transporters of the same class return the same list. The drivers and the driver pool are not part of the list
+     * (see {@link #getAvailableDriverBlockedTimes()} and {@link #getDriverPoolItems()}).
+     * @return the sorted equivalence classes of the transporters which are not available
+     */
+    List<Integer> getUnavailableTransporterClasses()
+    {
+        var transporterCompatibility = this.factoryConglomerate.getTransporterCompatibility();
+        var transporters = transporterCompatibility.getTransportersSortedByCapacity();
+        var available = new boolean[transporters.size()];
+        for(var transporter : this.sortedAvailableTransportList)
+        {
+            var position = transporterCompatibility.getPosition(transporter);
+            if(position >= 0)
+                available[position] = true;
+        }
+
+        var transporterClasses = new ArrayList<Integer>();
+        for(int position = 0; position < transporters.size(); position++)
+        {
+            if(!available[position])
+                transporterClasses.add(transporterCompatibility.getEquivalenceClass(transporters.get(position)));
+        }
+        Collections.sort(transporterClasses);
+        return transporterClasses;
+    }
+
+    /**
+     * Returns the planned blocked times of the available drivers in the order of the available drivers. The order is
+     * part of the state, the next driver is chosen with the blocked time of the first available driver (see
+     * {@link #removeCanonicalDriver()}). Drivers with the same blocked time are interchangeable, so the drivers
+     * themselves are not part of the list.
+     * @return the blocked times of the available drivers
+     */
+    List<Long> getAvailableDriverBlockedTimes()
+    {
+        var blockedTimes = new ArrayList<Long>(this.availableDrivers.size());
+        for(var driver : this.availableDrivers)
+            blockedTimes.add(driver.getBlockedTime());
+        return blockedTimes;
+    }
+
+    /**
+     * @return the driver pool in its order, the first pool item is freed first if no driver is available
+     */
+    List<DriverPoolItem> getDriverPoolItems()
+    {
+        return Collections.unmodifiableList(this.driverPoolItems);
+    }
+
+    /**
+     * @return the factory conglomerate of the context
+     */
+    public FactoryConglomerate getFactoryConglomerate() {
+        return factoryConglomerate;
+    }
+
+    /**
+     * Returns the factory steps for the planning item
+     * @param stepsToDo steps which are getting performed before this planning item
+     * @param planningItem planning item for the factory steps
+     * @return factory steps for the planning item, returns an empty list if the planning item is not possible
+     * with the steps to do before
+     */
+    public ArrayList<FactoryStep> getStepsForPlanningItem(List<FactoryStep> stepsToDo, PlanningItem planningItem)
+    {
+        return switch (planningItem.planningType())
+        {
+            case Acquire -> getAcquireTransportSteps(planningItem);
+            case Produce -> getProductionSteps(stepsToDo, planningItem);
+            case Deliver -> getDeliverTransporters(stepsToDo, planningItem);
+        };
+    }
+
+    /**
+     * Add the transporter to the sorted transportation list and keeps the order
+     * @param transporterToAdd transporter to add
+     */
+    private void addTransporterToSortedTransportList(Transporter transporterToAdd)
+    {
+        var indexToAdd = 0;
+        for(var transporter : this.sortedAvailableTransportList)
+        {
+            if(transporter.getCapacity() <= transporterToAdd.getCapacity())
+                continue;
+
+            indexToAdd = this.sortedAvailableTransportList.indexOf(transporter);
+            break;
+        }
+
+        this.sortedAvailableTransportList.add(indexToAdd, transporterToAdd);
+    }
+
+    /**
+     * Returns a list of factory steps for a planning item with the deliver property. The method checks if the material
+     * was produced in the needed amount before. If not an empty list is returned.
+     * @param stepsToDo steps which are getting performed before this planning item
+     * @param planningItem planning item for the factory steps
+     * @return factory steps for the planning item, returns an empty list if no product to deliver is available in the warehouse
+     */
+    private ArrayList<FactoryStep> getDeliverTransporters(List<FactoryStep> stepsToDo, PlanningItem planningItem)
+    {
+        var steps = new ArrayList<FactoryStep>();
+        var amount = planningItem.amount();
+
+        //Check if product is actually in the warehouse
+        var amountOfProductInWarehouse = 0;
+        var order = (Order)planningItem.item();
+
+        var stepsToDoBefore = new ArrayList<FactoryStep>();
+
+        for(var step : stepsToDo)
+        {
+            if(step.getStepType().equals(FactoryStepTypes.Produce))
+            {
+                //Check if item to deliver was produced
+                if(step.getItemToManipulate()
+                        .equals(order.getWarehousePosition().item()))
+                {
+                    var production = (Factory)step.getFactoryObject();
+                    var process = production.getProductionProcessForProduct((Product) order.getWarehousePosition().item());
+                    if(process == null)
+                        continue;
+
+                    amountOfProductInWarehouse += process.getProductionBatchSize();
+                    stepsToDoBefore.add(step);
+                    continue;
+                }
+
+                var production = (Factory) step.getFactoryObject();
+                var process = production.getProductionProcessForProduct((Product) step.getItemToManipulate());
+
+                //Check if any other production process was using the item
+                for(var materialPosition : process.getMaterialPositions())
+                {
+                    if(step.getItemToManipulate().getName().equals(materialPosition.item().getName()))
+                    {
+                        amountOfProductInWarehouse -= materialPosition.amount();
+                        stepsToDoBefore.add(step);
+                    }
+                }
+            }
+
+            if(step.getStepType().equals(FactoryStepTypes.GetMaterialFromSuppliesAndMoveBackToWarehouse))
+            {
+                if(step.getItemToManipulate().getName()
+                        .equals(order.getWarehousePosition().item().getName()))
+                {
+                    amountOfProductInWarehouse += step.getAmountOfItems();
+                    stepsToDoBefore.add(step);
+                }
+            }
+
+            if(step.getStepType().equals(FactoryStepTypes.ConcludeOrderTransportToCustomer))
+            {
+                var oldOrder = (Order)step.getItemToManipulate();
+                if(oldOrder.getWarehousePosition().item().getName().equals(order.getWarehousePosition().item().getName()))
+                {
+                    amountOfProductInWarehouse -= step.getAmountOfItems();
+                    stepsToDoBefore.add(step);
+                }
+            }
+        }
+
+        if(amountOfProductInWarehouse < order.getWarehousePosition().amount())
+        {
+            //System.out.println("Abort solution: Not enough products in the Warehouse to deliver");
+            return steps;
+        }
+
+        //The last transporter needs to close the order
+        Transporter lastTransport = null;
+        var lastAmountToTransport = 0;
+        while (amount > 0)
+        {
+            //Driver list is empty take release first driver from pool
+            if(this.availableDrivers.isEmpty())
+            {
+                var poolItem = this.driverPoolItems.remove(0);
+                this.availableDrivers.add(poolItem.driver());
+                addTransporterToSortedTransportList(poolItem.transporter());
+            }
+
+            var bestTransporter = findBestTransporterForTheAmount(planningItem.item(), amount);
+
+            if(bestTransporter == null)
+                throw new RuntimeException("Should not happen ");
+
+            var amountToTransport = 0;
+            if(amount < bestTransporter.getCapacity())
+                amountToTransport = amount;
+            else
+                amountToTransport = bestTransporter.getCapacity();
+
+            var newStep = new FactoryStep(this.factoryConglomerate, stepsToDoBefore,
+                    planningItem.item(),
+                    amountToTransport,
+                    bestTransporter,
+                    FactoryStepTypes.ConcludeOrderTransportToCustomer);
+
+            steps.add(newStep);
+
+            var newDriver = removeCanonicalDriver();
+            this.sortedAvailableTransportList.remove(bestTransporter);
+
+            var driveTime = 0;
+            if(planningItem.item() instanceof Order)
+                driveTime = ((Order) planningItem.item()).getTravelTime();
+
+            newDriver.increaseBlockedTime(driveTime);
+
+            var newPoolItem = new DriverPoolItem(newDriver, bestTransporter);
+            driverPoolItems.add(newPoolItem);
+            amount -= bestTransporter.getCapacity();
+
+            lastTransport  = bestTransporter;
+            lastAmountToTransport = amountToTransport;
+        }
+
+        var newStep = new FactoryStep(this.factoryConglomerate, stepsToDoBefore,
+                planningItem.item(),
+                lastAmountToTransport,
+                lastTransport,
+                FactoryStepTypes.ClosesOrderFromCustomer);
+
+        steps.add(newStep);
+
+        return steps;
+    }
+
+    /**
+     * Returns a list of factory steps for a planning item with the acquire property.
+     * @param planningItem planning item for the factory steps
+     * @return factory steps for the planning item
+     */
+    private ArrayList<FactoryStep> getAcquireTransportSteps(PlanningItem planningItem)
+    {
+        var steps = new ArrayList<FactoryStep>();
+        var amount = planningItem.amount();
+
+        //Removed this cutting plane. Possibility to remove a solution with a high runtime
+        //if(checkIfWarehouseIsFull(stepToDo, amount))
+        //    return steps;
+
+        while (amount > 0)
+        {
+            //Driver list is empty take release first driver from pool
+            if(this.availableDrivers.isEmpty())
+            {
+                var poolItem = this.driverPoolItems.remove(0);
+                this.availableDrivers.add(poolItem.driver());
+                addTransporterToSortedTransportList(poolItem.transporter());
+            }
+
+            var bestTransporter = findBestTransporterForTheAmount(planningItem.item(), amount);
+
+            if(bestTransporter == null)
+                throw new RuntimeException("Bug! no fitting Transporter ");
+
+            var amountToTransport = 0;
+            if(amount < bestTransporter.getCapacity())
+                amountToTransport = amount;
+            else
+                amountToTransport = bestTransporter.getCapacity();
+
+            var newStep = new FactoryStep(this.factoryConglomerate, 0,
+                    planningItem.item(),
+                    amountToTransport,
+                    bestTransporter,
+                    FactoryStepTypes.GetMaterialFromSuppliesAndMoveBackToWarehouse);
+
+            steps.add(newStep);
+
+            newStep = new FactoryStep(this.factoryConglomerate, 0,
+                    planningItem.item(),
+                    amountToTransport,
+                    bestTransporter,
+                    FactoryStepTypes.MoveMaterialFromTransporterToWarehouse);
+
+            steps.add(newStep);
+
+
+
+            var newDriver = removeCanonicalDriver();
+            this.sortedAvailableTransportList.remove(bestTransporter);
+
+            var driveTime = 0;
+            if (planningItem.item() instanceof Material)
+                driveTime = ((Material) planningItem.item()).getTravelTime();
+
+            newDriver.increaseBlockedTime(driveTime);
+            var newPoolItem = new DriverPoolItem(newDriver, bestTransporter);
+
+            driverPoolItems.add(newPoolItem);
+            amount -= bestTransporter.getCapacity();
+
+        }
+
+        return steps;
+    }
+
+    private boolean checkIfWarehouseIsFull(List<FactoryStep> stepsToDo, int amountToAdd)
+    {
+        var warehouseCapacity = this.factoryConglomerate.getWarehouse().getWarehouseCapacity();
+        warehouseCapacity -= amountToAdd;
+        for(var step : stepsToDo)
+        {
+            if(step.getStepType().equals(FactoryStepTypes.MoveMaterialFromTransporterToWarehouse))
+            {
+                //reduce
+                warehouseCapacity -= step.getAmountOfItems();
+            }
+
+            if(step.getStepType().equals(FactoryStepTypes.MoveMaterialsForProductFromWarehouseToInputBuffer))
+            {
+                //add
+                var process = this.factoryConglomerate.getProductionProcessForProduct((Product) step.getItemToManipulate());
+                warehouseCapacity += process.getProductionBatchSize();
+            }
+
+            if(step.getStepType().equals(FactoryStepTypes.MoveProductFromOutputBufferToWarehouse))
+            {
+                //reduce
+                var process = this.factoryConglomerate.getProductionProcessForProduct((Product) step.getItemToManipulate());
+                warehouseCapacity -= process.getProductionBatchSize();
+            }
+
+            if(step.getStepType().equals(FactoryStepTypes.ConcludeOrderTransportToCustomer))
+            {
+                //add
+                warehouseCapacity = warehouseCapacity + step.getAmountOfItems();
+
+            }
+
+            if(warehouseCapacity < 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the best transporter from the available transporters. If none is available it returns one
+     * of the driver pool.
+     * @param item item for the transportation constraints
+     * @param amount amount of the item
+     * @return transporter, null if none was found
+     */
+    private Transporter findBestTransporterForTheAmount(WarehouseItem item, int amount)
+    {
+        var bestTransporter = this.getTransporterWithSmallestDifferenceFromAmountAndHigherCapacity(
+                this.sortedAvailableTransportList,
+                item,
+                amount);
+
+        //No Transporter found, need to reuse already used transporter
+        if(bestTransporter == null)
+        {
+            var bestDriverPoolItem = getCanonicalDriverPoolItem(getDriverPoolItemWithDriverWhoIsEarliestBack(item));
+            bestTransporter = bestDriverPoolItem.transporter();
+
+            //Release driver from this transporter
+            this.driverPoolItems.remove(bestDriverPoolItem);
+            this.availableDrivers.add(bestDriverPoolItem.driver());
+            addTransporterToSortedTransportList(bestDriverPoolItem.transporter());
+        }
+
+        return bestTransporter;
+    }
+
+    /**
+     * Returns the transporter with the smallest difference of the amount needed. The transporter is equal or higher than the amount needed.
+     * If no transporter fits the needed amount. The transporter with the highest capacity gets returned
+     * @param availableTransportersSortedByCapacity sorted list of available transporters
+     * @param item item to transport
+     * @param amount amount of the item
+     * @return a fitting transporter. If none is found the method returns null.
+     */
+    private Transporter getTransporterWithSmallestDifferenceFromAmountAndHigherCapacity(List<Transporter> availableTransportersSortedByCapacity,
+                                                                                        WarehouseItem item, int amount)
+    {
+        Transporter fittingTransporterWithHighestCapacity = null;
+        var transporterCompatibility = this.factoryConglomerate.getTransporterCompatibility();
+        var fittingTransporters = transporterCompatibility.getFittingTransporters(item);
+        for(var transporter : availableTransportersSortedByCapacity)
+        {
+            if(!transporterCompatibility.isFitting(transporter, fittingTransporters))
+                continue;
+
+            if(transporter.getCapacity() >= amount)
+                return getCanonicalTransporter(transporter);
+
+            if(fittingTransporterWithHighestCapacity == null ||
+                    fittingTransporterWithHighestCapacity.getCapacity() < transporter.getCapacity())
+                fittingTransporterWithHighestCapacity = transporter;
+        }
+
+        if(fittingTransporterWithHighestCapacity != null)
+            return getCanonicalTransporter(fittingTransporterWithHighestCapacity);
+
+        return null;
+    }
+
+    /**
+     * Returns the available transporter of the equivalence class of the transporter with the lowest position (see
+     * {@link TransporterCompatibility#getEquivalenceClass(Transporter)}). Transporters of the same class are
+     * interchangeable, so the planning always takes the first free transporter of a class. Two orders of the planning
+     * items which free and take the same classes plan the same transporters.
+     * @param transporter chosen available transporter
+     * @return the first available transporter of the class, the transporter itself if it is not indexed
+     */
+    private Transporter getCanonicalTransporter(Transporter transporter)
+    {
+        var transporterCompatibility = this.factoryConglomerate.getTransporterCompatibility();
+        var equivalenceClass = transporterCompatibility.getEquivalenceClass(transporter);
+        if(equivalenceClass < 0)
+            return transporter;
+
+        var canonicalTransporter = transporter;
+        var canonicalPosition = transporterCompatibility.getPosition(transporter);
+        for(var availableTransporter : this.sortedAvailableTransportList)
+        {
+            if(transporterCompatibility.getEquivalenceClass(availableTransporter) != equivalenceClass)
+                continue;
+
+            var position = transporterCompatibility.getPosition(availableTransporter);
+            if(position < canonicalPosition)
+            {
+                canonicalTransporter = availableTransporter;
+                canonicalPosition = position;
+            }
+        }
+        return canonicalTransporter;
+    }
+
+    /**
+     * Returns the driver pool item with the transporter of the lowest position of the items with the same equivalence
+     * class of the transporter and the same blocked time of the driver as the chosen item. These items are
+     * interchangeable, so the planning always takes the first one.
+     * @param driverPoolItem chosen driver pool item
+     * @return the first interchangeable driver pool item
+     */
+    private DriverPoolItem getCanonicalDriverPoolItem(DriverPoolItem driverPoolItem)
+    {
+        var transporterCompatibility = this.factoryConglomerate.getTransporterCompatibility();
+        var equivalenceClass = transporterCompatibility.getEquivalenceClass(driverPoolItem.transporter());
+        if(equivalenceClass < 0)
+            return driverPoolItem;
+
+        var canonicalPoolItem = driverPoolItem;
+        var canonicalPosition = transporterCompatibility.getPosition(driverPoolItem.transporter());
+        for(var poolItem : this.driverPoolItems)
+        {
+            if(poolItem.driver().getBlockedTime() != driverPoolItem.driver().getBlockedTime() ||
+                    transporterCompatibility.getEquivalenceClass(poolItem.transporter()) != equivalenceClass)
+                continue;
+
+            var position = transporterCompatibility.getPosition(poolItem.transporter());
+            if(position < canonicalPosition)
+            {
+                canonicalPoolItem = poolItem;
+                canonicalPosition = position;
+            }
+        }
+        return canonicalPoolItem;
+    }
+
+    /**
+     * Removes the next driver from the available drivers. Every driver can drive every transporter, so drivers with
+     * the same planned blocked time are interchangeable. Of the drivers with the blocked time of the first available
+     * driver, the driver with the lowest index is taken.
+     * @return the removed driver
+     */
+    private DriverPlanningItem removeCanonicalDriver()
+    {
+        var canonicalPosition = 0;
+        var firstDriver = this.availableDrivers.get(0);
+        for(int i = 1; i < this.availableDrivers.size(); i++)
+        {
+            var driver = this.availableDrivers.get(i);
+            if(driver.getBlockedTime() == firstDriver.getBlockedTime() &&
+                    driver.getDriver().getIndex() < this.availableDrivers.get(canonicalPosition).getDriver().getIndex())
+                canonicalPosition = i;
+        }
+        return this.availableDrivers.remove(canonicalPosition);
+    }
+
+    /**
+     * schrenkt vielleicht den Suchraum ein
+     * @param item
+     * @return
+     */
+    private DriverPoolItem getDriverPoolItemWithDriverWhoIsEarliestBack(WarehouseItem item)
+    {
+        DriverPoolItem bestDriverPoolItem = null;
+
+        var transporterCompatibility = this.factoryConglomerate.getTransporterCompatibility();
+        var fittingTransporters = transporterCompatibility.getFittingTransporters(item);
+        for(var driverPoolItem : this.driverPoolItems)
+        {
+            if(!transporterCompatibility.isFitting(driverPoolItem.transporter(), fittingTransporters))
+                continue;
+
+            if(bestDriverPoolItem == null)
+            {
+                bestDriverPoolItem = driverPoolItem;
+                continue;
+            }
+
+            if(driverPoolItem.driver().getBlockedTime() < bestDriverPoolItem.driver().getBlockedTime())
+                bestDriverPoolItem = driverPoolItem;
+        }
+
+        return bestDriverPoolItem;
+    }
+
+    private DriverPoolItem getDriverPoolItemWithSmallestDifferenceFromAmountAndHigherCapacity(WarehouseItem item, int amount)
+    {
+        DriverPoolItem bestDriverPoolItem = null;
+        DriverPoolItem driverPoolItemWithHighestCapacity = null;
+        var minDiff = Integer.MAX_VALUE;
+        var transporterCompatibility = this.factoryConglomerate.getTransporterCompatibility();
+        var fittingTransporters = transporterCompatibility.getFittingTransporters(item);
+        for(var driverPoolItem : this.driverPoolItems)
+        {
+            if(!transporterCompatibility.isFitting(driverPoolItem.transporter(), fittingTransporters))
+                continue;
+
+            var diff = driverPoolItem.transporter().getCapacity() - amount;
+
+            if(bestDriverPoolItem == null)
+            {
+                bestDriverPoolItem = driverPoolItem;
+                driverPoolItemWithHighestCapacity = driverPoolItem;
+                minDiff = diff;
+                continue;
+            }
+
+            if(driverPoolItem.transporter().getCapacity() >
+                    driverPoolItemWithHighestCapacity.transporter().getCapacity())
+                driverPoolItemWithHighestCapacity = driverPoolItem;
+
+            if(diff < 0)
+                continue;
+
+            if(diff < minDiff)
+            {
+                bestDriverPoolItem = driverPoolItem;
+                minDiff = diff;
+            }
+
+        }
+
+        if(bestDriverPoolItem.transporter().getCapacity() >= amount)
+            return bestDriverPoolItem;
+
+        return driverPoolItemWithHighestCapacity;
+    }
+
+    /**
+     * Returns a list of factory steps for a planning item with the produce property. The method checks if the material
+     * was transported in the needed amount before. If not an empty list is returned.
+     * @param stepsToDo steps which are getting performed before this planning item
+     * @param planningItem planning item for the factory steps
+     * @return factory steps for the planning item, returns an empty list if no material is available in the warehouse
+     */
+    private ArrayList<FactoryStep> getProductionSteps(List<FactoryStep> stepsToDo, PlanningItem planningItem)
+    {
+        var steps = new ArrayList<FactoryStep>();
+        var process = this
+                .factoryConglomerate
+                .getProductionProcessForProduct((Product) planningItem.item());
+
+        var stepsToDoBefore = new ArrayList<FactoryStep>();
+
+        //Check if material is actually in the warehouse
+        for (var materialPosition : process.getMaterialPositions())
+        {
+            var materialInWarehouse = 0;
+            for(var step : stepsToDo)
+            {
+                if(step.getStepType().equals(FactoryStepTypes.MoveMaterialFromTransporterToWarehouse))
+                {
+                    //Check if transporter got the needed material before
+                    if(step.getItemToManipulate().equals(materialPosition.item()))
+                    {
+                        stepsToDoBefore.add(step);
+                        materialInWarehouse += step.getAmountOfItems();
+                    }
+                }
+
+                if(step.getStepType().equals(FactoryStepTypes.Produce))
+                {
+                    //Check if product was produced
+                    if(step.getItemToManipulate().equals(materialPosition.item()))
+                    {
+                        var subProcess = this.factoryConglomerate.getProductionProcessForProduct((Product) step.getItemToManipulate());
+                        materialInWarehouse += subProcess.getProductionBatchSize();
+                        stepsToDoBefore.add(step);
+                    }
+                }
+
+                //Check if any other production consumed the material before
+                if(step.getStepType().equals(FactoryStepTypes.MoveMaterialsForProductFromWarehouseToInputBuffer))
+                {
+                    var productionProcess = this.factoryConglomerate.getProductionProcessForProduct((Product) step.getItemToManipulate());
+                    for(var materialPositionForProcess : productionProcess.getMaterialPositions())
+                    {
+                        if(materialPositionForProcess.item().equals(materialPosition.item()))
+                        {
+                            materialInWarehouse -= materialPositionForProcess.amount();
+                            stepsToDoBefore.add(step);
+                        }
+                    }
+                }
+            }
+
+            if(materialInWarehouse < materialPosition.amount())
+            {
+                //System.out.println("Abort solution: Not enough material in the Warehouse to produce");
+                return steps;
+            }
+        }
+
+        var newStep = new FactoryStep(this.factoryConglomerate, stepsToDoBefore,
+                planningItem.item(),
+                1,
+                process.getFactory(),
+                FactoryStepTypes.MoveMaterialsForProductFromWarehouseToInputBuffer);
+
+        steps.add(newStep);
+
+        stepsToDoBefore = new ArrayList<>();
+        stepsToDoBefore.add(newStep);
+        newStep = new FactoryStep(this.factoryConglomerate, stepsToDoBefore,
+                planningItem.item(),
+                1,
+                process.getFactory(),
+                FactoryStepTypes.Produce);
+
+        steps.add(newStep);
+
+        stepsToDoBefore = new ArrayList<>();
+        stepsToDoBefore.add(newStep);
+        newStep = new FactoryStep(this.factoryConglomerate, stepsToDoBefore,
+                planningItem.item(),
+                1,
+                process.getFactory(),
+                FactoryStepTypes.MoveProductToOutputBuffer);
+
+        steps.add(newStep);
+
+
+        stepsToDoBefore = new ArrayList<>();
+        stepsToDoBefore.add(newStep);
+        newStep = new FactoryStep(this.factoryConglomerate, stepsToDoBefore,
+                planningItem.item(),
+                planningItem.amount(),
+                process.getFactory(),
+                FactoryStepTypes.MoveProductFromOutputBufferToWarehouse);
+
+        steps.add(newStep);
+
+        return steps;
+    }
+}
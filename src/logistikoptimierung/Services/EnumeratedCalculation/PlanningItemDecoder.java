@@ -0,0 +1,150 @@
+package logistikoptimierung.Services.EnumeratedCalculation;
+
+import logistikoptimierung.Entities.FactoryObjects.FactoryConglomerate;
+import logistikoptimierung.Entities.FactoryObjects.FactoryStep;
+import logistikoptimierung.Entities.FactoryObjects.Transporter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the factory steps for an order of planning items. Used by the optimizers which search over the order of the
+ * planning items instead of enumerating it. Every call uses a new {@link PlanningContext}, so the decoder can be used
+ * by several threads at the same time.
+ */
+public class PlanningItemDecoder
+{
+    private final FactoryConglomerate factoryConglomerate;
+
+    /**
+     * Creates the decoder
+     * @param factoryConglomerate factory conglomerate for which the steps are planned
+     */
+    public PlanningItemDecoder(FactoryConglomerate factoryConglomerate)
+    {
+        this.factoryConglomerate = factoryConglomerate;
+    }
+
+    /**
+     * Creates the factory steps for the planning items in the given order, every trip uses the transporter of the
+     * planning context (see {@link #createSteps(List, Map)})
+     * @param planningItemOrder planning items in the order of the planning
+     * @return the factory steps, null if a planning item is not possible after every other planning item
+     */
+    public List<FactoryStep> createSteps(List<PlanningItem> planningItemOrder)
+    {
+        return createSteps(planningItemOrder, Map.of());
+    }
+
+    /**
+     * Creates the factory steps for the planning items in the given order with a new planning context. A planning item
+     * which is not possible at its position (the materials or products are not planned before) is planned as soon as
+     * it is possible, so every order of the planning items creates a solution.
+     * @param planningItemOrder planning items in the order of the planning
+     * @param transporters transporters for the trips of the planning items, planning items without a transporter
+     *                     use the transporter of the planning context
+     * @return the factory steps, null if a planning item is not possible after every other planning item
+     */
+    public List<FactoryStep> createSteps(List<PlanningItem> planningItemOrder, Map<PlanningItem, Transporter> transporters)
+    {
+        var stepsOfPlanningItems = createStepsForPlanningItems(List.of(), planningItemOrder, transporters);
+        if(stepsOfPlanningItems == null)
+            return null;
+
+        var steps = new ArrayList<FactoryStep>();
+        for(var stepsOfPlanningItem : stepsOfPlanningItems.values())
+            steps.addAll(stepsOfPlanningItem);
+        return steps;
+    }
+
+    /**
+     * Creates the factory steps for the planning items in the given order after the steps which are already planned
+     * (see {@link #createSteps(List, Map)}). The planning items can use the materials and products of the planned
+     * steps.
+     * @param plannedSteps steps which are planned before the planning items, they are not part of the result
+     * @param planningItemOrder planning items in the order of the planning
+     * @param transporters transporters for the trips of the planning items, planning items without a transporter
+     *                     use the transporter of the planning context
+     * @return the factory steps of every planning item in the order of the planning (a postponed planning item is
+     * after the planning item which made it possible), null if a planning item is not possible after every other
+     * planning item
+     */
+    public LinkedHashMap<PlanningItem, List<FactoryStep>> createStepsForPlanningItems(List<FactoryStep> plannedSteps,
+                                                                                     List<PlanningItem> planningItemOrder,
+                                                                                     Map<PlanningItem, Transporter> transporters)
+    {
+        var context = new PlanningContext(this.factoryConglomerate);
+        var steps = new ArrayList<>(plannedSteps);
+        var stepsOfPlanningItems = new LinkedHashMap<PlanningItem, List<FactoryStep>>();
+        var postponedPlanningItems = new ArrayList<PlanningItem>();
+        for(var planningItem : planningItemOrder)
+        {
+            if(!addStepsForPlanningItem(context, steps, planningItem, transporters, stepsOfPlanningItems))
+            {
+                postponedPlanningItems.add(planningItem);
+                continue;
+            }
+
+            //The new steps can make a postponed planning item possible
+            var added = true;
+            while (added)
+            {
+                added = false;
+                for(int i = 0; i < postponedPlanningItems.size(); i++)
+                {
+                    if(addStepsForPlanningItem(context, steps, postponedPlanningItems.get(i), transporters, stepsOfPlanningItems))
+                    {
+                        postponedPlanningItems.remove(i);
+                        added = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        if(!postponedPlanningItems.isEmpty())
+            return null;
+        return stepsOfPlanningItems;
+    }
+
+    /**
+     * Adds the factory steps of the planning item. A planning item which is not possible does not change the context.
+     * @param context planning context with the available transporters and drivers
+     * @param steps factory steps of the planning items before, the new steps are added
+     * @param planningItem planning item for the factory steps
+     * @param transporters transporters for the trips of the planning items
+     * @param stepsOfPlanningItems factory steps of the planned planning items, the new steps are added
+     * @return true if the planning item was possible
+     */
+    private boolean addStepsForPlanningItem(PlanningContext context,
+                                            List<FactoryStep> steps,
+                                            PlanningItem planningItem,
+                                            Map<PlanningItem, Transporter> transporters,
+                                            Map<PlanningItem, List<FactoryStep>> stepsOfPlanningItems)
+    {
+        var stepsToAdd = context.getStepsForPlanningItem(steps, planningItem);
+        if(stepsToAdd.isEmpty())
+            return false;
+
+        var stepsOfPlanningItem = new ArrayList<FactoryStep>(stepsToAdd.size());
+        var transporter = transporters.get(planningItem);
+        for(var step : stepsToAdd)
+        {
+            //The steps of the planning item are only used by the following planning items => the step can be replaced
+            if(transporter != null && step.getFactoryObject() instanceof Transporter &&
+                    transporter.getCapacity() >= step.getAmountOfItems())
+                step = new FactoryStep(this.factoryConglomerate,
+                        step.getFactoryStepsToDoBefore(),
+                        step.getItemToManipulate(),
+                        step.getAmountOfItems(),
+                        transporter,
+                        step.getStepType());
+            steps.add(step);
+            stepsOfPlanningItem.add(step);
+        }
+        stepsOfPlanningItems.put(planningItem, stepsOfPlanningItem);
+        return true;
+    }
+}
@@ -0,0 +1,370 @@
+package logistikoptimierung.Services.EnumeratedCalculation;
+
+import logistikoptimierung.Entities.FactoryObjects.FactoryConglomerate;
+import logistikoptimierung.Entities.FactoryObjects.ProductionProcess;
+import logistikoptimierung.Entities.WarehouseItems.*;
+
+import java.util.*;
+
+/**
+ * Creates the planning items which are needed to fulfill a list of orders: the acquiring of the materials, the
+ * production batches ordered by the process depth and the deliveries. The factory steps for the planning items are
+ * created by a {@link PlanningContext}. Used by the optimizers which order the planning items.
+ */
+public class PlanningItemGenerator
+{
+    private final FactoryConglomerate factoryConglomerate;
+    private final boolean condenseMaterialSupplies;
+
+    /**
+     * Creates the generator for the planning items
+     * @param factoryConglomerate factory conglomerate with the production processes and the suppliers
+     * @param condenseMaterialSupplies condenses the supplying of the same material to one planning item
+     */
+    public PlanningItemGenerator(FactoryConglomerate factoryConglomerate, boolean condenseMaterialSupplies)
+    {
+        this.factoryConglomerate = factoryConglomerate;
+        this.condenseMaterialSupplies = condenseMaterialSupplies;
+    }
+
+    /**
+     * Returns a list of planning items which are needed to fulfill the orders in the subOrder list
+     * This algorithm could be improved heavily, but time constraints and the reason that this code runs only once per test
+     * was the reason we did not improve the code.
+     * @param subOrderList order list for the planning items
+     * @return list of planning items needed
+     */
+    public List<PlanningItem> createPlanningItems(List<Order> subOrderList)
+    {
+        var productionPlanningItems = createProcessList(subOrderList);
+        setProcessDepthForPlanningItems(productionPlanningItems);
+        removeDoubleEntriesFromPlaningItemList(productionPlanningItems);
+        getProcessesForEveryBatchAndOrderAfterDepth(subOrderList, productionPlanningItems);
+        var acquiringMaterialPositions = addAcquiringPlaningItemsForEveryBatch(productionPlanningItems);
+        acquiringMaterialPositions.addAll(addAcquiringPlaningItemsForDirectDelivery(subOrderList));
+        var deliverMaterialPositions = addDeliveryPlanningItems(subOrderList);
+
+        var planningItems = new ArrayList<PlanningItem>();
+
+        if(this.condenseMaterialSupplies)
+        {
+            acquiringMaterialPositions = this.condenseMaterialList(acquiringMaterialPositions);
+        }
+
+        var idCount = 1;
+
+        for(var item : acquiringMaterialPositions)
+            planningItems.add(new PlanningItem(idCount++, item.item(), item.amount(), PlanningType.Acquire));
+
+        var sortedFlatProductionProcessList = new ArrayList<>(this.getFlatProductionProcessList(productionPlanningItems));
+        sortedFlatProductionProcessList.sort(Comparator.comparingInt(value -> value.getProcessDepth()));
+        for (var item : sortedFlatProductionProcessList)
+            planningItems.add(new PlanningItem(idCount++, item.getProcess().getProductToProduce(),
+                    1,
+                    PlanningType.Produce));
+
+        for(var item : deliverMaterialPositions)
+            planningItems.add(new PlanningItem(idCount++, item.item(), item.amount(), PlanningType.Deliver));
+
+        return planningItems;
+    }
+
+    /**
+     * Returns production planning items for the orders without products which can be supplied
+     * @param orderList
+     * @return list of production planning items
+     */
+    private ArrayList<ProductionPlanningItem> createProcessList(List<Order> orderList)
+    {
+        var productionItems = new ArrayList<ProductionPlanningItem>();
+        for (var production : this.factoryConglomerate.getFactories())
+        {
+            productionItems.add(new ProductionPlanningItem(production));
+        }
+
+        var orderCount = 1;
+        for (var order : orderList)
+        {
+            var processes = this.factoryConglomerate.getProductionProcessesForProduct(
+                    order.getWarehousePosition().item());
+
+            var filteredProcesses = new ArrayList<ProductionProcess>();
+            for(var process : processes)
+            {
+                if(this.factoryConglomerate.checkIfItemHasASupplier(process.getProductToProduce()))
+                    continue;
+                filteredProcesses.add(process);
+            }
+
+            for (var process : filteredProcesses)
+            {
+                var planningItem = getProductionPlanningItemForProcess(process, productionItems);
+                planningItem.getProcessPlanningItems()
+                        .add(new ProcessPlaningItem(process, orderCount));
+            }
+            orderCount++;
+        }
+
+        return productionItems;
+    }
+
+    private ProductionPlanningItem getProductionPlanningItemForProcess(ProductionProcess process, List<ProductionPlanningItem> planningItems)
+    {
+        for (var item : planningItems)
+        {
+            var prodItem = item.getProduction().getProductionProcessForProduct((Product)
+                    process.getProductToProduce());
+            if(prodItem != null)
+                return item;
+        }
+
+        return null;
+    }
+
+    private void setProcessDepthForPlanningItems(List<ProductionPlanningItem> planningItems)
+    {
+        for(var planingItem : this.getFlatProductionProcessList(planningItems))
+        {
+            var depth = this.getProcessDepthRecursive(planingItem.getProcess().getProductToProduce());
+            planingItem.setProcessDepth(depth);
+        }
+
+    }
+
+    private int getProcessDepthRecursive(WarehouseItem item)
+    {
+        if(this.factoryConglomerate.checkIfItemHasASupplier(item))
+            return 0;
+
+        var process = this.factoryConglomerate.getProductionProcessForProduct((Product) item);
+        for (var position : process.getMaterialPositions())
+        {
+            return getProcessDepthRecursive(position.item()) + 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns every process batch and orders it after the depth
+     * @param orderList order list to do
+     * @param planningItems list of the planning items which should be processed
+     */
+    private void getProcessesForEveryBatchAndOrderAfterDepth(List<Order> orderList, List<ProductionPlanningItem> planningItems)
+    {
+        var flatProcessList = getFlatProductionProcessList(planningItems);
+        flatProcessList.sort(Comparator.comparingInt(ProcessPlaningItem::getProcessDepth));
+
+        var newProcessPlaningItemList = new ArrayList<ProcessPlaningItem>();
+
+        for(int i = flatProcessList.size() - 1; i >= 0; i--)
+        {
+            var planningItem = flatProcessList.get(i);
+            var amountToProduce = 0;
+
+            var parentPlanningItems = getParentProcessesPlanningItemFromProduct(planningItem
+                            .getProcess()
+                            .getProductToProduce(),
+                    newProcessPlaningItemList);
+
+            var orderMap = new HashMap<Integer, Integer>();
+
+            for (var parentItem : parentPlanningItems)
+            {
+                var amountForParentItem = parentItem.getProcess().getAmountFromMaterialPositions(
+                        planningItem.getProcess().getProductToProduce());
+                amountToProduce += amountForParentItem;
+                orderMap.put(parentItem.getOrderNr(), amountToProduce);
+            }
+
+            for(var order : orderList)
+            {
+                if(planningItem.getProcess().getProductToProduce().equals(order.getWarehousePosition().item()))
+                {
+                    amountToProduce += order.getWarehousePosition().amount();
+                    orderMap.put(order.getOrderNr(), order.getWarehousePosition().amount());
+                }
+            }
+
+            var nrOfBatches = (int)Math.ceil((double) amountToProduce / (double) planningItem.getProcess().getProductionBatchSize());
+
+            var batchCount = 0;
+            for(var orderKey : orderMap.keySet())
+            {
+                var orderAmount = orderMap.get(orderKey);
+                var amountFromBatch = 0;
+                while (orderAmount > amountFromBatch )
+                {
+                    if(batchCount == nrOfBatches)
+                        break;
+
+                    var batchSize = planningItem.getProcess().getProductionBatchSize();
+                    var newPlaningItem = new ProcessPlaningItem(planningItem.getProcess(), orderKey);
+                    newPlaningItem.setProcessDepth(planningItem.getProcessDepth());
+                    newProcessPlaningItemList.add(newPlaningItem);
+                    amountFromBatch += batchSize;
+                    batchCount++;
+                }
+            }
+        }
+
+        //merge new planing list to old one
+        for(var production : planningItems)
+        {
+            production.getProcessPlanningItems().clear();
+            for(var newProcessItem : newProcessPlaningItemList)
+            {
+                if(newProcessItem.getProcess().getFactory().equals(production.getProduction()))
+                    production.getProcessPlanningItems().add(newProcessItem);
+            }
+        }
+    }
+
+    private List<ProcessPlaningItem> getParentProcessesPlanningItemFromProduct(WarehouseItem warehouseItem, List<ProcessPlaningItem> flatList)
+    {
+        var parentProcesses = new ArrayList<ProcessPlaningItem>();
+        for (var planningItem : flatList)
+        {
+            var bom = planningItem.getProcess().getMaterialPositions();
+            for(var item : bom)
+            {
+                if(item.item().equals(warehouseItem))
+                    parentProcesses.add(planningItem);
+            }
+        }
+
+        return parentProcesses;
+    }
+
+    /**
+     * Returns a list flat list from all production processes.
+     * @return list with process planning items
+     */
+    private List<ProcessPlaningItem> getFlatProductionProcessList(List<ProductionPlanningItem> planningItems)
+    {
+        var result = new ArrayList<ProcessPlaningItem>();
+
+        for (var production : planningItems)
+        {
+            for (var process : production.getProcessPlanningItems())
+            {
+                result.add(process);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Remove double entries for the planning production list
+     * @param productionPlanningItems
+     */
+    private void removeDoubleEntriesFromPlaningItemList(List<ProductionPlanningItem> productionPlanningItems)
+    {
+        for(var production : productionPlanningItems)
+        {
+            var hashSet = new HashSet<>(production.getProcessPlanningItems());
+            production.getProcessPlanningItems().clear();
+            production.getProcessPlanningItems().addAll(hashSet);
+            production.getProcessPlanningItems().sort((i1, i2) -> Integer.compare(i1.getOrderNr(), i2.getOrderNr()));
+        }
+    }
+
+    /**
+     * Returns a list of material positions which are needed for the production
+     * @param productionPlanningItems production processes for the orders to optimize
+     * @return list of material positions
+     */
+    private List<WarehousePosition> addAcquiringPlaningItemsForEveryBatch(List<ProductionPlanningItem> productionPlanningItems)
+    {
+        var materialPositionsToAcquire = new ArrayList<WarehousePosition>();
+        for(var processPlaningItem : getFlatProductionProcessList(productionPlanningItems))
+        {
+            var materialPositions = processPlaningItem.getProcess().getMaterialPositions();
+
+            for(var materialPosition : materialPositions)
+            {
+                if(!this.factoryConglomerate.checkIfItemHasASupplier(materialPosition.item()))
+                    continue;
+
+                materialPositionsToAcquire.add(new WarehousePosition(materialPosition.item(), materialPosition.amount()));
+            }
+        }
+
+        return materialPositionsToAcquire;
+    }
+
+    /**
+     * Returns a condensed material position list
+     * @param materialList not condensed material position list
+     * @return condensed material position list
+     */
+    private List<WarehousePosition> condenseMaterialList(List<WarehousePosition> materialList)
+    {
+        var newMaterialList = new ArrayList<WarehousePosition>();
+
+        for (var item: materialList)
+        {
+            var position = findMaterialPositionByName(item.item().getName(), newMaterialList);
+            if(position == null)
+            {
+                var newPosition = new WarehousePosition(item.item(), item.amount());
+                newMaterialList.add(newPosition);
+                continue;
+            }
+
+            var newPosition = new WarehousePosition(item.item(), position.amount() + item.amount());
+            newMaterialList.remove(position);
+            newMaterialList.add(newPosition);
+        }
+
+        return newMaterialList;
+    }
+
+    /**
+     * Finds the material from the material list by name
+     * @param name name to search
+     * @param materialList material list to search
+     * @return material position
+     */
+    private WarehousePosition findMaterialPositionByName(String name, List<WarehousePosition> materialList)
+    {
+        for (var position : materialList)
+        {
+            if(position.item().getName().equals(name))
+                return position;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns a list of material position which are delivered directly to the customer
+     * @param orderList orders to check for direct delivery
+     * @return a list of material positions
+     */
+    private List<WarehousePosition> addAcquiringPlaningItemsForDirectDelivery(List<Order> orderList)
+    {
+        var materialPositionsToAcquire = new ArrayList<WarehousePosition>();
+        for(var order : orderList)
+        {
+            if(this.factoryConglomerate.checkIfItemHasASupplier(order.getWarehousePosition().item()))
+                materialPositionsToAcquire.add(new WarehousePosition(order.getWarehousePosition().item(), order.getWarehousePosition().amount()));
+        }
+        return materialPositionsToAcquire;
+    }
+
+    /**
+     * Returns a list of material positions to deliver to the customer
+     * @param subOrderList orders to check
+     * @return list of material positions
+     */
+    private List<WarehousePosition> addDeliveryPlanningItems(List<Order> subOrderList)
+    {
+        var deliveryItems = new ArrayList<WarehousePosition>();
+        for (var order : subOrderList)
+        {
+            deliveryItems.add(new WarehousePosition(order,
+                    order.getWarehousePosition().amount()));
+        }
+        return deliveryItems;
+    }
+}
@@ -0,0 +1,156 @@
+package logistikoptimierung.Services.EnumeratedCalculation;
+
+import logistikoptimierung.Entities.FactoryObjects.*;
+import logistikoptimierung.Entities.WarehouseItems.*;
+
+import java.util.*;
+
+/**
+ * Independence relation of the planning items for the partial order reduction of the enumerated calculation. Two
+ * planning items are independent if swapping them, when they are planned one after another, changes neither the
+ * planning context nor the first come first serve simulation:
+ * - at least one of them is produced. Acquire and deliver planning items take and free drivers and transporters of
+ *   the shared driver pool of the planning context, so two of them are always dependent. A produce planning item does
+ *   not change the planning context.
+ * - no item is supplied by one of them and supplied or needed by the other one (material positions of the
+ *   production processes, the product of an order) and they do not need the same item, so the warehouse stock and
+ *   the steps to do before of the other planning items do not change
+ * - they do not produce with the same factory, so they do not wait for the same factory object
+ * - the warehouse can hold every item which the planning items put into the warehouse at the same time. Else a step
+ *   which puts an item into the warehouse can wait for the capacity which a step of the other planning item uses, and
+ *   every planning item is dependent.
+ * The steps of two independent planning items use different factory objects, drivers are only used by the transport
+ * steps, so the simulation does not depend on the order of their steps in the step list.
+ * The relation is created once for the planning items of a calculation and can be used from several threads.
+ */
+public class PlanningItemIndependence
+{
+    private final Map<Integer, Integer> positionsById = new HashMap<>();
+    private final boolean[][] independentItems;
+
+    /**
+     * Creates the independence relation of the planning items
+     * @param factoryConglomerate factory conglomerate with the production processes and the warehouse
+     * @param planningItems every planning item of the calculation
+     */
+    public PlanningItemIndependence(FactoryConglomerate factoryConglomerate, List<PlanningItem> planningItems)
+    {
+        var suppliedItems = new ArrayList<Set<String>>(planningItems.size());
+        var neededItems = new ArrayList<Set<String>>(planningItems.size());
+        var factories = new ArrayList<Factory>(planningItems.size());
+        var withoutProcess = new boolean[planningItems.size()];
+        var amountToWarehouse = 0L;
+
+        for(int i = 0; i < planningItems.size(); i++)
+        {
+            var planningItem = planningItems.get(i);
+            if(this.positionsById.put(planningItem.id(), i) != null)
+                throw new IllegalArgumentException("Planning item id is not unique: " + planningItem.id());
+
+            var supplied = new HashSet<String>();
+            var needed = new HashSet<String>();
+            Factory factory = null;
+            switch (planningItem.planningType())
+            {
+                case Acquire -> {
+                    supplied.add(planningItem.item().getName());
+                    amountToWarehouse += planningItem.amount();
+                }
+                case Produce -> {
+                    supplied.add(planningItem.item().getName());
+                    amountToWarehouse += planningItem.amount();
+                    var process = factoryConglomerate.getProductionProcessForProduct((Product) planningItem.item());
+                    if(process != null)
+                    {
+                        factory = process.getFactory();
+                        for(var materialPosition : process.getMaterialPositions())
+                            needed.add(materialPosition.item().getName());
+                    }
+                    else
+                        withoutProcess[i] = true;
+                }
+                case Deliver -> needed.add(((Order) planningItem.item()).getWarehousePosition().item().getName());
+            }
+            suppliedItems.add(supplied);
+            neededItems.add(needed);
+            factories.add(factory);
+        }
+
+        this.independentItems = new boolean[planningItems.size()][planningItems.size()];
+        if(amountToWarehouse > getRemainingWarehouseCapacity(factoryConglomerate.getWarehouse()))
+            return;
+
+        for(int i = 0; i < planningItems.size(); i++)
+        {
+            for(int j = i + 1; j < planningItems.size(); j++)
+            {
+                var dependent = (usesDriverPool(planningItems.get(i)) && usesDriverPool(planningItems.get(j))) ||
+                        !Collections.disjoint(suppliedItems.get(i), suppliedItems.get(j)) ||
+                        !Collections.disjoint(suppliedItems.get(i), neededItems.get(j)) ||
+                        !Collections.disjoint(neededItems.get(i), suppliedItems.get(j)) ||
+                        !Collections.disjoint(neededItems.get(i), neededItems.get(j)) ||
+                        withoutProcess[i] || withoutProcess[j] ||
+                        (factories.get(i) != null && factories.get(i) == factories.get(j));
+
+                this.independentItems[i][j] = !dependent;
+                this.independentItems[j][i] = !dependent;
+            }
+        }
+    }
+
+    /**
+     * @param planningItem planning item to check
+     * @return true if the planning item takes drivers and transporters of the driver pool of the planning context
+     */
+    private static boolean usesDriverPool(PlanningItem planningItem)
+    {
+        return planningItem.planningType() == PlanningType.Acquire ||
+                planningItem.planningType() == PlanningType.Deliver;
+    }
+
+    /**
+     * @param warehouse warehouse at the start of the simulation
+     * @return the capacity of the warehouse without the stock at the start of the simulation
+     */
+    private static long getRemainingWarehouseCapacity(Warehouse warehouse)
+    {
+        long remainingCapacity = warehouse.getWarehouseCapacity();
+        for(var warehousePosition : warehouse.getWarehouseItems())
+            remainingCapacity -= warehousePosition.amount();
+        return remainingCapacity;
+    }
+
+    /**
+     * @param first planning item to check
+     * @param second planning item to check
+     * @return true if the planning items are independent, false if they are dependent or not part of the relation
+     */
+    public boolean isIndependent(PlanningItem first, PlanningItem second)
+    {
+        var firstPosition = this.positionsById.get(first.id());
+        var secondPosition = this.positionsById.get(second.id());
+        if(firstPosition == null || secondPosition == null)
+            return false;
+        return this.independentItems[firstPosition][secondPosition];
+    }
+
+    /**
+     * Checks if the planning item can be planned directly after the previous planning item. Of two independent planning
+     * items only the order with the smaller id first is planned. Every order of the planning items can be changed into
+     * an order where no independent planning items with a bigger id first are planned one after another by swapping
+     * independent neighbours, so every class of orders which differ only by swapped independent planning items keeps
+     * at least one order.
+     * This is an approximation without sleep sets or persistent sets: only the planning item planned directly before
+     * is compared, so orders which differ by swapped planning items which are not neighbours can still be calculated
+     * several times.
+     * @param previousPlanningItem planning item which was planned last, null at the start
+     * @param planningItem planning item to plan next
+     * @return true if the order is calculated, false if the order is skipped
+     */
+    public boolean isCanonicalOrder(PlanningItem previousPlanningItem, PlanningItem planningItem)
+    {
+        if(previousPlanningItem == null)
+            return true;
+        return previousPlanningItem.id() < planningItem.id() || !isIndependent(previousPlanningItem, planningItem);
+    }
+}
@@ -0,0 +1,305 @@
+package logistikoptimierung.Services.EnumeratedCalculation;
+
+import logistikoptimierung.Entities.FactoryObjects.*;
+import logistikoptimierung.Entities.WarehouseItems.WarehousePosition;
+
+import java.util.*;
+
+/**
+ * Cache for the partial solutions of the enumerated calculation which were already expanded. A partial solution is
+ * stored with the key of its state after the simulation of the steps to do: the remaining planning items, the
+ * transporters, the available drivers and the driver pool of the planning context, the warehouse stock, the buffers of
+ * the factories, the loaded items of the transporters, the remaining order amounts and the blocked time of every
+ * factory object relative to the end of the simulation. The value is the time step when the steps to do are completed.
+ * The key contains the state itself in a canonical order and not only a hash of it, so two different states never
+ * share an entry. Every state has the same transporters and drivers, so only the transporters which are not available
+ * in the context and the blocked or loaded factory objects are stored, the other ones follow from them.
+ * Interchangeable resources are not distinguished: the drivers are stored independent of their order and the
+ * transporters of the same equivalence class (same area, type, engine and capacity) too, so two states which differ
+ * only by swapped resources have the same key and only one of them is expanded.
+ * A partial solution with the same state which is completed at the same or a later time step is skipped. The remaining
+ * steps are performed in between the steps to do, so two partial solutions with the same state are not always
+ * equal and the cache can skip the best solution. The table is a heuristic to calculate more planning items in the
+ * same time.
+ * The table keeps at most the max nr of entries, if the table is full the least recently used entry is removed.
+ * The table can be used by several threads at the same time.
+ */
+public class TranspositionTable
+{
+    /**
+     * Amount of an item in the state
+     * @param itemName name of the item
+     * @param amount amount of the item
+     */
+    public record ItemAmount(String itemName, int amount)
+    {
+    }
+
+    /**
+     * State of a transporter, without the identity of the transporter
+     * @param equivalenceClass equivalence class of the transporter
+     * @param remainingBlockedTime blocked time after the end of the simulation
+     * @param loadedItem loaded item of the transporter, null if the transporter is empty
+     */
+    public record TransporterState(int equivalenceClass, long remainingBlockedTime, ItemAmount loadedItem)
+    {
+    }
+
+    /**
+     * State of a driver pool item of the planning context, without the identity of the driver and the transporter
+     * @param driverBlockedTime planned blocked time of the driver
+     * @param transporterClass equivalence class of the transporter
+     */
+    public record DriverPoolState(long driverBlockedTime, int transporterClass)
+    {
+    }
+
+    /**
+     * State of the buffers of a factory
+     * @param inputBuffer products of the processes in the input buffer (sorted)
+     * @param outputBuffer products in the output buffer (sorted)
+     * @param productInProduction product in production, null if the factory does not produce
+     */
+    public record FactoryBufferState(List<String> inputBuffer, List<ItemAmount> outputBuffer, ItemAmount productInProduction)
+    {
+    }
+
+    /**
+     * Canonical key of the state of a partial solution. The lists of interchangeable or unordered parts are sorted, so
+     * the key does not depend on their order. Two keys are equal if the states are equal.
+     * @param remainingPlanningItemIds ids of the remaining planning items (sorted)
+     * @param unavailableTransporterClasses equivalence classes of the transporters which are not available in the
+     *                                      context (sorted)
+     * @param availableDriverBlockedTimes planned blocked times of the available drivers of the context (in the order
+     *                                    of the context)
+     * @param driverPool driver pool of the context (in the order of the pool)
+     * @param stock warehouse stock (sorted)
+     * @param orderAmounts remaining amounts of the orders (in the order of the order list)
+     * @param driverBlockedTimes blocked times of the blocked drivers after the end of the simulation (sorted)
+     * @param transporters states of the blocked or loaded transporters (sorted)
+     * @param factoryBlockedTimes blocked times of the factories after the end of the simulation (in the order of the
+     *                            factories)
+     * @param factoryBuffers buffers of the factories (in the order of the factories)
+     */
+    public record StateKey(List<Integer> remainingPlanningItemIds,
+                           List<Integer> unavailableTransporterClasses,
+                           List<Long> availableDriverBlockedTimes,
+                           List<DriverPoolState> driverPool,
+                           List<ItemAmount> stock,
+                           List<Integer> orderAmounts,
+                           List<Long> driverBlockedTimes,
+                           List<TransporterState> transporters,
+                           List<Long> factoryBlockedTimes,
+                           List<FactoryBufferState> factoryBuffers)
+    {
+    }
+
+    private static final Comparator<ItemAmount> ITEM_AMOUNT_ORDER = Comparator.nullsFirst(
+            Comparator.comparing(ItemAmount::itemName).thenComparingInt(ItemAmount::amount));
+    private static final Comparator<TransporterState> TRANSPORTER_STATE_ORDER =
+            Comparator.comparingInt(TransporterState::equivalenceClass)
+                    .thenComparingLong(TransporterState::remainingBlockedTime)
+                    .thenComparing(TransporterState::loadedItem, ITEM_AMOUNT_ORDER);
+
+    private final Map<StateKey, Long> completedTimeSteps;
+    private long nrOfHits;
+    private long nrOfMisses;
+
+    /**
+     * Creates an empty table
+     * @param maxNrOfEntries max nr of partial solutions in the table
+     */
+    public TranspositionTable(int maxNrOfEntries)
+    {
+        this.completedTimeSteps = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<StateKey, Long> eldest)
+            {
+                return size() > maxNrOfEntries;
+            }
+        };
+    }
+
+    /**
+     * Checks if a partial solution with the same state was already expanded with the same or an earlier completed time
+     * step. If not, the partial solution is stored.
+     * @param key key of the state (see {@link #createKey(SimulationState, PlanningContext, List)})
+     * @param completedTimeStep time step when the steps of the partial solution are completed
+     * @return true if the partial solution can be skipped
+     */
+    public synchronized boolean checkAndStore(StateKey key, long completedTimeStep)
+    {
+        var storedTimeStep = this.completedTimeSteps.get(key);
+        if(storedTimeStep != null && storedTimeStep <= completedTimeStep)
+        {
+            nrOfHits++;
+            return true;
+        }
+
+        nrOfMisses++;
+        this.completedTimeSteps.put(key, completedTimeStep);
+        return false;
+    }
+
+    /**
+     * @return the nr of partial solutions which were skipped
+     */
+    public synchronized long getNrOfHits()
+    {
+        return nrOfHits;
+    }
+
+    /**
+     * @return the nr of partial solutions which were stored
+     */
+    public synchronized long getNrOfMisses()
+    {
+        return nrOfMisses;
+    }
+
+    /**
+     * Creates the key of the state of a partial solution. The key does not depend on the order of the warehouse
+     * positions, buffer contents, remaining planning items or interchangeable resources.
+     * @param simulationState state after the simulation of the steps of the partial solution
+     * @param context planning context after the planning items of the partial solution
+     * @param remainingPlanningItems planning items which are not planned yet
+     * @return the key
+     */
+    public static StateKey createKey(SimulationState simulationState,
+                                     PlanningContext context,
+                                     List<PlanningItem> remainingPlanningItems)
+    {
+        var remainingPlanningItemIds = new ArrayList<Integer>(remainingPlanningItems.size());
+        for(var planningItem : remainingPlanningItems)
+            remainingPlanningItemIds.add(planningItem.id());
+        Collections.sort(remainingPlanningItemIds);
+
+        var stock = new ArrayList<ItemAmount>();
+        for(var warehousePosition : simulationState.getWarehouse().getWarehouseItems())
+            stock.add(toItemAmount(warehousePosition));
+        stock.sort(ITEM_AMOUNT_ORDER);
+
+        var orderAmounts = new ArrayList<Integer>();
+        for(var order : simulationState.getWorkingOrderList())
+            orderAmounts.add(order.getWarehousePosition().amount());
+
+        var factoryConglomerate = simulationState.getFactoryConglomerate();
+        var currentTimeStep = simulationState.getCurrentTimeStep();
+
+        var factoryBlockedTimes = new ArrayList<Long>();
+        var factoryBuffers = new ArrayList<FactoryBufferState>();
+        for(var factory : factoryConglomerate.getFactories())
+        {
+            factoryBlockedTimes.add(getRemainingBlockedTime(simulationState, factory, currentTimeStep));
+
+            var factoryState = simulationState.getFactoryState(factory);
+            var inputBuffer = new ArrayList<String>();
+            for(var process : factoryState.getProcessesInInputBuffer())
+                inputBuffer.add(process.getProductToProduce().getName());
+            Collections.sort(inputBuffer);
+
+            var outputBuffer = new ArrayList<ItemAmount>();
+            for(var warehousePosition : factoryState.getProductsInOutputBuffer())
+                outputBuffer.add(toItemAmount(warehousePosition));
+            outputBuffer.sort(ITEM_AMOUNT_ORDER);
+
+            factoryBuffers.add(new FactoryBufferState(inputBuffer, outputBuffer,
+                    toItemAmount(factoryState.getProductInProduction())));
+        }
+
+        return new StateKey(remainingPlanningItemIds,
+                context.getUnavailableTransporterClasses(),
+                context.getAvailableDriverBlockedTimes(),
+                getDriverPool(context, factoryConglomerate.getTransporterCompatibility()),
+                stock,
+                orderAmounts,
+                getDriverBlockedTimes(simulationState, factoryConglomerate.getDrivers(), currentTimeStep),
+                getTransporterStates(simulationState, factoryConglomerate.getTransporters(), currentTimeStep),
+                factoryBlockedTimes,
+                factoryBuffers);
+    }
+
+    /**
+     * The transporters of the driver pool are stored with their equivalence class, the pool takes the first
+     * transporter of a class (see {@link PlanningContext#getDriverPoolItems()})
+     * @param context planning context after the planning items of the partial solution
+     * @param transporterCompatibility index with the equivalence classes of the transporters
+     * @return the states of the driver pool items in the order of the pool
+     */
+    private static List<DriverPoolState> getDriverPool(PlanningContext context,
+                                                       TransporterCompatibility transporterCompatibility)
+    {
+        var driverPool = new ArrayList<DriverPoolState>();
+        for(var poolItem : context.getDriverPoolItems())
+        {
+            driverPool.add(new DriverPoolState(poolItem.driver().getBlockedTime(),
+                    transporterCompatibility.getEquivalenceClass(poolItem.transporter())));
+        }
+        return driverPool;
+    }
+
+    /**
+     * Every driver can drive every transporter, so the drivers are interchangeable and stored independent of their
+     * order. Drivers which are not blocked after the simulation are not stored.
+     * @param simulationState state after the simulation
+     * @param drivers drivers of the factory conglomerate
+     * @param currentTimeStep time step at the end of the simulation
+     * @return the sorted blocked times of the blocked drivers
+     */
+    private static List<Long> getDriverBlockedTimes(SimulationState simulationState, List<Driver> drivers, long currentTimeStep)
+    {
+        var blockedTimes = new ArrayList<Long>();
+        for(var driver : drivers)
+        {
+            var blockedTime = getRemainingBlockedTime(simulationState, driver, currentTimeStep);
+            if(blockedTime > 0)
+                blockedTimes.add(blockedTime);
+        }
+        Collections.sort(blockedTimes);
+        return blockedTimes;
+    }
+
+    /**
+     * The transporters are stored with their equivalence class instead of their identity and independent of their
+     * order, so the key does not change if transporters of the same class are swapped. Transporters which are neither
+     * blocked nor loaded after the simulation are not stored.
+     * @param simulationState state after the simulation
+     * @param transporters transporters of the factory conglomerate
+     * @param currentTimeStep time step at the end of the simulation
+     * @return the sorted states of the blocked or loaded transporters
+     */
+    private static List<TransporterState> getTransporterStates(SimulationState simulationState,
+                                                               List<Transporter> transporters,
+                                                               long currentTimeStep)
+    {
+        var transporterCompatibility = simulationState.getFactoryConglomerate().getTransporterCompatibility();
+        var transporterStates = new ArrayList<TransporterState>();
+        for(var transporter : transporters)
+        {
+            var blockedTime = getRemainingBlockedTime(simulationState, transporter, currentTimeStep);
+            var loadedItem = simulationState.getLoadedItem(transporter);
+            if(blockedTime == 0 && loadedItem == null)
+                continue;
+
+            transporterStates.add(new TransporterState(transporterCompatibility.getEquivalenceClass(transporter),
+                    blockedTime, toItemAmount(loadedItem)));
+        }
+        transporterStates.sort(TRANSPORTER_STATE_ORDER);
+        return transporterStates;
+    }
+
+    private static long getRemainingBlockedTime(SimulationState simulationState,
+                                                FactoryObject factoryObject,
+                                                long currentTimeStep)
+    {
+        return Math.max(0, simulationState.getBlockedUntilTimeStep(factoryObject) - currentTimeStep);
+    }
+
+    private static ItemAmount toItemAmount(WarehousePosition warehousePosition)
+    {
+        if(warehousePosition == null)
+            return null;
+        return new ItemAmount(warehousePosition.item().getName(), warehousePosition.amount());
+    }
+}
@@ -120,20 +120,14 @@ public class FirstComeFirstServeOptimizerMain implements IOptimizationService {
     private List<TransporterPlanningItem> getFittingTransporters(WarehouseItem item)
     {
         var fittingTransporters = new ArrayList<TransporterPlanningItem>();
+        if(!item.getItemType().equals(WarehouseItemType.Order) && !item.getItemType().equals(WarehouseItemType.Material))
+            return fittingTransporters;
 
+        var transporterCompatibility = this.factoryConglomerate.getTransporterCompatibility();
         for (var transporterPlanningItem : this.transporterPlanningItems)
         {
-            if(item.getItemType().equals(WarehouseItemType.Order))
-            {
-                if(transporterPlanningItem.getTransporter().areTransportationConstraintsFulfilledForOrder((Order) item))
-                    fittingTransporters.add(transporterPlanningItem);
-            }
-
-            if(item.getItemType().equals(WarehouseItemType.Material))
-            {
-                if(transporterPlanningItem.getTransporter().areTransportationConstraintsFulfilledForMaterial((Material) item))
-                    fittingTransporters.add(transporterPlanningItem);
-            }
+            if(transporterCompatibility.isFitting(transporterPlanningItem.getTransporter(), item))
+                fittingTransporters.add(transporterPlanningItem);
         }
 
         return fittingTransporters;
@@ -0,0 +1,494 @@
+package logistikoptimierung.Services.GeneticAlgorithm;
+
+import logistikoptimierung.Contracts.IAnytimeOptimizationService;
+import logistikoptimierung.Contracts.IIncumbentListener;
+import logistikoptimierung.Contracts.IOptimizationHandle;
+import logistikoptimierung.Entities.FactoryObjects.BatchSimulation;
+import logistikoptimierung.Entities.FactoryObjects.FactoryConglomerate;
+import logistikoptimierung.Entities.FactoryObjects.FactoryStep;
+import logistikoptimierung.Entities.FactoryObjects.SimulationResult;
+import logistikoptimierung.Entities.Instance;
+import logistikoptimierung.Entities.WarehouseItems.Order;
+import logistikoptimierung.Services.EnumeratedCalculation.PlanningItem;
+import logistikoptimierung.Services.EnumeratedCalculation.PlanningItemDecoder;
+import logistikoptimierung.Services.EnumeratedCalculation.PlanningItemGenerator;
+import logistikoptimierung.Services.FirstComeFirstServeOptimizer.FirstComeFirstServeOptimizerMain;
+import logistikoptimierung.Services.OptimizationHandle;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Creates an object of the optimizer with a genetic algorithm. An individual is an order of the planning items
+ * (see {@link PlanningItemGenerator}), the factory steps are created by the {@link PlanningItemDecoder} and the fitness
+ * is the result of the simulation. The first come first serve solution is the first best solution.
+ * The first individual of the first generation is the order in which the planning items are created, the other ones
+ * are mutations of it. A new generation keeps the best individuals of the generation before, the other individuals
+ * are children of two parents (chosen by tournaments) with the order crossover and a mutation (swap or move of a
+ * planning item).
+ * The individuals of a generation are simulated in parallel with a fork join pool. The random numbers are only used
+ * by the calling thread, so with the same seed and without a time limit the optimization returns the same result for
+ * every parallelism.
+ */
+public class GeneticAlgorithmMain implements IAnytimeOptimizationService
+{
+    /**
+     * Nr of generations if neither a max system run time nor a nr of generations is set
+     */
+    private static final int DEFAULT_NR_OF_GENERATIONS = 100;
+    /**
+     * Nr of the best individuals which are kept in the next generation
+     */
+    private static final int NR_OF_ELITE_INDIVIDUALS = 2;
+    /**
+     * Nr of individuals of a tournament for choosing a parent
+     */
+    private static final int TOURNAMENT_SIZE = 3;
+
+    /**
+     * Individual of the population
+     * @param planningItemOrder order of the planning items
+     * @param factorySteps factory steps of the order, null if the order is not possible
+     * @param result time step after the simulation
+     * @param cost cost of the simulation, lower is better
+     */
+    private record Individual(List<PlanningItem> planningItemOrder, List<FactoryStep> factorySteps, long result, double cost)
+    {
+    }
+
+    private final FactoryConglomerate factoryConglomerate;
+    private final List<Order> orderList;
+    private final long maxRuntime;
+    private final boolean condenseMaterialSupplies;
+    private final long maxSystemRunTime;
+    private final PlanningItemDecoder planningItemDecoder;
+
+    private int populationSize = 50;
+    private int nrOfGenerations = 0;
+    private double mutationRate = 0.3;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private long seed = 0;
+
+    private final LongAdder nrOfSimulations = new LongAdder();
+    private int nrOfCalculatedGenerations;
+    private OptimizationHandle optimizationHandle;
+    private BatchSimulation batchSimulation;
+    private long startTime;
+    private double penaltyForRemainingStep;
+
+    /**
+     * Creates an object of the optimizer with a genetic algorithm
+     * @param instance with the factory and the orderlist where the optimization should happen
+     * @param maxRuntime maximum run time of a simulation
+     * @param condenseMaterialSupplies condenses the supplying of the same material to one planning item
+     * @param maxSystemRunTimeInNanoSeconds sets the Runtime of the calculation in nano seconds, after the time is
+     *                                      reached the best result found in the time is returned, 0 for no limit
+     */
+    public GeneticAlgorithmMain(Instance instance,
+                                long maxRuntime,
+                                boolean condenseMaterialSupplies,
+                                long maxSystemRunTimeInNanoSeconds)
+    {
+        this.factoryConglomerate = instance.getFactoryConglomerate();
+        this.orderList = instance.getOrderList();
+        this.maxRuntime = maxRuntime;
+        this.condenseMaterialSupplies = condenseMaterialSupplies;
+        this.maxSystemRunTime = maxSystemRunTimeInNanoSeconds;
+        this.planningItemDecoder = new PlanningItemDecoder(this.factoryConglomerate);
+    }
+
+    /**
+     * @param populationSize sets the nr of individuals of a generation (default 50), at least 2
+     */
+    public void setPopulationSize(int populationSize)
+    {
+        if(populationSize < 2)
+            throw new IllegalArgumentException("Population size must be at least 2: " + populationSize);
+        this.populationSize = populationSize;
+    }
+
+    /**
+     * @return the nr of individuals of a generation
+     */
+    public int getPopulationSize()
+    {
+        return this.populationSize;
+    }
+
+    /**
+     * Sets the nr of generations (default 0). With 0 the calculation only stops at the max system run time, without
+     * a max system run time the calculation stops after 100 generations.
+     * @param nrOfGenerations nr of generations after the first generation, 0 for no limit
+     */
+    public void setNrOfGenerations(int nrOfGenerations)
+    {
+        if(nrOfGenerations < 0)
+            throw new IllegalArgumentException("Nr of generations must not be negative: " + nrOfGenerations);
+        this.nrOfGenerations = nrOfGenerations;
+    }
+
+    /**
+     * @return the nr of generations, 0 for no limit
+     */
+    public int getNrOfGenerations()
+    {
+        return this.nrOfGenerations;
+    }
+
+    /**
+     * @param mutationRate sets the probability of a mutation of a child (default 0.3), between 0 and 1
+     */
+    public void setMutationRate(double mutationRate)
+    {
+        if(!(mutationRate >= 0 && mutationRate <= 1))
+            throw new IllegalArgumentException("Mutation rate must be between 0 and 1: " + mutationRate);
+        this.mutationRate = mutationRate;
+    }
+
+    /**
+     * @return the probability of a mutation of a child
+     */
+    public double getMutationRate()
+    {
+        return this.mutationRate;
+    }
+
+    /**
+     * Sets the nr of threads for the simulation of a generation (default the nr of processors). With 0 the
+     * individuals are simulated sequential in the calling thread.
+     * @param parallelism nr of threads for the calculation
+     */
+    public void setParallelism(int parallelism)
+    {
+        if(parallelism < 0)
+            throw new IllegalArgumentException("Parallelism must not be negative: " + parallelism);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return the nr of threads for the simulation of a generation, 0 if the simulation is sequential
+     */
+    public int getParallelism()
+    {
+        return this.parallelism;
+    }
+
+    /**
+     * @param seed sets the seed of the random crossovers and mutations (default 0)
+     */
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+    }
+
+    /**
+     * @return the seed of the random crossovers and mutations
+     */
+    public long getSeed()
+    {
+        return this.seed;
+    }
+
+    /**
+     * @return Returns the nr of Simulations done in the last optimization
+     */
+    public long getNrOfSimulations()
+    {
+        return this.nrOfSimulations.sum();
+    }
+
+    /**
+     * @return Returns the nr of generations after the first generation of the last optimization
+     */
+    public int getNrOfCalculatedGenerations()
+    {
+        return this.nrOfCalculatedGenerations;
+    }
+
+    /**
+     * Optimizes the order list for the nr given in the parameter. Returns an empty list if the order nr is higher than
+     * the available  orders.
+     * @param nrOfOrdersToOptimize nr of orders which should be optimized.
+     * @return a list of factory steps for the orders
+     */
+    @Override
+    public List<FactoryStep> optimize(int nrOfOrdersToOptimize)
+    {
+        return optimize(nrOfOrdersToOptimize, null);
+    }
+
+    /**
+     * Starts the optimization of the order list in a new thread. The listener gets the first come first serve
+     * solution and the best solution of a generation if it is better than the solutions before. The max system run
+     * time of the calculation is measured from the call of this method and can be changed with the handle.
+     * @param nrOfOrdersToOptimize nr of orders which should be optimized.
+     * @param listener listener for every new best solution, null for no listener
+     * @return the handle of the optimization
+     */
+    @Override
+    public IOptimizationHandle optimizeAsync(int nrOfOrdersToOptimize, IIncumbentListener listener)
+    {
+        var handle = new OptimizationHandle(this.maxSystemRunTime, listener);
+        return handle.start("GeneticAlgorithm", () -> optimize(nrOfOrdersToOptimize, handle));
+    }
+
+    /**
+     * Optimizes the order list for the nr given in the parameter
+     * @param nrOfOrdersToOptimize nr of orders which should be optimized.
+     * @param handle handle of the asynchronous optimization, null for the synchronous optimization
+     * @return a list of factory steps for the orders
+     */
+    private List<FactoryStep> optimize(int nrOfOrdersToOptimize, OptimizationHandle handle)
+    {
+        this.optimizationHandle = handle;
+        this.nrOfSimulations.reset();
+        this.nrOfCalculatedGenerations = 0;
+        if(nrOfOrdersToOptimize > this.orderList.size())
+            return new ArrayList<>();
+
+        var subOrderList = new ArrayList<>(this.orderList.subList(0, nrOfOrdersToOptimize));
+        var planningItems = new PlanningItemGenerator(this.factoryConglomerate, this.condenseMaterialSupplies)
+                .createPlanningItems(subOrderList);
+
+        var firstComeFirstServeOptimizer = new FirstComeFirstServeOptimizerMain(new Instance(this.factoryConglomerate, this.orderList));
+        var firstComeFirstServeSteps = firstComeFirstServeOptimizer.optimize(nrOfOrdersToOptimize);
+        this.batchSimulation = this.factoryConglomerate.createBatchSimulation(this.orderList, this.maxRuntime);
+        this.nrOfSimulations.increment();
+        var simulationResult = this.batchSimulation.simulate(firstComeFirstServeSteps);
+        this.startTime = System.nanoTime();
+        if(handle != null)
+            handle.publishIncumbent(firstComeFirstServeSteps, simulationResult.makespan(), 0);
+
+        //The penalty for a remaining step is a small part of the first come first serve makespan
+        this.penaltyForRemainingStep = Math.max(1, simulationResult.makespan() / 50.0);
+        var best = new Individual(null, firstComeFirstServeSteps, simulationResult.makespan(), getCost(simulationResult));
+
+        if(this.planningItemDecoder.createSteps(planningItems) == null)
+        {
+            //The planning items are not possible in any order
+            System.out.println("Planning items are not possible, first come first serve solution is used");
+            return firstComeFirstServeSteps;
+        }
+
+        var pool = this.parallelism == 0 ? null : new ForkJoinPool(this.parallelism);
+        try
+        {
+            var random = new Random(this.seed);
+            var orders = new ArrayList<List<PlanningItem>>();
+            orders.add(planningItems);
+            while (orders.size() < this.populationSize)
+            {
+                //Mutations with a different strength, so the first generation contains similar and different orders
+                var order = planningItems;
+                var nrOfMutations = 1 + random.nextInt(Math.max(1, planningItems.size()));
+                for(int i = 0; i < nrOfMutations; i++)
+                    order = mutate(order, random);
+                orders.add(order);
+            }
+
+            var population = evaluate(orders, pool);
+            best = updateBestIndividual(best, population);
+            while (!isStopRequested())
+            {
+                var nextOrders = new ArrayList<List<PlanningItem>>();
+                for(int i = 0; i < Math.min(NR_OF_ELITE_INDIVIDUALS, population.size()); i++)
+                    nextOrders.add(population.get(i).planningItemOrder());
+
+                while (nextOrders.size() < this.populationSize)
+                {
+                    var firstParent = chooseParent(population, random);
+                    var secondParent = chooseParent(population, random);
+                    var child = orderCrossover(firstParent.planningItemOrder(), secondParent.planningItemOrder(), random);
+                    if(random.nextDouble() < this.mutationRate)
+                        child = mutate(child, random);
+                    nextOrders.add(child);
+                }
+
+                //The elite individuals are not simulated again
+                var nextPopulation = new ArrayList<>(population.subList(0, Math.min(NR_OF_ELITE_INDIVIDUALS, population.size())));
+                nextPopulation.addAll(evaluate(nextOrders.subList(nextPopulation.size(), nextOrders.size()), pool));
+                nextPopulation.sort(Comparator.comparingDouble(Individual::cost));
+                population = nextPopulation;
+                this.nrOfCalculatedGenerations++;
+                best = updateBestIndividual(best, population);
+            }
+        }
+        finally
+        {
+            if(pool != null)
+                pool.shutdown();
+        }
+
+        return best.factorySteps();
+    }
+
+    /**
+     * Creates the factory steps of the orders and simulates them as a batch, in parallel if a pool is given
+     * @param orders orders of the planning items
+     * @param pool pool for the parallel simulation, null for the sequential simulation
+     * @return the individuals sorted by the cost, the order of the list does not depend on the parallelism
+     */
+    private List<Individual> evaluate(List<List<PlanningItem>> orders, ForkJoinPool pool)
+    {
+        List<List<FactoryStep>> factoryStepLists;
+        if(pool == null)
+            factoryStepLists = orders.stream().map(this.planningItemDecoder::createSteps).toList();
+        else
+            factoryStepLists = pool.submit(() -> orders.parallelStream().map(this.planningItemDecoder::createSteps).toList()).join();
+
+        //Orders which are not possible are not simulated
+        var possibleStepLists = new ArrayList<List<FactoryStep>>();
+        for(var factorySteps : factoryStepLists)
+        {
+            if(factorySteps != null)
+                possibleStepLists.add(factorySteps);
+        }
+        this.nrOfSimulations.add(possibleStepLists.size());
+        var simulationResults = this.batchSimulation.simulate(possibleStepLists, pool).iterator();
+
+        var individuals = new ArrayList<Individual>(orders.size());
+        for(int i = 0; i < orders.size(); i++)
+        {
+            var factorySteps = factoryStepLists.get(i);
+            if(factorySteps == null)
+            {
+                individuals.add(new Individual(orders.get(i), null, this.maxRuntime, Double.MAX_VALUE));
+                continue;
+            }
+
+            var simulationResult = simulationResults.next();
+            individuals.add(new Individual(orders.get(i), factorySteps, simulationResult.makespan(), getCost(simulationResult)));
+        }
+
+        individuals.sort(Comparator.comparingDouble(Individual::cost));
+        return individuals;
+    }
+
+    /**
+     * A completed simulation costs its makespan, a simulation with remaining steps costs the max run time and a penalty
+     * for every remaining step. With this an individual with less remaining steps is better.
+     * @param simulationResult result of the simulation
+     * @return the cost of the simulation
+     */
+    private double getCost(SimulationResult simulationResult)
+    {
+        if(simulationResult.isCompleted())
+            return simulationResult.makespan();
+        return this.maxRuntime + simulationResult.nrOfRemainingSteps() * this.penaltyForRemainingStep;
+    }
+
+    /**
+     * @param best best individual before the generation
+     * @param population population sorted by the cost
+     * @return the best individual after the generation
+     */
+    private Individual updateBestIndividual(Individual best, List<Individual> population)
+    {
+        var bestOfPopulation = population.get(0);
+        if(bestOfPopulation.cost() >= best.cost())
+            return best;
+
+        if(this.optimizationHandle != null)
+            this.optimizationHandle.publishIncumbent(bestOfPopulation.factorySteps(), bestOfPopulation.result(), this.nrOfSimulations.sum());
+        else if(this.factoryConglomerate.getLogSettings().printOptimizationMessages())
+            System.out.println("Generation: " + this.nrOfCalculatedGenerations + " Nr of simulations: " + this.nrOfSimulations.sum() +
+                    " Result: " + bestOfPopulation.result());
+        return bestOfPopulation;
+    }
+
+    /**
+     * Chooses the best individual of a tournament with random individuals
+     * @param population population of the generation
+     * @param random random of the optimization
+     * @return the parent
+     */
+    private static Individual chooseParent(List<Individual> population, Random random)
+    {
+        Individual parent = null;
+        for(int i = 0; i < TOURNAMENT_SIZE; i++)
+        {
+            var individual = population.get(random.nextInt(population.size()));
+            if(parent == null || individual.cost() < parent.cost())
+                parent = individual;
+        }
+        return parent;
+    }
+
+    /**
+     * Order crossover: the child gets a random part of the first parent at the same positions, the other positions get
+     * the remaining planning items in the order of the second parent.
+     * @param firstParent order of the first parent
+     * @param secondParent order of the second parent
+     * @param random random of the optimization
+     * @return the order of the child
+     */
+    private static List<PlanningItem> orderCrossover(List<PlanningItem> firstParent, List<PlanningItem> secondParent, Random random)
+    {
+        var size = firstParent.size();
+        if(size == 0)
+            return new ArrayList<>(firstParent);
+
+        var start = random.nextInt(size);
+        var end = start + random.nextInt(size - start) + 1;
+
+        var child = new PlanningItem[size];
+        var usedPlanningItems = new HashSet<PlanningItem>();
+        for(int i = start; i < end; i++)
+        {
+            child[i] = firstParent.get(i);
+            usedPlanningItems.add(child[i]);
+        }
+
+        var position = 0;
+        for(var planningItem : secondParent)
+        {
+            if(usedPlanningItems.contains(planningItem))
+                continue;
+            if(position == start)
+                position = end;
+            child[position++] = planningItem;
+        }
+        return Arrays.asList(child);
+    }
+
+    /**
+     * Swaps two planning items or moves a planning item to another position
+     * @param planningItemOrder order of the planning items
+     * @param random random of the optimization
+     * @return the mutated order
+     */
+    private static List<PlanningItem> mutate(List<PlanningItem> planningItemOrder, Random random)
+    {
+        var newOrder = new ArrayList<>(planningItemOrder);
+        if(newOrder.size() < 2)
+            return newOrder;
+
+        var first = random.nextInt(newOrder.size());
+        var second = random.nextInt(newOrder.size() - 1);
+        if(second >= first)
+            second++;
+
+        if(random.nextBoolean())
+            Collections.swap(newOrder, first, second);
+        else
+            newOrder.add(second, newOrder.remove(first));
+        return newOrder;
+    }
+
+    /**
+     * @return true if the nr of generations or the max system run time of the calculation is reached. The
+     * asynchronous optimization uses the run time of the handle and stops if the handle was cancelled.
+     */
+    private boolean isStopRequested()
+    {
+        if(this.nrOfGenerations != 0 && this.nrOfCalculatedGenerations >= this.nrOfGenerations)
+            return true;
+        if(this.nrOfGenerations == 0 && this.maxSystemRunTime == 0 && this.optimizationHandle == null &&
+                this.nrOfCalculatedGenerations >= DEFAULT_NR_OF_GENERATIONS)
+            return true;
+        if(this.optimizationHandle != null)
+            return this.optimizationHandle.isStopRequested();
+        return this.maxSystemRunTime != 0 && System.nanoTime() > (this.maxSystemRunTime + this.startTime);
+    }
+}
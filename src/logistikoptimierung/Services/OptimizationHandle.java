@@ -0,0 +1,123 @@
+package logistikoptimierung.Services;
+
+import logistikoptimierung.Contracts.IIncumbentListener;
+import logistikoptimierung.Contracts.IOptimizationHandle;
+import logistikoptimierung.Entities.FactoryObjects.FactoryStep;
+import logistikoptimierung.Entities.Incumbent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Handle of an asynchronous optimization. The optimizer publishes every new best solution with
+ * {@link #publishIncumbent(List, long, long)} and checks with {@link #isStopRequested()} if it should stop.
+ * The optimization runs in its own thread which is started with {@link #start(String, Supplier)}.
+ */
+public class OptimizationHandle implements IOptimizationHandle
+{
+    private final IIncumbentListener listener;
+    private final CompletableFuture<List<FactoryStep>> result;
+    private final long startTime;
+    private volatile long maxSystemRunTime;
+    private volatile boolean cancelled;
+    private volatile Incumbent incumbent;
+
+    /**
+     * Creates a handle, the run time is measured from the creation of the handle
+     * @param maxSystemRunTimeInNanoSeconds max run time in nano seconds, 0 for no limit
+     * @param listener listener for every new best solution, null for no listener
+     */
+    public OptimizationHandle(long maxSystemRunTimeInNanoSeconds, IIncumbentListener listener)
+    {
+        this.listener = listener;
+        this.result = new CompletableFuture<>();
+        this.startTime = System.nanoTime();
+        this.maxSystemRunTime = maxSystemRunTimeInNanoSeconds;
+    }
+
+    /**
+     * Starts the optimization in a new thread, the result of the optimization completes the handle
+     * @param threadName name of the thread
+     * @param optimization optimization which returns the factory steps of the best solution
+     * @return this handle
+     */
+    public OptimizationHandle start(String threadName, Supplier<List<FactoryStep>> optimization)
+    {
+        var thread = new Thread(() -> {
+            try
+            {
+                this.result.complete(optimization.get());
+            }
+            catch (Throwable throwable)
+            {
+                this.result.completeExceptionally(throwable);
+            }
+        }, threadName);
+        thread.start();
+        return this;
+    }
+
+    /**
+     * Stores the new best solution and calls the listener. Should be called in the order the solutions are found.
+     * @param factorySteps factory steps of the solution, the list is copied
+     * @param makespan the time step when the simulation of the factory steps is finished
+     * @param nrOfSimulations the nr of simulations of the optimization until the solution was found
+     */
+    public void publishIncumbent(List<FactoryStep> factorySteps, long makespan, long nrOfSimulations)
+    {
+        var newIncumbent = new Incumbent(Collections.unmodifiableList(new ArrayList<>(factorySteps)),
+                makespan,
+                nrOfSimulations,
+                System.nanoTime() - this.startTime);
+        this.incumbent = newIncumbent;
+        if(this.listener != null)
+            this.listener.onNewIncumbent(newIncumbent);
+    }
+
+    /**
+     * @return true if the optimization was cancelled or the max run time is reached
+     */
+    public boolean isStopRequested()
+    {
+        if(this.cancelled)
+            return true;
+
+        var runTime = this.maxSystemRunTime;
+        return runTime != 0 && System.nanoTime() > this.startTime + runTime;
+    }
+
+    @Override
+    public Incumbent getIncumbent()
+    {
+        return this.incumbent;
+    }
+
+    @Override
+    public List<FactoryStep> awaitResult()
+    {
+        return this.result.join();
+    }
+
+    @Override
+    public boolean isDone()
+    {
+        return this.result.isDone();
+    }
+
+    @Override
+    public void cancel()
+    {
+        this.cancelled = true;
+    }
+
+    @Override
+    public void setMaxSystemRunTime(long maxSystemRunTimeInNanoSeconds)
+    {
+        if(maxSystemRunTimeInNanoSeconds < 0)
+            throw new IllegalArgumentException("Max system run time must not be negative: " + maxSystemRunTimeInNanoSeconds);
+        this.maxSystemRunTime = maxSystemRunTimeInNanoSeconds;
+    }
+}
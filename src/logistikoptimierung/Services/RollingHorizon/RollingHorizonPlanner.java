@@ -0,0 +1,344 @@
+package logistikoptimierung.Services.RollingHorizon;
+
+import logistikoptimierung.Entities.FactoryObjects.FactoryConglomerate;
+import logistikoptimierung.Entities.FactoryObjects.FactoryStep;
+import logistikoptimierung.Entities.FactoryObjects.SimulationState;
+import logistikoptimierung.Entities.WarehouseItems.Order;
+import logistikoptimierung.Services.EnumeratedCalculation.PlanningItem;
+import logistikoptimierung.Services.EnumeratedCalculation.PlanningItemDecoder;
+import logistikoptimierung.Services.EnumeratedCalculation.PlanningItemGenerator;
+
+import java.util.*;
+
+/**
+ * Plans the orders with a rolling horizon. The orders are added while the plan is performed, every call of
+ * {@link #addOrders(List, long)} creates a new plan from the freeze time step on:
+ * - The current plan is simulated until the freeze time step. A planning item with a step which was performed before
+ * the freeze time step is frozen, its steps stay in the plan.
+ * - The planning items of the new orders (see {@link PlanningItemGenerator}) are added after the planning items which
+ * are not frozen. This order of the planning items is the start of the search, so the plan before is kept if the new
+ * orders do not need a change.
+ * - Only the order of the planning items which are not frozen is optimized with random swaps and moves of planning
+ * items. A new order is simulated from the state at the freeze time step, the simulation before the freeze time step
+ * is not changed.
+ * The planner keeps the state of the plan between the calls, a planner should only be used by one thread.
+ */
+public class RollingHorizonPlanner
+{
+    private static final int DEFAULT_MAX_NR_OF_ITERATIONS = 2000;
+
+    /**
+     * Part of the plan which can be changed
+     * @param frozenSteps steps of the frozen planning items
+     * @param remainingFrozenSteps steps of the frozen planning items which are not performed before the freeze time step
+     * @param startState state at the freeze time step without remaining steps and with the new orders
+     * @param freezeTimeStep time step from which the plan can be changed
+     */
+    private record PlanningWindow(List<FactoryStep> frozenSteps,
+                                  List<FactoryStep> remainingFrozenSteps,
+                                  SimulationState startState,
+                                  long freezeTimeStep)
+    {
+    }
+
+    /**
+     * Plan of the window
+     * @param planningItemOrder order of the planning items
+     * @param stepsOfPlanningItems steps of the planning items in the order of the planning
+     * @param steps remaining frozen steps and the steps of the planning items, in the order of the step list
+     * @param result time step after the simulation
+     * @param nrOfRemainingSteps nr of steps which were not performed in the simulation
+     * @param cost makespan of a complete simulation, the max run time and the nr of remaining steps if not complete
+     */
+    private record WindowSolution(List<PlanningItem> planningItemOrder,
+                                  LinkedHashMap<PlanningItem, List<FactoryStep>> stepsOfPlanningItems,
+                                  List<FactoryStep> steps,
+                                  long result,
+                                  int nrOfRemainingSteps,
+                                  long cost)
+    {
+    }
+
+    private final FactoryConglomerate factoryConglomerate;
+    private final long maxRuntime;
+    private final boolean condenseMaterialSupplies;
+    private final long maxSystemRunTime;
+    private final PlanningItemDecoder planningItemDecoder;
+
+    private int maxNrOfIterations = DEFAULT_MAX_NR_OF_ITERATIONS;
+    private long seed = 0;
+
+    private final List<Order> orders = new ArrayList<>();
+    private LinkedHashMap<PlanningItem, List<FactoryStep>> stepsOfPlanningItems = new LinkedHashMap<>();
+    private SimulationState planState;
+    private List<FactoryStep> planSteps = new ArrayList<>();
+    private List<FactoryStep> plan = new ArrayList<>();
+    private long freezeTimeStep = 0;
+    private long result = 0;
+    private int nrOfRemainingSteps = 0;
+    private int nextPlanningItemId = 1;
+    private int nrOfFrozenPlanningItems = 0;
+    private long nrOfSimulations;
+
+    /**
+     * Creates the planner without orders
+     * @param factoryConglomerate factory conglomerate for which the orders are planned
+     * @param maxRuntime maximum run time of a simulation
+     * @param condenseMaterialSupplies condenses the supplying of the same material of the new orders to one planning
+     *                                 item
+     * @param maxSystemRunTimeInNanoSeconds sets the Runtime of every new plan in nano seconds, after the time is
+     *                                      reached the best plan found in the time is used, 0 for no limit
+     */
+    public RollingHorizonPlanner(FactoryConglomerate factoryConglomerate,
+                                 long maxRuntime,
+                                 boolean condenseMaterialSupplies,
+                                 long maxSystemRunTimeInNanoSeconds)
+    {
+        this.factoryConglomerate = factoryConglomerate;
+        this.maxRuntime = maxRuntime;
+        this.condenseMaterialSupplies = condenseMaterialSupplies;
+        this.maxSystemRunTime = maxSystemRunTimeInNanoSeconds;
+        this.planningItemDecoder = new PlanningItemDecoder(factoryConglomerate);
+        this.planState = factoryConglomerate.createSimulationState(List.of());
+    }
+
+    /**
+     * @param maxNrOfIterations sets the max nr of simulated changes of the planning item order for a new plan
+     *                          (default 2000), 0 to use the order without a change
+     */
+    public void setMaxNrOfIterations(int maxNrOfIterations)
+    {
+        if(maxNrOfIterations < 0)
+            throw new IllegalArgumentException("Max nr of iterations must not be negative: " + maxNrOfIterations);
+        this.maxNrOfIterations = maxNrOfIterations;
+    }
+
+    /**
+     * @return the max nr of simulated changes of the planning item order for a new plan
+     */
+    public int getMaxNrOfIterations()
+    {
+        return this.maxNrOfIterations;
+    }
+
+    /**
+     * @param seed sets the seed of the random changes (default 0)
+     */
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+    }
+
+    /**
+     * @return the seed of the random changes
+     */
+    public long getSeed()
+    {
+        return this.seed;
+    }
+
+    /**
+     * Adds the new orders and creates a new plan from the freeze time step on. The steps which were performed before
+     * the freeze time step and the other steps of their planning items are kept. If the orders can not be planned,
+     * the plan before is kept.
+     * @param newOrders orders which arrived since the last plan, can be empty for a new plan of the current orders
+     * @param freezeTimeStep time step from which the plan can be changed, not before the freeze time step of the plan
+     *                       before
+     * @return every step of the new plan, the performed steps and the steps after the freeze time step
+     * @throws IllegalStateException if the planning items of the orders are not possible in any order
+     */
+    public List<FactoryStep> addOrders(List<Order> newOrders, long freezeTimeStep)
+    {
+        if(freezeTimeStep < this.freezeTimeStep)
+            throw new IllegalArgumentException("Freeze time step must not be before the last freeze time step: " + freezeTimeStep);
+
+        var stateAtFreezeTimeStep = this.planState.copy();
+        this.factoryConglomerate.continueSimulationUntil(stateAtFreezeTimeStep, this.planSteps, this.freezeTimeStep, freezeTimeStep);
+
+        //Planning items which started before the freeze time step are kept
+        var frozenStepsOfPlanningItems = new LinkedHashMap<PlanningItem, List<FactoryStep>>();
+        var openPlanningItems = new ArrayList<PlanningItem>();
+        for(var entry : this.stepsOfPlanningItems.entrySet())
+        {
+            if(entry.getValue().stream().anyMatch(stateAtFreezeTimeStep::isStepCompleted))
+                frozenStepsOfPlanningItems.put(entry.getKey(), entry.getValue());
+            else
+                openPlanningItems.add(entry.getKey());
+        }
+
+        var frozenSteps = new ArrayList<FactoryStep>();
+        for(var steps : frozenStepsOfPlanningItems.values())
+            frozenSteps.addAll(steps);
+        var remainingFrozenSteps = new ArrayList<FactoryStep>();
+        for(var step : frozenSteps)
+        {
+            if(!stateAtFreezeTimeStep.isStepCompleted(step))
+                remainingFrozenSteps.add(step);
+        }
+
+        //The ids of the planning items need to be unique over every plan
+        var planningItemOrder = new ArrayList<>(openPlanningItems);
+        var nextId = this.nextPlanningItemId;
+        for(var planningItem : new PlanningItemGenerator(this.factoryConglomerate, this.condenseMaterialSupplies).createPlanningItems(newOrders))
+            planningItemOrder.add(new PlanningItem(nextId++, planningItem.item(), planningItem.amount(), planningItem.planningType()));
+
+        var startState = stateAtFreezeTimeStep.copyForNewPlan(newOrders);
+        var window = new PlanningWindow(frozenSteps, remainingFrozenSteps, startState, freezeTimeStep);
+        var solution = optimizeWindow(window, planningItemOrder);
+        if(solution == null)
+            throw new IllegalStateException("The planning items of the orders are not possible in any order");
+
+        this.orders.addAll(newOrders);
+        this.nextPlanningItemId = nextId;
+        this.nrOfFrozenPlanningItems = frozenStepsOfPlanningItems.size();
+        this.stepsOfPlanningItems = frozenStepsOfPlanningItems;
+        this.stepsOfPlanningItems.putAll(solution.stepsOfPlanningItems());
+        this.planState = startState;
+        this.planSteps = solution.steps();
+        this.freezeTimeStep = freezeTimeStep;
+        this.result = solution.result();
+        this.nrOfRemainingSteps = solution.nrOfRemainingSteps();
+
+        this.plan = new ArrayList<>(frozenSteps);
+        this.plan.addAll(solution.steps().subList(remainingFrozenSteps.size(), solution.steps().size()));
+        return getPlan();
+    }
+
+    /**
+     * Optimizes the order of the planning items of the window with random swaps and moves. A change is kept if the
+     * cost does not get worse.
+     * @param window part of the plan which can be changed
+     * @param planningItemOrder start order of the planning items
+     * @return the best solution, null if the planning items are not possible in any order
+     */
+    private WindowSolution optimizeWindow(PlanningWindow window, List<PlanningItem> planningItemOrder)
+    {
+        var startTime = System.nanoTime();
+        var current = simulateWindow(window, planningItemOrder);
+        if(current == null)
+            return null;
+
+        var random = new Random(this.seed);
+        var best = current;
+        for(int iteration = 0; iteration < this.maxNrOfIterations && planningItemOrder.size() > 1; iteration++)
+        {
+            if(this.maxSystemRunTime != 0 && System.nanoTime() > startTime + this.maxSystemRunTime)
+                break;
+
+            var neighbour = simulateWindow(window, changePlanningItemOrder(current.planningItemOrder(), random));
+            if(neighbour == null || neighbour.cost() > current.cost())
+                continue;
+
+            current = neighbour;
+            if(current.cost() < best.cost())
+            {
+                best = current;
+                if(this.factoryConglomerate.getLogSettings().printOptimizationMessages())
+                    System.out.println("Nr of simulations: " + this.nrOfSimulations + " Result: " + best.result() +
+                            " Nr Remaining Steps:" + best.nrOfRemainingSteps());
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Creates the steps of the planning items after the frozen steps and simulates them from the freeze time step
+     * @param window part of the plan which can be changed
+     * @param planningItemOrder order of the planning items
+     * @return the solution, null if a planning item is not possible
+     */
+    private WindowSolution simulateWindow(PlanningWindow window, List<PlanningItem> planningItemOrder)
+    {
+        var stepsOfPlanningItems = this.planningItemDecoder.createStepsForPlanningItems(window.frozenSteps(), planningItemOrder, Map.of());
+        if(stepsOfPlanningItems == null)
+            return null;
+
+        var steps = new ArrayList<>(window.remainingFrozenSteps());
+        for(var stepsOfPlanningItem : stepsOfPlanningItems.values())
+            steps.addAll(stepsOfPlanningItem);
+
+        this.nrOfSimulations++;
+        var simulationState = window.startState().copy();
+        var result = this.factoryConglomerate.continueSimulation(simulationState, steps, window.freezeTimeStep(), this.maxRuntime);
+        var remainingSteps = simulationState.getNrOfRemainingSteps();
+        var cost = remainingSteps == 0 ? result : this.maxRuntime + remainingSteps;
+        return new WindowSolution(new ArrayList<>(stepsOfPlanningItems.keySet()), stepsOfPlanningItems, steps, result, remainingSteps, cost);
+    }
+
+    /**
+     * Swaps two planning items or moves a planning item to another position
+     * @param planningItemOrder order of the planning items, at least two planning items
+     * @param random random of the optimization
+     * @return the changed order
+     */
+    private static List<PlanningItem> changePlanningItemOrder(List<PlanningItem> planningItemOrder, Random random)
+    {
+        var newOrder = new ArrayList<>(planningItemOrder);
+        var first = random.nextInt(newOrder.size());
+        var second = random.nextInt(newOrder.size() - 1);
+        if(second >= first)
+            second++;
+
+        if(random.nextBoolean())
+            Collections.swap(newOrder, first, second);
+        else
+            newOrder.add(second, newOrder.remove(first));
+        return newOrder;
+    }
+
+    /**
+     * @return every step of the current plan, the performed steps and the steps after the freeze time step
+     */
+    public List<FactoryStep> getPlan()
+    {
+        return Collections.unmodifiableList(this.plan);
+    }
+
+    /**
+     * @return every order which was added to the planner
+     */
+    public List<Order> getOrders()
+    {
+        return Collections.unmodifiableList(this.orders);
+    }
+
+    /**
+     * @return the time step after the simulation of the current plan
+     */
+    public long getResult()
+    {
+        return this.result;
+    }
+
+    /**
+     * @return the nr of steps of the current plan which were not performed in the simulation
+     */
+    public int getNrOfRemainingSteps()
+    {
+        return this.nrOfRemainingSteps;
+    }
+
+    /**
+     * @return the time step from which the current plan was changed
+     */
+    public long getFreezeTimeStep()
+    {
+        return this.freezeTimeStep;
+    }
+
+    /**
+     * @return the nr of planning items which were frozen for the current plan
+     */
+    public int getNrOfFrozenPlanningItems()
+    {
+        return this.nrOfFrozenPlanningItems;
+    }
+
+    /**
+     * @return the nr of simulations of every plan
+     */
+    public long getNrOfSimulations()
+    {
+        return this.nrOfSimulations;
+    }
+}
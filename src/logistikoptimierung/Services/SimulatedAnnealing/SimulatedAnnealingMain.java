@@ -0,0 +1,483 @@
+package logistikoptimierung.Services.SimulatedAnnealing;
+
+import logistikoptimierung.Contracts.IAnytimeOptimizationService;
+import logistikoptimierung.Contracts.IIncumbentListener;
+import logistikoptimierung.Contracts.IOptimizationHandle;
+import logistikoptimierung.Entities.FactoryObjects.*;
+import logistikoptimierung.Entities.Instance;
+import logistikoptimierung.Entities.WarehouseItems.Material;
+import logistikoptimierung.Entities.WarehouseItems.Order;
+import logistikoptimierung.Services.EnumeratedCalculation.PlanningItem;
+import logistikoptimierung.Services.EnumeratedCalculation.PlanningItemDecoder;
+import logistikoptimierung.Services.EnumeratedCalculation.PlanningItemGenerator;
+import logistikoptimierung.Services.EnumeratedCalculation.PlanningType;
+import logistikoptimierung.Services.FirstComeFirstServeOptimizer.FirstComeFirstServeOptimizerMain;
+import logistikoptimierung.Services.OptimizationHandle;
+
+import java.util.*;
+
+/**
+ * Creates an object of the optimizer with simulated annealing. The first come first serve solution is the first best
+ * solution. The search starts with the planning items (see {@link PlanningItemGenerator}) in the order of their
+ * creation (acquire, produce and deliver, like the first come first serve optimizer) and changes the solution with
+ * neighborhood moves:
+ * swap two planning items, move a production batch to another position and use another transporter for the trips of
+ * an acquire or deliver planning item. The drivers are not part of the steps, they are assigned in the simulation.
+ * Every neighbor is simulated with {@link FactoryConglomerate#startSimulation(SimulationState, List, boolean, long)}.
+ * The factory steps of a solution are created by the {@link PlanningItemDecoder}.
+ * A worse neighbor is accepted with the probability exp(-difference / temperature), the acceptance threshold is drawn
+ * before the simulation, so the simulation stops as soon as the threshold is reached.
+ * The temperature decreases from the initial temperature to 1/1000 of it over the run time (or the max nr of
+ * iterations). Without a time limit and with the same seed the optimization returns the same result.
+ */
+public class SimulatedAnnealingMain implements IAnytimeOptimizationService
+{
+    /**
+     * Max nr of iterations if neither a max system run time nor a max nr of iterations is set
+     */
+    private static final long DEFAULT_MAX_NR_OF_ITERATIONS = 10000;
+    /**
+     * The temperature decreases to this factor of the initial temperature
+     */
+    private static final double FINAL_TEMPERATURE_FACTOR = 0.001;
+    /**
+     * Min distance of two positions of a move, the distance grows with the nr of planning items
+     */
+    private static final int MIN_MOVE_DISTANCE = 3;
+
+    private final FactoryConglomerate factoryConglomerate;
+    private final List<Order> orderList;
+    private final long maxRuntime;
+    private final boolean condenseMaterialSupplies;
+    private final long maxSystemRunTime;
+    private final PlanningItemDecoder planningItemDecoder;
+
+    private long maxNrOfIterations = 0;
+    private long seed = 0;
+    private double initialTemperatureRatio = 0.02;
+
+    private long nrOfSimulations;
+    private long nrOfAcceptedMoves;
+    private long nrOfInfeasibleMoves;
+    private OptimizationHandle optimizationHandle;
+    private long startTime;
+
+    private List<FactoryStep> bestSolution;
+    private long bestTimeSolution;
+    private double bestCost;
+    private double penaltyForRemainingStep;
+
+    /**
+     * Creates an object of the optimizer with simulated annealing
+     * @param instance with the factory and the orderlist where the optimization should happen
+     * @param maxRuntime maximum run time of a simulation
+     * @param condenseMaterialSupplies condenses the supplying of the same material to one planning item
+     * @param maxSystemRunTimeInNanoSeconds sets the Runtime of the calculation in nano seconds, after the time is
+     *                                      reached the best result found in the time is returned, 0 for no limit
+     */
+    public SimulatedAnnealingMain(Instance instance,
+                                  long maxRuntime,
+                                  boolean condenseMaterialSupplies,
+                                  long maxSystemRunTimeInNanoSeconds)
+    {
+        this.factoryConglomerate = instance.getFactoryConglomerate();
+        this.orderList = instance.getOrderList();
+        this.maxRuntime = maxRuntime;
+        this.condenseMaterialSupplies = condenseMaterialSupplies;
+        this.maxSystemRunTime = maxSystemRunTimeInNanoSeconds;
+        this.planningItemDecoder = new PlanningItemDecoder(this.factoryConglomerate);
+    }
+
+    /**
+     * Sets the max nr of iterations (default 0). With 0 the calculation only stops at the max system run time, without
+     * a max system run time the calculation stops after 10000 iterations.
+     * @param maxNrOfIterations max nr of neighbors, 0 for no limit
+     */
+    public void setMaxNrOfIterations(long maxNrOfIterations)
+    {
+        if(maxNrOfIterations < 0)
+            throw new IllegalArgumentException("Max nr of iterations must not be negative: " + maxNrOfIterations);
+        this.maxNrOfIterations = maxNrOfIterations;
+    }
+
+    /**
+     * @return the max nr of iterations, 0 for no limit
+     */
+    public long getMaxNrOfIterations()
+    {
+        return this.maxNrOfIterations;
+    }
+
+    /**
+     * @param seed sets the seed of the random moves (default 0)
+     */
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+    }
+
+    /**
+     * @return the seed of the random moves
+     */
+    public long getSeed()
+    {
+        return this.seed;
+    }
+
+    /**
+     * Sets the initial temperature as part of the makespan of the first come first serve solution (default 0.02).
+     * A neighbor which is worse by this difference is accepted with a probability of 1/e at the start.
+     * @param initialTemperatureRatio ratio of the makespan, higher than 0
+     */
+    public void setInitialTemperatureRatio(double initialTemperatureRatio)
+    {
+        if(!(initialTemperatureRatio > 0))
+            throw new IllegalArgumentException("Initial temperature ratio must be higher than 0: " + initialTemperatureRatio);
+        this.initialTemperatureRatio = initialTemperatureRatio;
+    }
+
+    /**
+     * @return the initial temperature as part of the makespan of the first come first serve solution
+     */
+    public double getInitialTemperatureRatio()
+    {
+        return this.initialTemperatureRatio;
+    }
+
+    /**
+     * Optimizes the order list for the nr given in the parameter. Returns an empty list if the order nr is higher than
+     * the available  orders.
+     * @param nrOfOrdersToOptimize nr of orders which should be optimized.
+     * @return a list of factory steps for the orders
+     */
+    @Override
+    public List<FactoryStep> optimize(int nrOfOrdersToOptimize)
+    {
+        return optimize(nrOfOrdersToOptimize, null);
+    }
+
+    /**
+     * Starts the optimization of the order list in a new thread. The listener gets the first come first serve
+     * solution and every better solution. The max system run time of the calculation is measured from the call of this
+     * method and can be changed with the handle, the temperature decreases over the max system run time of the
+     * optimizer.
+     * @param nrOfOrdersToOptimize nr of orders which should be optimized.
+     * @param listener listener for every new best solution, null for no listener
+     * @return the handle of the optimization
+     */
+    @Override
+    public IOptimizationHandle optimizeAsync(int nrOfOrdersToOptimize, IIncumbentListener listener)
+    {
+        var handle = new OptimizationHandle(this.maxSystemRunTime, listener);
+        return handle.start("SimulatedAnnealing", () -> optimize(nrOfOrdersToOptimize, handle));
+    }
+
+    /**
+     * @return Returns the nr of Simulations done in the last optimization
+     */
+    public long getNrOfSimulations()
+    {
+        return this.nrOfSimulations;
+    }
+
+    /**
+     * @return Returns the nr of neighbors which were accepted in the last optimization
+     */
+    public long getNrOfAcceptedMoves()
+    {
+        return this.nrOfAcceptedMoves;
+    }
+
+    /**
+     * @return Returns the nr of neighbors which were not possible in the last optimization
+     */
+    public long getNrOfInfeasibleMoves()
+    {
+        return this.nrOfInfeasibleMoves;
+    }
+
+    /**
+     * Optimizes the order list for the nr given in the parameter
+     * @param nrOfOrdersToOptimize nr of orders which should be optimized.
+     * @param handle handle of the asynchronous optimization, null for the synchronous optimization
+     * @return a list of factory steps for the orders
+     */
+    private List<FactoryStep> optimize(int nrOfOrdersToOptimize, OptimizationHandle handle)
+    {
+        this.optimizationHandle = handle;
+        this.nrOfSimulations = 0;
+        this.nrOfAcceptedMoves = 0;
+        this.nrOfInfeasibleMoves = 0;
+        if(nrOfOrdersToOptimize > this.orderList.size())
+            return new ArrayList<>();
+
+        var subOrderList = new ArrayList<>(this.orderList.subList(0, nrOfOrdersToOptimize));
+        var planningItems = new PlanningItemGenerator(this.factoryConglomerate, this.condenseMaterialSupplies)
+                .createPlanningItems(subOrderList);
+
+        var firstComeFirstServeOptimizer = new FirstComeFirstServeOptimizerMain(new Instance(this.factoryConglomerate, this.orderList));
+        this.bestSolution = firstComeFirstServeOptimizer.optimize(nrOfOrdersToOptimize);
+        var simulationState = simulate(this.bestSolution, this.maxRuntime);
+        this.bestTimeSolution = simulationState.getCurrentTimeStep();
+        this.startTime = System.nanoTime();
+        if(handle != null)
+            handle.publishIncumbent(this.bestSolution, this.bestTimeSolution, 0);
+
+        //A step which is not completed costs as much as the initial temperature
+        this.penaltyForRemainingStep = Math.max(1, this.initialTemperatureRatio * this.bestTimeSolution);
+        this.bestCost = getCost(simulationState);
+
+        Map<PlanningItem, Transporter> currentTransporters = new HashMap<>();
+        var currentOrder = planningItems;
+        var currentSteps = this.planningItemDecoder.createSteps(currentOrder, currentTransporters);
+        if(currentSteps == null)
+        {
+            //The planning items are not possible in any order
+            System.out.println("Planning items are not possible, first come first serve solution is used");
+            return this.bestSolution;
+        }
+        simulationState = simulate(currentSteps, this.maxRuntime);
+        var currentCost = getCost(simulationState);
+        updateBestSolution(currentSteps, simulationState, currentCost);
+
+        var transportersForPlanningItems = getTransportersForPlanningItems(planningItems);
+        var random = new Random(this.seed);
+        var initialTemperature = this.penaltyForRemainingStep;
+        for(long iteration = 0; !isStopRequested(iteration); iteration++)
+        {
+            var temperature = initialTemperature * Math.pow(FINAL_TEMPERATURE_FACTOR, getProgress(iteration));
+
+            var neighborOrder = currentOrder;
+            var neighborTransporters = currentTransporters;
+            switch (random.nextInt(3))
+            {
+                case 0 -> neighborOrder = swapPlanningItems(currentOrder, random);
+                case 1 -> neighborOrder = moveProductionBatch(currentOrder, random);
+                default -> neighborTransporters = changeTransporter(currentOrder, currentTransporters, transportersForPlanningItems, random);
+            }
+            if(neighborOrder == null || neighborTransporters == null)
+                continue;
+
+            var neighborSteps = this.planningItemDecoder.createSteps(neighborOrder, neighborTransporters);
+            if(neighborSteps == null)
+            {
+                this.nrOfInfeasibleMoves++;
+                continue;
+            }
+
+            //Metropolis criterion: the neighbor is accepted if its cost is not higher than the threshold. A simulation
+            //which reaches the threshold can not be accepted and is stopped.
+            var threshold = currentCost - temperature * Math.log(1 - random.nextDouble());
+            simulationState = simulate(neighborSteps, (long) Math.min(threshold, this.maxRuntime));
+            var cost = getCost(simulationState);
+            if(cost > threshold)
+                continue;
+
+            this.nrOfAcceptedMoves++;
+            currentOrder = neighborOrder;
+            currentTransporters = neighborTransporters;
+            currentCost = cost;
+            updateBestSolution(neighborSteps, simulationState, cost);
+        }
+
+        return this.bestSolution;
+    }
+
+    /**
+     * Simulates the steps from the start
+     * @param factorySteps steps to simulate
+     * @param maxRunTime max run time of the simulation
+     * @return the state after the simulation
+     */
+    private SimulationState simulate(List<FactoryStep> factorySteps, long maxRunTime)
+    {
+        this.nrOfSimulations++;
+        var simulationState = this.factoryConglomerate.createSimulationState(this.orderList);
+        this.factoryConglomerate.startSimulation(simulationState, factorySteps, false, maxRunTime);
+        return simulationState;
+    }
+
+    /**
+     * Returns the cost of a simulation. A completed simulation costs its makespan. A simulation with remaining steps
+     * (stopped at the max run time or blocked, e.g. by a full warehouse) costs the max run time and a penalty for
+     * every remaining step, so the search can leave solutions which are not completed.
+     * @param simulationState state after the simulation
+     * @return the cost of the simulation
+     */
+    private double getCost(SimulationState simulationState)
+    {
+        var nrOfRemainingSteps = simulationState.getNrOfRemainingSteps();
+        if(nrOfRemainingSteps == 0)
+            return simulationState.getCurrentTimeStep();
+        return this.maxRuntime + nrOfRemainingSteps * this.penaltyForRemainingStep;
+    }
+
+    private void updateBestSolution(List<FactoryStep> factorySteps, SimulationState simulationState, double cost)
+    {
+        if(cost >= this.bestCost)
+            return;
+
+        this.bestCost = cost;
+        this.bestTimeSolution = simulationState.getCurrentTimeStep();
+        this.bestSolution = factorySteps;
+        if(this.optimizationHandle != null)
+            this.optimizationHandle.publishIncumbent(factorySteps, this.bestTimeSolution, this.nrOfSimulations);
+        else if(this.factoryConglomerate.getLogSettings().printOptimizationMessages())
+            System.out.println("Nr of simulations: " + this.nrOfSimulations + " Result: " + this.bestTimeSolution +
+                    " Nr Remaining Steps:" + simulationState.getNrOfRemainingSteps());
+    }
+
+    /**
+     * Returns the transporters which fulfill the transportation constraints of the acquire and deliver planning items
+     * @param planningItems planning items of the optimization
+     * @return the transporters for every acquire and deliver planning item with more than one possible transporter
+     */
+    private Map<PlanningItem, List<Transporter>> getTransportersForPlanningItems(List<PlanningItem> planningItems)
+    {
+        var transportersForPlanningItems = new HashMap<PlanningItem, List<Transporter>>();
+        var transporterCompatibility = this.factoryConglomerate.getTransporterCompatibility();
+        for(var planningItem : planningItems)
+        {
+            var transporters = new ArrayList<Transporter>();
+            for(var transporter : this.factoryConglomerate.getTransporters())
+            {
+                if(planningItem.planningType() == PlanningType.Acquire && planningItem.item() instanceof Material &&
+                        transporterCompatibility.isFitting(transporter, planningItem.item()))
+                    transporters.add(transporter);
+                else if(planningItem.planningType() == PlanningType.Deliver && planningItem.item() instanceof Order &&
+                        transporterCompatibility.isFitting(transporter, planningItem.item()))
+                    transporters.add(transporter);
+            }
+
+            if(transporters.size() > 1)
+                transportersForPlanningItems.put(planningItem, transporters);
+        }
+        return transportersForPlanningItems;
+    }
+
+    /**
+     * Swaps two planning items which are not further apart than the move distance
+     * @param planningItemOrder current order of the planning items
+     * @param random random of the optimization
+     * @return the new order, null if no move is possible
+     */
+    private static List<PlanningItem> swapPlanningItems(List<PlanningItem> planningItemOrder, Random random)
+    {
+        if(planningItemOrder.size() < 2)
+            return null;
+
+        var first = random.nextInt(planningItemOrder.size());
+        var second = getSecondPosition(planningItemOrder.size(), first, random);
+        var newOrder = new ArrayList<>(planningItemOrder);
+        Collections.swap(newOrder, first, second);
+        return newOrder;
+    }
+
+    /**
+     * Moves a production batch to another position which is not further apart than the move distance. Every batch of
+     * a product uses the same production process, so the batches can be produced in every order.
+     * @param planningItemOrder current order of the planning items
+     * @param random random of the optimization
+     * @return the new order, null if no move is possible
+     */
+    private static List<PlanningItem> moveProductionBatch(List<PlanningItem> planningItemOrder, Random random)
+    {
+        var productionPositions = new ArrayList<Integer>();
+        for(int i = 0; i < planningItemOrder.size(); i++)
+        {
+            if(planningItemOrder.get(i).planningType() == PlanningType.Produce)
+                productionPositions.add(i);
+        }
+        if(productionPositions.isEmpty() || planningItemOrder.size() < 2)
+            return null;
+
+        var from = productionPositions.get(random.nextInt(productionPositions.size()));
+        var to = getSecondPosition(planningItemOrder.size(), from, random);
+        var newOrder = new ArrayList<>(planningItemOrder);
+        newOrder.add(to, newOrder.remove((int) from));
+        return newOrder;
+    }
+
+    /**
+     * Uses another transporter for the trips of an acquire or deliver planning item
+     * @param planningItemOrder current order of the planning items
+     * @param transporters current transporters of the planning items
+     * @param transportersForPlanningItems possible transporters of the planning items
+     * @param random random of the optimization
+     * @return the new transporters, null if no move is possible
+     */
+    private static Map<PlanningItem, Transporter> changeTransporter(List<PlanningItem> planningItemOrder,
+                                                                   Map<PlanningItem, Transporter> transporters,
+                                                                   Map<PlanningItem, List<Transporter>> transportersForPlanningItems,
+                                                                   Random random)
+    {
+        if(transportersForPlanningItems.isEmpty())
+            return null;
+
+        PlanningItem planningItem;
+        do
+        {
+            planningItem = planningItemOrder.get(random.nextInt(planningItemOrder.size()));
+        }
+        while (!transportersForPlanningItems.containsKey(planningItem));
+
+        var possibleTransporters = transportersForPlanningItems.get(planningItem);
+        var transporter = possibleTransporters.get(random.nextInt(possibleTransporters.size()));
+        if(transporter == transporters.get(planningItem))
+            return null;
+
+        var newTransporters = new HashMap<>(transporters);
+        newTransporters.put(planningItem, transporter);
+        return newTransporters;
+    }
+
+    /**
+     * @param nrOfPositions nr of planning items
+     * @param first first position of the move
+     * @param random random of the optimization
+     * @return a position which is different from the first position and not further apart than the move distance
+     */
+    private static int getSecondPosition(int nrOfPositions, int first, Random random)
+    {
+        var distance = Math.max(MIN_MOVE_DISTANCE, nrOfPositions / 10);
+        var from = Math.max(0, first - distance);
+        var to = Math.min(nrOfPositions - 1, first + distance);
+        var second = from + random.nextInt(to - from);
+        if(second >= first)
+            second++;
+        return second;
+    }
+
+    /**
+     * @param iteration nr of the current iteration
+     * @return the part of the run time or the iterations which is over, between 0 and 1
+     */
+    private double getProgress(long iteration)
+    {
+        var progress = 0.0;
+        if(this.maxSystemRunTime != 0)
+            progress = (double) (System.nanoTime() - this.startTime) / this.maxSystemRunTime;
+        if(this.maxNrOfIterations != 0)
+            progress = Math.max(progress, (double) iteration / this.maxNrOfIterations);
+        else if(this.maxSystemRunTime == 0)
+            progress = (double) iteration / DEFAULT_MAX_NR_OF_ITERATIONS;
+        return Math.min(progress, 1);
+    }
+
+    /**
+     * @param iteration nr of the current iteration
+     * @return true if the max nr of iterations or the max system run time of the calculation is reached. The
+     * asynchronous optimization uses the run time of the handle and stops if the handle was cancelled.
+     */
+    private boolean isStopRequested(long iteration)
+    {
+        if(this.maxNrOfIterations != 0 && iteration >= this.maxNrOfIterations)
+            return true;
+        if(this.maxNrOfIterations == 0 && this.maxSystemRunTime == 0 && this.optimizationHandle == null &&
+                iteration >= DEFAULT_MAX_NR_OF_ITERATIONS)
+            return true;
+        if(this.optimizationHandle != null)
+            return this.optimizationHandle.isStopRequested();
+        return this.maxSystemRunTime != 0 && System.nanoTime() > (this.maxSystemRunTime + this.startTime);
+    }
+}